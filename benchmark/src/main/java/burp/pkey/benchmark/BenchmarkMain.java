@@ -0,0 +1,31 @@
+package burp.pkey.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 性能测试入口（默认启用 GC 分析器，输出内存分配速率；其它参数与 JMH 命令行参数一致）
+ * <p>
+ * 示例：java -Dpkscan.corpus=/path/to/corpus -jar benchmark/target/benchmarks.jar FpCheckBenchmark
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmdOptions);
+        builder.addProfiler(GCProfiler.class);
+        // 录制的数据包目录需要传递给测试进程
+        String corpusDir = System.getProperty(FpBenchmarkData.PROPERTY_CORPUS_DIR);
+        if (corpusDir != null) {
+            builder.jvmArgsAppend("-D" + FpBenchmarkData.PROPERTY_CORPUS_DIR + "=" + corpusDir);
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
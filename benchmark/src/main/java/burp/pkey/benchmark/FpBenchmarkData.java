@@ -0,0 +1,237 @@
+package burp.pkey.benchmark;
+
+import burp.pkey.common.utils.FileUtils;
+import burp.pkey.common.utils.GsonUtils;
+import burp.pkey.onescan.bean.FpColumn;
+import burp.pkey.onescan.bean.FpConfig;
+import burp.pkey.onescan.bean.FpData;
+import burp.pkey.onescan.bean.FpRule;
+import burp.pkey.onescan.manager.FpManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 性能测试数据（指纹配置、请求响应数据包）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class FpBenchmarkData {
+
+    /**
+     * 指纹配置：插件内置的指纹配置
+     */
+    public static final String RULES_DEFAULT = "default";
+
+    /**
+     * 指纹配置：在内置指纹配置的基础上，生成到 5000 条指纹
+     */
+    public static final String RULES_SYNTHETIC_5K = "synthetic-5k";
+
+    /**
+     * 指定录制的数据包目录（目录中的 xxx.req 与 xxx.resp 文件为一组请求响应数据包）
+     */
+    public static final String PROPERTY_CORPUS_DIR = "pkscan.corpus";
+
+    private static final int SYNTHETIC_RULE_COUNT = 5000;
+    private static final int SYNTHETIC_CORPUS_SIZE = 256;
+    private static final String[] WORDS = {"admin", "login", "portal", "console", "dashboard", "api", "service",
+            "system", "manager", "cloud", "gateway", "server", "platform", "monitor", "report", "config", "user",
+            "office", "mail", "file", "upload", "static", "assets", "vendor", "framework", "version", "build"};
+
+    private FpBenchmarkData() {
+        throw new IllegalAccessError("FpBenchmarkData class not support create instance.");
+    }
+
+    /**
+     * 生成指纹配置文件
+     *
+     * @param name 指纹配置名（示例：{@link #RULES_DEFAULT}）
+     * @return 指纹配置文件路径
+     */
+    public static String prepareRules(String name) throws IOException {
+        String json = readDefaultRules();
+        if (RULES_SYNTHETIC_5K.equals(name)) {
+            FpConfig config = GsonUtils.toObject(json, FpConfig.class);
+            fillSyntheticRules(config, SYNTHETIC_RULE_COUNT);
+            json = GsonUtils.toJson(config);
+        } else if (!RULES_DEFAULT.equals(name)) {
+            throw new IllegalArgumentException("Unknown rules: " + name);
+        }
+        File file = File.createTempFile("fp_config_" + name + "_", ".json");
+        file.deleteOnExit();
+        FileUtils.writeFile(file.getPath(), json);
+        return file.getPath();
+    }
+
+    /**
+     * 加载请求响应数据包（未指定录制的数据包目录时，根据指纹规则生成数据包）
+     *
+     * @return 数据包列表（下标0为请求数据包，下标1为响应数据包）
+     */
+    public static List<byte[][]> loadCorpus() throws IOException {
+        String dir = System.getProperty(PROPERTY_CORPUS_DIR);
+        if (dir != null && !dir.trim().isEmpty()) {
+            List<byte[][]> result = loadCorpus(new File(dir.trim()));
+            if (!result.isEmpty()) {
+                return result;
+            }
+        }
+        FpConfig config = GsonUtils.toObject(readDefaultRules(), FpConfig.class);
+        return buildSyntheticCorpus(config.getList(), SYNTHETIC_CORPUS_SIZE);
+    }
+
+    private static List<byte[][]> loadCorpus(File dir) throws IOException {
+        List<byte[][]> result = new ArrayList<>();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".req"));
+        if (files == null) {
+            return result;
+        }
+        for (File reqFile : files) {
+            String path = reqFile.getPath();
+            File respFile = new File(path.substring(0, path.length() - 4) + ".resp");
+            byte[] reqBytes = Files.readAllBytes(reqFile.toPath());
+            byte[] respBytes = respFile.isFile() ? Files.readAllBytes(respFile.toPath()) : null;
+            result.add(new byte[][]{reqBytes, respBytes});
+        }
+        return result;
+    }
+
+    private static String readDefaultRules() {
+        InputStream is = FpManager.class.getClassLoader().getResourceAsStream("fp_config.json");
+        if (is == null) {
+            throw new IllegalStateException("fp_config.json not found.");
+        }
+        return FileUtils.readStreamToString(is);
+    }
+
+    /**
+     * 生成指纹数据，直到指纹数量达到 count（使用固定的随机数种子，每次生成的数据一致）
+     */
+    private static void fillSyntheticRules(FpConfig config, int count) {
+        Random random = new Random(42);
+        List<FpColumn> columns = config.getColumns();
+        String columnId = columns.isEmpty() ? "name" : columns.get(0).getId();
+        List<FpData> list = config.getList();
+        for (int i = list.size(); i < count; i++) {
+            ArrayList<ArrayList<FpRule>> rules = new ArrayList<>();
+            int groupCount = 1 + random.nextInt(3);
+            for (int j = 0; j < groupCount; j++) {
+                ArrayList<FpRule> group = new ArrayList<>();
+                int ruleCount = 1 + random.nextInt(2);
+                for (int k = 0; k < ruleCount; k++) {
+                    group.add(randomRule(random));
+                }
+                rules.add(group);
+            }
+            ArrayList<FpData.Param> params = new ArrayList<>();
+            params.add(new FpData.Param(columnId, "Synthetic-" + i));
+            FpData data = new FpData();
+            data.setParams(params);
+            data.setColor(FpManager.sColorNames[random.nextInt(FpManager.sColorNames.length)]);
+            data.setRules(rules);
+            list.add(data);
+        }
+    }
+
+    private static FpRule randomRule(Random random) {
+        FpRule rule = new FpRule();
+        rule.setDataSource("response");
+        int type = random.nextInt(20);
+        if (type < 10) {
+            rule.setField(random.nextBoolean() ? "body" : "header");
+            rule.setMethod("contains");
+            rule.setContent(randomWord(random) + "-" + randomWord(random));
+        } else if (type < 14) {
+            rule.setField("body");
+            rule.setMethod("iContains");
+            rule.setContent(randomWord(random) + " " + randomWord(random));
+        } else if (type < 17) {
+            rule.setField("body");
+            rule.setMethod("regex");
+            rule.setContent(randomWord(random) + "[-_]v?\\d+\\." + randomWord(random));
+        } else if (type < 19) {
+            rule.setField("title");
+            rule.setMethod("equals");
+            rule.setContent(randomWord(random) + " " + randomWord(random));
+        } else {
+            rule.setField("status");
+            rule.setMethod("equals");
+            rule.setContent(String.valueOf(200 + random.nextInt(5) * 100));
+        }
+        return rule;
+    }
+
+    /**
+     * 生成数据包（大约一半的响应包含某条指纹的全部规则内容）
+     */
+    private static List<byte[][]> buildSyntheticCorpus(List<FpData> fpList, int size) {
+        Random random = new Random(7);
+        List<byte[][]> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String path = "/" + randomWord(random) + "/" + randomWord(random) + "?id=" + i;
+            String host = randomWord(random) + ".example.com";
+            String request = "GET " + path + " HTTP/1.1\r\n" +
+                    "Host: " + host + "\r\n" +
+                    "User-Agent: Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36\r\n" +
+                    "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" +
+                    "Accept-Language: zh-CN,zh;q=0.9,en;q=0.8\r\n" +
+                    "Cookie: session=" + Long.toHexString(random.nextLong()) + "\r\n" +
+                    "Connection: close\r\n\r\n";
+            StringBuilder headers = new StringBuilder();
+            StringBuilder body = new StringBuilder();
+            String title = randomWord(random) + " " + randomWord(random);
+            if (random.nextBoolean() && !fpList.isEmpty()) {
+                FpData data = fpList.get(random.nextInt(fpList.size()));
+                ArrayList<FpRule> group = data.getRules().get(random.nextInt(data.getRules().size()));
+                for (FpRule rule : group) {
+                    if (!"response".equals(rule.getDataSource()) || rule.getMethod().startsWith("not")) {
+                        continue;
+                    }
+                    if ("header".equals(rule.getField())) {
+                        headers.append("X-Powered-By: ").append(rule.getContent()).append("\r\n");
+                    } else if ("title".equals(rule.getField())) {
+                        title = rule.getContent();
+                    } else if ("body".equals(rule.getField()) && !rule.getMethod().contains("egex")) {
+                        body.append("<!-- ").append(rule.getContent()).append(" -->\n");
+                    }
+                }
+            }
+            body.insert(0, "<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>" + title +
+                    "</title>\n</head>\n<body>\n");
+            int paragraphs = 20 + random.nextInt(200);
+            for (int j = 0; j < paragraphs; j++) {
+                body.append("<p class=\"").append(randomWord(random)).append("\">");
+                for (int k = 0; k < 12; k++) {
+                    body.append(randomWord(random)).append(' ');
+                }
+                body.append("</p>\n");
+            }
+            body.append("</body>\n</html>\n");
+            byte[] bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            String response = "HTTP/1.1 200 OK\r\n" +
+                    "Server: nginx\r\n" +
+                    "Date: Sun, 18 Oct 2026 08:00:00 GMT\r\n" +
+                    "Content-Type: text/html; charset=utf-8\r\n" +
+                    "Content-Length: " + bodyBytes.length + "\r\n" +
+                    headers +
+                    "\r\n";
+            byte[] headerBytes = response.getBytes(StandardCharsets.UTF_8);
+            byte[] respBytes = new byte[headerBytes.length + bodyBytes.length];
+            System.arraycopy(headerBytes, 0, respBytes, 0, headerBytes.length);
+            System.arraycopy(bodyBytes, 0, respBytes, headerBytes.length, bodyBytes.length);
+            result.add(new byte[][]{request.getBytes(StandardCharsets.UTF_8), respBytes});
+        }
+        return result;
+    }
+
+    private static String randomWord(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
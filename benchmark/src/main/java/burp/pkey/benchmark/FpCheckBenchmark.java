@@ -0,0 +1,96 @@
+package burp.pkey.benchmark;
+
+import burp.pkey.common.log.Logger;
+import burp.pkey.onescan.bean.FpDSProvider;
+import burp.pkey.onescan.bean.FpData;
+import burp.pkey.onescan.manager.FpManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指纹识别性能测试（缓存命中、缓存未命中）
+ * <p>
+ * 缓存命中测试只使用识别结果不为空的数据包，并在测试前确认这些数据包全部命中缓存。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FpCheckBenchmark {
+
+    @Param({FpBenchmarkData.RULES_DEFAULT, FpBenchmarkData.RULES_SYNTHETIC_5K})
+    public String rules;
+
+    private List<byte[][]> corpus;
+
+    /**
+     * 缓存命中测试使用的数据包（只包含识别结果不为空的数据包，识别结果为空时不缓存）
+     */
+    private List<byte[][]> hitCorpus;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Logger.init(false, null, null);
+        FpManager.init(FpBenchmarkData.prepareRules(rules));
+        corpus = FpBenchmarkData.loadCorpus();
+        // 预先识别一遍，填充缓存
+        hitCorpus = new ArrayList<>();
+        for (byte[][] item : corpus) {
+            if (!FpManager.check(item[0], item[1]).isEmpty()) {
+                hitCorpus.add(item);
+            }
+        }
+        if (hitCorpus.isEmpty()) {
+            throw new IllegalStateException("No fingerprint matched in corpus, cache hit benchmark is meaningless.");
+        }
+        // 确认缓存命中率为 100%
+        Set<String> requiredFields = FpManager.getRequiredFields();
+        int hitCount = 0;
+        for (byte[][] item : hitCorpus) {
+            String key = new FpDSProvider(item[0], item[1]).getCacheKey(requiredFields);
+            if (FpManager.findCacheByKey(key) != null) {
+                hitCount++;
+            }
+        }
+        if (hitCount != hitCorpus.size()) {
+            throw new IllegalStateException(String.format("Cache hit rate is not 100%% (%d/%d)",
+                    hitCount, hitCorpus.size()));
+        }
+    }
+
+    /**
+     * 循环读取数据包的游标（每个线程独立）
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int index;
+
+        private byte[][] next(List<byte[][]> corpus) {
+            if (index >= corpus.size()) {
+                index = 0;
+            }
+            return corpus.get(index++);
+        }
+    }
+
+    @Benchmark
+    public List<FpData> cacheHit(Cursor cursor) {
+        byte[][] item = cursor.next(hitCorpus);
+        return FpManager.check(item[0], item[1], true);
+    }
+
+    @Benchmark
+    public List<FpData> cacheMiss(Cursor cursor) {
+        byte[][] item = cursor.next(corpus);
+        return FpManager.check(item[0], item[1], false);
+    }
+}
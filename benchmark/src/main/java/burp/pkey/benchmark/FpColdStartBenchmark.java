@@ -0,0 +1,42 @@
+package burp.pkey.benchmark;
+
+import burp.pkey.common.log.Logger;
+import burp.pkey.onescan.bean.FpData;
+import burp.pkey.onescan.manager.FpManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指纹识别冷启动性能测试（加载并编译指纹配置后，识别第一个数据包）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(3)
+@State(Scope.Benchmark)
+public class FpColdStartBenchmark {
+
+    @Param({FpBenchmarkData.RULES_DEFAULT, FpBenchmarkData.RULES_SYNTHETIC_5K})
+    public String rules;
+
+    private String rulesPath;
+    private byte[][] firstItem;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Logger.init(false, null, null);
+        rulesPath = FpBenchmarkData.prepareRules(rules);
+        firstItem = FpBenchmarkData.loadCorpus().get(0);
+    }
+
+    @Benchmark
+    public List<FpData> coldStart() {
+        FpManager.init(rulesPath);
+        return FpManager.check(firstItem[0], firstItem[1]);
+    }
+}
@@ -1,8 +1,16 @@
 package burp;
 
+import burp.pkey.common.helper.CircuitBreaker;
 import burp.pkey.common.helper.DomainHelper;
+import burp.pkey.common.helper.FingerprintSet;
+import burp.pkey.common.helper.HostTaskScheduler;
+import burp.pkey.common.helper.IngestQueue;
+import burp.pkey.common.helper.LruCache;
 import burp.pkey.common.helper.QpsLimiter;
+import burp.pkey.common.helper.RetryTimer;
+import burp.pkey.common.helper.ScanHistoryIndex;
 import burp.pkey.common.helper.UIHelper;
+import burp.pkey.common.helper.VirtualThreadHelper;
 import burp.pkey.common.log.Logger;
 import burp.pkey.common.utils.*;
 import burp.pkey.onescan.OneScan;
@@ -15,17 +23,21 @@ import burp.pkey.onescan.manager.FpManager;
 import burp.pkey.onescan.manager.WordlistManager;
 import burp.pkey.onescan.ui.tab.DataBoardTab;
 import burp.pkey.onescan.ui.tab.FingerprintTab;
+import burp.pkey.onescan.ui.tab.config.HostTab;
 import burp.pkey.onescan.ui.tab.config.OtherTab;
+import burp.pkey.onescan.ui.tab.config.PayloadTab;
 import burp.pkey.onescan.ui.tab.config.RequestTab;
+import burp.pkey.onescan.ui.widget.ScanSessionWindow;
 import burp.pkey.onescan.ui.widget.TaskTable;
-import burp.pkey.onescan.ui.widget.payloadlist.PayloadItem;
-import burp.pkey.onescan.ui.widget.payloadlist.PayloadRule;
-import burp.pkey.onescan.ui.widget.payloadlist.ProcessingItem;
 
 import javax.swing.*;
 import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -35,12 +47,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
-import java.util.stream.Collectors;
 
 import burp.pkey.common.utils.StringUtils;
 import burp.pkey.common.utils.IPUtils;
@@ -55,14 +69,34 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         IExtensionStateListener, IContextMenuFactory {
 
     /**
-     * 任务线程数量
+     * 任务线程数量（所有流量类别共用，按类别的权重和并发占比分配）
      */
-    private static final int TASK_THREAD_COUNT = 50;
+    private static final int TASK_THREAD_COUNT = 75;
 
     /**
-     * 低频任务线程数量
+     * 每个主机的初始并发数（之后根据请求延时、失败情况自适应调整，最大为线程数的一半）
      */
-    private static final int LF_TASK_THREAD_COUNT = 25;
+    private static final int TASK_HOST_INIT_CONCURRENCY = 8;
+
+    /**
+     * 队列已满时，重试任务重新提交的间隔（毫秒）
+     */
+    private static final long RETRY_RESUBMIT_DELAY = 200;
+
+    /**
+     * 代理数据包处理线程数量（过滤、生成扫描任务）
+     */
+    private static final int INGEST_THREAD_COUNT = 4;
+
+    /**
+     * 代理数据包接收队列容量（队列已满时，按任务队列的溢出策略处理）
+     */
+    private static final int INGEST_QUEUE_CAPACITY = 10000;
+
+    /**
+     * 扫描任务生成器每次生成的扫描路径数量
+     */
+    private static final int SCAN_EXPAND_BATCH_SIZE = 16;
 
     /**
      * 指纹识别线程数量
@@ -105,14 +139,21 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
     private static final String FROM_REDIRECT = "Redirect";
 
     /**
-     * 去重过滤集合
+     * 去重过滤集合（只保存请求 ID 的 64 位指纹）
      */
-    private final Set<String> sRepeatFilter = ConcurrentHashMap.newKeySet(500000);
+    private final FingerprintSet sRepeatFilter = new FingerprintSet(8192);
 
     /**
-     * 超时的请求主机集合
+     * 日期、时间相关的动态变量名
      */
-    private final Set<String> sTimeoutReqHost = ConcurrentHashMap.newKeySet();
+    private static final List<String> DATE_TIME_VARIABLES = Arrays.asList("date.yyyy", "date.MM", "date.dd",
+            "time.HH", "time.mm", "time.ss", "date.yy", "date.M", "date.d", "time.H", "time.m", "time.s");
+
+    /**
+     * 主机相关的动态变量缓存（IP 可能变化，缓存 10 分钟）
+     */
+    private final LruCache<String, HostVariables> mHostVariables = new LruCache<>(1024, 0,
+            10 * 60 * 1000L, (k, v) -> 0);
 
     private IBurpExtenderCallbacks mCallbacks;
     private IExtensionHelpers mHelpers;
@@ -120,16 +161,25 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
     private DataBoardTab mDataBoardTab;
     private IMessageEditor mRequestTextEditor;
     private IMessageEditor mResponseTextEditor;
-    private ExecutorService mTaskThreadPool;
-    private ExecutorService mLFTaskThreadPool;
+    private HostTaskScheduler mTaskThreadPool;
     private ExecutorService mFpThreadPool;
     private ExecutorService mRefreshMsgTask;
+    private IngestQueue<IHttpRequestResponse> mIngestQueue;
+    private RetryTimer<RequestTask> mRetryTimer;
+    private CircuitBreaker mCircuitBreaker;
+    private ScanHistoryIndex mScanHistory;
+    private ScheduledExecutorService mScanHistoryFlushTask;
+    private volatile ProcessingPipeline mProcessingPipeline;
+    private ScanSessionManager mSessionManager;
+    private ExecutorService mSessionResumeTask;
+    private boolean mVirtualThread;
     private IHttpRequestResponse mCurrentReqResp;
     private QpsLimiter mQpsLimit;
     private final AtomicInteger mTaskOverCounter = new AtomicInteger(0);
     private final AtomicInteger mTaskCommitCounter = new AtomicInteger(0);
     private final AtomicInteger mLFTaskOverCounter = new AtomicInteger(0);
     private final AtomicInteger mLFTaskCommitCounter = new AtomicInteger(0);
+    private final AtomicLong mScanPathLossCounter = new AtomicLong(0);
     private Timer mStatusRefresh;
 
     private static int fileCounter = 0;
@@ -145,19 +195,36 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
     private void initData(IBurpExtenderCallbacks callbacks) {
         this.mCallbacks = callbacks;
         this.mHelpers = callbacks.getHelpers();
-        this.mTaskThreadPool = Executors.newFixedThreadPool(TASK_THREAD_COUNT);
-        this.mLFTaskThreadPool = Executors.newFixedThreadPool(LF_TASK_THREAD_COUNT);
-        this.mFpThreadPool = Executors.newFixedThreadPool(FP_THREAD_COUNT);
-        this.mRefreshMsgTask = Executors.newSingleThreadExecutor();
         this.mCallbacks.setExtensionName(Constants.PLUGIN_NAME + " v" + Constants.PLUGIN_VERSION);
         // 初始化日志打印
         Logger.init(Constants.DEBUG, mCallbacks.getStdout(), mCallbacks.getStderr());
-        // 初始化默认配置
+        // 初始化默认配置（任务调度器、数据包接收队列需要读取配置，必须在创建之前初始化）
         Config.init(callbacks);
+        this.mSessionManager = new ScanSessionManager();
+        // 恢复会话时重新提交任务（阻塞策略下可能等待队列空闲，多次恢复操作按顺序执行）
+        this.mSessionResumeTask = Executors.newSingleThreadExecutor((r) -> {
+            Thread thread = new Thread(r, "pkscan-session-resume");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.mTaskThreadPool = newTaskScheduler(TASK_THREAD_COUNT);
+        this.mFpThreadPool = Executors.newFixedThreadPool(FP_THREAD_COUNT);
+        this.mRefreshMsgTask = Executors.newSingleThreadExecutor();
+        this.mIngestQueue = new IngestQueue<>("pkscan-ingest", INGEST_THREAD_COUNT,
+                this::doProxyScan);
+        this.mIngestQueue.setCodec(new ProxyMessageCodec());
+        applyIngestQueueLimits();
+        this.mRetryTimer = new RetryTimer<>("pkscan-retry");
         // 初始化域名辅助类
         DomainHelper.init("public_suffix_list.json");
         // 初始化QPS限制器
         initQpsLimiter();
+        // 初始化主机熔断器
+        initCircuitBreaker();
+        // 初始化扫描历史索引
+        initScanHistory();
+        // 编译“请求包处理”流水线
+        compileProcessingPipeline();
         // 注册 OneScan 信息辅助面板
         this.mCallbacks.registerMessageEditorTabFactory(this);
         // 注册插件卸载监听器
@@ -183,9 +250,62 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         // 检测范围，如果不符合条件，不创建限制器
         int limit = Config.getInt(Config.KEY_QPS_LIMIT);
         int delay = Config.getInt(Config.KEY_REQUEST_DELAY);
+        int hostLimit = Config.getInt(Config.KEY_HOST_QPS_LIMIT);
+        int burst = Config.getInt(Config.KEY_QPS_BURST);
         if (limit > 0 && limit <= 9999) {
-            this.mQpsLimit = new QpsLimiter(limit, delay);
+            hostLimit = hostLimit > 0 && hostLimit <= 9999 ? hostLimit : 0;
+            burst = burst > 0 && burst <= 9999 ? burst : 0;
+            this.mQpsLimit = new QpsLimiter(limit, Math.max(0, delay), hostLimit, burst);
+        }
+    }
+
+    /**
+     * 初始化主机熔断器（已存在时只更新配置）
+     */
+    private void initCircuitBreaker() {
+        int threshold = Config.getInt(Config.KEY_CIRCUIT_FAILURE_THRESHOLD);
+        int coolDown = Config.getInt(Config.KEY_CIRCUIT_COOL_DOWN);
+        int probeCount = Config.getInt(Config.KEY_CIRCUIT_PROBE_COUNT);
+        if (mCircuitBreaker == null) {
+            mCircuitBreaker = new CircuitBreaker(threshold, coolDown, probeCount);
+        } else {
+            mCircuitBreaker.setConfig(threshold, coolDown, probeCount);
+        }
+    }
+
+    /**
+     * 初始化扫描历史索引（在后台线程中将已完成的请求 ID 加载到去重过滤集合）
+     */
+    private void initScanHistory() {
+        String workDir = Config.getWorkDir();
+        if (workDir == null) {
+            return;
         }
+        ScanHistoryIndex index = new ScanHistoryIndex(workDir + "scan_history.idx");
+        try {
+            index.open();
+        } catch (IOException e) {
+            Logger.error("Open scan history index error: %s", e.getMessage());
+            return;
+        }
+        mScanHistory = index;
+        // 定时将缓冲区的记录写入文件（不在 UI 线程中写入磁盘）
+        mScanHistoryFlushTask = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread thread = new Thread(r, "pkscan-history-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        mScanHistoryFlushTask.scheduleWithFixedDelay(index::flush, 1, 1, TimeUnit.SECONDS);
+        Thread thread = new Thread(() -> {
+            try {
+                int count = index.load(sRepeatFilter);
+                Logger.info("Load: scan history index completed. Total %d records.", count);
+            } catch (IOException e) {
+                Logger.error("Load scan history index error: %s", e.getMessage());
+            }
+        }, "pkscan-history-loader");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private void initView() {
@@ -214,10 +334,32 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
             if (mDataBoardTab == null) {
                 return;
             }
-            mDataBoardTab.refreshTaskStatus(mTaskOverCounter.get(), mTaskCommitCounter.get());
-            mDataBoardTab.refreshLFTaskStatus(mLFTaskOverCounter.get(), mLFTaskCommitCounter.get());
+            // 低频任务（原始请求、重定向请求）与常规任务共用任务调度器，按流量类别统计排队数量
+            int[] classQueued = mTaskThreadPool.getClassQueueSize();
+            int lfQueued = getClassValue(classQueued, Config.TRAFFIC_CLASS_ORIGINAL) +
+                    getClassValue(classQueued, Config.TRAFFIC_CLASS_REDIRECT);
+            mDataBoardTab.refreshTaskStatus(mTaskOverCounter.get(), mTaskCommitCounter.get(),
+                    Math.max(0, mTaskThreadPool.getQueueSize() - lfQueued), mTaskThreadPool.getDropCount(),
+                    mScanPathLossCounter.get());
+            mDataBoardTab.refreshLFTaskStatus(mLFTaskOverCounter.get(), mLFTaskCommitCounter.get(), lfQueued);
             mDataBoardTab.refreshTaskHistoryStatus();
+            mDataBoardTab.refreshIngestStatus(mIngestQueue.getPendingCount(), mIngestQueue.getAvgLagMillis(),
+                    mIngestQueue.getMaxLagMillis(), mIngestQueue.getRejectedCount());
             mDataBoardTab.refreshFpCacheStatus();
+            long historyCount = 0;
+            if (mScanHistory != null) {
+                historyCount = mScanHistory.getRecordCount();
+            }
+            mDataBoardTab.refreshRepeatFilterStatus(sRepeatFilter.size(), sRepeatFilter.getMemoryBytes(),
+                    historyCount);
+            mOneScan.getConfigPanel().refreshHostHealth(mCircuitBreaker.getStatusList());
+            ProcessingPipeline pipeline = mProcessingPipeline;
+            if (pipeline != null) {
+                mOneScan.getConfigPanel().refreshProcessingStats(pipeline.getStats());
+            }
+            if (mDataBoardTab.isScanSessionWindowShowing()) {
+                mDataBoardTab.refreshScanSessions(mSessionManager.getSessions());
+            }
         });
         mStatusRefresh.start();
     }
@@ -230,13 +372,18 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         items.add(sendToOneScanItem);
         sendToOneScanItem.addActionListener((event) -> new Thread(() -> {
             IHttpRequestResponse[] messages = invocation.getSelectedMessages();
-            for (IHttpRequestResponse httpReqResp : messages) {
-                doScan(httpReqResp, FROM_SEND);
-                // 线程池关闭后，停止发送扫描任务
-                if (isTaskThreadPoolShutdown()) {
-                    Logger.debug("sendToPlugin: thread pool is shutdown, stop sending scan task");
-                    return;
+            ScanSession session = newSendSession(messages);
+            try {
+                for (IHttpRequestResponse httpReqResp : messages) {
+                    doScan(httpReqResp, FROM_SEND, session);
+                    // 会话取消、线程池关闭后，停止发送扫描任务
+                    if (session.isCancelled() || isTaskThreadPoolShutdown()) {
+                        Logger.debug("sendToPlugin: session is cancelled, stop sending scan task");
+                        return;
+                    }
                 }
+            } finally {
+                mSessionManager.release(session, false);
             }
         }).start());
         // 选择 Payload 扫描
@@ -247,13 +394,18 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
             ActionListener listener = (event) -> new Thread(() -> {
                 String action = event.getActionCommand();
                 IHttpRequestResponse[] messages = invocation.getSelectedMessages();
-                for (IHttpRequestResponse httpReqResp : messages) {
-                    doScan(httpReqResp, FROM_SEND, action);
-                    // 线程池关闭后，停止发送扫描任务
-                    if (isTaskThreadPoolShutdown()) {
-                        Logger.debug("usePayloadScan: thread pool is shutdown, stop sending scan task");
-                        return;
+                ScanSession session = newSendSession(messages);
+                try {
+                    for (IHttpRequestResponse httpReqResp : messages) {
+                        doScan(httpReqResp, FROM_SEND, action, session);
+                        // 会话取消、线程池关闭后，停止发送扫描任务
+                        if (session.isCancelled() || isTaskThreadPoolShutdown()) {
+                            Logger.debug("usePayloadScan: session is cancelled, stop sending scan task");
+                            return;
+                        }
                     }
+                } finally {
+                    mSessionManager.release(session, false);
                 }
             }).start();
             for (String itemName : payloadList) {
@@ -287,8 +439,8 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
             return;
         }
         IHttpRequestResponse httpReqResp = message.getMessageInfo();
-        // 扫描任务
-        doScan(httpReqResp, FROM_PROXY);
+        // 只添加到接收队列，过滤、生成扫描任务在处理线程中执行（队列已满时按溢出策略处理）
+        mIngestQueue.offer(httpReqResp);
     }
 
     /**
@@ -434,67 +586,89 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         }
     }
 
-    private void doScan(IHttpRequestResponse httpReqResp, String from) {
+    /**
+     * 扫描代理的请求包（每个请求包创建一个扫描会话）
+     *
+     * @param httpReqResp 请求响应实例
+     */
+    private void doProxyScan(IHttpRequestResponse httpReqResp) {
+        ScanSession session = mSessionManager.newSession(ScanSession.TYPE_PROXY, getSessionName(httpReqResp));
+        try {
+            doScan(httpReqResp, FROM_PROXY, session);
+        } finally {
+            mSessionManager.release(session, false);
+        }
+    }
+
+    /**
+     * 创建发送到插件扫描的会话
+     *
+     * @param messages 选中的请求包
+     * @return 会话实例
+     */
+    private ScanSession newSendSession(IHttpRequestResponse[] messages) {
+        String name;
+        if (messages != null && messages.length == 1) {
+            name = getSessionName(messages[0]);
+        } else {
+            name = L.get("scan_session_send_name", messages == null ? 0 : messages.length);
+        }
+        return mSessionManager.newSession(ScanSession.TYPE_SEND, name);
+    }
+
+    /**
+     * 获取扫描会话名（只解析请求行，格式：GET http://x.x.x.x/path）
+     *
+     * @param httpReqResp 请求响应实例
+     * @return 会话名
+     */
+    private String getSessionName(IHttpRequestResponse httpReqResp) {
+        if (httpReqResp == null || httpReqResp.getHttpService() == null) {
+            return "null";
+        }
+        String reqHost = getReqHostByHttpService(httpReqResp.getHttpService());
+        byte[] request = httpReqResp.getRequest();
+        if (request == null) {
+            return reqHost;
+        }
+        int end = 0;
+        while (end < request.length && end < 512 && request[end] != '\r' && request[end] != '\n') {
+            end++;
+        }
+        String[] split = new String(request, 0, end, StandardCharsets.ISO_8859_1).split(" ");
+        if (split.length < 2) {
+            return reqHost;
+        }
+        return split[0] + " " + reqHost + split[1];
+    }
+
+    private void doScan(IHttpRequestResponse httpReqResp, String from, ScanSession session) {
 
         String item = WordlistManager.getItem(WordlistManager.KEY_PAYLOAD);
         List<String> payloads = WordlistManager.getPayload(item);
 //        doScan(httpReqResp, from, item);
-        doScan(httpReqResp, from, payloads);
+        doScan(httpReqResp, from, payloads, Config.TRAFFIC_CLASS_SCAN, session);
 
         if (!mDataBoardTab.hasPayloadMultiBypass()){
             return;
         }
 
-        List<String> bypass_payloads = new ArrayList<>();
         String bypass_first = "Bypass_First_List";
         List<String> bypass_first_payload = WordlistManager.getPayload(bypass_first);
 
         String bypass_end = "Bypass_End_List";
         List<String> bypass_end_payload = WordlistManager.getPayload(bypass_end);
 
-        for (String urlPath : payloads) {
-
-            String[] strings = splitUrlPath(urlPath);
-
-            String old = null;
-            if (strings != null) {
-                old = strings[1];
-            }
-
-            for (String bypass : bypass_first_payload) {
-                String newPath = null;
-                if (strings != null) {
-                    newPath = strings[0];
-                }
-                if (newPath != null && !bypass.startsWith("/") && !newPath.endsWith("/")) {
-                    newPath = "/";
-                }
-                newPath += bypass + old;
-                bypass_payloads.add(newPath);
-            }
-
-            for (String bypass : bypass_end_payload) {
-                String newPath = null;
-                if (strings != null) {
-                    newPath = strings[0];
-                }
-                if (newPath != null && !bypass.startsWith("/") && !newPath.endsWith("/")) {
-                    newPath = "/";
-                }
-                if (strings != null) {
-                    newPath += strings[1] + bypass;
-                }
-
-                bypass_payloads.add(newPath);
-            }
-        }
-
-        doScan(httpReqResp, from, bypass_payloads);
+        // Bypass 字典在生成扫描任务时才拼接，不预先生成
+        List<String> bypass_payloads = new BypassPayloadList(payloads, bypass_first_payload, bypass_end_payload);
+        doScan(httpReqResp, from, bypass_payloads, Config.TRAFFIC_CLASS_BYPASS, session);
 
     }
 
-    private void doScan(IHttpRequestResponse httpReqResp, String from, List<String> payloads) {
-        if (httpReqResp == null || httpReqResp.getHttpService() == null) {
+    private void doScan(IHttpRequestResponse httpReqResp, String from, List<String> payloads, int trafficClass,
+                        ScanSession session) {
+        // 会话已取消时，不再生成任务
+        if (httpReqResp == null || httpReqResp.getHttpService() == null || session.isCancelled()) {
             return;
         }
         IRequestInfo info = mHelpers.analyzeRequest(httpReqResp);
@@ -536,14 +710,14 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         }
         // 开启线程识别指纹，将识别结果缓存起来
         if (!mFpThreadPool.isShutdown()) {
-            mFpThreadPool.execute(() -> FpManager.check(request, response));
+            FpManager.checkAsync(request, response, mFpThreadPool);
         }
         // 准备生成任务
         URL url = getUrlByRequestInfo(info);
 
         // 原始请求也需要经过 Payload Process 处理（不过需要过滤一些后缀的流量）
         if (!proxyExcludeSuffixFilter(url.getPath())) {
-            runScanTask(httpReqResp, info, null, from);
+            runScanTask(httpReqResp, info, null, from, session);
         }
         else {
             Logger.debug("proxyExcludeSuffixFilter filter request path: %s", url.getPath());
@@ -554,41 +728,15 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         String reqHost = getReqHostByReqPath(reqPath);
         Logger.debug("doScan receive: %s", url.toString());
 
-        ArrayList<String> pathDict = getUrlPathDict(url.getPath());
+        // 扫描路径游标列表（扫描路径在任务线程中按批次生成）
+        List<ScanPathCursor> cursors = new ArrayList<>();
 
         // 检测是否禁用递归扫描
         if (!mDataBoardTab.hasDirScan()) {
 
             if (mDataBoardTab.hasPayloadMultiBypass()){
-                String path = url.getPath();
-                // 去除结尾的 '/' 符号
-                if (path.endsWith("/")) {
-                    path = path.substring(0, path.length() - 1);
-                }
-
                 // 拼接字典，发起请求
-                for (String item : payloads) {
-                    // 线程池关闭后，停止继续生成任务
-                    if (isTaskThreadPoolShutdown()) {
-                        return;
-                    }
-                    // 对完整 Host 地址的字典取消递归扫描（直接替换请求路径扫描）
-                    if (StringUtils.isNotEmpty(path) && UrlUtils.isHTTP(item)) {
-                        continue;
-                    }
-                    String urlPath = path + item;
-
-                    // 如果配置的字典不含 '/' 前缀，在根目录下扫描时，自动添加 '/' 符号
-                    if (StringUtils.isEmpty(path) && !item.startsWith("/") && !UrlUtils.isHTTP(item)) {
-                        urlPath = "/" + item;
-                    }
-                    // 检测一下是否携带完整的 Host 地址（兼容一下携带了完整的 Host 地址的情况）
-                    // 但有个前提：如果字典存在完整的 Host 地址，直接不做处理
-                    if (UrlUtils.isHTTP(reqPath) && !UrlUtils.isHTTP(item)) {
-                        urlPath = reqHost + urlPath;
-                    }
-                    runScanTask(httpReqResp, info, urlPath, FROM_SCAN);
-                }
+                cursors.add(ScanPathCursor.ofPathLevel(url.getPath(), payloads, reqPath, reqHost));
             }
             else if (mDataBoardTab.hasPayloadSingleBypass()){
                 String bypass_first = "Bypass_First_List";
@@ -604,83 +752,30 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
                 }
 
                 String[] strings = splitUrlPath(urlPath);
-
-                String end = null;
-                if (strings != null) {
-                    end = strings[1];
-                }
-
-                for (String item : bypass_first_payload) {
-
-                    if (isTaskThreadPoolShutdown()) {
-                        return;
-                    }
-                    String newUrlPath = null;
-                    if (strings != null) {
-                        newUrlPath = strings[0];
-                    }
-                    if (newUrlPath != null && !item.startsWith("/") && !newUrlPath.endsWith("/")) {
-                        newUrlPath = "/";
-                    }
-                    newUrlPath += item + end;
-                    runScanTask(httpReqResp, info, newUrlPath, FROM_SCAN);
-                }
-
-                for (String item : bypass_end_payload) {
-                    if (isTaskThreadPoolShutdown()) {
-                        return;
-                    }
-                    String newUrlPath = null;
-                    if (strings != null) {
-                        newUrlPath = strings[0] + strings[1] + item;
-                    }
-                    // 同样加入标识
-                    runScanTask(httpReqResp, info, newUrlPath, FROM_SCAN);
-                }
+                cursors.add(ScanPathCursor.ofBypassFirst(strings, bypass_first_payload));
+                cursors.add(ScanPathCursor.ofBypassEnd(strings, bypass_end_payload));
+                trafficClass = Config.TRAFFIC_CLASS_BYPASS;
             }
-
+            runScanExpandTask(httpReqResp, info, cursors, trafficClass, session);
             return;
         }
 
+        ArrayList<String> pathDict = getUrlPathDict(url.getPath());
         // 一级目录一级目录递减访问
         for (int i = pathDict.size() - 1; i >= 0; i--) {
-            String path = pathDict.get(i);
-            // 去除结尾的 '/' 符号
-            if (path.endsWith("/")) {
-                path = path.substring(0, path.length() - 1);
-            }
 
             // +++ 调用保存函数 +++
 //            savePathDictToFile((ArrayList<String>) payloads, url);
 
             // 拼接字典，发起请求
-            for (String item : payloads) {
-                // 线程池关闭后，停止继续生成任务
-                if (isTaskThreadPoolShutdown()) {
-                    return;
-                }
-                // 对完整 Host 地址的字典取消递归扫描（直接替换请求路径扫描）
-                if (StringUtils.isNotEmpty(path) && UrlUtils.isHTTP(item)) {
-                    continue;
-                }
-                String urlPath = path + item;
-
-                // 如果配置的字典不含 '/' 前缀，在根目录下扫描时，自动添加 '/' 符号
-                if (StringUtils.isEmpty(path) && !item.startsWith("/") && !UrlUtils.isHTTP(item)) {
-                    urlPath = "/" + item;
-                }
-                // 检测一下是否携带完整的 Host 地址（兼容一下携带了完整的 Host 地址的情况）
-                // 但有个前提：如果字典存在完整的 Host 地址，直接不做处理
-                if (UrlUtils.isHTTP(reqPath) && !UrlUtils.isHTTP(item)) {
-                    urlPath = reqHost + urlPath;
-                }
-                runScanTask(httpReqResp, info, urlPath, FROM_SCAN);
-            }
+            cursors.add(ScanPathCursor.ofPathLevel(pathDict.get(i), payloads, reqPath, reqHost));
         }
+        runScanExpandTask(httpReqResp, info, cursors, trafficClass, session);
     }
 
-    private void doScan(IHttpRequestResponse httpReqResp, String from, String payloadItem) {
-        if (httpReqResp == null || httpReqResp.getHttpService() == null) {
+    private void doScan(IHttpRequestResponse httpReqResp, String from, String payloadItem, ScanSession session) {
+        // 会话已取消时，不再生成任务
+        if (httpReqResp == null || httpReqResp.getHttpService() == null || session.isCancelled()) {
             return;
         }
         IRequestInfo info = mHelpers.analyzeRequest(httpReqResp);
@@ -714,13 +809,13 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         }
         // 开启线程识别指纹，将识别结果缓存起来
         if (!mFpThreadPool.isShutdown()) {
-            mFpThreadPool.execute(() -> FpManager.check(request, response));
+            FpManager.checkAsync(request, response, mFpThreadPool);
         }
         // 准备生成任务
         URL url = getUrlByRequestInfo(info);
         // 原始请求也需要经过 Payload Process 处理（不过需要过滤一些后缀的流量）
         if (!proxyExcludeSuffixFilter(url.getPath())) {
-            runScanTask(httpReqResp, info, null, from);
+            runScanTask(httpReqResp, info, null, from, session);
         } else {
             Logger.debug("proxyExcludeSuffixFilter filter request path: %s", url.getPath());
         }
@@ -737,38 +832,171 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         List<String> payloads = WordlistManager.getPayload(payloadItem);
 
         // 一级目录一级目录递减访问
+        List<ScanPathCursor> cursors = new ArrayList<>();
         for (int i = pathDict.size() - 1; i >= 0; i--) {
-            String path = pathDict.get(i);
-            // 去除结尾的 '/' 符号
-            if (path.endsWith("/")) {
-                path = path.substring(0, path.length() - 1);
+            cursors.add(ScanPathCursor.ofPathLevel(pathDict.get(i), payloads, reqPath, reqHost));
+        }
+        runScanExpandTask(httpReqResp, info, cursors, Config.TRAFFIC_CLASS_SCAN, session);
+    }
+
+    /**
+     * 添加扫描任务生成器（扫描路径按批次拼接、生成请求任务，停止任务时未生成的部分直接丢弃）
+     *
+     * @param httpReqResp  请求响应实例
+     * @param info         IRequestInfo 实例
+     * @param cursors      扫描路径游标列表
+     * @param trafficClass 生成的请求任务的流量类别
+     * @param session      扫描会话
+     */
+    private void runScanExpandTask(IHttpRequestResponse httpReqResp, IRequestInfo info, List<ScanPathCursor> cursors,
+                                   int trafficClass, ScanSession session) {
+        if (cursors.isEmpty() || session.isCancelled() || isTaskThreadPoolShutdown()) {
+            return;
+        }
+        new ScanExpandTask(mTaskThreadPool, httpReqResp, info, cursors, trafficClass, session).submit();
+    }
+
+    /**
+     * 扫描任务生成器
+     * <p>
+     * 在任务线程中执行：每次从游标中取出一批扫描路径生成请求任务，还有剩余时重新排到当前主机队列的末尾。
+     * 这样内存中只保存正在执行、排队中的请求任务，而不是全部的扫描路径。
+     * 任务队列溢出策略为丢弃时，生成器不会被丢弃（丢弃后剩余的扫描路径全部丢失）。
+     */
+    private class ScanExpandTask implements Runnable, ScanSession.Member, HostTaskScheduler.NonDroppable {
+
+        private final HostTaskScheduler scheduler;
+        private final IHttpRequestResponse httpReqResp;
+        private final IRequestInfo info;
+        private final String reqHost;
+        private final ArrayDeque<ScanPathCursor> cursors;
+        private final int trafficClass;
+        private final ScanSession session;
+        private final ScanSession hostSession;
+
+        /**
+         * 请求数据包模板（首次生成任务时创建，同一批扫描路径共用）
+         */
+        private RequestTemplate template;
+
+        private ScanExpandTask(HostTaskScheduler scheduler, IHttpRequestResponse httpReqResp, IRequestInfo info,
+                               List<ScanPathCursor> cursors, int trafficClass, ScanSession session) {
+            this.scheduler = scheduler;
+            this.httpReqResp = httpReqResp;
+            this.info = info;
+            this.reqHost = getReqHostByHttpService(httpReqResp.getHttpService());
+            this.cursors = new ArrayDeque<>(cursors);
+            this.trafficClass = trafficClass;
+            this.session = session;
+            // 生成任务期间，会话保持未完成状态
+            this.hostSession = mSessionManager.acquireHostSession(reqHost);
+            mSessionManager.acquire(session);
+        }
+
+        @Override
+        public ScanSession getSession() {
+            return session;
+        }
+
+        @Override
+        public ScanSession getHostSession() {
+            return hostSession;
+        }
+
+        private void submit() {
+            try {
+                scheduler.execute(reqHost, this);
+            } catch (Exception e) {
+                Logger.debug("ScanExpandTask submit error: %s", e.getMessage());
+                // 记录未生成的扫描路径数量
+                mScanPathLossCounter.addAndGet(getRemaining());
+                releaseTaskSessions(this, false);
             }
+        }
 
-            // +++ 调用保存函数 +++
-//            savePathDictToFile((ArrayList<String>) payloads, url);
+        /**
+         * 剩余未生成的扫描路径数量
+         */
+        private long getRemaining() {
+            long count = 0;
+            for (ScanPathCursor cursor : cursors) {
+                count += cursor.remaining();
+            }
+            return count;
+        }
 
-            // 拼接字典，发起请求
-            for (String item : payloads) {
-                // 线程池关闭后，停止继续生成任务
-                if (isTaskThreadPoolShutdown()) {
-                    return;
+        @Override
+        public void run() {
+            if (interceptBySession(this)) {
+                return;
+            }
+            if (template == null) {
+                template = newRequestTemplate(httpReqResp, info, FROM_SCAN);
+            }
+            int count = 0;
+            while (count < SCAN_EXPAND_BATCH_SIZE && !cursors.isEmpty()) {
+                // 会话取消、线程池关闭后，停止继续生成任务（剩余的扫描路径直接丢弃）
+                if (session.isCancelled() || hostSession.isCancelled() || scheduler.isShutdown()) {
+                    cursors.clear();
+                    break;
                 }
-                // 对完整 Host 地址的字典取消递归扫描（直接替换请求路径扫描）
-                if (StringUtils.isNotEmpty(path) && UrlUtils.isHTTP(item)) {
+                ScanPathCursor cursor = cursors.peek();
+                if (!cursor.hasNext()) {
+                    cursors.poll();
                     continue;
                 }
-                String urlPath = path + item;
-                // 如果配置的字典不含 '/' 前缀，在根目录下扫描时，自动添加 '/' 符号
-                if (StringUtils.isEmpty(path) && !item.startsWith("/") && !UrlUtils.isHTTP(item)) {
-                    urlPath = "/" + item;
-                }
-                // 检测一下是否携带完整的 Host 地址（兼容一下携带了完整的 Host 地址的情况）
-                // 但有个前提：如果字典存在完整的 Host 地址，直接不做处理
-                if (UrlUtils.isHTTP(reqPath) && !UrlUtils.isHTTP(item)) {
-                    urlPath = reqHost + urlPath;
-                }
-                runScanTask(httpReqResp, info, urlPath, FROM_SCAN);
+                runScanTask(httpReqResp, info, template, cursor.next(), FROM_SCAN, trafficClass, session);
+                count++;
+            }
+            if (cursors.isEmpty()) {
+                releaseTaskSessions(this, true);
+            } else {
+                // 还有未生成的扫描路径，重新排队
+                submit();
+            }
+        }
+    }
+
+    /**
+     * 多重 Bypass 字典列表（访问时才拼接，不预先生成全部组合）
+     */
+    private class BypassPayloadList extends AbstractList<String> {
+
+        private final List<String> payloads;
+        private final List<String> firstPayloads;
+        private final List<String> endPayloads;
+
+        private BypassPayloadList(List<String> payloads, List<String> firstPayloads, List<String> endPayloads) {
+            this.payloads = payloads;
+            this.firstPayloads = firstPayloads;
+            this.endPayloads = endPayloads;
+        }
+
+        @Override
+        public String get(int index) {
+            int bypassSize = firstPayloads.size() + endPayloads.size();
+            String urlPath = payloads.get(index / bypassSize);
+            int bypassIndex = index % bypassSize;
+            String[] strings = splitUrlPath(urlPath);
+            String path = strings != null ? strings[0] : null;
+            String lastDir = strings != null ? strings[1] : null;
+            if (bypassIndex < firstPayloads.size()) {
+                return ScanPathCursor.joinBypassFirst(path, firstPayloads.get(bypassIndex), lastDir);
+            }
+            String bypass = endPayloads.get(bypassIndex - firstPayloads.size());
+            String newPath = path;
+            if (newPath != null && !bypass.startsWith("/") && !newPath.endsWith("/")) {
+                newPath = "/";
+            }
+            if (strings != null) {
+                newPath += lastDir + bypass;
             }
+            return newPath;
+        }
+
+        @Override
+        public int size() {
+            return payloads.size() * (firstPayloads.size() + endPayloads.size());
         }
     }
 
@@ -1001,13 +1229,47 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
      * @param info          IRequestInfo 实例
      * @param pathWithQuery 路径+query参数
      * @param from          请求来源
+     * @param session       扫描会话
+     */
+    private void runScanTask(IHttpRequestResponse httpReqResp, IRequestInfo info, String pathWithQuery, String from,
+                             ScanSession session) {
+        runScanTask(httpReqResp, info, pathWithQuery, from, getTrafficClass(from), session);
+    }
+
+    /**
+     * 运行扫描任务
+     *
+     * @param httpReqResp   请求响应实例
+     * @param info          IRequestInfo 实例
+     * @param pathWithQuery 路径+query参数
+     * @param from          请求来源
+     * @param trafficClass  流量类别
+     * @param session       扫描会话
+     */
+    private void runScanTask(IHttpRequestResponse httpReqResp, IRequestInfo info, String pathWithQuery, String from,
+                             int trafficClass, ScanSession session) {
+        RequestTemplate template = newRequestTemplate(httpReqResp, info, from);
+        runScanTask(httpReqResp, info, template, pathWithQuery, from, trafficClass, session);
+    }
+
+    /**
+     * 运行扫描任务
+     *
+     * @param httpReqResp   请求响应实例
+     * @param info          IRequestInfo 实例
+     * @param template      请求数据包模板
+     * @param pathWithQuery 路径+query参数
+     * @param from          请求来源
+     * @param trafficClass  流量类别
+     * @param session       扫描会话
      */
-    private void runScanTask(IHttpRequestResponse httpReqResp, IRequestInfo info, String pathWithQuery, String from) {
+    private void runScanTask(IHttpRequestResponse httpReqResp, IRequestInfo info, RequestTemplate template,
+                             String pathWithQuery, String from, int trafficClass, ScanSession session) {
 
         IHttpService service = httpReqResp.getHttpService();
 
         // 处理请求头
-        byte[] request = handleHeader(httpReqResp, info, pathWithQuery, from);
+        byte[] request = handleHeader(httpReqResp, info, template, pathWithQuery);
         // 处理请求头失败时，丢弃该任务
         if (request == null) {
             return;
@@ -1020,16 +1282,19 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         }
         // 如果未启用“请求包处理”功能，直接对扫描的任务发起请求
         if (!mDataBoardTab.hasPayloadProcessing()) {
-            doBurpRequest(service, reqId, request, from);
+            doBurpRequest(service, reqId, request, from, trafficClass, session);
             return;
         }
 
 //        savePathDictToFile(new ArrayList<>(), pathWithQuery);
 
+        // 请求包处理流水线的所有阶段共用同一个请求数据包字符串（只转换一次）
+        ProcessingPipeline pipeline = mProcessingPipeline;
+        String requestRaw = mHelpers.bytesToString(request);
         // 运行已经启用并且需要合并的任务
-        runEnableAndMergeTask(service, reqId, request, from);
+        runEnableAndMergeTask(service, reqId, request, requestRaw, pipeline, from, trafficClass, session);
         // 运行已经启用并且不需要合并的任务
-        runEnabledWithoutMergeProcessingTask(service, reqId, request);
+        runEnabledWithoutMergeProcessingTask(service, reqId, request, requestRaw, pipeline, session);
     }
 
     /**
@@ -1067,11 +1332,8 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
      * @param reqId 请求 ID
      * @return true=重复；false=不重复
      */
-    private synchronized boolean checkRepeatFilterByReqId(String reqId) {
-        if (sRepeatFilter.contains(reqId)) {
-            return true;
-        }
-        return !sRepeatFilter.add(reqId);
+    private boolean checkRepeatFilterByReqId(String reqId) {
+        return !sRepeatFilter.addIfAbsent(reqId);
     }
 
     /**
@@ -1079,33 +1341,33 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
      *
      * @param service     请求目标服务实例
      * @param reqId       请求 ID
-     * @param reqRawBytes 请求数据包
-     * @param from        请求来源
-     */
-    private void runEnableAndMergeTask(IHttpService service, String reqId, byte[] reqRawBytes, String from) {
-        // 获取已经启用并且需要合并的“请求包处理”规则
-        List<ProcessingItem> processList = getPayloadProcess()
-                .stream().filter(ProcessingItem::isEnabledAndMerge)
-                .collect(Collectors.toList());
+     * @param reqRawBytes  请求数据包
+     * @param requestRaw   请求数据包字符串
+     * @param pipeline     请求包处理流水线
+     * @param from         请求来源
+     * @param trafficClass 流量类别
+     * @param session      扫描会话
+     */
+    private void runEnableAndMergeTask(IHttpService service, String reqId, byte[] reqRawBytes, String requestRaw,
+                                       ProcessingPipeline pipeline, String from, int trafficClass,
+                                       ScanSession session) {
+        // 获取已经启用并且需要合并的“请求包处理”规则（编译为一个阶段）
+        ProcessingPipeline.Stage stage = pipeline.getMergeStage();
         // 如果规则为空，直接发起请求
-        if (processList.isEmpty()) {
-            doBurpRequest(service, reqId, reqRawBytes, from);
+        if (stage == null) {
+            doBurpRequest(service, reqId, reqRawBytes, from, trafficClass, session);
             return;
         }
-        byte[] resultBytes = reqRawBytes;
-        for (ProcessingItem item : processList) {
-            ArrayList<PayloadItem> items = item.getItems();
-            resultBytes = handlePayloadProcess(service, resultBytes, items);
-        }
+        byte[] resultBytes = handlePayloadProcess(service, reqRawBytes, requestRaw, stage);
         if (resultBytes != null) {
             // 检测是否未进行任何处理
             boolean equals = Arrays.equals(reqRawBytes, resultBytes);
             // 未进行任何处理时，不变更 from 值
             String newFrom = equals ? from : from + "（" + FROM_PROCESS + "）";
-            doBurpRequest(service, reqId, resultBytes, newFrom);
+            doBurpRequest(service, reqId, resultBytes, newFrom, trafficClass, session);
         } else {
             // 如果规则处理异常导致数据返回为空，则发送原来的请求
-            doBurpRequest(service, reqId, reqRawBytes, from);
+            doBurpRequest(service, reqId, reqRawBytes, from, trafficClass, session);
         }
     }
 
@@ -1115,24 +1377,28 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
      * @param service     请求目标服务实例
      * @param reqId       请求 ID
      * @param reqRawBytes 请求数据包
-     */
-    private void runEnabledWithoutMergeProcessingTask(IHttpService service, String reqId, byte[] reqRawBytes) {
-        // 遍历规则列表，进行 Payload Processing 处理后，再次请求数据包
-        getPayloadProcess().parallelStream().filter(ProcessingItem::isEnabledWithoutMerge)
-                .forEach((item) -> {
-                    ArrayList<PayloadItem> items = item.getItems();
-                    byte[] requestBytes = handlePayloadProcess(service, reqRawBytes, items);
-                    // 因为不需要合并的规则是将每条处理完成的数据包都发送请求，所以规则处理异常的请求包，不需要发送请求
-                    if (requestBytes == null) {
-                        return;
-                    }
-                    // 检测是否未进行任何处理（如上所述的原因，未进行任何处理的请求包，也不需要发送请求）
-                    boolean equals = Arrays.equals(reqRawBytes, requestBytes);
-                    if (equals) {
-                        return;
-                    }
-                    doBurpRequest(service, reqId, requestBytes, FROM_PROCESS + "（" + item.getName() + "）");
-                });
+     * @param requestRaw  请求数据包字符串
+     * @param pipeline    请求包处理流水线
+     * @param session     扫描会话
+     */
+    private void runEnabledWithoutMergeProcessingTask(IHttpService service, String reqId, byte[] reqRawBytes,
+                                                      String requestRaw, ProcessingPipeline pipeline,
+                                                      ScanSession session) {
+        // 遍历规则列表，进行 Payload Processing 处理后，再次请求数据包（已经在任务线程中执行，不再并行处理）
+        for (ProcessingPipeline.Stage stage : pipeline.getWithoutMergeStages()) {
+            byte[] requestBytes = handlePayloadProcess(service, reqRawBytes, requestRaw, stage);
+            // 因为不需要合并的规则是将每条处理完成的数据包都发送请求，所以规则处理异常的请求包，不需要发送请求
+            if (requestBytes == null) {
+                continue;
+            }
+            // 检测是否未进行任何处理（如上所述的原因，未进行任何处理的请求包，也不需要发送请求）
+            boolean equals = Arrays.equals(reqRawBytes, requestBytes);
+            if (equals) {
+                continue;
+            }
+            doBurpRequest(service, reqId, requestBytes, FROM_PROCESS + "（" + stage.getName() + "）",
+                    Config.TRAFFIC_CLASS_PROCESS, session);
+        }
     }
 
 
@@ -1141,93 +1407,419 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
      *
      * @param service     请求目标服务实例
      * @param reqId       请求 ID
-     * @param reqRawBytes 请求数据包
-     * @param from        请求来源
+     * @param reqRawBytes  请求数据包
+     * @param from         请求来源
+     * @param trafficClass 流量类别
+     * @param session      扫描会话
      */
-    private void doBurpRequest(IHttpService service, String reqId, byte[] reqRawBytes, String from) {
+    private void doBurpRequest(IHttpService service, String reqId, byte[] reqRawBytes, String from, int trafficClass,
+                               ScanSession session) {
 
-        // 线程池关闭后，不接收任何任务
-        if (isTaskThreadPoolShutdown()) {
-            Logger.debug("doBurpRequest: thread pool is shutdown, intercept req id: %s", reqId);
+        // 会话取消、线程池关闭后，不接收任何任务
+        if (session.isCancelled() || isTaskThreadPoolShutdown()) {
+            Logger.debug("doBurpRequest: session is cancelled, intercept req id: %s", reqId);
             // 将未执行的任务从去重过滤集合中移除
             sRepeatFilter.remove(reqId);
             return;
         }
-        // 创建任务运行实例
-        TaskRunnable task = new TaskRunnable(reqId, from) {
-            @Override
-            public void run() {
-                String reqId = getReqId();
-                // 低频任务不进行 QPS 限制
-                if (!isLowFrequencyTask(from) && checkQPSLimit()) {
-                    // 拦截后，将未执行的任务从去重过滤集合中移除
-                    sRepeatFilter.remove(reqId);
-                    // 任务完成计数
-                    incrementTaskOverCounter(from);
-                    return;
-                }
-                Logger.debug("Do Send Request id: %s", reqId);
-                // 获取配置的请求重试次数
-                int retryCount = Config.getInt(Config.KEY_RETRY_COUNT);
-                // 发起请求
-                IHttpRequestResponse newReqResp = doMakeHttpRequest(service, reqRawBytes, retryCount);
-                // 构建展示的数据包
-                TaskData data = buildTaskData(newReqResp, from);
-                mDataBoardTab.getTaskTable().addTaskData(data);
-                // 收集数据
-                CollectManager.collect(false, service.getHost(), newReqResp.getResponse());
-                // 处理重定向
-                handleFollowRedirect(data);
-                // 任务完成计数
-                incrementTaskOverCounter(from);
-            }
-        };
-        // 将任务添加线程池
+        // 所有任务使用同一个任务调度器，按流量类别的权重调度
+        HostTaskScheduler scheduler = mTaskThreadPool;
+        String reqHost = getReqHostByHttpService(service);
+        // 创建任务运行实例（任务完成前，所属的会话保持未完成状态）
+        ScanSession hostSession = mSessionManager.acquireHostSession(reqHost);
+        RequestTask task = new RequestTask(service, reqId, reqRawBytes, from, trafficClass, session, hostSession);
+        mSessionManager.acquire(session);
+        // 将任务添加到当前主机的任务队列
         try {
-            // 如果是低频任务，使用低频的任务线程池
+            scheduler.execute(reqHost, task);
             if (isLowFrequencyTask(from)) {
-                mLFTaskThreadPool.execute(task);
                 // 低频任务提交计数
                 mLFTaskCommitCounter.incrementAndGet();
             } else {
-                // 否则使用常规的任务线程池
-                mTaskThreadPool.execute(task);
                 // 任务提交计数
                 mTaskCommitCounter.incrementAndGet();
             }
         } catch (Exception e) {
             Logger.error("doBurpRequest thread execute error: %s", e.getMessage());
+            // 未添加成功的任务，从去重过滤集合中移除
+            sRepeatFilter.remove(reqId);
+            releaseTaskSessions(task, false);
         }
     }
 
     /**
-     * 任务线程池是否关闭
-     *
-     * @return true=是；false=否
+     * 请求任务
      */
-    private boolean isTaskThreadPoolShutdown() {
-        return mTaskThreadPool.isShutdown() || mLFTaskThreadPool.isShutdown();
-    }
+    private class RequestTask extends TaskRunnable {
 
-    /**
-     * 当前请求来源，是否为低频任务
-     *
-     * @param from 请求来源
-     * @return true=是；false=否
-     */
-    private boolean isLowFrequencyTask(String from) {
-        if (StringUtils.isEmpty(from)) {
-            return false;
+        private final IHttpService service;
+        private final byte[] reqRawBytes;
+        private final int trafficClass;
+
+        /**
+         * 剩余重试次数（-1 表示首次执行时读取配置）
+         */
+        private int retryLeft = -1;
+
+        /**
+         * 已重试次数
+         */
+        private int retryAttempt;
+
+        private RequestTask(IHttpService service, String reqId, byte[] reqRawBytes, String from, int trafficClass,
+                            ScanSession session, ScanSession hostSession) {
+            super(reqId, from, session, hostSession);
+            this.service = service;
+            this.reqRawBytes = reqRawBytes;
+            this.trafficClass = trafficClass;
         }
-        return from.startsWith(FROM_PROXY) || from.startsWith(FROM_SEND) || from.startsWith(FROM_REDIRECT);
-    }
 
-    /**
-     * 增加任务完成计数
-     *
-     * @param from 请求来源
-     */
-    private void incrementTaskOverCounter(String from) {
+        @Override
+        public void run() {
+            // 会话已取消、已暂停时，不执行任务
+            if (interceptBySession(this)) {
+                return;
+            }
+            String reqId = getReqId();
+            String from = getFrom();
+            // 低频任务不进行 QPS 限制（重定向请求的目标可能是其它主机，需要进行 QPS 限制）
+            boolean needLimit = !isLowFrequencyTask(from) || from.startsWith(FROM_REDIRECT);
+            if (needLimit && checkQPSLimit(getReqHostByHttpService(service))) {
+                // 拦截后，将未执行的任务从去重过滤集合中移除
+                sRepeatFilter.remove(reqId);
+                // 任务完成计数
+                incrementTaskOverCounter(from);
+                releaseTaskSessions(this, false);
+                return;
+            }
+            Logger.debug("Do Send Request id: %s", reqId);
+            // 首次执行时，获取配置的请求重试次数
+            if (retryLeft < 0) {
+                retryLeft = Math.max(0, Config.getInt(Config.KEY_RETRY_COUNT));
+            }
+            String reqHost = getReqHostByHttpService(service);
+            // 发起请求
+            long startTime = System.currentTimeMillis();
+            IHttpRequestResponse newReqResp = doMakeHttpRequest(service, reqRawBytes);
+            boolean success = false;
+            if (newReqResp == null) {
+                // 当前请求主机已熔断，直接拦截
+                newReqResp = HttpReqRespAdapter.from(service, reqRawBytes);
+            } else {
+                // 根据请求延时和结果，调整当前主机的并发数
+                byte[] respBytes = newReqResp.getResponse();
+                success = respBytes != null && respBytes.length > 0;
+                long latency = System.currentTimeMillis() - startTime;
+                HostTaskScheduler scheduler = mTaskThreadPool;
+                scheduler.feedback(reqHost, latency, success);
+                // 请求失败时，交给重试定时器等待重试（不占用工作线程）
+                if (!success && scheduleRetry(this, scheduler)) {
+                    return;
+                }
+            }
+            // 请求成功时，记录到扫描历史索引（重启后不再重复扫描）
+            if (success && mScanHistory != null) {
+                mScanHistory.append(FingerprintSet.fingerprint(reqId));
+            }
+            // 构建展示的数据包
+            TaskData data = buildTaskData(newReqResp, from);
+            mDataBoardTab.getTaskTable().addTaskData(data);
+            // 指纹识别在指纹识别线程池中执行，识别完成后再更新展示的数据
+            FpManager.checkAsync(newReqResp.getRequest(), newReqResp.getResponse(), mFpThreadPool)
+                    .thenAccept((list) -> mDataBoardTab.getTaskTable().setTaskFingerprint(data, list));
+            // 收集数据
+            CollectManager.collect(false, service.getHost(), newReqResp.getResponse());
+            // 处理重定向
+            handleFollowRedirect(data, getSession());
+            // 任务完成计数
+            incrementTaskOverCounter(from);
+            releaseTaskSessions(this, true);
+        }
+    }
+
+    /**
+     * 请求任务编解码器（任务队列溢出到磁盘时使用）
+     */
+    private class RequestTaskCodec implements HostTaskScheduler.TaskCodec {
+
+        @Override
+        public byte[] encode(Runnable task) {
+            if (!(task instanceof RequestTask)) {
+                return null;
+            }
+            RequestTask item = (RequestTask) task;
+            try {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream(item.reqRawBytes.length + 128);
+                DataOutputStream dos = new DataOutputStream(bos);
+                dos.writeUTF(item.getReqId());
+                dos.writeUTF(item.getFrom());
+                dos.writeUTF(item.service.getProtocol());
+                dos.writeUTF(item.service.getHost());
+                dos.writeInt(item.service.getPort());
+                dos.writeInt(item.trafficClass);
+                dos.writeLong(item.getSession().getId());
+                dos.writeLong(item.getHostSession().getId());
+                dos.writeInt(item.retryLeft);
+                dos.writeInt(item.retryAttempt);
+                dos.writeInt(item.reqRawBytes.length);
+                dos.write(item.reqRawBytes);
+                dos.flush();
+                return bos.toByteArray();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public Runnable decode(byte[] data) {
+            try {
+                DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
+                String reqId = dis.readUTF();
+                String from = dis.readUTF();
+                String protocol = dis.readUTF();
+                String host = dis.readUTF();
+                int port = dis.readInt();
+                int trafficClass = dis.readInt();
+                ScanSession session = mSessionManager.get(dis.readLong());
+                ScanSession hostSession = mSessionManager.get(dis.readLong());
+                int retryLeft = dis.readInt();
+                int retryAttempt = dis.readInt();
+                byte[] reqRawBytes = new byte[dis.readInt()];
+                dis.readFully(reqRawBytes);
+                // 溢出的任务未完成时，所属的会话不会被移除
+                if (session == null || hostSession == null) {
+                    Logger.error("Decode request task error: session not found, req id: %s", reqId);
+                    return null;
+                }
+                IHttpService service = mHelpers.buildHttpService(host, port, protocol);
+                RequestTask task = new RequestTask(service, reqId, reqRawBytes, from, trafficClass, session,
+                        hostSession);
+                task.retryLeft = retryLeft;
+                task.retryAttempt = retryAttempt;
+                return task;
+            } catch (IOException e) {
+                Logger.error("Decode request task error: %s", e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 代理数据包编解码器（接收队列溢出到磁盘时使用，只保存请求、响应数据）
+     */
+    private class ProxyMessageCodec implements IngestQueue.Codec<IHttpRequestResponse> {
+
+        @Override
+        public byte[] encode(IHttpRequestResponse item) {
+            IHttpService service = item.getHttpService();
+            byte[] request = item.getRequest();
+            byte[] response = item.getResponse();
+            if (service == null || request == null) {
+                return null;
+            }
+            if (response == null) {
+                response = new byte[0];
+            }
+            try {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream(request.length + response.length + 64);
+                DataOutputStream dos = new DataOutputStream(bos);
+                dos.writeUTF(service.getProtocol());
+                dos.writeUTF(service.getHost());
+                dos.writeInt(service.getPort());
+                dos.writeInt(request.length);
+                dos.write(request);
+                dos.writeInt(response.length);
+                dos.write(response);
+                dos.flush();
+                return bos.toByteArray();
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public IHttpRequestResponse decode(byte[] data) {
+            try {
+                DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
+                String protocol = dis.readUTF();
+                String host = dis.readUTF();
+                int port = dis.readInt();
+                byte[] request = new byte[dis.readInt()];
+                dis.readFully(request);
+                byte[] response = new byte[dis.readInt()];
+                dis.readFully(response);
+                IHttpService service = mHelpers.buildHttpService(host, port, protocol);
+                HttpReqRespAdapter result = HttpReqRespAdapter.from(service, request);
+                result.setResponse(response);
+                return result;
+            } catch (IOException e) {
+                Logger.error("Decode proxy message error: %s", e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 创建任务调度器（按主机轮询执行任务，每个主机的并发数根据请求情况自适应调整）
+     *
+     * @param threadCount 线程数（启用虚拟线程时，按比例计算并发数）
+     * @return 任务调度器实例
+     */
+    private HostTaskScheduler newTaskScheduler(int threadCount) {
+        // 记录创建时的虚拟线程配置（停止所有任务时，配置变更才重新创建）
+        mVirtualThread = Config.getBoolean(Config.KEY_VIRTUAL_THREAD);
+        // 启用虚拟线程时，每个任务一个虚拟线程，并发数由调度器限制（不再受线程数量限制）
+        if (mVirtualThread) {
+            ExecutorService executor = VirtualThreadHelper.newVirtualThreadPerTaskExecutor();
+            if (executor != null) {
+                // 按线程数量的比例分配并发数
+                int concurrency = Config.getInt(Config.KEY_VIRTUAL_THREAD_CONCURRENCY) * threadCount / TASK_THREAD_COUNT;
+                concurrency = Math.max(threadCount, concurrency);
+                int maxHostConcurrency = Math.max(1, concurrency / 2);
+                return initTaskScheduler(new HostTaskScheduler(executor, concurrency,
+                        TASK_HOST_INIT_CONCURRENCY, maxHostConcurrency));
+            }
+            Logger.info("Virtual threads are not supported by the current JVM, use platform threads.");
+        }
+        int maxHostConcurrency = Math.max(1, threadCount / 2);
+        return initTaskScheduler(new HostTaskScheduler(threadCount, TASK_HOST_INIT_CONCURRENCY, maxHostConcurrency));
+    }
+
+    /**
+     * 初始化任务调度器的任务队列配置
+     *
+     * @param scheduler 任务调度器实例
+     * @return 任务调度器实例
+     */
+    private HostTaskScheduler initTaskScheduler(HostTaskScheduler scheduler) {
+        scheduler.setTaskCodec(new RequestTaskCodec());
+        scheduler.setOnTaskDropListener(this::handleStopTask);
+        scheduler.setTaskClassifier(this::getTaskTrafficClass);
+        applyTaskQueueLimits(scheduler);
+        applyTrafficClasses(scheduler);
+        return scheduler;
+    }
+
+    /**
+     * 应用配置的流量类别权重和并发占比
+     *
+     * @param scheduler 任务调度器实例
+     */
+    private void applyTrafficClasses(HostTaskScheduler scheduler) {
+        int[] weights = Config.getTrafficClassValues(Config.KEY_TRAFFIC_CLASS_WEIGHT);
+        int[] shares = Config.getTrafficClassValues(Config.KEY_TRAFFIC_CLASS_SHARE);
+        scheduler.setTrafficClasses(weights, shares);
+    }
+
+    /**
+     * 获取流量类别对应的值
+     *
+     * @param values 每个流量类别的值
+     * @param cls    流量类别（示例：{@link Config#TRAFFIC_CLASS_SCAN}）
+     * @return 类别不存在时返回0
+     */
+    private static int getClassValue(int[] values, int cls) {
+        return cls < values.length ? values[cls] : 0;
+    }
+
+    /**
+     * 获取任务的流量类别
+     *
+     * @param task 任务实例
+     * @return 流量类别（示例：{@link Config#TRAFFIC_CLASS_SCAN}）
+     */
+    private int getTaskTrafficClass(Runnable task) {
+        if (task instanceof RequestTask) {
+            return ((RequestTask) task).trafficClass;
+        }
+        if (task instanceof ScanExpandTask) {
+            return ((ScanExpandTask) task).trafficClass;
+        }
+        return Config.TRAFFIC_CLASS_ORIGINAL;
+    }
+
+    /**
+     * 根据请求来源获取流量类别
+     *
+     * @param from 请求来源
+     * @return 流量类别（示例：{@link Config#TRAFFIC_CLASS_SCAN}）
+     */
+    private int getTrafficClass(String from) {
+        if (StringUtils.isEmpty(from)) {
+            return Config.TRAFFIC_CLASS_ORIGINAL;
+        }
+        if (from.startsWith(FROM_REDIRECT)) {
+            return Config.TRAFFIC_CLASS_REDIRECT;
+        }
+        if (from.startsWith(FROM_SCAN)) {
+            return Config.TRAFFIC_CLASS_SCAN;
+        }
+        if (from.startsWith(FROM_PROCESS)) {
+            return Config.TRAFFIC_CLASS_PROCESS;
+        }
+        return Config.TRAFFIC_CLASS_ORIGINAL;
+    }
+
+    /**
+     * 应用配置的任务队列容量和溢出策略
+     *
+     * @param scheduler 任务调度器实例
+     */
+    private void applyTaskQueueLimits(HostTaskScheduler scheduler) {
+        int capacity = Config.getInt(Config.KEY_TASK_QUEUE_CAPACITY);
+        scheduler.setQueueLimits(capacity, getTaskQueuePolicy());
+    }
+
+    /**
+     * 应用代理数据包接收队列的容量和溢出策略（与任务队列使用相同的溢出策略）
+     */
+    private void applyIngestQueueLimits() {
+        mIngestQueue.setLimits(INGEST_QUEUE_CAPACITY, getTaskQueuePolicy());
+    }
+
+    /**
+     * 获取配置的队列溢出策略
+     *
+     * @return 溢出策略（示例：{@link HostTaskScheduler#POLICY_BLOCK}）
+     */
+    private int getTaskQueuePolicy() {
+        String policy = Config.get(Config.KEY_TASK_QUEUE_POLICY);
+        if (Config.TASK_QUEUE_POLICY_SPILL.equals(policy)) {
+            return HostTaskScheduler.POLICY_SPILL;
+        } else if (Config.TASK_QUEUE_POLICY_DROP.equals(policy)) {
+            return HostTaskScheduler.POLICY_DROP;
+        }
+        return HostTaskScheduler.POLICY_BLOCK;
+    }
+
+    /**
+     * 任务线程池是否关闭
+     *
+     * @return true=是；false=否
+     */
+    private boolean isTaskThreadPoolShutdown() {
+        return mTaskThreadPool.isShutdown();
+    }
+
+    /**
+     * 当前请求来源，是否为低频任务
+     *
+     * @param from 请求来源
+     * @return true=是；false=否
+     */
+    private boolean isLowFrequencyTask(String from) {
+        if (StringUtils.isEmpty(from)) {
+            return false;
+        }
+        return from.startsWith(FROM_PROXY) || from.startsWith(FROM_SEND) || from.startsWith(FROM_REDIRECT);
+    }
+
+    /**
+     * 增加任务完成计数
+     *
+     * @param from 请求来源
+     */
+    private void incrementTaskOverCounter(String from) {
         if (isLowFrequencyTask(from)) {
             // 低频任务完成计数
             mLFTaskOverCounter.incrementAndGet();
@@ -1240,7 +1832,7 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
     /**
      * 处理跟随重定向
      */
-    private void handleFollowRedirect(TaskData data) {
+    private void handleFollowRedirect(TaskData data, ScanSession session) {
         // 如果未启用“跟随重定向”功能，不继续执行
         if (!Config.getBoolean(Config.KEY_FOLLOW_REDIRECT)) {
             return;
@@ -1250,9 +1842,9 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         if (status < 300 || status >= 400) {
             return;
         }
-        // 如果线程中断，不继续往下执行
-        if (Thread.currentThread().isInterrupted()) {
-            Logger.debug("handleFollowRedirect: thread pool is shutdown, intercept data id: %s", data.getId());
+        // 如果会话已取消、线程中断，不继续往下执行
+        if (session.isCancelled() || Thread.currentThread().isInterrupted()) {
+            Logger.debug("handleFollowRedirect: session is cancelled, intercept data id: %s", data.getId());
             return;
         }
         // 解析响应头的 Location 值
@@ -1285,7 +1877,7 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
                 IHttpService service = buildHttpServiceByURL(redirectUrl);
                 httpReqResp = HttpReqRespAdapter.from(service, UrlUtils.toPQF(redirectUrl), headers, cookies);
             }
-            doScan(httpReqResp, FROM_REDIRECT + "（" + data.getId() + "）");
+            doScan(httpReqResp, FROM_REDIRECT + "（" + data.getId() + "）", session);
         } catch (IllegalArgumentException e) {
             Logger.error("Follow redirect error: " + e.getMessage());
         }
@@ -1329,159 +1921,140 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
     }
 
     /**
-     * 调用 BurpSuite 请求方式
+     * 调用 BurpSuite 请求方式（只请求一次，失败时由 {@link #scheduleRetry} 安排重试）
      *
      * @param service     请求目标服务实例
      * @param reqRawBytes 请求数据包
-     * @param retryCount  重试次数（为0表示不重试）
-     * @return 请求响应数据
+     * @return 请求响应数据（请求失败时不包含响应；启用主机熔断并且当前请求主机已熔断时，返回null）
      */
-    private IHttpRequestResponse doMakeHttpRequest(IHttpService service, byte[] reqRawBytes, int retryCount) {
-        IHttpRequestResponse reqResp;
+    private IHttpRequestResponse doMakeHttpRequest(IHttpService service, byte[] reqRawBytes) {
         String reqHost = getReqHostByHttpService(service);
-        // 如果启用拦截超时主机，并检测到当前请求主机超时，直接拦截
-        if (Config.getBoolean(Config.KEY_INTERCEPT_TIMEOUT_HOST) && checkTimeoutByReqHost(reqHost)) {
-            return HttpReqRespAdapter.from(service, reqRawBytes);
+        // 发起请求前检测主机熔断器
+        if (Config.getBoolean(Config.KEY_INTERCEPT_TIMEOUT_HOST) && !mCircuitBreaker.allowRequest(reqHost)) {
+            Logger.debug("Do Request intercept, circuit open host: %s", reqHost);
+            return null;
         }
+        IHttpRequestResponse result = null;
         try {
-            reqResp = mCallbacks.makeHttpRequest(service, reqRawBytes);
-            byte[] respRawBytes = reqResp.getResponse();
-            if (respRawBytes != null && respRawBytes.length > 0) {
-                return reqResp;
-            }
+            result = mCallbacks.makeHttpRequest(service, reqRawBytes);
         } catch (Exception e) {
             Logger.debug("Do Request error, request host: %s", reqHost);
-            reqResp = HttpReqRespAdapter.from(service, reqRawBytes);
         }
+        if (result == null) {
+            result = HttpReqRespAdapter.from(service, reqRawBytes);
+        }
+        // 记录请求结果，更新主机熔断器状态
+        byte[] respBytes = result.getResponse();
+        if (respBytes != null && respBytes.length > 0) {
+            mCircuitBreaker.onSuccess(reqHost);
+        } else {
+            mCircuitBreaker.onFailure(reqHost);
+        }
+        return result;
+    }
+
+    /**
+     * 请求失败时，按配置的重试间隔（支持指数退避、随机抖动）添加到重试定时器，到达时间后重新提交到任务调度器
+     *
+     * @param task      请求任务
+     * @param scheduler 执行任务的调度器
+     * @return true=已添加重试；false=不需要重试（重试次数已用完，或者线程池已关闭）
+     */
+    private boolean scheduleRetry(RequestTask task, HostTaskScheduler scheduler) {
+        String reqHost = getReqHostByHttpService(task.service);
         // 如果线程中断，不继续往下执行
-        if (Thread.currentThread().isInterrupted()) {
-            Logger.debug("doMakeHttpRequest: thread pool is shutdown, intercept task");
-            return reqResp;
+        if (Thread.currentThread().isInterrupted() || scheduler.isShutdown()) {
+            Logger.debug("scheduleRetry: thread pool is shutdown, intercept task");
+            return false;
         }
-        Logger.debug("Check retry request host: %s, count: %d", reqHost, retryCount);
-        // 检测是否需要重试
-        if (retryCount <= 0) {
-            // 超时的请求，直接添加到集合中
-            sTimeoutReqHost.add(reqHost);
-            return reqResp;
+        Logger.debug("Check retry request host: %s, count: %d", reqHost, task.retryLeft);
+        // 检测是否需要重试（重试次数已用完，或者主机已熔断时，不再重试）
+        if (task.retryLeft <= 0) {
+            return false;
+        }
+        if (Config.getBoolean(Config.KEY_INTERCEPT_TIMEOUT_HOST) && mCircuitBreaker.isOpen(reqHost)) {
+            Logger.debug("scheduleRetry: circuit open host: %s, intercept retry", reqHost);
+            return false;
         }
         // 获取配置的请求重试间隔时间
         int retryInterval = Config.getInt(Config.KEY_RETRY_INTERVAL);
-        if (retryInterval > 0) {
-            try {
-                Thread.sleep(retryInterval);
-            } catch (InterruptedException e) {
-                // 如果线程中断，返回目前的响应结果
-                return reqResp;
+        boolean exponential = Config.RETRY_BACKOFF_EXPONENTIAL.equals(Config.get(Config.KEY_RETRY_BACKOFF));
+        boolean jitter = Config.getBoolean(Config.KEY_RETRY_JITTER);
+        long delay = RetryTimer.computeDelay(retryInterval, task.retryAttempt, exponential, jitter);
+        task.retryLeft--;
+        task.retryAttempt++;
+        return mRetryTimer.schedule(task, delay, (item) -> resubmitRetryTask(item, reqHost, scheduler));
+    }
+
+    /**
+     * 重试时间到达时，将任务重新提交到任务调度器（在重试定时器线程中调用，不能阻塞）
+     * <p>
+     * 阻塞策略下队列已满时，不等待队列空闲，而是间隔一段时间后重新提交
+     *
+     * @param task      请求任务
+     * @param reqHost   请求的主机
+     * @param scheduler 执行任务的调度器
+     */
+    private void resubmitRetryTask(RequestTask task, String reqHost, HostTaskScheduler scheduler) {
+        try {
+            if (scheduler.tryExecute(reqHost, task)) {
+                return;
             }
+            if (mRetryTimer.schedule(task, RETRY_RESUBMIT_DELAY,
+                    (item) -> resubmitRetryTask(item, reqHost, scheduler))) {
+                return;
+            }
+        } catch (Exception e) {
+            // 线程池已关闭，按停止的任务处理
         }
-        // 请求重试
-        return doMakeHttpRequest(service, reqRawBytes, retryCount - 1);
+        handleStopTask(task);
     }
 
     /**
-     * 检测当前请求主机是否超时
+     * 创建请求数据包模板（处理请求头的替换、移除）
      *
-     * @param reqHost Host（格式：http://x.x.x.x、http://x.x.x.x:8080）
-     * @return true=存在；false=不存在
-     */
-    private boolean checkTimeoutByReqHost(String reqHost) {
-        if (sTimeoutReqHost.isEmpty()) {
-            return false;
+     * @param httpReqResp Burp 的 HTTP 请求响应接口
+     * @param info        IRequestInfo 实例
+     * @param from        数据来源
+     * @return 模板实例
+     */
+    private RequestTemplate newRequestTemplate(IHttpRequestResponse httpReqResp, IRequestInfo info, String from) {
+        byte[] body = null;
+        // 如果当前数据来源不是 Scan，可能会包含 POST 请求，需要保留 body 数据
+        if (!from.equals(FROM_SCAN)) {
+            byte[] httpRequest = httpReqResp.getRequest();
+            body = Arrays.copyOfRange(httpRequest, info.getBodyOffset(), httpRequest.length);
         }
-        return sTimeoutReqHost.contains(reqHost);
+        return RequestTemplate.compile(info.getHeaders(), body, getHeader(), getRemoveHeaders(),
+                from.equals(FROM_SCAN));
     }
 
     /**
      * 处理请求头
      *
      * @param httpReqResp   Burp 的 HTTP 请求响应接口
+     * @param info          IRequestInfo 实例
+     * @param template      请求数据包模板
      * @param pathWithQuery 请求路径，或者请求路径+Query（示例：/xxx、/xxx/index?a=xxx&b=xxx）
-     * @param from          数据来源
      * @return 处理完成的数据包，失败时返回null
      */
-    private byte[] handleHeader(IHttpRequestResponse httpReqResp, IRequestInfo info, String pathWithQuery, String from) {
-        // 配置的请求头
-        List<String> configHeader = getHeader();
-        // 要移除的请求头KEY列表
-        List<String> removeHeaders = getRemoveHeaders();
-        // 数据包自带的请求头
-        List<String> headers = info.getHeaders();
-        // 构建请求头
-        StringBuilder requestRaw = new StringBuilder();
-        // 根据数据来源区分两种请求头
-        if (from.equals(FROM_SCAN)) {
-            requestRaw.append("GET ").append(pathWithQuery).append(" HTTP/1.1").append("\r\n");
-        } else {
-            String reqLine = headers.get(0);
-            // 先检测一下是否包含 ' HTTP/' 字符串，再继续处理（可能有些畸形数据包不存在该内容）
-            if (reqLine.contains(" HTTP/")) {
-                int start = reqLine.lastIndexOf(" HTTP/");
-                reqLine = reqLine.substring(0, start) + " HTTP/1.1";
-            }
-            requestRaw.append(reqLine).append("\r\n");
-        }
-        // 请求头的参数处理（顺带处理移除的请求头），从 1 开始表示跳过首行（请求行）
-        for (int i = 1; i < headers.size(); i++) {
-            String item = headers.get(i);
-            String key = item.split(": ")[0];
-            // 是否需要移除当前请求头字段（优先级最高）
-            if (removeHeaders.contains(key)) {
-                continue;
-            }
-            // 如果是扫描的请求（只有 GET 请求），将 Content-Length 移除
-            if (from.equals(FROM_SCAN) && "Content-Length".equalsIgnoreCase(key)) {
-                continue;
-            }
-            // 检测配置中是否存在当前请求头字段
-            String matchItem = configHeader.stream().filter(configHeaderItem -> {
-                if (StringUtils.isNotEmpty(configHeaderItem) && configHeaderItem.contains(": ")) {
-                    String configHeaderKey = configHeaderItem.split(": ")[0];
-                    // 检测是否需要移除当前请求头字段
-                    if (removeHeaders.contains(key)) {
-                        return false;
-                    }
-                    return configHeaderKey.equals(key);
-                }
-                return false;
-            }).findFirst().orElse(null);
-            // 配置中存在匹配项，替换为配置中的数据
-            if (matchItem != null) {
-                requestRaw.append(matchItem).append("\r\n");
-                // 将已经添加的数据从列表中移除
-                configHeader.remove(matchItem);
-            } else {
-                // 不存在匹配项，填充原数据
-                requestRaw.append(item).append("\r\n");
-            }
-        }
-        // 将配置里剩下的值全部填充到请求头中
-        for (String item : configHeader) {
-            String key = item.split(": ")[0];
-            // 检测是否需要移除当前KEY
-            if (!removeHeaders.contains(key)) {
-                requestRaw.append(item).append("\r\n");
-            }
-        }
-        requestRaw.append("\r\n");
-        // 如果当前数据来源不是 Scan，可能会包含 POST 请求，判断是否存在 body 数据
-        if (!from.equals(FROM_SCAN)) {
-            byte[] httpRequest = httpReqResp.getRequest();
-            int bodyOffset = info.getBodyOffset();
-            int bodySize = httpRequest.length - bodyOffset;
-            if (bodySize > 0) {
-                requestRaw.append(new String(httpRequest, bodyOffset, bodySize));
-            }
+    private byte[] handleHeader(IHttpRequestResponse httpReqResp, IRequestInfo info, RequestTemplate template,
+                                String pathWithQuery) {
+        // 不包含动态变量时，模板已经处理好 Content-Length，直接使用
+        boolean hasVariable = template.hasVariable() ||
+                (pathWithQuery != null && pathWithQuery.contains("{{"));
+        if (!hasVariable) {
+            return template.build(pathWithQuery);
         }
-        // 请求头构建完成后，对里面包含的动态变量进行赋值
+        // 对里面包含的动态变量进行赋值（模板创建时已扫描变量位置，填充结果直接写入字节数组）
         IHttpService service = httpReqResp.getHttpService();
         URL url = getUrlByRequestInfo(info);
-        String newRequestRaw = setupVariable(service, url, requestRaw.toString());
-        if (newRequestRaw == null) {
+        try {
+            return template.build(pathWithQuery, new VariableResolver(getHostVariables(service), url));
+        } catch (IllegalArgumentException e) {
+            Logger.debug(e.getMessage());
             return null;
         }
-        // 更新 Content-Length
-        return updateContentLength(mHelpers.stringToBytes(newRequestRaw));
     }
 
     /**
@@ -1505,25 +2078,23 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
     }
 
     /**
-     * 获取配置的 Payload Processing 规则
+     * 编译“请求包处理”流水线（初始化时，以及规则配置变更时调用）
      */
-    private List<ProcessingItem> getPayloadProcess() {
-        ArrayList<ProcessingItem> list = Config.getPayloadProcessList();
-        if (list == null) {
-            return new ArrayList<>();
-        }
-        return list.stream().filter(ProcessingItem::isEnabled).collect(Collectors.toList());
+    private void compileProcessingPipeline() {
+        mProcessingPipeline = ProcessingPipeline.compile(Config.getPayloadProcessList());
     }
 
     /**
-     * 检测 QPS 限制
+     * 检测 QPS 限制（全局限制和主机限制）
      *
+     * @param reqHost 请求的主机
      * @return true=拦截；false=不拦截
      */
-    private boolean checkQPSLimit() {
-        if (mQpsLimit != null) {
+    private boolean checkQPSLimit(String reqHost) {
+        QpsLimiter limiter = mQpsLimit;
+        if (limiter != null) {
             try {
-                mQpsLimit.limit();
+                limiter.limit(reqHost);
             } catch (InterruptedException e) {
                 // 线程强制停止时，拦截请求
                 return true;
@@ -1533,112 +2104,191 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
     }
 
     /**
-     * 给数据包填充动态变量
+     * 给数据包填充动态变量，并更新 Content-Length
      *
-     * @param service    请求目标实例
-     * @param url        请求 URL 实例
-     * @param requestRaw 请求数据包字符串
+     * @param service  请求目标实例
+     * @param url      请求 URL 实例
+     * @param template 请求数据包的动态变量模板
      * @return 处理失败返回null
      */
-    private String setupVariable(IHttpService service, URL url, String requestRaw) {
-        String protocol = service.getProtocol();
-        String host = service.getHost() + ":" + service.getPort();
-        if (service.getPort() == 80 || service.getPort() == 443) {
-            host = service.getHost();
-        }
-        String domain = service.getHost();
-        String timestamp = String.valueOf(DateUtils.getTimestamp());
-        String randomIP = IPUtils.randomIPv4();
-        String randomLocalIP = IPUtils.randomIPv4ForLocal();
-        String randomUA = Utils.getRandomItem(WordlistManager.getUserAgent());
-        String domainMain = DomainHelper.getDomain(domain, null);
-        String domainName = DomainHelper.getDomainName(domain, null);
-        String subdomain = getSubdomain(domain);
-        String subdomains = getSubdomains(domain);
-        String webroot = getWebrootByURL(url);
-        // 替换变量
+    private byte[] setupVariable(IHttpService service, URL url, VariableTemplate template) {
+        byte[] request;
         try {
-            requestRaw = fillVariable(requestRaw, "protocol", protocol);
-            requestRaw = fillVariable(requestRaw, "host", host);
-            requestRaw = fillVariable(requestRaw, "webroot", webroot);
-            // 需要填充再取值
-            if (requestRaw.contains("{{ip}}")) {
-                String ip = findIpByHost(domain);
-                requestRaw = fillVariable(requestRaw, "ip", ip);
-            }
-            // 填充域名相关动态变量
-            requestRaw = fillVariable(requestRaw, "domain", domain);
-            requestRaw = fillVariable(requestRaw, "domain.main", domainMain);
-            requestRaw = fillVariable(requestRaw, "domain.name", domainName);
-            // 填充子域名相关动态变量
-            requestRaw = fillVariable(requestRaw, "subdomain", subdomain);
-            requestRaw = fillVariable(requestRaw, "subdomains", subdomains);
-            if (requestRaw.contains("{{subdomains.")) {
-                if (StringUtils.isEmpty(subdomains)) {
-                    return null;
-                }
-                String[] subdomainsSplit = subdomains.split("\\.");
-                // 遍历填充 {{subdomains.%d}} 动态变量
-                for (int i = 0; i < subdomainsSplit.length; i++) {
-                    requestRaw = fillVariable(requestRaw, "subdomains." + i, subdomainsSplit[i]);
-                }
-                // 检测是否存在未填充的 {{subdomains.%d}} 动态变量，如果存在，忽略当前 Payload
-                if (requestRaw.contains("{{subdomains.")) {
-                    return null;
-                }
-            }
-            // 填充随机值相关动态变量
-            requestRaw = fillVariable(requestRaw, "random.ip", randomIP);
-            requestRaw = fillVariable(requestRaw, "random.local-ip", randomLocalIP);
-            requestRaw = fillVariable(requestRaw, "random.ua", randomUA);
-            // 填充日期、时间相关的动态变量
-            requestRaw = fillVariable(requestRaw, "timestamp", timestamp);
-            if (requestRaw.contains("{{date.") || requestRaw.contains("{{time.")) {
-                String currentDate = DateUtils.getCurrentDate("yyyy-MM-dd HH:mm:ss;yy-M-d H:m:s");
-                String[] split = currentDate.split(";");
-                String[] leftDateTime = parseDateTime(split[0]);
-                requestRaw = fillVariable(requestRaw, "date.yyyy", leftDateTime[0]);
-                requestRaw = fillVariable(requestRaw, "date.MM", leftDateTime[1]);
-                requestRaw = fillVariable(requestRaw, "date.dd", leftDateTime[2]);
-                requestRaw = fillVariable(requestRaw, "time.HH", leftDateTime[3]);
-                requestRaw = fillVariable(requestRaw, "time.mm", leftDateTime[4]);
-                requestRaw = fillVariable(requestRaw, "time.ss", leftDateTime[5]);
-                String[] rightDateTime = parseDateTime(split[1]);
-                requestRaw = fillVariable(requestRaw, "date.yy", rightDateTime[0]);
-                requestRaw = fillVariable(requestRaw, "date.M", rightDateTime[1]);
-                requestRaw = fillVariable(requestRaw, "date.d", rightDateTime[2]);
-                requestRaw = fillVariable(requestRaw, "time.H", rightDateTime[3]);
-                requestRaw = fillVariable(requestRaw, "time.m", rightDateTime[4]);
-                requestRaw = fillVariable(requestRaw, "time.s", rightDateTime[5]);
-            }
-            return requestRaw;
+            request = RequestTemplate.fill(template, new VariableResolver(getHostVariables(service), url));
         } catch (IllegalArgumentException e) {
             Logger.debug(e.getMessage());
             return null;
         }
+        return updateContentLength(request);
     }
 
     /**
-     * 填充动态变量
+     * 获取主机相关的动态变量（不存在时计算并缓存）
      *
-     * @param src   数据源
-     * @param name  变量名
-     * @param value 需要填充的变量值
-     * @throws IllegalArgumentException 当填充的变量值为空时，抛出该异常
+     * @param service 请求目标实例
+     * @return 主机相关的动态变量
+     */
+    private HostVariables getHostVariables(IHttpService service) {
+        String reqHost = getReqHostByHttpService(service);
+        HostVariables result = mHostVariables.get(reqHost);
+        if (result == null) {
+            result = new HostVariables(service);
+            HostVariables exists = mHostVariables.putIfAbsent(reqHost, result);
+            if (exists != null) {
+                result = exists;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 主机相关的动态变量（同一个主机只计算一次）
+     */
+    private class HostVariables {
+
+        private final String protocol;
+        private final String host;
+        private final String domain;
+        private final String domainMain;
+        private final String domainName;
+        private final String subdomain;
+        private final String subdomains;
+        private final String[] subdomainsSplit;
+        private volatile String ip;
+
+        private HostVariables(IHttpService service) {
+            this.protocol = service.getProtocol();
+            if (service.getPort() == 80 || service.getPort() == 443) {
+                this.host = service.getHost();
+            } else {
+                this.host = service.getHost() + ":" + service.getPort();
+            }
+            this.domain = service.getHost();
+            this.domainMain = DomainHelper.getDomain(domain, null);
+            this.domainName = DomainHelper.getDomainName(domain, null);
+            this.subdomain = getSubdomain(domain);
+            this.subdomains = getSubdomains(domain);
+            this.subdomainsSplit = StringUtils.isEmpty(subdomains) ? new String[0] : subdomains.split("\\.");
+        }
+
+        /**
+         * 获取主机 IP（需要填充时才解析，解析失败时不缓存）
+         */
+        private String getIp() {
+            if (StringUtils.isEmpty(ip)) {
+                ip = findIpByHost(domain);
+            }
+            return ip;
+        }
+
+        /**
+         * 获取 {{subdomains.%d}} 动态变量的值
+         *
+         * @param index 下标字符串
+         * @return 下标无效时返回null
+         */
+        private String getSubdomainsItem(String index) {
+            int i = StringUtils.parseInt(index, -1);
+            if (i < 0 || i >= subdomainsSplit.length) {
+                return null;
+            }
+            return subdomainsSplit[i];
+        }
+    }
+
+    /**
+     * 动态变量取值（请求相关的变量在需要填充时才计算，同一个请求中的值相同）
      */
-    private String fillVariable(String src, String name, String value) throws IllegalArgumentException {
-        if (StringUtils.isEmpty(src)) {
-            return src;
+    private class VariableResolver implements VariableTemplate.Resolver {
+
+        private final HostVariables hostVars;
+        private final URL url;
+        private String[] dateTime;
+
+        private VariableResolver(HostVariables hostVars, URL url) {
+            this.hostVars = hostVars;
+            this.url = url;
         }
-        String key = String.format("{{%s}}", name);
-        if (!src.contains(key)) {
-            return src;
+
+        @Override
+        public String resolve(String name) throws IllegalArgumentException {
+            String value;
+            switch (name) {
+                case "protocol":
+                    value = hostVars.protocol;
+                    break;
+                case "host":
+                    value = hostVars.host;
+                    break;
+                case "webroot":
+                    value = getWebrootByURL(url);
+                    break;
+                case "ip":
+                    value = hostVars.getIp();
+                    break;
+                case "domain":
+                    value = hostVars.domain;
+                    break;
+                case "domain.main":
+                    value = hostVars.domainMain;
+                    break;
+                case "domain.name":
+                    value = hostVars.domainName;
+                    break;
+                case "subdomain":
+                    value = hostVars.subdomain;
+                    break;
+                case "subdomains":
+                    value = hostVars.subdomains;
+                    break;
+                case "random.ip":
+                    value = IPUtils.randomIPv4();
+                    break;
+                case "random.local-ip":
+                    value = IPUtils.randomIPv4ForLocal();
+                    break;
+                case "random.ua":
+                    value = Utils.getRandomItem(WordlistManager.getUserAgent());
+                    break;
+                case "timestamp":
+                    value = String.valueOf(DateUtils.getTimestamp());
+                    break;
+                default:
+                    if (name.startsWith("subdomains.")) {
+                        // 存在未填充的 {{subdomains.%d}} 动态变量，忽略当前 Payload
+                        value = hostVars.getSubdomainsItem(name.substring("subdomains.".length()));
+                        break;
+                    }
+                    int index = DATE_TIME_VARIABLES.indexOf(name);
+                    if (index < 0) {
+                        // 不支持的变量，保留原样
+                        return null;
+                    }
+                    value = getDateTime()[index];
+                    break;
+            }
+            // 值为空时，丢弃当前请求
+            if (StringUtils.isEmpty(value)) {
+                throw new IllegalArgumentException("{{" + name + "}} fill failed, value is empty.");
+            }
+            return value;
         }
-        // 值为空时，返回null值丢弃当前请求
-        if (StringUtils.isEmpty(value)) {
-            throw new IllegalArgumentException(key + " fill failed, value is empty.");
+
+        /**
+         * 获取日期、时间相关的动态变量值（顺序与 {@link #DATE_TIME_VARIABLES} 一致）
+         */
+        private String[] getDateTime() {
+            if (dateTime == null) {
+                String currentDate = DateUtils.getCurrentDate("yyyy-MM-dd HH:mm:ss;yy-M-d H:m:s");
+                String[] split = currentDate.split(";");
+                String[] left = parseDateTime(split[0]);
+                String[] right = parseDateTime(split[1]);
+                dateTime = new String[left.length + right.length];
+                System.arraycopy(left, 0, dateTime, 0, left.length);
+                System.arraycopy(right, 0, dateTime, left.length, right.length);
+            }
+            return dateTime;
         }
-        return src.replace(key, value);
     }
 
     /**
@@ -1733,70 +2383,33 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
     /**
      * 根据 Payload Process 规则，处理数据包
      *
-     * @param service      请求目标服务
-     * @param requestBytes 请求数据包
-     * @return 处理后的数据包
+     * @param service     请求目标服务
+     * @param reqRawBytes 请求数据包
+     * @param requestRaw  请求数据包字符串（与 reqRawBytes 内容相同，所有阶段共用）
+     * @param stage       流水线阶段
+     * @return 处理后的数据包；未进行任何处理时返回 reqRawBytes
      */
-    private byte[] handlePayloadProcess(IHttpService service, byte[] requestBytes, List<PayloadItem> list) {
-        if (requestBytes == null || requestBytes.length == 0 || list == null || list.isEmpty()) {
+    private byte[] handlePayloadProcess(IHttpService service, byte[] reqRawBytes, String requestRaw,
+                                        ProcessingPipeline.Stage stage) {
+        if (reqRawBytes == null || reqRawBytes.length == 0 || stage == null) {
             return null;
         }
-        IRequestInfo info = mHelpers.analyzeRequest(service, requestBytes);
-        int bodyOffset = info.getBodyOffset();
-        int bodySize = requestBytes.length - bodyOffset;
-        String url = getReqPathByRequestInfo(info);
-        String header = new String(requestBytes, 0, bodyOffset - 4);
-        String body = bodySize <= 0 ? "" : new String(requestBytes, bodyOffset, bodySize);
-        String request = mHelpers.bytesToString(requestBytes);
-        for (PayloadItem item : list) {
-            // 只调用启用的规则
-            PayloadRule rule = item.getRule();
-            try {
-                switch (item.getScope()) {
-                    case PayloadRule.SCOPE_URL:
-                        String newUrl = rule.handleProcess(url);
-                        // 截取请求头第一行，用于定位要处理的位置
-                        String reqLine = header.substring(0, header.indexOf("\r\n"));
-                        Matcher matcher = Constants.REGEX_REQ_LINE_URL.matcher(reqLine);
-                        if (matcher.find()) {
-                            int start = matcher.start(1);
-                            int end = matcher.end(1);
-                            // 分隔要插入数据的位置
-                            String left = header.substring(0, start);
-                            String right = header.substring(end);
-                            // 拼接处理好的数据
-                            header = left + newUrl + right;
-                            request = header + "\r\n\r\n" + body;
-                        }
-                        url = newUrl;
-                        break;
-                    case PayloadRule.SCOPE_HEADER:
-                        String newHeader = rule.handleProcess(header);
-                        header = newHeader;
-                        request = newHeader + "\r\n\r\n" + body;
-                        break;
-                    case PayloadRule.SCOPE_BODY:
-                        String newBody = rule.handleProcess(body);
-                        request = header + "\r\n\r\n" + newBody;
-                        body = newBody;
-                        break;
-                    case PayloadRule.SCOPE_REQUEST:
-                        request = rule.handleProcess(request);
-                        break;
-                }
-            } catch (Exception e) {
-                Logger.debug("handlePayloadProcess exception: " + e.getMessage());
-                return null;
-            }
-        }
-        // 动态变量赋值
-        URL u = getUrlByRequestInfo(info);
-        String newRequest = setupVariable(service, u, request);
-        if (newRequest == null) {
+        String request = stage.process(requestRaw);
+        if (request == null) {
             return null;
         }
+        if (request.equals(requestRaw)) {
+            return reqRawBytes;
+        }
+        // 动态变量赋值（包含动态变量时，才需要解析请求 URL）
+        VariableTemplate template = VariableTemplate.compile(request);
+        if (template.hasVariable()) {
+            IRequestInfo info = mHelpers.analyzeRequest(service, reqRawBytes);
+            URL u = getUrlByRequestInfo(info);
+            return setupVariable(service, u, template);
+        }
         // 更新 Content-Length
-        return updateContentLength(mHelpers.stringToBytes(newRequest));
+        return updateContentLength(mHelpers.stringToBytes(request));
     }
 
     /**
@@ -1806,29 +2419,11 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
      * @return 更新后的数据包
      */
     private byte[] updateContentLength(byte[] rawBytes) {
-        String temp = new String(rawBytes, StandardCharsets.US_ASCII);
-        int bodyOffset = temp.indexOf("\r\n\r\n");
-        if (bodyOffset == -1) {
+        byte[] result = RequestTemplate.updateContentLength(rawBytes);
+        if (result == null) {
             Logger.error("Handle payload process error: bodyOffset is -1");
-            return null;
-        }
-        bodyOffset += 4;
-        int bodySize = rawBytes.length - bodyOffset;
-        if (bodySize < 0) {
-            Logger.error("Handle payload process error: bodySize < 0");
-            return null;
-        } else if (bodySize == 0) {
-            return rawBytes;
         }
-        String header = new String(rawBytes, 0, bodyOffset - 4);
-        if (!header.contains("Content-Length")) {
-            header += "\r\nContent-Length: " + bodySize;
-        } else {
-            header = header.replaceAll("Content-Length:.*", "Content-Length: " + bodySize);
-        }
-        String body = new String(rawBytes, bodyOffset, bodySize);
-        String result = header + "\r\n\r\n" + body;
-        return result.getBytes(StandardCharsets.UTF_8);
+        return result;
     }
 
     /**
@@ -1859,8 +2454,6 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
                 length = 0;
             }
         }
-        // 检测指纹数据
-        List<FpData> checkResult = FpManager.check(httpReqResp.getRequest(), httpReqResp.getResponse());
         // 构建表格对象
         TaskData data = new TaskData();
         data.setFrom(from);
@@ -1871,7 +2464,6 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         data.setIp(ip);
         data.setStatus(status);
         data.setLength(length);
-        data.setFingerprint(checkResult);
         data.setReqResp(httpReqResp);
         return data;
     }
@@ -2026,10 +2618,14 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
      */
     private void onClearHistory() {
         mCurrentReqResp = null;
+        // 清空扫描历史索引（先停止加载线程，避免清空后再添加历史记录）
+        if (mScanHistory != null) {
+            mScanHistory.clear();
+        }
         // 清空去重过滤集合
         sRepeatFilter.clear();
-        // 清空超时的请求主机集合
-        sTimeoutReqHost.clear();
+        // 清空主机熔断器状态
+        mCircuitBreaker.reset();
         // 清空显示的请求、响应数据包
         mRequestTextEditor.setMessage(EMPTY_BYTES, true);
         mResponseTextEditor.setMessage(EMPTY_BYTES, false);
@@ -2127,6 +2723,22 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
             case RequestTab.EVENT_REQUEST_DELAY:
                 changeRequestDelay(String.valueOf(params[0]));
                 break;
+            case RequestTab.EVENT_TASK_QUEUE:
+                applyTaskQueueLimits(mTaskThreadPool);
+                applyIngestQueueLimits();
+                break;
+            case RequestTab.EVENT_TRAFFIC_CLASS:
+                applyTrafficClasses(mTaskThreadPool);
+                break;
+            case PayloadTab.EVENT_PAYLOAD_PROCESSING:
+                compileProcessingPipeline();
+                break;
+            case HostTab.EVENT_CIRCUIT_BREAKER:
+                initCircuitBreaker();
+                break;
+            case HostTab.EVENT_RESET_CIRCUIT_BREAKER:
+                mCircuitBreaker.reset();
+                break;
             case OtherTab.EVENT_UNLOAD_PLUGIN:
                 mCallbacks.unloadExtension();
                 break;
@@ -2136,6 +2748,9 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
             case DataBoardTab.EVENT_STOP_TASK:
                 stopAllTask();
                 break;
+            case DataBoardTab.EVENT_SCAN_SESSION:
+                handleScanSessionAction(String.valueOf(params[0]), (List<?>) params[1]);
+                break;
         }
     }
 
@@ -2168,21 +2783,27 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         if (list == null || list.isEmpty()) {
             return;
         }
-        // 处理导入的 URL 数据
+        // 处理导入的 URL 数据（每个批次创建一个扫描会话）
+        ScanSession session = mSessionManager.newSession(ScanSession.TYPE_IMPORT,
+                L.get("scan_session_import_name", list.size()));
         new Thread(() -> {
-            for (Object item : list) {
-                try {
-                    String url = String.valueOf(item);
-                    IHttpRequestResponse httpReqResp = HttpReqRespAdapter.from(url);
-                    doScan(httpReqResp, FROM_IMPORT);
-                } catch (IllegalArgumentException e) {
-                    Logger.error("Import error: " + e.getMessage());
-                }
-                // 线程池关闭后，停止导入 Url 数据
-                if (isTaskThreadPoolShutdown()) {
-                    Logger.debug("importUrl: thread pool is shutdown, stop import url");
-                    return;
+            try {
+                for (Object item : list) {
+                    try {
+                        String url = String.valueOf(item);
+                        IHttpRequestResponse httpReqResp = HttpReqRespAdapter.from(url);
+                        doScan(httpReqResp, FROM_IMPORT, session);
+                    } catch (IllegalArgumentException e) {
+                        Logger.error("Import error: " + e.getMessage());
+                    }
+                    // 会话取消、线程池关闭后，停止导入 Url 数据
+                    if (session.isCancelled() || isTaskThreadPoolShutdown()) {
+                        Logger.debug("importUrl: session is cancelled, stop import url");
+                        return;
+                    }
                 }
+            } finally {
+                mSessionManager.release(session, false);
             }
         }).start();
     }
@@ -2191,21 +2812,135 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
      * 停止扫描中的所有任务
      */
     private void stopAllTask() {
-        // 关闭线程池，处理未执行的任务
-        List<Runnable> taskList = mTaskThreadPool.shutdownNow();
-        List<Runnable> lfTaskList = mLFTaskThreadPool.shutdownNow();
-        handleStopTasks(taskList);
-        handleStopTasks(lfTaskList);
+        // 丢弃未处理的代理数据包
+        mIngestQueue.clear();
+        // 取消所有扫描会话（不关闭线程池，正在执行的任务在当前请求完成后结束）
+        handleStopTasks(mSessionManager.cancelAll());
+        // 移除排队中、等待重试的任务
+        Predicate<Runnable> filter = this::isSessionCancelled;
+        handleStopTasks(mTaskThreadPool.removeIf(filter));
+        handleStopTasks(new ArrayList<>(mRetryTimer.cancelIf(filter)));
         // 提示信息
         UIHelper.showTipsDialog(L.get("stop_task_tips"));
-        // 停止后，重新初始化任务线程池
-        mTaskThreadPool = Executors.newFixedThreadPool(TASK_THREAD_COUNT);
-        // 停止后，重新初始化低频任务线程池
-        mLFTaskThreadPool = Executors.newFixedThreadPool(LF_TASK_THREAD_COUNT);
+        // 虚拟线程配置变更时，重新初始化任务线程池
+        if (mVirtualThread != Config.getBoolean(Config.KEY_VIRTUAL_THREAD)) {
+            HostTaskScheduler taskThreadPool = mTaskThreadPool;
+            mTaskThreadPool = newTaskScheduler(TASK_THREAD_COUNT);
+            handleStopTasks(taskThreadPool.shutdownNow());
+        }
         // 重新初始化 QPS 限制器
         initQpsLimiter();
     }
 
+    /**
+     * 处理扫描会话操作
+     *
+     * @param action 操作类型（示例：{@link ScanSessionWindow#ACTION_PAUSE}）
+     * @param ids    会话 ID 列表
+     */
+    private void handleScanSessionAction(String action, List<?> ids) {
+        for (Object item : ids) {
+            long id = (Long) item;
+            switch (action) {
+                case ScanSessionWindow.ACTION_PAUSE:
+                    mSessionManager.pause(id);
+                    break;
+                case ScanSessionWindow.ACTION_RESUME:
+                    // 阻塞策略下重新提交任务可能等待队列空闲，不在 UI 线程中提交
+                    List<Runnable> tasks = mSessionManager.resume(id);
+                    mSessionResumeTask.execute(() -> resubmitTasks(tasks));
+                    break;
+                case ScanSessionWindow.ACTION_CANCEL:
+                    cancelScanSession(id);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 取消扫描会话（挂起、排队中、等待重试的任务直接丢弃，不影响其它会话）
+     *
+     * @param id 会话 ID
+     */
+    private void cancelScanSession(long id) {
+        ScanSession session = mSessionManager.get(id);
+        if (session == null) {
+            return;
+        }
+        handleStopTasks(mSessionManager.cancel(id));
+        Predicate<Runnable> filter = (task) -> {
+            if (!(task instanceof ScanSession.Member)) {
+                return false;
+            }
+            ScanSession.Member member = (ScanSession.Member) task;
+            return member.getSession() == session || member.getHostSession() == session;
+        };
+        handleStopTasks(mTaskThreadPool.removeIf(filter));
+        handleStopTasks(new ArrayList<>(mRetryTimer.cancelIf(filter)));
+        Logger.debug("Cancel scan session: %s", session.getName());
+    }
+
+    /**
+     * 任务所属的会话是否已取消
+     *
+     * @param task 任务实例
+     * @return true=已取消；false=未取消
+     */
+    private boolean isSessionCancelled(Runnable task) {
+        if (!(task instanceof ScanSession.Member)) {
+            return false;
+        }
+        ScanSession.Member member = (ScanSession.Member) task;
+        return member.getSession().isCancelled() || member.getHostSession().isCancelled();
+    }
+
+    /**
+     * 检测任务所属的会话状态：会话已取消时按停止的任务处理；会话已暂停时挂起任务（恢复后重新提交）
+     *
+     * @param task 任务实例
+     * @return true=任务已被拦截；false=继续执行
+     */
+    private boolean interceptBySession(ScanSession.Member task) {
+        Runnable run = (Runnable) task;
+        if (isSessionCancelled(run)) {
+            handleStopTask(run);
+            return true;
+        }
+        return task.getSession().park(run) || task.getHostSession().park(run);
+    }
+
+    /**
+     * 重新提交恢复的会话中挂起的任务
+     *
+     * @param list 任务列表
+     */
+    private void resubmitTasks(List<Runnable> list) {
+        for (Runnable run : list) {
+            try {
+                if (run instanceof ScanExpandTask) {
+                    ((ScanExpandTask) run).submit();
+                } else if (run instanceof RequestTask) {
+                    RequestTask task = (RequestTask) run;
+                    String reqHost = getReqHostByHttpService(task.service);
+                    mTaskThreadPool.execute(reqHost, task);
+                }
+            } catch (Exception e) {
+                handleStopTask(run);
+            }
+        }
+    }
+
+    /**
+     * 任务结束，释放任务所属的会话
+     *
+     * @param task      任务实例
+     * @param completed 任务是否已执行（false 表示任务被丢弃）
+     */
+    private void releaseTaskSessions(ScanSession.Member task, boolean completed) {
+        mSessionManager.release(task.getSession(), completed);
+        mSessionManager.release(task.getHostSession(), completed);
+    }
+
     /**
      * 处理停止的任务列表
      *
@@ -2216,20 +2951,32 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
             return;
         }
         for (Runnable run : list) {
-            if (run instanceof TaskRunnable) {
-                TaskRunnable task = (TaskRunnable) run;
-                String reqId = task.getReqId();
-                String from = task.getFrom();
-                // 将未执行的任务从去重过滤集合中移除
-                sRepeatFilter.remove(reqId);
-                // 将未执行的任务计数
-                if (isLowFrequencyTask(from)) {
-                    mLFTaskOverCounter.incrementAndGet();
-                } else {
-                    mTaskOverCounter.incrementAndGet();
-                }
+            handleStopTask(run);
+        }
+    }
+
+    /**
+     * 处理未执行的任务（停止任务、取消会话、任务队列溢出丢弃时调用）
+     *
+     * @param run 任务实例
+     */
+    private void handleStopTask(Runnable run) {
+        if (run instanceof TaskRunnable) {
+            TaskRunnable task = (TaskRunnable) run;
+            String reqId = task.getReqId();
+            String from = task.getFrom();
+            // 将未执行的任务从去重过滤集合中移除
+            sRepeatFilter.remove(reqId);
+            // 将未执行的任务计数
+            if (isLowFrequencyTask(from)) {
+                mLFTaskOverCounter.incrementAndGet();
+            } else {
+                mTaskOverCounter.incrementAndGet();
             }
         }
+        if (run instanceof ScanSession.Member) {
+            releaseTaskSessions((ScanSession.Member) run, false);
+        }
     }
 
     @Override
@@ -2249,12 +2996,17 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         mCallbacks.removeContextMenuFactory(this);
         // 停止状态栏刷新定时器
         mStatusRefresh.stop();
+        // 关闭代理数据包接收队列
+        int count = mIngestQueue.shutdownNow();
+        Logger.info("Close: proxy ingest queue completed. Message %d records.", count);
+        // 关闭重试定时器
+        count = mRetryTimer.shutdownNow().size();
+        Logger.info("Close: retry timer completed. Task %d records.", count);
+        // 关闭会话恢复线程（未重新提交的任务不再执行）
+        mSessionResumeTask.shutdownNow();
         // 关闭任务线程池
-        int count = mTaskThreadPool.shutdownNow().size();
+        count = mTaskThreadPool.shutdownNow().size();
         Logger.info("Close: task thread pool completed. Task %d records.", count);
-        // 关闭低频任务线程池
-        count = mLFTaskThreadPool.shutdownNow().size();
-        Logger.info("Close: low frequency task thread pool completed. Task %d records.", count);
         // 关闭指纹识别线程池
         count = mFpThreadPool.shutdownNow().size();
         Logger.info("Close: fingerprint recognition thread pool completed. Task %d records.", count);
@@ -2269,6 +3021,8 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         count = FpManager.getCacheCount();
         FpManager.clearCache();
         Logger.info("Clear: fingerprint recognition cache completed. Total %d records.", count);
+        // 清除主机相关的动态变量缓存
+        mHostVariables.clear();
         // 清除指纹识别历史记录
         count = FpManager.getHistoryCount();
         FpManager.clearHistory();
@@ -2279,10 +3033,19 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
         count = sRepeatFilter.size();
         sRepeatFilter.clear();
         Logger.info("Clear: repeat filter list completed. Total %d records.", count);
-        // 清除超时的请求主机集合
-        count = sTimeoutReqHost.size();
-        sTimeoutReqHost.clear();
-        Logger.info("Clear: timeout request host list completed. Total %d records.", count);
+        // 关闭扫描历史索引（写入未保存的记录）
+        if (mScanHistoryFlushTask != null) {
+            mScanHistoryFlushTask.shutdownNow();
+        }
+        if (mScanHistory != null) {
+            count = (int) mScanHistory.getRecordCount();
+            mScanHistory.close();
+            Logger.info("Close: scan history index completed. Total %d records.", count);
+        }
+        // 清除主机熔断器状态
+        count = mCircuitBreaker.getTrippedCount();
+        mCircuitBreaker.reset();
+        Logger.info("Clear: host circuit breaker completed. Total %d records.", count);
         // 清除任务列表
         count = 0;
         if (mDataBoardTab != null) {
@@ -2293,6 +3056,8 @@ public class BurpExtender implements IBurpExtender, IProxyListener, IMessageEdit
             }
             // 关闭导入 URL 窗口
             mDataBoardTab.closeImportUrlWindow();
+            // 关闭扫描会话窗口
+            mDataBoardTab.closeScanSessionWindow();
         }
         Logger.info("Clear: task list completed. Total %d records.", count);
         // 关闭指纹相关窗口
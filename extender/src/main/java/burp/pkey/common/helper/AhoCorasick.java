@@ -0,0 +1,198 @@
+package burp.pkey.common.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick 多模式字符串匹配（构建后不可变，可在多线程中共享使用）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class AhoCorasick {
+
+    /**
+     * 节点的子节点字符（已排序，用于二分查找）
+     */
+    private final char[][] childChars;
+
+    /**
+     * 节点的子节点下标（与 childChars 一一对应）
+     */
+    private final int[][] childNodes;
+
+    /**
+     * 失配指针
+     */
+    private final int[] fail;
+
+    /**
+     * 以当前节点结尾的模式下标
+     */
+    private final int[][] outputs;
+
+    /**
+     * 沿失配指针方向，最近一个存在输出的节点（-1 表示不存在）
+     */
+    private final int[] outputLink;
+
+    /**
+     * 是否忽略大小写
+     */
+    private final boolean ignoreCase;
+
+    /**
+     * 模式数量
+     */
+    private final int patternCount;
+
+    /**
+     * 构造方法
+     *
+     * @param patterns   模式列表（空字符串不参与匹配）
+     * @param ignoreCase 是否忽略大小写
+     */
+    public AhoCorasick(List<String> patterns, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.patternCount = patterns.size();
+        // 构建字典树
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+        for (int i = 0; i < patterns.size(); i++) {
+            String pattern = patterns.get(i);
+            if (pattern == null || pattern.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int j = 0; j < pattern.length(); j++) {
+                char c = fold(pattern.charAt(j));
+                Integer next = trie.get(node).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    trie.get(node).put(c, next);
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(i);
+        }
+        // 转换为数组结构
+        int size = trie.size();
+        this.childChars = new char[size][];
+        this.childNodes = new int[size][];
+        this.outputs = new int[size][];
+        this.fail = new int[size];
+        this.outputLink = new int[size];
+        for (int i = 0; i < size; i++) {
+            TreeMap<Character, Integer> children = trie.get(i);
+            char[] chars = new char[children.size()];
+            int[] nodes = new int[children.size()];
+            int index = 0;
+            for (Character c : children.keySet()) {
+                chars[index] = c;
+                nodes[index] = children.get(c);
+                index++;
+            }
+            this.childChars[i] = chars;
+            this.childNodes[i] = nodes;
+            this.outputs[i] = nodeOutputs.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        buildFailLinks();
+    }
+
+    /**
+     * 广度优先构建失配指针
+     */
+    private void buildFailLinks() {
+        int[] queue = new int[fail.length];
+        int head = 0;
+        int tail = 0;
+        Arrays.fill(outputLink, -1);
+        for (int child : childNodes[0]) {
+            fail[child] = 0;
+            queue[tail++] = child;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            char[] chars = childChars[node];
+            int[] nodes = childNodes[node];
+            for (int i = 0; i < chars.length; i++) {
+                int child = nodes[i];
+                int state = fail[node];
+                int next = findChild(state, chars[i]);
+                while (next < 0 && state != 0) {
+                    state = fail[state];
+                    next = findChild(state, chars[i]);
+                }
+                fail[child] = next < 0 ? 0 : next;
+                int failNode = fail[child];
+                outputLink[child] = outputs[failNode].length > 0 ? failNode : outputLink[failNode];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * 查找子节点
+     *
+     * @return 不存在返回-1
+     */
+    private int findChild(int node, char c) {
+        char[] chars = childChars[node];
+        int index = Arrays.binarySearch(chars, c);
+        return index < 0 ? -1 : childNodes[node][index];
+    }
+
+    /**
+     * 统一大小写（与 {@link String#regionMatches(boolean, int, String, int, int)} 的忽略大小写比较规则一致）
+     */
+    private char fold(char c) {
+        if (!ignoreCase) {
+            return c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * 获取模式数量
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    /**
+     * 扫描文本，标记命中的模式
+     *
+     * @param text 文本
+     * @param hits 命中的模式下标集合（模式下标与构造时传入的列表下标一致）
+     */
+    public void search(CharSequence text, BitSet hits) {
+        if (text == null) {
+            return;
+        }
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = fold(text.charAt(i));
+            int next = findChild(state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = findChild(state, c);
+            }
+            state = next < 0 ? 0 : next;
+            // 收集当前节点及失配链上的输出
+            int node = outputs[state].length > 0 ? state : outputLink[state];
+            while (node > 0) {
+                for (int pattern : outputs[node]) {
+                    hits.set(pattern);
+                }
+                node = outputLink[node];
+            }
+        }
+    }
+}
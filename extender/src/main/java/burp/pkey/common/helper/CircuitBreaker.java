@@ -0,0 +1,231 @@
+package burp.pkey.common.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 主机熔断器
+ * <p>
+ * 每个主机独立维护 关闭（正常请求）、打开（拦截请求）、半开（放行少量探测请求）三种状态：
+ * 连续失败达到阈值后打开，冷却时间结束后进入半开状态，探测请求成功则关闭，失败则重新打开。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class CircuitBreaker {
+
+    /**
+     * 关闭状态（正常请求）
+     */
+    public static final int STATE_CLOSED = 0;
+
+    /**
+     * 打开状态（拦截请求）
+     */
+    public static final int STATE_OPEN = 1;
+
+    /**
+     * 半开状态（只放行探测请求）
+     */
+    public static final int STATE_HALF_OPEN = 2;
+
+    private final Map<String, HostState> mHosts = new ConcurrentHashMap<>();
+    private volatile int mFailureThreshold;
+    private volatile long mCoolDownMillis;
+    private volatile int mProbeCount;
+
+    /**
+     * 构造方法
+     *
+     * @param failureThreshold 连续失败多少次后打开熔断器
+     * @param coolDownMillis   打开后的冷却时间（毫秒）
+     * @param probeCount       半开状态允许的探测请求数量
+     */
+    public CircuitBreaker(int failureThreshold, long coolDownMillis, int probeCount) {
+        setConfig(failureThreshold, coolDownMillis, probeCount);
+    }
+
+    /**
+     * 修改配置（只影响之后的状态变更）
+     *
+     * @param failureThreshold 连续失败多少次后打开熔断器（最低为1）
+     * @param coolDownMillis   打开后的冷却时间（毫秒）
+     * @param probeCount       半开状态允许的探测请求数量（最低为1）
+     */
+    public void setConfig(int failureThreshold, long coolDownMillis, int probeCount) {
+        mFailureThreshold = Math.max(1, failureThreshold);
+        mCoolDownMillis = Math.max(0, coolDownMillis);
+        mProbeCount = Math.max(1, probeCount);
+    }
+
+    /**
+     * 检测是否允许请求主机（半开状态时，允许的请求作为探测请求）
+     *
+     * @param host 请求的主机
+     * @return true=允许；false=主机已熔断
+     */
+    public boolean allowRequest(String host) {
+        HostState state = mHosts.get(host);
+        return state == null || state.allowRequest(System.currentTimeMillis());
+    }
+
+    /**
+     * 检测主机是否处于打开状态（冷却时间内）
+     *
+     * @param host 请求的主机
+     * @return true=打开；false=未打开
+     */
+    public boolean isOpen(String host) {
+        HostState state = mHosts.get(host);
+        return state != null && state.isOpen(System.currentTimeMillis());
+    }
+
+    /**
+     * 记录请求成功
+     *
+     * @param host 请求的主机
+     */
+    public void onSuccess(String host) {
+        HostState state = mHosts.get(host);
+        if (state != null) {
+            state.onSuccess();
+        }
+    }
+
+    /**
+     * 记录请求失败
+     *
+     * @param host 请求的主机
+     */
+    public void onFailure(String host) {
+        mHosts.computeIfAbsent(host, (key) -> new HostState()).onFailure(System.currentTimeMillis());
+    }
+
+    /**
+     * 获取非关闭状态的主机列表
+     *
+     * @return 主机状态列表
+     */
+    public List<Status> getStatusList() {
+        long now = System.currentTimeMillis();
+        List<Status> result = new ArrayList<>();
+        for (Map.Entry<String, HostState> entry : mHosts.entrySet()) {
+            Status status = entry.getValue().toStatus(entry.getKey(), now);
+            if (status.getState() != STATE_CLOSED) {
+                result.add(status);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 非关闭状态的主机数量
+     */
+    public int getTrippedCount() {
+        return getStatusList().size();
+    }
+
+    /**
+     * 清除所有主机的状态
+     */
+    public void reset() {
+        mHosts.clear();
+    }
+
+    /**
+     * 单个主机的状态
+     */
+    private class HostState {
+
+        private int state = STATE_CLOSED;
+        private int failures;
+        private long openedAt;
+        private int probes;
+        private long probeAt;
+
+        private synchronized boolean allowRequest(long now) {
+            if (state == STATE_CLOSED) {
+                return true;
+            }
+            long coolDown = mCoolDownMillis;
+            if (state == STATE_OPEN) {
+                if (now - openedAt < coolDown) {
+                    return false;
+                }
+                state = STATE_HALF_OPEN;
+                probes = 0;
+            } else if (probes >= mProbeCount && now - probeAt >= coolDown) {
+                // 探测请求长时间没有结果（例如：任务被停止），允许重新探测
+                probes = 0;
+            }
+            if (probes >= mProbeCount) {
+                return false;
+            }
+            probes++;
+            probeAt = now;
+            return true;
+        }
+
+        private synchronized boolean isOpen(long now) {
+            return state == STATE_OPEN && now - openedAt < mCoolDownMillis;
+        }
+
+        private synchronized void onSuccess() {
+            state = STATE_CLOSED;
+            failures = 0;
+            probes = 0;
+        }
+
+        private synchronized void onFailure(long now) {
+            failures++;
+            if (state == STATE_HALF_OPEN || (state == STATE_CLOSED && failures >= mFailureThreshold)) {
+                state = STATE_OPEN;
+                openedAt = now;
+                probes = 0;
+            }
+        }
+
+        private synchronized Status toStatus(String host, long now) {
+            long remaining = state == STATE_OPEN ? Math.max(0, openedAt + mCoolDownMillis - now) : 0;
+            return new Status(host, state, failures, remaining);
+        }
+    }
+
+    /**
+     * 主机状态快照
+     */
+    public static class Status {
+
+        private final String host;
+        private final int state;
+        private final int failures;
+        private final long remainingMillis;
+
+        private Status(String host, int state, int failures, long remainingMillis) {
+            this.host = host;
+            this.state = state;
+            this.failures = failures;
+            this.remainingMillis = remainingMillis;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getState() {
+            return state;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * 打开状态剩余的冷却时间（毫秒）
+         */
+        public long getRemainingMillis() {
+            return remainingMillis;
+        }
+    }
+}
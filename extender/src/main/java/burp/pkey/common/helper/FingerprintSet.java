@@ -0,0 +1,406 @@
+package burp.pkey.common.helper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 指纹去重集合（无锁实现）
+ * <p>
+ * 只保存字符串的 64 位指纹，使用基本类型数组的开放寻址哈希表（每个元素 8 字节），不保存字符串本身；
+ * 添加、删除通过 CAS 完成，不需要加锁。扩容时旧表的每个槽位复制后标记为已迁移，
+ * 遇到已迁移槽位的线程先协助完成复制，再到新表中操作，保证同一个指纹只有一个线程添加成功。
+ * <p>
+ * 64 位指纹在千万级数据量下的碰撞概率约为百万分之几（碰撞时会误判为重复）。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class FingerprintSet {
+
+    /**
+     * 空槽位
+     */
+    private static final long EMPTY = 0;
+
+    /**
+     * 已删除的槽位
+     */
+    private static final long TOMBSTONE = 1;
+
+    /**
+     * 已迁移到新表的槽位
+     */
+    private static final long MOVED = 2;
+
+    /**
+     * 分段数量（按指纹高位分段，每段独立扩容，减少扩容时复制的数据量）
+     */
+    private static final int SEGMENT_COUNT = 64;
+
+    /**
+     * 最大装载因子（已使用槽位，包含已删除的槽位）
+     */
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    /**
+     * 扩容时每次认领复制的槽位数量
+     */
+    private static final int COPY_CHUNK_SIZE = 1024;
+
+    private final int mInitCapacity;
+    private final AtomicReferenceArray<Table> mSegments;
+
+    public FingerprintSet() {
+        this(1024);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param segmentCapacity 每个分段的初始容量（向上取整为 2 的幂）
+     */
+    public FingerprintSet(int segmentCapacity) {
+        this.mInitCapacity = tableSizeFor(Math.max(16, segmentCapacity));
+        this.mSegments = new AtomicReferenceArray<>(SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            mSegments.set(i, new Table(mInitCapacity));
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        return n <= 0 ? 1 << 30 : n;
+    }
+
+    /**
+     * 计算字符串的 64 位指纹（FNV-1a，再经过 MurmurHash3 的 fmix64 打散）
+     *
+     * @param text 字符串
+     * @return 指纹（不会是内部保留值）
+     */
+    public static long fingerprint(CharSequence text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            h ^= c & 0xff;
+            h *= 0x100000001b3L;
+            h ^= c >>> 8;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        // 避开内部保留值
+        return h >= EMPTY && h <= MOVED ? h + MOVED + 1 : h;
+    }
+
+    /**
+     * 不存在时添加
+     *
+     * @param text 字符串
+     * @return true=添加成功；false=已存在
+     */
+    public boolean addIfAbsent(CharSequence text) {
+        return addIfAbsent(fingerprint(text));
+    }
+
+    /**
+     * 不存在时添加
+     *
+     * @param fp 指纹（{@link #fingerprint(CharSequence)} 计算的值）
+     * @return true=添加成功；false=已存在
+     */
+    public boolean addIfAbsent(long fp) {
+        int segment = segmentOf(fp);
+        Table table = mSegments.get(segment);
+        while (true) {
+            int result = table.insert(fp);
+            if (result == Table.INSERTED) {
+                if (table.used.get() > table.threshold) {
+                    startResize(segment, table);
+                }
+                return true;
+            }
+            if (result == Table.EXISTS) {
+                return false;
+            }
+            // 表已满，或者正在迁移：协助完成迁移后，到新表中重试
+            if (result == Table.FULL) {
+                startResize(segment, table);
+            }
+            table = helpResize(segment, table);
+        }
+    }
+
+    /**
+     * 是否存在
+     *
+     * @param text 字符串
+     * @return true=存在；false=不存在
+     */
+    public boolean contains(CharSequence text) {
+        long fp = fingerprint(text);
+        Table table = mSegments.get(segmentOf(fp));
+        while (true) {
+            int result = table.find(fp);
+            if (result != Table.MOVING) {
+                return result == Table.EXISTS;
+            }
+            table = helpResize(segmentOf(fp), table);
+        }
+    }
+
+    /**
+     * 删除
+     *
+     * @param text 字符串
+     * @return true=删除成功；false=不存在
+     */
+    public boolean remove(CharSequence text) {
+        long fp = fingerprint(text);
+        int segment = segmentOf(fp);
+        Table table = mSegments.get(segment);
+        while (true) {
+            int result = table.delete(fp);
+            if (result != Table.MOVING) {
+                return result == Table.EXISTS;
+            }
+            table = helpResize(segment, table);
+        }
+    }
+
+    /**
+     * 清空（清空期间添加的数据可能丢失）
+     */
+    public void clear() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            mSegments.set(i, new Table(mInitCapacity));
+        }
+    }
+
+    /**
+     * 数据数量
+     */
+    public int size() {
+        long count = 0;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            count += mSegments.get(i).live.get();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, count));
+    }
+
+    /**
+     * 哈希表占用的内存（字节，不包含扩容中的新表）
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            bytes += (long) mSegments.get(i).slots.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    private static int segmentOf(long fp) {
+        return (int) (fp >>> 58) & (SEGMENT_COUNT - 1);
+    }
+
+    /**
+     * 创建新表，开始迁移（只有一个线程能创建成功）
+     */
+    private void startResize(int segment, Table table) {
+        if (table.next != null) {
+            return;
+        }
+        // 有效数据较少时（大部分是已删除的槽位），保持容量不变，只清理已删除的槽位
+        int capacity = table.slots.length();
+        int newCapacity = table.live.get() * 4L > capacity ? capacity << 1 : capacity;
+        table.casNext(new Table(newCapacity));
+    }
+
+    /**
+     * 协助完成迁移
+     *
+     * @return 迁移完成后的新表
+     */
+    private Table helpResize(int segment, Table table) {
+        Table next = table.next;
+        if (next == null) {
+            // 其它线程正在创建新表
+            Thread.yield();
+            return mSegments.get(segment) == table ? table : mSegments.get(segment);
+        }
+        int length = table.slots.length();
+        int chunks = (length + COPY_CHUNK_SIZE - 1) / COPY_CHUNK_SIZE;
+        int chunk;
+        while ((chunk = table.copyClaimed.getAndIncrement()) < chunks) {
+            int start = chunk * COPY_CHUNK_SIZE;
+            int end = Math.min(length, start + COPY_CHUNK_SIZE);
+            for (int i = start; i < end; i++) {
+                table.moveSlot(i, next);
+            }
+            table.copyDone.incrementAndGet();
+        }
+        // 等待其它线程认领的部分复制完成
+        while (table.copyDone.get() < chunks) {
+            Thread.yield();
+        }
+        mSegments.compareAndSet(segment, table, next);
+        return next;
+    }
+
+    /**
+     * 开放寻址哈希表（线性探测）
+     */
+    private static class Table {
+
+        private static final int INSERTED = 0;
+        private static final int EXISTS = 1;
+        private static final int ABSENT = 2;
+        private static final int FULL = 3;
+        private static final int MOVING = 4;
+
+        private final AtomicLongArray slots;
+        private final int mask;
+        private final int threshold;
+        private final AtomicInteger used = new AtomicInteger();
+        private final AtomicInteger live = new AtomicInteger();
+        private final AtomicInteger copyClaimed = new AtomicInteger();
+        private final AtomicInteger copyDone = new AtomicInteger();
+        private volatile Table next;
+
+        private Table(int capacity) {
+            this.slots = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            this.threshold = (int) (capacity * MAX_LOAD_FACTOR);
+        }
+
+        private static final AtomicReferenceFieldUpdater<Table, Table> NEXT_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(Table.class, Table.class, "next");
+
+        private void casNext(Table table) {
+            NEXT_UPDATER.compareAndSet(this, null, table);
+        }
+
+        private int indexOf(long fp) {
+            return (int) (fp ^ (fp >>> 32)) & mask;
+        }
+
+        private int insert(long fp) {
+            int index = indexOf(fp);
+            for (int probe = 0; probe <= mask; probe++) {
+                long value = slots.get(index);
+                if (value == fp) {
+                    return EXISTS;
+                }
+                if (value == MOVED) {
+                    return MOVING;
+                }
+                if (value == EMPTY) {
+                    // 正在迁移时不再添加到旧表
+                    if (next != null) {
+                        return MOVING;
+                    }
+                    if (slots.compareAndSet(index, EMPTY, fp)) {
+                        used.incrementAndGet();
+                        live.incrementAndGet();
+                        return INSERTED;
+                    }
+                    // 槽位被其它线程占用，重新检测当前槽位
+                    probe--;
+                    continue;
+                }
+                index = (index + 1) & mask;
+            }
+            return FULL;
+        }
+
+        private int find(long fp) {
+            int index = indexOf(fp);
+            for (int probe = 0; probe <= mask; probe++) {
+                long value = slots.get(index);
+                if (value == fp) {
+                    return EXISTS;
+                }
+                if (value == MOVED) {
+                    return MOVING;
+                }
+                if (value == EMPTY) {
+                    return ABSENT;
+                }
+                index = (index + 1) & mask;
+            }
+            return ABSENT;
+        }
+
+        private int delete(long fp) {
+            int index = indexOf(fp);
+            for (int probe = 0; probe <= mask; probe++) {
+                long value = slots.get(index);
+                if (value == fp) {
+                    if (slots.compareAndSet(index, fp, TOMBSTONE)) {
+                        live.decrementAndGet();
+                        return EXISTS;
+                    }
+                    // 槽位被迁移或者已被删除，重新检测当前槽位
+                    probe--;
+                    continue;
+                }
+                if (value == MOVED) {
+                    return MOVING;
+                }
+                if (value == EMPTY) {
+                    return ABSENT;
+                }
+                index = (index + 1) & mask;
+            }
+            return ABSENT;
+        }
+
+        /**
+         * 将槽位的数据复制到新表，并标记为已迁移
+         */
+        private void moveSlot(int index, Table target) {
+            while (true) {
+                long value = slots.get(index);
+                if (value == MOVED) {
+                    return;
+                }
+                if (value != EMPTY && value != TOMBSTONE) {
+                    // 先复制到新表（新表在迁移完成前不会再扩容）
+                    target.insertMoved(value);
+                }
+                if (slots.compareAndSet(index, value, MOVED)) {
+                    return;
+                }
+                // 槽位在复制期间被删除（或者被添加），重新处理
+                if (value != EMPTY && value != TOMBSTONE) {
+                    target.delete(value);
+                }
+            }
+        }
+
+        /**
+         * 迁移数据时添加到新表（新表容量足够，不会触发扩容）
+         */
+        private void insertMoved(long fp) {
+            int index = indexOf(fp);
+            while (true) {
+                long value = slots.get(index);
+                if (value == fp) {
+                    return;
+                }
+                if (value == EMPTY && slots.compareAndSet(index, EMPTY, fp)) {
+                    used.incrementAndGet();
+                    live.incrementAndGet();
+                    return;
+                }
+                if (value != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+            }
+        }
+    }
+}
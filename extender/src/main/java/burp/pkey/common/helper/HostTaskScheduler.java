@@ -0,0 +1,999 @@
+package burp.pkey.common.helper;
+
+import burp.pkey.common.log.Logger;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * 按主机调度的任务调度器
+ * <p>
+ * 每个主机一个任务队列，轮流从各个主机的队列取任务执行（避免一个主机的大量任务阻塞其它主机）；
+ * 每个主机同时执行的任务数根据请求延时、失败情况自适应调整（AIMD：正常时加性增加，拥塞时乘性减少）；
+ * 等待执行的任务数可以限制容量，队列已满时按溢出策略处理（阻塞、溢出到磁盘、丢弃优先级最低的任务）；
+ * 任务可以划分为多个流量类别，同一主机中按类别的权重加权公平地取任务，并限制每个类别最多占用的并发数
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class HostTaskScheduler {
+
+    /**
+     * 延时超过基准延时的倍数时，认为主机拥塞
+     */
+    private static final double CONGESTION_LATENCY_FACTOR = 2.0;
+
+    /**
+     * 基准延时较低时，允许的最小延时波动（毫秒）
+     */
+    private static final long CONGESTION_LATENCY_SLACK = 200;
+
+    /**
+     * 两次减少并发数的最小间隔（毫秒，避免同一批慢请求连续减半）
+     */
+    private static final long MIN_DECREASE_INTERVAL = 500;
+
+    /**
+     * 队列溢出策略：阻塞提交任务的线程（调用 {@link #execute} 的线程等待队列空闲，
+     * 所以不能在不允许阻塞的线程中提交任务，例如：Burp 的代理线程、UI 线程）
+     */
+    public static final int POLICY_BLOCK = 0;
+
+    /**
+     * 队列溢出策略：溢出到磁盘（需要设置 {@link TaskCodec}，否则按阻塞处理）
+     */
+    public static final int POLICY_SPILL = 1;
+
+    /**
+     * 队列溢出策略：丢弃优先级最低的任务（排队任务最多的主机的最后一个任务，不丢弃 {@link NonDroppable} 任务）
+     */
+    public static final int POLICY_DROP = 2;
+
+    /**
+     * 流量类别的步长基数（类别每执行一个任务，虚拟时间增加 基数/权重）
+     */
+    private static final long CLASS_STRIDE = 1 << 20;
+
+    /**
+     * 当前线程所属的调度器（工作线程中添加任务时，队列已满也不阻塞，避免所有工作线程互相等待）
+     */
+    private static final ThreadLocal<HostTaskScheduler> sWorkerScheduler = new ThreadLocal<>();
+
+    private final ExecutorService mExecutor;
+    private final int mMaxConcurrency;
+    private final int mInitHostConcurrency;
+    private final int mMaxHostConcurrency;
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Map<String, HostQueue> mHostQueues = new HashMap<>();
+    private final ArrayDeque<HostQueue> mReadyQueue = new ArrayDeque<>();
+    private final Condition mNotFull = mLock.newCondition();
+    private final SpillQueue mSpillQueue = new SpillQueue("pkscan-task-");
+    private final AtomicBoolean mRefilling = new AtomicBoolean();
+    private int mWorkerCount;
+    private int mQueueSize;
+    private int mCapacity;
+    private int mOverflowPolicy = POLICY_BLOCK;
+    private long mDropCount;
+    private TaskCodec mTaskCodec;
+    private OnTaskDropListener mOnTaskDropListener;
+    private TaskClassifier mTaskClassifier;
+    private int[] mClassWeights = {1};
+    private int[] mClassLimits = {Integer.MAX_VALUE};
+    private int[] mClassInFlight = new int[1];
+    private volatile boolean mShutdown;
+
+    /**
+     * 构造方法
+     *
+     * @param maxConcurrency      最大并发数（工作线程数）
+     * @param initHostConcurrency 每个主机的初始并发数
+     * @param maxHostConcurrency  每个主机的最大并发数
+     */
+    public HostTaskScheduler(int maxConcurrency, int initHostConcurrency, int maxHostConcurrency) {
+        this(Executors.newFixedThreadPool(maxConcurrency), maxConcurrency, initHostConcurrency, maxHostConcurrency);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param executor            执行任务的线程池（关闭调度器时一起关闭）
+     * @param maxConcurrency      最大并发数
+     * @param initHostConcurrency 每个主机的初始并发数
+     * @param maxHostConcurrency  每个主机的最大并发数
+     */
+    public HostTaskScheduler(ExecutorService executor, int maxConcurrency, int initHostConcurrency,
+                             int maxHostConcurrency) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        if (maxConcurrency <= 0 || maxHostConcurrency <= 0) {
+            throw new IllegalArgumentException("Illegal concurrency value: " + maxConcurrency +
+                    ", " + maxHostConcurrency);
+        }
+        this.mExecutor = executor;
+        this.mMaxConcurrency = maxConcurrency;
+        this.mMaxHostConcurrency = Math.min(maxHostConcurrency, maxConcurrency);
+        this.mInitHostConcurrency = Math.max(1, Math.min(initHostConcurrency, this.mMaxHostConcurrency));
+    }
+
+    /**
+     * 设置等待执行的任务队列容量和溢出策略
+     *
+     * @param capacity       队列容量（小于等于0表示不限制）
+     * @param overflowPolicy 溢出策略（示例：{@link #POLICY_BLOCK}）
+     */
+    public void setQueueLimits(int capacity, int overflowPolicy) {
+        mLock.lock();
+        try {
+            mCapacity = capacity;
+            mOverflowPolicy = overflowPolicy;
+            mNotFull.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+        refillFromSpill();
+    }
+
+    /**
+     * 设置任务编解码器（溢出到磁盘时使用）
+     */
+    public void setTaskCodec(TaskCodec codec) {
+        mLock.lock();
+        try {
+            mTaskCodec = codec;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 设置任务丢弃监听器（队列溢出丢弃任务时调用）
+     */
+    public void setOnTaskDropListener(OnTaskDropListener l) {
+        mLock.lock();
+        try {
+            mOnTaskDropListener = l;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 设置任务分类器（未设置时，所有任务属于类别 0）
+     */
+    public void setTaskClassifier(TaskClassifier classifier) {
+        mLock.lock();
+        try {
+            mTaskClassifier = classifier;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 设置流量类别的权重和并发占比（类别数量变化时，排队中的任务重新分类）
+     *
+     * @param weights       每个类别的权重（大于0，权重越大，取任务的频率越高）
+     * @param sharePercents 每个类别最多占用的并发数百分比（1-100）
+     */
+    public void setTrafficClasses(int[] weights, int[] sharePercents) {
+        if (weights == null || sharePercents == null || weights.length == 0 ||
+                weights.length != sharePercents.length) {
+            throw new IllegalArgumentException("Illegal traffic class config");
+        }
+        int count = weights.length;
+        int[] newWeights = new int[count];
+        int[] newLimits = new int[count];
+        for (int i = 0; i < count; i++) {
+            newWeights[i] = Math.max(1, weights[i]);
+            int percent = Math.max(1, Math.min(100, sharePercents[i]));
+            newLimits[i] = Math.max(1, (int) Math.ceil(mMaxConcurrency * percent / 100.0));
+        }
+        mLock.lock();
+        try {
+            if (count != mClassWeights.length) {
+                // 类别数量变化，将排队中的任务按新的类别重新入队
+                List<Runnable> tasks = new ArrayList<>();
+                Map<Runnable, String> hosts = new IdentityHashMap<>();
+                for (HostQueue queue : mHostQueues.values()) {
+                    int start = tasks.size();
+                    queue.drainTo(tasks);
+                    for (int i = start; i < tasks.size(); i++) {
+                        hosts.put(tasks.get(i), queue.host);
+                    }
+                }
+                mQueueSize -= tasks.size();
+                int[] inFlight = new int[count];
+                System.arraycopy(mClassInFlight, 0, inFlight, 0, Math.min(count, mClassInFlight.length));
+                mClassInFlight = inFlight;
+                mClassWeights = newWeights;
+                mClassLimits = newLimits;
+                for (Runnable task : tasks) {
+                    enqueue(hosts.get(task), task);
+                }
+            } else {
+                mClassWeights = newWeights;
+                mClassLimits = newLimits;
+            }
+            for (HostQueue queue : mHostQueues.values()) {
+                markReady(queue);
+            }
+        } finally {
+            mLock.unlock();
+        }
+        dispatch();
+    }
+
+    /**
+     * 添加任务（队列已满时，按溢出策略处理；阻塞策略下，工作线程中添加的任务直接入队）
+     *
+     * @param host 任务所属的主机
+     * @param task 任务实例
+     * @throws RejectedExecutionException 调度器已关闭，或者阻塞等待时线程被中断
+     */
+    public void execute(String host, Runnable task) {
+        submit(host, task, true);
+    }
+
+    /**
+     * 尝试添加任务（不阻塞调用线程，适用于不允许阻塞的线程，例如：定时器线程）
+     *
+     * @param host 任务所属的主机
+     * @param task 任务实例
+     * @return true=添加成功（包括溢出到磁盘、按丢弃策略处理）；false=阻塞策略下队列已满，任务未添加
+     * @throws RejectedExecutionException 调度器已关闭
+     */
+    public boolean tryExecute(String host, Runnable task) {
+        return submit(host, task, false);
+    }
+
+    /**
+     * 添加任务
+     *
+     * @param wait 阻塞策略下队列已满时，是否等待队列空闲
+     * @return true=添加成功；false=不等待时队列已满，任务未添加
+     */
+    private boolean submit(String host, Runnable task, boolean wait) {
+        if (task == null) {
+            throw new IllegalArgumentException("task is null");
+        }
+        Runnable dropped = null;
+        byte[] spillData = null;
+        OnTaskDropListener dropListener;
+        mLock.lock();
+        try {
+            while (true) {
+                if (mShutdown) {
+                    throw new RejectedExecutionException("Scheduler is shutdown");
+                }
+                int policy = mOverflowPolicy;
+                if (policy == POLICY_SPILL && mTaskCodec != null) {
+                    // 已经存在溢出的任务时，新任务也溢出到磁盘，保证执行顺序
+                    if (isQueueFull() || mSpillQueue.size() > 0) {
+                        spillData = mTaskCodec.encode(task);
+                    }
+                    break;
+                }
+                if (!isQueueFull() || (policy == POLICY_BLOCK && sWorkerScheduler.get() == this)) {
+                    break;
+                }
+                if (policy == POLICY_DROP) {
+                    // 不可丢弃的任务直接入队（最多超出容量的数量为这类任务的数量）
+                    if (task instanceof NonDroppable) {
+                        break;
+                    }
+                    dropped = pollLowestPriorityTask(host);
+                    if (dropped == null) {
+                        dropped = task;
+                    }
+                    break;
+                }
+                if (!wait) {
+                    return false;
+                }
+                try {
+                    mNotFull.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting for queue space");
+                }
+            }
+            if (dropped != null) {
+                mDropCount++;
+            }
+            if (dropped != task && spillData == null) {
+                enqueue(host, task);
+            }
+            dropListener = mOnTaskDropListener;
+        } finally {
+            mLock.unlock();
+        }
+        if (spillData != null) {
+            if (spillTask(host, spillData)) {
+                // 内存队列有空间时，立即读取溢出的任务
+                refillFromSpill();
+            } else {
+                // 溢出失败时，直接添加到内存队列
+                mLock.lock();
+                try {
+                    enqueue(host, task);
+                } finally {
+                    mLock.unlock();
+                }
+            }
+        }
+        if (dropped != null && dropListener != null) {
+            dropListener.onTaskDrop(dropped);
+        }
+        dispatch();
+        return true;
+    }
+
+    /**
+     * 添加任务到主机的任务队列（在锁内调用）
+     */
+    private void enqueue(String host, Runnable task) {
+        HostQueue queue = mHostQueues.get(host);
+        if (queue == null) {
+            queue = new HostQueue(host, mInitHostConcurrency);
+            mHostQueues.put(host, queue);
+        }
+        queue.add(classify(task), task, mClassWeights.length);
+        mQueueSize++;
+        markReady(queue);
+    }
+
+    /**
+     * 获取任务的流量类别（在锁内调用）
+     */
+    private int classify(Runnable task) {
+        int count = mClassWeights.length;
+        if (mTaskClassifier == null || count == 1) {
+            return 0;
+        }
+        int cls = mTaskClassifier.classify(task);
+        return cls < 0 || cls >= count ? 0 : cls;
+    }
+
+    private boolean isQueueFull() {
+        return mCapacity > 0 && mQueueSize >= mCapacity;
+    }
+
+    /**
+     * 取出优先级最低的任务（排队任务最多的主机中，权重最低的类别的最后一个任务，在锁内调用）
+     *
+     * @param host 新任务所属的主机
+     * @return 新任务所属的主机排队任务最多时，返回null（丢弃新任务）
+     */
+    private Runnable pollLowestPriorityTask(String host) {
+        HostQueue maxQueue = null;
+        for (HostQueue queue : mHostQueues.values()) {
+            if (maxQueue == null || queue.size > maxQueue.size) {
+                maxQueue = queue;
+            }
+        }
+        HostQueue current = mHostQueues.get(host);
+        int currentSize = current == null ? 0 : current.size;
+        if (maxQueue == null || maxQueue == current || maxQueue.size <= currentSize + 1) {
+            return null;
+        }
+        Runnable task = maxQueue.pollLowestPriority(mClassWeights);
+        if (task != null) {
+            mQueueSize--;
+        }
+        return task;
+    }
+
+    /**
+     * 将任务溢出到磁盘
+     *
+     * @return true=成功；false=失败
+     */
+    private boolean spillTask(String host, byte[] data) {
+        if (data == null) {
+            return false;
+        }
+        try {
+            mSpillQueue.push(host, data);
+            return true;
+        } catch (IOException e) {
+            Logger.error("HostTaskScheduler spill task error: %s", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 内存队列低于容量的一半时，从磁盘读取溢出的任务（同一时间只有一个线程读取）
+     */
+    private void refillFromSpill() {
+        if (mSpillQueue.size() == 0 || !mRefilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (true) {
+                TaskCodec codec;
+                mLock.lock();
+                try {
+                    boolean hasSpace = mCapacity <= 0 || mQueueSize < Math.max(1, mCapacity / 2);
+                    if (mShutdown || !hasSpace || mTaskCodec == null) {
+                        return;
+                    }
+                    codec = mTaskCodec;
+                } finally {
+                    mLock.unlock();
+                }
+                SpillQueue.Item item = mSpillQueue.poll();
+                if (item == null) {
+                    return;
+                }
+                Runnable task = codec.decode(item.getData());
+                if (task == null) {
+                    continue;
+                }
+                mLock.lock();
+                try {
+                    enqueue(item.getKey(), task);
+                } finally {
+                    mLock.unlock();
+                }
+                dispatch();
+            }
+        } catch (IOException e) {
+            Logger.error("HostTaskScheduler refill task error: %s", e.getMessage());
+        } finally {
+            mRefilling.set(false);
+        }
+    }
+
+    /**
+     * 反馈主机请求的执行结果（用于调整主机的并发数）
+     *
+     * @param host          主机
+     * @param latencyMillis 请求延时（毫秒）
+     * @param success       请求是否成功
+     */
+    public void feedback(String host, long latencyMillis, boolean success) {
+        mLock.lock();
+        try {
+            HostQueue queue = mHostQueues.get(host);
+            if (queue == null) {
+                return;
+            }
+            queue.onFeedback(latencyMillis, success, mMaxHostConcurrency);
+            markReady(queue);
+        } finally {
+            mLock.unlock();
+        }
+        dispatch();
+    }
+
+    /**
+     * 是否已关闭
+     */
+    public boolean isShutdown() {
+        return mShutdown;
+    }
+
+    /**
+     * 立即关闭调度器（中断正在执行的任务）
+     *
+     * @return 未执行的任务列表
+     */
+    public List<Runnable> shutdownNow() {
+        List<Runnable> result = new ArrayList<>();
+        TaskCodec codec;
+        mLock.lock();
+        try {
+            mShutdown = true;
+            for (HostQueue queue : mHostQueues.values()) {
+                queue.drainTo(result);
+            }
+            mReadyQueue.clear();
+            mQueueSize = 0;
+            codec = mTaskCodec;
+            // 唤醒阻塞等待的线程
+            mNotFull.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+        // 线程池中只有工作线程，不需要处理返回值
+        mExecutor.shutdownNow();
+        // 溢出到磁盘的任务也一起返回
+        try {
+            SpillQueue.Item item;
+            while (codec != null && (item = mSpillQueue.poll()) != null) {
+                Runnable task = codec.decode(item.getData());
+                if (task != null) {
+                    result.add(task);
+                }
+            }
+        } catch (IOException e) {
+            Logger.error("HostTaskScheduler read spill task error: %s", e.getMessage());
+        }
+        mSpillQueue.close();
+        return result;
+    }
+
+    /**
+     * 移除等待执行的任务中满足条件的任务（不影响正在执行的任务，溢出到磁盘的任务在读取后才会检测）
+     *
+     * @param filter 任务过滤条件
+     * @return 移除的任务列表
+     */
+    public List<Runnable> removeIf(Predicate<Runnable> filter) {
+        List<Runnable> result = new ArrayList<>();
+        mLock.lock();
+        try {
+            int count = 0;
+            Iterator<HostQueue> it = mHostQueues.values().iterator();
+            while (it.hasNext()) {
+                HostQueue queue = it.next();
+                count += queue.removeIf(filter, result);
+                if (queue.isIdle()) {
+                    it.remove();
+                }
+            }
+            if (count > 0) {
+                mQueueSize -= count;
+                mNotFull.signalAll();
+            }
+        } finally {
+            mLock.unlock();
+        }
+        refillFromSpill();
+        return result;
+    }
+
+    /**
+     * 获取等待执行的任务数量（包含溢出到磁盘的任务）
+     */
+    public int getQueueSize() {
+        mLock.lock();
+        try {
+            return mQueueSize + mSpillQueue.size();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 获取溢出到磁盘的任务数量
+     */
+    public int getSpillSize() {
+        return mSpillQueue.size();
+    }
+
+    /**
+     * 获取队列溢出时丢弃的任务数量
+     */
+    public long getDropCount() {
+        mLock.lock();
+        try {
+            return mDropCount;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 获取存在排队或者正在执行任务的主机数量
+     */
+    public int getHostCount() {
+        mLock.lock();
+        try {
+            return mHostQueues.size();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 获取主机当前的并发数限制
+     *
+     * @param host 主机
+     * @return 主机不存在时返回初始并发数
+     */
+    public int getHostConcurrency(String host) {
+        mLock.lock();
+        try {
+            HostQueue queue = mHostQueues.get(host);
+            return queue == null ? mInitHostConcurrency : queue.getLimit();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 获取每个流量类别正在执行的任务数量
+     */
+    public int[] getClassInFlight() {
+        mLock.lock();
+        try {
+            return mClassInFlight.clone();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 获取每个流量类别排队中的任务数量（不包含溢出到磁盘的任务）
+     */
+    public int[] getClassQueueSize() {
+        mLock.lock();
+        try {
+            int[] result = new int[mClassWeights.length];
+            for (HostQueue queue : mHostQueues.values()) {
+                int count = Math.min(result.length, queue.classTasks.size());
+                for (int i = 0; i < count; i++) {
+                    result[i] += queue.classTasks.get(i).size();
+                }
+            }
+            return result;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 主机存在可以执行的任务（所属类别未达到并发数限制），并且主机未达到并发数限制时，添加到就绪队列末尾（在锁内调用）
+     */
+    private void markReady(HostQueue queue) {
+        if (!queue.ready && queue.inFlight < queue.getLimit() && queue.pickClass(mClassInFlight, mClassLimits) >= 0) {
+            queue.ready = true;
+            mReadyQueue.add(queue);
+        }
+    }
+
+    /**
+     * 存在就绪的主机，并且未达到最大并发数时，启动一个工作线程
+     */
+    private void dispatch() {
+        mLock.lock();
+        try {
+            if (mShutdown || mReadyQueue.isEmpty() || mWorkerCount >= mMaxConcurrency) {
+                return;
+            }
+            mWorkerCount++;
+        } finally {
+            mLock.unlock();
+        }
+        try {
+            mExecutor.execute(this::runWorker);
+        } catch (RejectedExecutionException e) {
+            mLock.lock();
+            try {
+                mWorkerCount--;
+            } finally {
+                mLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 工作线程：轮流从就绪的主机取任务执行，没有就绪的主机时退出
+     */
+    private void runWorker() {
+        sWorkerScheduler.set(this);
+        try {
+            loopWorker();
+        } finally {
+            sWorkerScheduler.remove();
+        }
+    }
+
+    private void loopWorker() {
+        while (true) {
+            HostQueue queue;
+            Runnable task;
+            int cls;
+            mLock.lock();
+            try {
+                queue = mShutdown ? null : mReadyQueue.poll();
+                if (queue == null) {
+                    mWorkerCount--;
+                    return;
+                }
+                queue.ready = false;
+                cls = queue.pickClass(mClassInFlight, mClassLimits);
+                if (cls < 0) {
+                    // 任务已被丢弃，或者任务所属的类别已达到并发数限制（类别有空闲时重新加入就绪队列）
+                    removeIfIdle(queue);
+                    continue;
+                }
+                task = queue.poll(cls, mClassWeights[cls]);
+                mQueueSize--;
+                queue.inFlight++;
+                mClassInFlight[cls]++;
+                // 主机还有任务时，放回就绪队列末尾，实现主机之间的轮询
+                markReady(queue);
+                mNotFull.signal();
+            } finally {
+                mLock.unlock();
+            }
+            refillFromSpill();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                Logger.error("HostTaskScheduler task error: %s", e.getMessage());
+            } finally {
+                mLock.lock();
+                try {
+                    queue.inFlight--;
+                    releaseClass(cls);
+                    markReady(queue);
+                    removeIfIdle(queue);
+                } finally {
+                    mLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * 主机没有排队和正在执行的任务时，移除主机的任务队列（在锁内调用，避免扫描大量主机后一直占用内存）
+     */
+    private void removeIfIdle(HostQueue queue) {
+        if (queue.isIdle() && mHostQueues.get(queue.host) == queue) {
+            mHostQueues.remove(queue.host);
+        }
+    }
+
+    /**
+     * 类别的任务执行完成（在锁内调用）
+     */
+    private void releaseClass(int cls) {
+        if (cls >= mClassInFlight.length) {
+            return;
+        }
+        boolean full = mClassInFlight[cls] >= mClassLimits[cls];
+        mClassInFlight[cls]--;
+        if (full) {
+            // 类别从并发数限制中恢复，重新检测因此未就绪的主机
+            for (HostQueue item : mHostQueues.values()) {
+                markReady(item);
+            }
+        }
+    }
+
+    /**
+     * 主机任务队列
+     */
+    private static class HostQueue {
+
+        private final String host;
+        private final List<ArrayDeque<Runnable>> classTasks = new ArrayList<>();
+        private long[] classPass = new long[0];
+        private long virtualTime;
+        private int size;
+        private int inFlight;
+        private boolean ready;
+        private double limit;
+        private double baseLatency = -1;
+        private long lastDecreaseTime;
+
+        private HostQueue(String host, int initLimit) {
+            this.host = host;
+            this.limit = initLimit;
+        }
+
+        private int getLimit() {
+            return Math.max(1, (int) limit);
+        }
+
+        /**
+         * 没有排队和正在执行的任务
+         */
+        private boolean isIdle() {
+            return size == 0 && inFlight == 0;
+        }
+
+        /**
+         * 类别数量增加时，添加类别队列（类别数量变化时，排队中的任务已全部取出重新入队）
+         */
+        private void ensureClassCount(int count) {
+            while (classTasks.size() < count) {
+                classTasks.add(new ArrayDeque<>());
+            }
+            if (classPass.length < count) {
+                classPass = Arrays.copyOf(classPass, count);
+            }
+        }
+
+        /**
+         * 添加任务到类别队列（类别从空变为非空时，虚拟时间追上主机当前的虚拟时间，避免积累的额度造成突发）
+         */
+        private void add(int cls, Runnable task, int classCount) {
+            ensureClassCount(classCount);
+            ArrayDeque<Runnable> tasks = classTasks.get(cls);
+            if (tasks.isEmpty()) {
+                classPass[cls] = Math.max(classPass[cls], virtualTime);
+            }
+            tasks.add(task);
+            size++;
+        }
+
+        /**
+         * 选择下一个执行的类别（未达到并发数限制的类别中，虚拟时间最小的类别）
+         *
+         * @return 没有可以执行的任务时返回-1
+         */
+        private int pickClass(int[] classInFlight, int[] classLimits) {
+            if (size == 0) {
+                return -1;
+            }
+            int result = -1;
+            for (int i = 0; i < classTasks.size() && i < classLimits.length; i++) {
+                if (classTasks.get(i).isEmpty() || classInFlight[i] >= classLimits[i]) {
+                    continue;
+                }
+                if (result < 0 || classPass[i] < classPass[result]) {
+                    result = i;
+                }
+            }
+            return result;
+        }
+
+        private Runnable poll(int cls, int weight) {
+            Runnable task = classTasks.get(cls).poll();
+            size--;
+            virtualTime = classPass[cls];
+            classPass[cls] += CLASS_STRIDE / weight;
+            return task;
+        }
+
+        /**
+         * 取出权重最低的类别的最后一个可丢弃的任务（跳过 {@link NonDroppable} 任务）
+         *
+         * @return 不存在可丢弃的任务时返回null
+         */
+        private Runnable pollLowestPriority(int[] classWeights) {
+            boolean[] skipped = new boolean[classTasks.size()];
+            while (true) {
+                int result = -1;
+                for (int i = 0; i < classTasks.size() && i < classWeights.length; i++) {
+                    if (skipped[i] || classTasks.get(i).isEmpty()) {
+                        continue;
+                    }
+                    if (result < 0 || classWeights[i] <= classWeights[result]) {
+                        result = i;
+                    }
+                }
+                if (result < 0) {
+                    return null;
+                }
+                Iterator<Runnable> it = classTasks.get(result).descendingIterator();
+                while (it.hasNext()) {
+                    Runnable task = it.next();
+                    if (!(task instanceof NonDroppable)) {
+                        it.remove();
+                        size--;
+                        return task;
+                    }
+                }
+                skipped[result] = true;
+            }
+        }
+
+        /**
+         * 移除满足条件的任务
+         *
+         * @return 移除的任务数量
+         */
+        private int removeIf(Predicate<Runnable> filter, List<Runnable> list) {
+            int count = 0;
+            for (ArrayDeque<Runnable> tasks : classTasks) {
+                Iterator<Runnable> it = tasks.iterator();
+                while (it.hasNext()) {
+                    Runnable task = it.next();
+                    if (filter.test(task)) {
+                        it.remove();
+                        list.add(task);
+                        count++;
+                    }
+                }
+            }
+            size -= count;
+            return count;
+        }
+
+        private void drainTo(List<Runnable> list) {
+            for (ArrayDeque<Runnable> tasks : classTasks) {
+                list.addAll(tasks);
+                tasks.clear();
+            }
+            size = 0;
+        }
+
+        /**
+         * 根据请求结果调整并发数
+         */
+        private void onFeedback(long latency, boolean success, int maxLimit) {
+            if (success) {
+                // 基准延时取最低延时，并缓慢跟随延时上升（适应主机的正常波动）
+                if (baseLatency < 0 || latency < baseLatency) {
+                    baseLatency = latency;
+                } else {
+                    baseLatency += (latency - baseLatency) * 0.05;
+                }
+            }
+            double threshold = Math.max(baseLatency * CONGESTION_LATENCY_FACTOR, baseLatency + CONGESTION_LATENCY_SLACK);
+            boolean congested = !success || latency > threshold;
+            if (!congested) {
+                // 加性增加：大约每完成 limit 个请求，并发数加 1
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastDecreaseTime < MIN_DECREASE_INTERVAL) {
+                return;
+            }
+            lastDecreaseTime = now;
+            // 乘性减少
+            limit = Math.max(1, limit / 2);
+            Logger.debug("HostTaskScheduler: host %s congested, concurrency limit: %d", host, getLimit());
+        }
+    }
+
+    /**
+     * 任务编解码器（将任务溢出到磁盘时使用）
+     */
+    public interface TaskCodec {
+
+        /**
+         * 编码任务
+         *
+         * @param task 任务实例
+         * @return 不支持编码的任务返回null（不溢出到磁盘）
+         */
+        byte[] encode(Runnable task);
+
+        /**
+         * 解码任务
+         *
+         * @param data 编码后的数据
+         * @return 解码失败返回null
+         */
+        Runnable decode(byte[] data);
+    }
+
+    /**
+     * 不可丢弃的任务（例如：按批次生成请求任务的任务，丢弃后剩余未生成的任务全部丢失）
+     * <p>
+     * 溢出策略为丢弃时，这类任务在队列已满时也直接入队，并且不会被选为丢弃的任务
+     */
+    public interface NonDroppable {
+    }
+
+    /**
+     * 任务分类器
+     */
+    public interface TaskClassifier {
+
+        /**
+         * 获取任务的流量类别
+         *
+         * @param task 任务实例
+         * @return 类别下标（超出范围时按类别 0 处理）
+         */
+        int classify(Runnable task);
+    }
+
+    /**
+     * 任务丢弃监听器
+     */
+    public interface OnTaskDropListener {
+
+        /**
+         * 队列溢出丢弃任务时调用（在提交任务的线程调用）
+         *
+         * @param task 被丢弃的任务
+         */
+        void onTaskDrop(Runnable task);
+    }
+}
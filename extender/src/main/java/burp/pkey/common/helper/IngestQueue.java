@@ -0,0 +1,458 @@
+package burp.pkey.common.helper;
+
+import burp.pkey.common.log.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 数据接收队列
+ * <p>
+ * 生产者（例如：代理监听回调线程）只将数据添加到无锁的多生产者单消费者队列中立即返回，
+ * 由单独的分发线程在处理线程池有空闲时取出数据交给处理线程池处理，并统计数据从接收到开始处理的延时。
+ * <p>
+ * 设置容量后，队列已满时按溢出策略处理（与 {@link HostTaskScheduler#POLICY_BLOCK} 等取值一致）：
+ * 阻塞生产者线程、拒绝新数据，或者溢出到磁盘；被拒绝的数据单独计数。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class IngestQueue<T> {
+
+    /**
+     * 分发线程没有数据时的最长等待时间（纳秒）
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 平均延时的平滑系数
+     */
+    private static final double LAG_EWMA_ALPHA = 0.2;
+
+    /**
+     * 队列尾节点（生产者通过原子交换追加节点）
+     */
+    private final AtomicReference<Node<T>> mTail;
+    private final ExecutorService mExecutor;
+    private final Semaphore mPermits;
+    private final Consumer<T> mHandler;
+    private final Thread mDispatcher;
+    private final AtomicInteger mPendingCount = new AtomicInteger();
+    private final AtomicLong mGeneration = new AtomicLong();
+    private final AtomicLong mProcessedCount = new AtomicLong();
+    private final AtomicLong mRejectedCount = new AtomicLong();
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Condition mNotFull = mLock.newCondition();
+    private final AtomicInteger mWaitingCount = new AtomicInteger();
+    private final SpillQueue mSpillQueue;
+    private volatile int mCapacity;
+    private volatile int mOverflowPolicy = HostTaskScheduler.POLICY_BLOCK;
+    private volatile Codec<T> mCodec;
+    private volatile long mLastLagNanos;
+    private volatile long mMaxLagNanos;
+    private volatile double mAvgLagNanos;
+    private volatile boolean mShutdown;
+
+    /**
+     * 队列头节点（只有分发线程访问）
+     */
+    private Node<T> mHead;
+
+    /**
+     * 构造方法
+     *
+     * @param name        线程名前缀
+     * @param threadCount 处理线程数量
+     * @param handler     数据处理方法
+     */
+    public IngestQueue(String name, int threadCount, Consumer<T> handler) {
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("threadCount must be > 0");
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("handler is null");
+        }
+        Node<T> stub = new Node<>(null, 0, 0);
+        this.mHead = stub;
+        this.mTail = new AtomicReference<>(stub);
+        this.mHandler = handler;
+        this.mPermits = new Semaphore(threadCount);
+        this.mSpillQueue = new SpillQueue(name + "-");
+        AtomicInteger index = new AtomicInteger();
+        this.mExecutor = Executors.newFixedThreadPool(threadCount, (r) -> {
+            Thread thread = new Thread(r, name + "-worker-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.mDispatcher = new Thread(this::runDispatcher, name + "-dispatcher");
+        this.mDispatcher.setDaemon(true);
+        this.mDispatcher.start();
+    }
+
+    /**
+     * 设置队列容量和溢出策略
+     *
+     * @param capacity       队列容量（小于等于0表示不限制）
+     * @param overflowPolicy 溢出策略（示例：{@link HostTaskScheduler#POLICY_BLOCK}）
+     */
+    public void setLimits(int capacity, int overflowPolicy) {
+        mCapacity = capacity;
+        mOverflowPolicy = overflowPolicy;
+        signalNotFull();
+    }
+
+    /**
+     * 设置数据编解码器（溢出到磁盘时使用）
+     */
+    public void setCodec(Codec<T> codec) {
+        mCodec = codec;
+    }
+
+    /**
+     * 添加数据
+     * <p>
+     * 队列未满时无锁添加，不阻塞调用线程；队列已满时按溢出策略处理：阻塞策略下调用线程等待队列空闲，
+     * 丢弃策略下直接拒绝，溢出策略下写入磁盘（没有编解码器、或者写入失败时按阻塞处理）
+     *
+     * @param item 数据实例
+     * @return true=添加成功；false=队列已关闭，或者数据被拒绝
+     */
+    public boolean offer(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item is null");
+        }
+        if (mShutdown) {
+            return false;
+        }
+        int policy = mOverflowPolicy;
+        Codec<T> codec = mCodec;
+        if (policy == HostTaskScheduler.POLICY_SPILL && codec != null &&
+                (isFull() || mSpillQueue.size() > 0)) {
+            // 磁盘中还有数据时，新数据也写入磁盘（保持先后顺序）
+            if (spill(item, codec)) {
+                LockSupport.unpark(mDispatcher);
+                return true;
+            }
+            policy = HostTaskScheduler.POLICY_BLOCK;
+        }
+        if (isFull()) {
+            if (policy == HostTaskScheduler.POLICY_DROP || !awaitNotFull()) {
+                mRejectedCount.incrementAndGet();
+                return false;
+            }
+        }
+        Node<T> node = new Node<>(item, System.nanoTime(), mGeneration.get());
+        mPendingCount.incrementAndGet();
+        Node<T> prev = mTail.getAndSet(node);
+        prev.next = node;
+        LockSupport.unpark(mDispatcher);
+        return true;
+    }
+
+    private boolean isFull() {
+        int capacity = mCapacity;
+        return capacity > 0 && mPendingCount.get() >= capacity;
+    }
+
+    /**
+     * 等待队列空闲
+     *
+     * @return true=队列空闲；false=队列已关闭，或者等待被中断
+     */
+    private boolean awaitNotFull() {
+        mLock.lock();
+        // 先登记等待的线程，再检测队列状态（取出数据的线程检测到有等待的线程时才加锁通知，不会错过通知）
+        mWaitingCount.incrementAndGet();
+        try {
+            while (isFull() && !mShutdown) {
+                mNotFull.awaitNanos(IDLE_PARK_NANOS);
+            }
+            return !mShutdown;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            mWaitingCount.decrementAndGet();
+            mLock.unlock();
+        }
+    }
+
+    private void signalNotFull() {
+        mLock.lock();
+        try {
+            mNotFull.signalAll();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * 数据从内存队列中取出（丢弃或者开始处理）
+     */
+    private void onNodeRemoved() {
+        mPendingCount.decrementAndGet();
+        if (mWaitingCount.get() > 0) {
+            signalNotFull();
+        }
+    }
+
+    /**
+     * 将数据写入磁盘（key 保存批次和接收时间）
+     *
+     * @return true=成功；false=失败
+     */
+    private boolean spill(T item, Codec<T> codec) {
+        byte[] data;
+        try {
+            data = codec.encode(item);
+        } catch (Exception e) {
+            data = null;
+        }
+        if (data == null) {
+            return false;
+        }
+        try {
+            mSpillQueue.push(mGeneration.get() + ":" + System.nanoTime(), data);
+            return true;
+        } catch (IOException e) {
+            Logger.error("IngestQueue spill error: %s", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 从磁盘读取下一条数据（只在分发线程调用）
+     *
+     * @return 磁盘中没有数据时返回null
+     */
+    private Node<T> pollSpilled() {
+        Codec<T> codec = mCodec;
+        while (codec != null && mSpillQueue.size() > 0) {
+            SpillQueue.Item spilled;
+            try {
+                spilled = mSpillQueue.poll();
+            } catch (IOException e) {
+                Logger.error("IngestQueue read spill error: %s", e.getMessage());
+                return null;
+            }
+            if (spilled == null) {
+                return null;
+            }
+            String key = spilled.getKey();
+            int split = key.indexOf(':');
+            long generation = Long.parseLong(key.substring(0, split));
+            long time = Long.parseLong(key.substring(split + 1));
+            // 已清空的数据，直接丢弃
+            if (generation != mGeneration.get()) {
+                continue;
+            }
+            T item;
+            try {
+                item = codec.decode(spilled.getData());
+            } catch (Exception e) {
+                item = null;
+            }
+            if (item == null) {
+                mRejectedCount.incrementAndGet();
+                continue;
+            }
+            // 与内存队列的数据一起计数（开始处理时减少）
+            mPendingCount.incrementAndGet();
+            return new Node<>(item, time, generation);
+        }
+        return null;
+    }
+
+    /**
+     * 丢弃所有未开始处理的数据
+     */
+    public void clear() {
+        // 分发线程取出数据时，丢弃之前批次的数据
+        mGeneration.incrementAndGet();
+        LockSupport.unpark(mDispatcher);
+    }
+
+    /**
+     * 关闭队列（未开始处理的数据将被丢弃）
+     *
+     * @return 未开始处理的数据数量
+     */
+    public int shutdownNow() {
+        mShutdown = true;
+        mDispatcher.interrupt();
+        signalNotFull();
+        List<Runnable> list = mExecutor.shutdownNow();
+        int spilled = mSpillQueue.size();
+        mSpillQueue.close();
+        return mPendingCount.get() + spilled + (list == null ? 0 : list.size());
+    }
+
+    /**
+     * 等待处理的数据数量（包含溢出到磁盘的数据）
+     */
+    public int getPendingCount() {
+        return mPendingCount.get() + mSpillQueue.size();
+    }
+
+    /**
+     * 被拒绝的数据数量（队列已满时丢弃，阻塞等待被中断，或者从磁盘读取后解码失败）
+     */
+    public long getRejectedCount() {
+        return mRejectedCount.get();
+    }
+
+    /**
+     * 已处理的数据数量
+     */
+    public long getProcessedCount() {
+        return mProcessedCount.get();
+    }
+
+    /**
+     * 最近一条数据从接收到开始处理的延时（毫秒）
+     */
+    public long getLastLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mLastLagNanos);
+    }
+
+    /**
+     * 平均延时（毫秒，指数加权平均）
+     */
+    public long getAvgLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis((long) mAvgLagNanos);
+    }
+
+    /**
+     * 最大延时（毫秒）
+     */
+    public long getMaxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mMaxLagNanos);
+    }
+
+    /**
+     * 分发线程：处理线程池有空闲时，取出数据交给处理线程池
+     */
+    private void runDispatcher() {
+        while (!mShutdown) {
+            try {
+                mPermits.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            Node<T> node = takeNode();
+            if (node == null) {
+                mPermits.release();
+                return;
+            }
+            try {
+                mExecutor.execute(() -> handleNode(node));
+            } catch (RejectedExecutionException e) {
+                mPermits.release();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取出下一条数据，没有数据时等待（只在分发线程调用）
+     *
+     * @return 队列关闭时返回null
+     */
+    private Node<T> takeNode() {
+        while (!mShutdown) {
+            Node<T> next = mHead.next;
+            if (next == null) {
+                // 内存队列为空时，读取溢出到磁盘的数据
+                Node<T> spilled = pollSpilled();
+                if (spilled != null) {
+                    return spilled;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            mHead = next;
+            if (next.generation != mGeneration.get()) {
+                // 已清空的数据，直接丢弃
+                next.item = null;
+                onNodeRemoved();
+                continue;
+            }
+            return next;
+        }
+        return null;
+    }
+
+    private void handleNode(Node<T> node) {
+        T item = node.item;
+        node.item = null;
+        try {
+            recordLag(System.nanoTime() - node.time);
+            onNodeRemoved();
+            mHandler.accept(item);
+            mProcessedCount.incrementAndGet();
+        } catch (Throwable e) {
+            Logger.error("IngestQueue handle error: %s", e.getMessage());
+        } finally {
+            mPermits.release();
+        }
+    }
+
+    private synchronized void recordLag(long lagNanos) {
+        mLastLagNanos = lagNanos;
+        if (lagNanos > mMaxLagNanos) {
+            mMaxLagNanos = lagNanos;
+        }
+        double avg = mAvgLagNanos;
+        mAvgLagNanos = avg == 0 ? lagNanos : avg + LAG_EWMA_ALPHA * (lagNanos - avg);
+    }
+
+    /**
+     * 数据编解码器（溢出到磁盘时使用）
+     */
+    public interface Codec<T> {
+
+        /**
+         * 编码数据
+         *
+         * @param item 数据实例
+         * @return 不支持编码的数据返回null（不溢出到磁盘）
+         */
+        byte[] encode(T item);
+
+        /**
+         * 解码数据
+         *
+         * @param data 编码后的数据
+         * @return 解码失败返回null
+         */
+        T decode(byte[] data);
+    }
+
+    /**
+     * 队列节点
+     */
+    private static class Node<T> {
+
+        private final long time;
+        private final long generation;
+        private T item;
+        private volatile Node<T> next;
+
+        private Node(T item, long time, long generation) {
+            this.item = item;
+            this.time = time;
+            this.generation = generation;
+        }
+    }
+}
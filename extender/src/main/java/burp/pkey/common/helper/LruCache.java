@@ -0,0 +1,216 @@
+package burp.pkey.common.helper;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * LRU 缓存（限制最大数量、最大占用字节数，可选过期时间，统计命中/未命中/淘汰次数）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, Node<V>> mMap = new LinkedHashMap<>(256, 0.75f, true);
+    private final ToLongBiFunction<K, V> mWeigher;
+    private final AtomicLong mHitCount = new AtomicLong();
+    private final AtomicLong mMissCount = new AtomicLong();
+    private final AtomicLong mEvictionCount = new AtomicLong();
+
+    private int mMaxSize;
+    private long mMaxBytes;
+    private long mTtlMillis;
+    private long mTotalBytes;
+
+    /**
+     * 构造方法
+     *
+     * @param maxSize   最大缓存数量（小于等于0表示不限制）
+     * @param maxBytes  最大占用字节数（小于等于0表示不限制）
+     * @param ttlMillis 缓存过期时间（小于等于0表示不过期）
+     * @param weigher   计算缓存占用的字节数（估算值）
+     */
+    public LruCache(int maxSize, long maxBytes, long ttlMillis, ToLongBiFunction<K, V> weigher) {
+        if (weigher == null) {
+            throw new IllegalArgumentException("weigher is null");
+        }
+        this.mWeigher = weigher;
+        setLimits(maxSize, maxBytes, ttlMillis);
+    }
+
+    /**
+     * 修改缓存限制（超出限制的缓存立即淘汰）
+     *
+     * @param maxSize   最大缓存数量（小于等于0表示不限制）
+     * @param maxBytes  最大占用字节数（小于等于0表示不限制）
+     * @param ttlMillis 缓存过期时间（小于等于0表示不过期）
+     */
+    public synchronized void setLimits(int maxSize, long maxBytes, long ttlMillis) {
+        this.mMaxSize = maxSize;
+        this.mMaxBytes = maxBytes;
+        this.mTtlMillis = ttlMillis;
+        trimToLimits();
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param key 缓存 key
+     * @return 不存在或已过期返回null
+     */
+    public synchronized V get(K key) {
+        Node<V> node = mMap.get(key);
+        if (node == null) {
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        if (isExpired(node)) {
+            removeNode(key);
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        mHitCount.incrementAndGet();
+        return node.value;
+    }
+
+    /**
+     * 添加缓存（key 存在时覆盖）
+     *
+     * @param key   缓存 key
+     * @param value 缓存数据
+     */
+    public synchronized void put(K key, V value) {
+        removeNode(key);
+        long weight = mWeigher.applyAsLong(key, value);
+        mMap.put(key, new Node<>(value, weight, System.currentTimeMillis()));
+        mTotalBytes += weight;
+        trimToLimits();
+    }
+
+    /**
+     * 缓存不存在时添加
+     *
+     * @param key   缓存 key
+     * @param value 缓存数据
+     * @return 已存在的缓存数据；不存在返回null
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+        Node<V> node = mMap.get(key);
+        if (node != null && !isExpired(node)) {
+            return node.value;
+        }
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * 重新计算缓存占用的字节数（缓存数据被修改后调用）
+     *
+     * @param key 缓存 key
+     */
+    public synchronized void reweigh(K key) {
+        Node<V> node = mMap.get(key);
+        if (node == null) {
+            return;
+        }
+        long weight = mWeigher.applyAsLong(key, node.value);
+        mTotalBytes += weight - node.weight;
+        node.weight = weight;
+        trimToLimits();
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 缓存 key
+     */
+    public synchronized void remove(K key) {
+        removeNode(key);
+    }
+
+    public synchronized boolean containsKey(K key) {
+        Node<V> node = mMap.get(key);
+        return node != null && !isExpired(node);
+    }
+
+    public synchronized int size() {
+        return mMap.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return mMap.isEmpty();
+    }
+
+    /**
+     * 获取缓存占用的字节数（估算值）
+     */
+    public synchronized long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    /**
+     * 清除缓存（不重置统计数据）
+     */
+    public synchronized void clear() {
+        mMap.clear();
+        mTotalBytes = 0;
+    }
+
+    public long getHitCount() {
+        return mHitCount.get();
+    }
+
+    public long getMissCount() {
+        return mMissCount.get();
+    }
+
+    public long getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    private boolean isExpired(Node<V> node) {
+        return mTtlMillis > 0 && System.currentTimeMillis() - node.createTime > mTtlMillis;
+    }
+
+    private void removeNode(K key) {
+        Node<V> node = mMap.remove(key);
+        if (node != null) {
+            mTotalBytes -= node.weight;
+        }
+    }
+
+    /**
+     * 从最久未使用的缓存开始淘汰，直到满足限制
+     */
+    private void trimToLimits() {
+        Iterator<Map.Entry<K, Node<V>>> it = mMap.entrySet().iterator();
+        while (it.hasNext() && isOverLimits()) {
+            Node<V> node = it.next().getValue();
+            it.remove();
+            mTotalBytes -= node.weight;
+            mEvictionCount.incrementAndGet();
+        }
+    }
+
+    private boolean isOverLimits() {
+        return (mMaxSize > 0 && mMap.size() > mMaxSize) || (mMaxBytes > 0 && mTotalBytes > mMaxBytes);
+    }
+
+    /**
+     * 缓存节点
+     */
+    private static class Node<V> {
+
+        private final V value;
+        private long weight;
+        private final long createTime;
+
+        private Node(V value, long weight, long createTime) {
+            this.value = value;
+            this.weight = weight;
+            this.createTime = createTime;
+        }
+    }
+}
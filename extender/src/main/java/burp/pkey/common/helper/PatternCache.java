@@ -0,0 +1,190 @@
+package burp.pkey.common.helper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 正则表达式缓存（以正则表达式和匹配标志作为 key，超出容量时淘汰最久未使用的实例）
+ * <p>
+ * 编译失败的正则表达式也会缓存错误信息，避免无效的正则表达式在每次匹配时重复编译。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class PatternCache {
+
+    /**
+     * 最大缓存数量
+     */
+    private static final int MAX_SIZE = 2048;
+
+    /**
+     * 缓存的值为 {@link Pattern} 实例，或者编译失败时的 {@link PatternSyntaxException} 实例
+     */
+    private static final Map<Key, Object> sCache = new LinkedHashMap<Key, Object>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            boolean remove = size() > MAX_SIZE;
+            if (remove) {
+                sEvictionCount.incrementAndGet();
+            }
+            return remove;
+        }
+    };
+    private static final AtomicLong sHitCount = new AtomicLong();
+    private static final AtomicLong sMissCount = new AtomicLong();
+    private static final AtomicLong sEvictionCount = new AtomicLong();
+
+    private PatternCache() {
+        throw new IllegalAccessError("PatternCache class not support create instance.");
+    }
+
+    /**
+     * 编译正则表达式（优先从缓存获取）
+     *
+     * @param regex 正则表达式
+     * @return 正则表达式实例
+     * @throws PatternSyntaxException 正则表达式无效
+     */
+    public static Pattern compile(String regex) throws PatternSyntaxException {
+        return compile(regex, 0);
+    }
+
+    /**
+     * 编译正则表达式（优先从缓存获取）
+     *
+     * @param regex 正则表达式
+     * @param flags 匹配标志（示例：{@link Pattern#CASE_INSENSITIVE}）
+     * @return 正则表达式实例
+     * @throws PatternSyntaxException 正则表达式无效（缓存错误信息，再次编译时直接抛出）
+     */
+    public static Pattern compile(String regex, int flags) throws PatternSyntaxException {
+        if (regex == null) {
+            throw new IllegalArgumentException("regex is null");
+        }
+        Key key = new Key(regex, flags);
+        Object value;
+        synchronized (sCache) {
+            value = sCache.get(key);
+        }
+        if (value != null) {
+            sHitCount.incrementAndGet();
+            return unwrap(value);
+        }
+        sMissCount.incrementAndGet();
+        // 在锁外编译，避免复杂的正则表达式阻塞其它线程
+        try {
+            value = Pattern.compile(regex, flags);
+        } catch (PatternSyntaxException e) {
+            value = e;
+        }
+        synchronized (sCache) {
+            sCache.put(key, value);
+        }
+        return unwrap(value);
+    }
+
+    /**
+     * 取出缓存的正则表达式实例
+     *
+     * @throws PatternSyntaxException 缓存的是编译失败的错误信息
+     */
+    private static Pattern unwrap(Object value) throws PatternSyntaxException {
+        if (value instanceof PatternSyntaxException) {
+            PatternSyntaxException e = (PatternSyntaxException) value;
+            throw new PatternSyntaxException(e.getDescription(), e.getPattern(), e.getIndex());
+        }
+        return (Pattern) value;
+    }
+
+    /**
+     * 检测正则表达式是否有效
+     *
+     * @param regex 正则表达式
+     * @param flags 匹配标志
+     * @return 有效返回null；无效返回错误信息
+     */
+    public static String checkRegex(String regex, int flags) {
+        try {
+            compile(regex, flags);
+            return null;
+        } catch (PatternSyntaxException e) {
+            return e.getMessage();
+        } catch (IllegalArgumentException e) {
+            return String.valueOf(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取缓存数量
+     */
+    public static int size() {
+        synchronized (sCache) {
+            return sCache.size();
+        }
+    }
+
+    /**
+     * 获取缓存命中次数
+     */
+    public static long getHitCount() {
+        return sHitCount.get();
+    }
+
+    /**
+     * 获取缓存未命中次数
+     */
+    public static long getMissCount() {
+        return sMissCount.get();
+    }
+
+    /**
+     * 获取缓存淘汰次数
+     */
+    public static long getEvictionCount() {
+        return sEvictionCount.get();
+    }
+
+    /**
+     * 清除缓存
+     */
+    public static void clear() {
+        synchronized (sCache) {
+            sCache.clear();
+        }
+    }
+
+    /**
+     * 缓存 key（正则表达式 + 匹配标志）
+     */
+    private static class Key {
+
+        private final String regex;
+        private final int flags;
+
+        private Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return flags == key.flags && regex.equals(key.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(regex, flags);
+        }
+    }
+}
@@ -1,79 +1,162 @@
 package burp.pkey.common.helper;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * QPS 限制器
  * <p>
+ * 基于无锁令牌桶实现：全局 QPS 限制和每个主机独立的 QPS 限制，等待令牌时不持有任何锁。
+ * 主机的令牌桶已满时（与新创建的令牌桶等价）定期移除，避免扫描过的主机一直占用内存。
+ * <p>
  * Created by vaycore on 2023-02-23.
  */
 public class QpsLimiter {
 
     /**
-     * 以每秒的间隔计算
+     * 清理已满的主机令牌桶的间隔（纳秒）
+     */
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * 全局令牌桶（为空表示不限制）
      */
-    private static final long PERIOD = 1000;
+    private final TokenBucket mGlobalBucket;
 
     /**
-     * 接收请求时间数组
+     * 每个主机的令牌桶
      */
-    private final long[] accessTime;
+    private final Map<String, TokenBucket> mHostBuckets = new ConcurrentHashMap<>();
 
     /**
-     * 限制数量，最低为1
+     * 每个主机的 QPS 限制（0 表示不限制）
      */
-    private final int limit;
+    private final int mHostLimit;
 
     /**
-     * 限制延时（0 表示不延时）
+     * 突发请求数量（0 表示与对应的 QPS 限制一致）
      */
-    private final int delay;
+    private final int mBurst;
 
     /**
-     * 指向最早请求时间的位置
+     * 下次清理主机令牌桶的时间（纳秒）
      */
-    private int position;
+    private final AtomicLong mNextSweepTime = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
 
     public QpsLimiter(int limit) {
         this(limit, 0);
     }
 
     public QpsLimiter(int limit, int delay) {
+        this(checkLimit(limit), delay, 0, 0);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param limit     全局 QPS 限制（0 表示不限制）
+     * @param delay     请求延时（毫秒，大于 0 时优先使用，相当于全局每 delay 毫秒一个请求）
+     * @param hostLimit 每个主机的 QPS 限制（0 表示不限制）
+     * @param burst     突发请求数量（0 表示与对应的 QPS 限制一致）
+     */
+    public QpsLimiter(int limit, int delay, int hostLimit, int burst) {
+        if (limit < 0 || hostLimit < 0 || burst < 0) {
+            throw new IllegalArgumentException("Illegal limit value: " + limit + ", " + hostLimit + ", " + burst);
+        }
+        if (delay > 0) {
+            // 优先使用 delay 限制（每个延时周期只允许一个请求）
+            mGlobalBucket = new TokenBucket(1000.0 / delay, 1);
+        } else if (limit > 0) {
+            mGlobalBucket = new TokenBucket(limit, burst > 0 ? Math.min(burst, limit) : limit);
+        } else {
+            mGlobalBucket = null;
+        }
+        mHostLimit = hostLimit;
+        mBurst = burst;
+    }
+
+    private static int checkLimit(int limit) {
         if (limit <= 0) {
             throw new IllegalArgumentException("Illegal limit value: " + limit);
         }
-        if (delay < 0) {
-            delay = 0;
-        }
-        this.position = 0;
-        this.limit = limit;
-        this.delay = delay;
-        this.accessTime = new long[limit];
+        return limit;
+    }
+
+    /**
+     * 对执行点进行限制（只进行全局限制）
+     */
+    public void limit() throws InterruptedException {
+        limit(null);
     }
 
     /**
-     * 对执行点进行限制
+     * 对执行点进行限制（先预约主机的令牌，再从主机令牌可用的时间开始预约全局令牌，然后在锁外等待）
+     *
+     * @param host 请求的主机（为空时只进行全局限制）
      */
-    public synchronized void limit() throws InterruptedException {
+    public void limit(String host) throws InterruptedException {
         // 如果线程中断，不继续往下执行
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException("Thread interrupted, can't limit it");
         }
-        long sleepMillis = 0;
-        // 优先使用 delay 限制
-        if (this.delay > 0) {
-            Thread.sleep(this.delay);
-            return;
+        long readyTime = System.nanoTime();
+        TokenBucket hostBucket = getHostBucket(host);
+        if (hostBucket != null) {
+            readyTime = hostBucket.reserve(readyTime);
+        }
+        if (mGlobalBucket != null) {
+            readyTime = mGlobalBucket.reserve(readyTime);
         }
-        long curTime = System.currentTimeMillis();
-        if (curTime - this.accessTime[this.position] < PERIOD) {
-            // 未达到处理间隔， 计算休眠间隔剩余时间
-            sleepMillis = PERIOD - (curTime - this.accessTime[this.position]) + 1;
-            curTime = System.currentTimeMillis() + sleepMillis;
+        TokenBucket.parkUntil(readyTime);
+    }
+
+    /**
+     * 尝试获取令牌（不等待）
+     *
+     * @param host 请求的主机（为空时只进行全局限制）
+     * @return true=获取成功；false=已达到 QPS 限制
+     */
+    public boolean tryAcquire(String host) {
+        TokenBucket hostBucket = getHostBucket(host);
+        if (hostBucket != null && !hostBucket.tryAcquire()) {
+            return false;
+        }
+        // 主机令牌已经消耗，全局令牌不足时不归还（只影响该主机的下一个请求）
+        return mGlobalBucket == null || mGlobalBucket.tryAcquire();
+    }
+
+    private TokenBucket getHostBucket(String host) {
+        if (mHostLimit <= 0 || host == null) {
+            return null;
         }
-        this.accessTime[this.position++] = curTime;
-        this.position = this.position % this.limit;
-        // 如果为0，没必要 sleep
-        if (sleepMillis > 0) {
-            Thread.sleep(sleepMillis);
+        sweepIdleBuckets(System.nanoTime());
+        return mHostBuckets.computeIfAbsent(host, (key) -> {
+            int burst = mBurst > 0 ? Math.min(mBurst, mHostLimit) : mHostLimit;
+            return new TokenBucket(mHostLimit, burst);
+        });
+    }
+
+    /**
+     * 移除已满的主机令牌桶（到达清理时间时，只有一个线程执行）
+     * <p>
+     * 移除的同时其它线程可能正在使用该令牌桶预约令牌，这些预约不计入之后新建的令牌桶（每个线程最多多出一个请求）
+     *
+     * @param now 当前时间（纳秒）
+     */
+    private void sweepIdleBuckets(long now) {
+        long next = mNextSweepTime.get();
+        if (now - next < 0 || !mNextSweepTime.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) {
+            return;
         }
+        mHostBuckets.values().removeIf((bucket) -> bucket.isFull(now));
+    }
+
+    /**
+     * 获取主机令牌桶的数量
+     */
+    public int getHostBucketCount() {
+        return mHostBuckets.size();
     }
 }
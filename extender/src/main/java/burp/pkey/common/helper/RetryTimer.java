@@ -0,0 +1,159 @@
+package burp.pkey.common.helper;
+
+import burp.pkey.common.log.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 重试定时器
+ * <p>
+ * 失败的任务不在工作线程中休眠等待，而是交给定时器，到达重试时间后再重新提交，
+ * 工作线程只在请求真正执行时被占用。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class RetryTimer<T> {
+
+    /**
+     * 指数退避的最大间隔（毫秒）
+     */
+    public static final long MAX_BACKOFF_MILLIS = 60 * 1000;
+
+    private final ScheduledExecutorService mExecutor;
+    private final Map<T, Entry> mPending = new ConcurrentHashMap<>();
+
+    public RetryTimer(String name) {
+        this.mExecutor = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 计算重试间隔
+     *
+     * @param baseMillis  基础间隔（毫秒）
+     * @param attempt     第几次重试（从 0 开始）
+     * @param exponential 是否指数退避（间隔为 基础间隔 * 2^attempt，最大为 {@link #MAX_BACKOFF_MILLIS}）
+     * @param jitter      是否添加随机抖动（在间隔的 50%-100% 之间随机，避免大量任务同时重试）
+     * @return 重试间隔（毫秒）
+     */
+    public static long computeDelay(long baseMillis, int attempt, boolean exponential, boolean jitter) {
+        if (baseMillis <= 0) {
+            return 0;
+        }
+        long delay = baseMillis;
+        if (exponential) {
+            int shift = Math.min(Math.max(0, attempt), 30);
+            // 基础间隔大于最大间隔时，保持基础间隔
+            long maxDelay = Math.max(MAX_BACKOFF_MILLIS, baseMillis);
+            delay = Math.min(maxDelay, baseMillis << shift);
+        }
+        if (jitter && delay > 1) {
+            long half = delay / 2;
+            delay = half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+        }
+        return delay;
+    }
+
+    /**
+     * 添加重试任务
+     *
+     * @param task        任务实例
+     * @param delayMillis 重试间隔（毫秒）
+     * @param onDue       到达重试时间时调用（在定时器线程中调用，应尽快返回）
+     * @return true=添加成功；false=定时器已关闭
+     */
+    public boolean schedule(T task, long delayMillis, Consumer<T> onDue) {
+        // 先登记再提交，避免间隔为 0 时任务先于登记执行
+        Entry entry = new Entry();
+        mPending.put(task, entry);
+        try {
+            entry.future = mExecutor.schedule(() -> {
+                if (!mPending.remove(task, entry)) {
+                    // 已被取消
+                    return;
+                }
+                try {
+                    onDue.accept(task);
+                } catch (Exception e) {
+                    Logger.error("RetryTimer task error: %s", e.getMessage());
+                }
+            }, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            mPending.remove(task, entry);
+            return false;
+        }
+    }
+
+    /**
+     * 取消所有等待重试的任务
+     *
+     * @return 被取消的任务列表
+     */
+    public List<T> cancelAll() {
+        return cancelIf((task) -> true);
+    }
+
+    /**
+     * 取消等待重试的任务中满足条件的任务
+     *
+     * @param filter 任务过滤条件
+     * @return 被取消的任务列表
+     */
+    public List<T> cancelIf(Predicate<? super T> filter) {
+        List<T> result = new ArrayList<>();
+        for (Map.Entry<T, Entry> item : mPending.entrySet()) {
+            T task = item.getKey();
+            if (!filter.test(task)) {
+                continue;
+            }
+            Entry entry = item.getValue();
+            // 移除成功表示任务还未开始执行（定时器线程执行前也会尝试移除）
+            if (mPending.remove(task, entry)) {
+                ScheduledFuture<?> future = entry.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 等待重试的任务数量
+     */
+    public int getPendingCount() {
+        return mPending.size();
+    }
+
+    /**
+     * 关闭定时器
+     *
+     * @return 未执行的任务列表
+     */
+    public List<T> shutdownNow() {
+        List<T> result = cancelAll();
+        mExecutor.shutdownNow();
+        return result;
+    }
+
+    private static class Entry {
+
+        private volatile ScheduledFuture<?> future;
+    }
+}
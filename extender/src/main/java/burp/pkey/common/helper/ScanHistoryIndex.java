@@ -0,0 +1,293 @@
+package burp.pkey.common.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 扫描历史索引文件（只追加写入）
+ * <p>
+ * 保存已完成请求的 ID 指纹（{@link FingerprintSet#fingerprint(CharSequence)}），重启 Burp 后加载到去重过滤集合中，
+ * 避免对已扫描的路径重复发起请求。文件格式：
+ * <pre>
+ * | magic(4) | version(4) | 有效数据的起始偏移(8) | 指纹(8) | 指纹(8) | ...
+ * </pre>
+ * 加载时使用内存映射读取；写入时先写入内存缓冲区，缓冲区满或者调用 {@link #flush()} 时写入文件。
+ * 清空时先等待加载线程退出（不再读取映射的数据，也不再向指纹集合添加清空前的记录），
+ * 再优先截断文件，截断失败时（Windows 下文件被映射时不允许截断）只更新有效数据的起始偏移。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class ScanHistoryIndex {
+
+    /**
+     * 文件标识（"PKSI"）
+     */
+    private static final int MAGIC = 0x504B5349;
+
+    /**
+     * 文件格式版本
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * 文件头大小
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * 每条记录的大小
+     */
+    private static final int RECORD_SIZE = Long.BYTES;
+
+    /**
+     * 写入缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File mFile;
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * 加载锁（加载期间持有，清空时等待加载线程退出）
+     */
+    private final Object mLoadLock = new Object();
+
+    /**
+     * 清空的次数（加载线程检测到变化时停止加载）
+     */
+    private volatile long mGeneration;
+
+    /**
+     * 记录数量（包含缓冲区中未写入文件的记录，读取时不需要加锁）
+     */
+    private volatile long mRecordCount;
+    private FileChannel mChannel;
+    private long mDataOffset;
+    private long mLoadEnd;
+    private long mWriteOffset;
+
+    /**
+     * 构造方法
+     *
+     * @param path 索引文件路径
+     */
+    public ScanHistoryIndex(String path) {
+        this.mFile = new File(path);
+    }
+
+    /**
+     * 打开索引文件（文件不存在，或者格式不正确时重新创建）
+     *
+     * @throws IOException 打开失败时抛出
+     */
+    public synchronized void open() throws IOException {
+        if (mChannel != null) {
+            return;
+        }
+        mChannel = FileChannel.open(mFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = mChannel.size();
+        if (!readHeader(size)) {
+            mChannel.truncate(0);
+            mDataOffset = HEADER_SIZE;
+            writeHeader();
+            size = HEADER_SIZE;
+        }
+        // 忽略末尾不完整的记录（写入过程中进程退出）
+        long end = mDataOffset + (size - mDataOffset) / RECORD_SIZE * RECORD_SIZE;
+        // 数据已全部清空时，尝试截断文件
+        if (end == mDataOffset && end > HEADER_SIZE && tryTruncate()) {
+            end = HEADER_SIZE;
+        } else if (end < size) {
+            mChannel.truncate(end);
+        }
+        mLoadEnd = end;
+        mWriteOffset = end;
+        mRecordCount = (end - mDataOffset) / RECORD_SIZE;
+    }
+
+    private boolean readHeader(long size) throws IOException {
+        if (size < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (mChannel.read(header, header.position()) < 0) {
+                return false;
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            return false;
+        }
+        long offset = header.getLong();
+        if (offset < HEADER_SIZE || offset > size || (offset - HEADER_SIZE) % RECORD_SIZE != 0) {
+            return false;
+        }
+        mDataOffset = offset;
+        return true;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(mDataOffset);
+        header.flip();
+        while (header.hasRemaining()) {
+            mChannel.write(header, header.position());
+        }
+    }
+
+    private boolean tryTruncate() {
+        try {
+            mChannel.truncate(HEADER_SIZE);
+            mDataOffset = HEADER_SIZE;
+            writeHeader();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 将打开文件时已存在的记录加载到指纹集合（使用内存映射读取，可以在后台线程中调用）
+     * <p>
+     * 加载期间调用 {@link #clear()} 时，停止加载（清空后不会再添加记录）
+     *
+     * @param target 指纹集合
+     * @return 加载的记录数量
+     * @throws IOException 读取失败时抛出（包括读取映射的数据时文件被其它进程截断）
+     */
+    public int load(FingerprintSet target) throws IOException {
+        synchronized (mLoadLock) {
+            FileChannel channel;
+            long start;
+            long end;
+            long generation;
+            synchronized (this) {
+                if (mChannel == null) {
+                    throw new IOException("Scan history index is not open");
+                }
+                channel = mChannel;
+                start = mDataOffset;
+                end = mLoadEnd;
+                generation = mGeneration;
+            }
+            int count = 0;
+            // 单次映射的大小不能超过 2GB
+            long chunkSize = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+            try {
+                for (long position = start; position < end; position += chunkSize) {
+                    long size = Math.min(chunkSize, end - position);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+                    while (buffer.remaining() >= RECORD_SIZE) {
+                        if (generation != mGeneration) {
+                            return count;
+                        }
+                        target.addIfAbsent(buffer.getLong());
+                        count++;
+                    }
+                }
+            } catch (InternalError e) {
+                // 映射的文件被截断后再读取时，JVM 抛出 InternalError（SIGBUS）
+                throw new IOException("Read scan history index error: " + e.getMessage(), e);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 追加记录
+     *
+     * @param fp 指纹
+     */
+    public synchronized void append(long fp) {
+        if (mChannel == null) {
+            return;
+        }
+        mBuffer.putLong(fp);
+        mRecordCount++;
+        if (!mBuffer.hasRemaining()) {
+            flush();
+        }
+    }
+
+    /**
+     * 将缓冲区的记录写入文件
+     */
+    public synchronized void flush() {
+        if (mChannel == null || mBuffer.position() == 0) {
+            return;
+        }
+        mBuffer.flip();
+        try {
+            while (mBuffer.hasRemaining()) {
+                mWriteOffset += mChannel.write(mBuffer, mWriteOffset);
+            }
+        } catch (IOException e) {
+            // 写入失败时丢弃缓冲区的记录（下次启动时这部分路径会重新扫描）
+            mWriteOffset = mDataOffset + (mWriteOffset - mDataOffset) / RECORD_SIZE * RECORD_SIZE;
+            mRecordCount = (mWriteOffset - mDataOffset) / RECORD_SIZE;
+        }
+        mBuffer.clear();
+    }
+
+    /**
+     * 清空记录（先通知加载线程停止，并等待加载线程退出）
+     */
+    public void clear() {
+        mGeneration++;
+        synchronized (mLoadLock) {
+            synchronized (this) {
+                if (mChannel == null) {
+                    return;
+                }
+                mBuffer.clear();
+                mRecordCount = 0;
+                try {
+                    if (!tryTruncate()) {
+                        // 文件被映射时无法截断，将有效数据的起始偏移移到文件末尾
+                        mDataOffset = mChannel.size();
+                        writeHeader();
+                    }
+                    mLoadEnd = mDataOffset;
+                    mWriteOffset = mChannel.size();
+                } catch (IOException e) {
+                    // 清空失败时忽略，不影响扫描
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录数量（包含缓冲区中未写入文件的记录，不需要等待写入文件）
+     */
+    public long getRecordCount() {
+        return mRecordCount;
+    }
+
+    /**
+     * 关闭索引文件（停止加载线程，关闭前写入缓冲区的记录）
+     */
+    public void close() {
+        mGeneration++;
+        synchronized (mLoadLock) {
+            synchronized (this) {
+                if (mChannel == null) {
+                    return;
+                }
+                flush();
+                try {
+                    mChannel.close();
+                } catch (IOException e) {
+                    // 关闭失败时忽略
+                }
+                mChannel = null;
+                mRecordCount = 0;
+            }
+        }
+    }
+}
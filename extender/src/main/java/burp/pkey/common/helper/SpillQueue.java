@@ -0,0 +1,124 @@
+package burp.pkey.common.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 溢出到磁盘的先进先出队列（内存队列已满时，将数据临时保存到文件中）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class SpillQueue {
+
+    private final String mPrefix;
+    private File mFile;
+    private RandomAccessFile mRaf;
+    private long mReadPos;
+    private long mWritePos;
+    private int mSize;
+
+    /**
+     * 构造方法
+     *
+     * @param prefix 临时文件名前缀
+     */
+    public SpillQueue(String prefix) {
+        this.mPrefix = prefix;
+    }
+
+    /**
+     * 添加数据到队列末尾
+     *
+     * @param key  数据所属的 key（示例：主机）
+     * @param data 数据
+     */
+    public synchronized void push(String key, byte[] data) throws IOException {
+        if (mRaf == null) {
+            mFile = File.createTempFile(mPrefix, ".spill");
+            mFile.deleteOnExit();
+            mRaf = new RandomAccessFile(mFile, "rw");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        mRaf.seek(mWritePos);
+        mRaf.writeInt(keyBytes.length);
+        mRaf.write(keyBytes);
+        mRaf.writeInt(data.length);
+        mRaf.write(data);
+        mWritePos = mRaf.getFilePointer();
+        mSize++;
+    }
+
+    /**
+     * 取出队列头部的数据
+     *
+     * @return 队列为空时返回null
+     */
+    public synchronized Item poll() throws IOException {
+        if (mSize == 0) {
+            return null;
+        }
+        mRaf.seek(mReadPos);
+        byte[] keyBytes = new byte[mRaf.readInt()];
+        mRaf.readFully(keyBytes);
+        byte[] data = new byte[mRaf.readInt()];
+        mRaf.readFully(data);
+        mReadPos = mRaf.getFilePointer();
+        mSize--;
+        // 队列为空时，清空文件内容
+        if (mSize == 0) {
+            mRaf.setLength(0);
+            mReadPos = 0;
+            mWritePos = 0;
+        }
+        return new Item(new String(keyBytes, StandardCharsets.UTF_8), data);
+    }
+
+    public synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * 关闭队列，并删除临时文件
+     */
+    public synchronized void close() {
+        mSize = 0;
+        mReadPos = 0;
+        mWritePos = 0;
+        if (mRaf != null) {
+            try {
+                mRaf.close();
+            } catch (IOException e) {
+                // 忽略关闭异常
+            }
+            mRaf = null;
+        }
+        if (mFile != null) {
+            mFile.delete();
+            mFile = null;
+        }
+    }
+
+    /**
+     * 队列数据项
+     */
+    public static class Item {
+
+        private final String key;
+        private final byte[] data;
+
+        private Item(String key, byte[] data) {
+            this.key = key;
+            this.data = data;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package burp.pkey.common.helper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 令牌桶（无锁实现）
+ * <p>
+ * 使用 GCRA 算法：只保存"理论到达时间"一个原子变量，通过 CAS 更新，获取令牌不需要加锁；
+ * 需要等待时，先预约令牌，再在锁外休眠到预约的时间。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class TokenBucket {
+
+    /**
+     * 每个令牌的间隔（纳秒）
+     */
+    private final long mInterval;
+
+    /**
+     * 允许突发的时间容差（纳秒，(burst - 1) * interval）
+     */
+    private final long mTolerance;
+
+    /**
+     * 理论到达时间（纳秒）
+     */
+    private final AtomicLong mTat;
+
+    /**
+     * 构造方法
+     *
+     * @param permitsPerSecond 每秒生成的令牌数量
+     * @param burst            桶容量（允许突发的请求数量，最低为1）
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Illegal permitsPerSecond value: " + permitsPerSecond);
+        }
+        this.mInterval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.mTolerance = (Math.max(1, burst) - 1) * mInterval;
+        this.mTat = new AtomicLong(System.nanoTime() - mTolerance - mInterval);
+    }
+
+    /**
+     * 尝试获取令牌（不等待）
+     *
+     * @return true=获取成功；false=没有可用的令牌
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long tat = mTat.get();
+            long newTat = Math.max(tat, now) + mInterval;
+            if (newTat - now > mTolerance + mInterval) {
+                return false;
+            }
+            if (mTat.compareAndSet(tat, newTat)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 预约一个令牌（不等待）
+     *
+     * @param notBefore 令牌的最早使用时间（纳秒，{@link System#nanoTime()} 时间）
+     * @return 令牌可以使用的时间（纳秒）
+     */
+    public long reserve(long notBefore) {
+        while (true) {
+            long tat = mTat.get();
+            long newTat = Math.max(tat, notBefore) + mInterval;
+            if (mTat.compareAndSet(tat, newTat)) {
+                // 允许突发：在容差范围内的令牌可以提前使用
+                return Math.max(notBefore, newTat - mInterval - mTolerance);
+            }
+        }
+    }
+
+    /**
+     * 令牌桶是否已满（理论到达时间已过期，再获取令牌时与新创建的令牌桶等价）
+     *
+     * @param now 当前时间（纳秒，{@link System#nanoTime()} 时间）
+     * @return true=已满；false=未满
+     */
+    public boolean isFull(long now) {
+        return now - mTat.get() >= 0;
+    }
+
+    /**
+     * 获取令牌（没有可用的令牌时，在锁外休眠等待）
+     */
+    public void acquire() throws InterruptedException {
+        parkUntil(reserve(System.nanoTime()));
+    }
+
+    /**
+     * 休眠到指定时间
+     *
+     * @param deadline 截止时间（纳秒，{@link System#nanoTime()} 时间）
+     * @throws InterruptedException 线程被中断
+     */
+    public static void parkUntil(long deadline) throws InterruptedException {
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Thread interrupted while waiting for token");
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
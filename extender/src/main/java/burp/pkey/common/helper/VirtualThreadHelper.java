@@ -0,0 +1,53 @@
+package burp.pkey.common.helper;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程辅助类（通过反射调用，在 JDK 21 以下的环境中也能正常加载）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class VirtualThreadHelper {
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor 方法（不支持虚拟线程时为null）
+     */
+    private static final Method sNewExecutorMethod = findNewExecutorMethod();
+
+    private VirtualThreadHelper() {
+        throw new IllegalAccessError("VirtualThreadHelper class not support create instance.");
+    }
+
+    private static Method findNewExecutorMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 当前运行环境是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return sNewExecutorMethod != null;
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的线程池
+     *
+     * @return 不支持虚拟线程、或者创建失败时返回null
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (sNewExecutorMethod == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) sNewExecutorMethod.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package burp.pkey.common.helper;
+
+/**
+ * xxHash64 非加密哈希算法（直接计算字节数据，用于缓存 key 等场景）
+ * <p>
+ * Created by vaycore on 2026-10-18.<br>
+ * Link: <a href="https://github.com/Cyan4973/xxHash">xxHash</a>
+ */
+public class XxHash64 {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    private XxHash64() {
+        throw new IllegalAccessError("XxHash64 class not support create instance.");
+    }
+
+    /**
+     * 计算哈希值
+     *
+     * @param data 字节数据
+     * @param seed 种子
+     * @return 64 位哈希值
+     */
+    public static long hash(byte[] data, long seed) {
+        return hash(data, 0, data.length, seed);
+    }
+
+    /**
+     * 计算哈希值
+     *
+     * @param data   字节数据
+     * @param offset 起始位置
+     * @param length 数据长度
+     * @param seed   种子
+     * @return 64 位哈希值
+     */
+    public static long hash(byte[] data, int offset, int length, long seed) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+        }
+        int end = offset + length;
+        int i = offset;
+        long h64;
+        if (length >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+            int limit = end - 32;
+            do {
+                v1 = round(v1, getLong(data, i));
+                v2 = round(v2, getLong(data, i + 8));
+                v3 = round(v3, getLong(data, i + 16));
+                v4 = round(v4, getLong(data, i + 24));
+                i += 32;
+            } while (i <= limit);
+            h64 = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h64 = mergeRound(h64, v1);
+            h64 = mergeRound(h64, v2);
+            h64 = mergeRound(h64, v3);
+            h64 = mergeRound(h64, v4);
+        } else {
+            h64 = seed + PRIME64_5;
+        }
+        h64 += length;
+        while (i + 8 <= end) {
+            h64 ^= round(0, getLong(data, i));
+            h64 = Long.rotateLeft(h64, 27) * PRIME64_1 + PRIME64_4;
+            i += 8;
+        }
+        if (i + 4 <= end) {
+            h64 ^= (getInt(data, i) & 0xFFFFFFFFL) * PRIME64_1;
+            h64 = Long.rotateLeft(h64, 23) * PRIME64_2 + PRIME64_3;
+            i += 4;
+        }
+        while (i < end) {
+            h64 ^= (data[i] & 0xFF) * PRIME64_5;
+            h64 = Long.rotateLeft(h64, 11) * PRIME64_1;
+            i++;
+        }
+        return avalanche(h64);
+    }
+
+    /**
+     * 合并两个哈希值（用于对多段数据分别计算后组合）
+     *
+     * @param hash  当前哈希值
+     * @param value 要合并的哈希值
+     * @return 合并后的哈希值
+     */
+    public static long combine(long hash, long value) {
+        return avalanche(mergeRound(hash, value));
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long avalanche(long h64) {
+        h64 ^= h64 >>> 33;
+        h64 *= PRIME64_2;
+        h64 ^= h64 >>> 29;
+        h64 *= PRIME64_3;
+        h64 ^= h64 >>> 32;
+        return h64;
+    }
+
+    private static long getLong(byte[] b, int i) {
+        return (b[i] & 0xFFL) | ((b[i + 1] & 0xFFL) << 8) | ((b[i + 2] & 0xFFL) << 16) |
+                ((b[i + 3] & 0xFFL) << 24) | ((b[i + 4] & 0xFFL) << 32) | ((b[i + 5] & 0xFFL) << 40) |
+                ((b[i + 6] & 0xFFL) << 48) | ((b[i + 7] & 0xFFL) << 56);
+    }
+
+    private static int getInt(byte[] b, int i) {
+        return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | ((b[i + 3] & 0xFF) << 24);
+    }
+}
@@ -39,7 +39,13 @@ public class HtmlUtils {
         } else {
             charset = Charset.defaultCharset();
         }
-        String htmlBody = new String(body, charset);
+        return findTitleByHtmlBody(new String(body, charset));
+    }
+
+    public static String findTitleByHtmlBody(String htmlBody) {
+        if (htmlBody == null || htmlBody.isEmpty()) {
+            return "";
+        }
         Matcher matcher = sTitleRegex.matcher(htmlBody);
         if (matcher.find()) {
             return matcher.group(1);
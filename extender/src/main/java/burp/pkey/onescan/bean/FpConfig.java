@@ -20,9 +20,9 @@ public class FpConfig {
     private List<FpColumn> columns;
 
     /**
-     * 指纹数据
+     * 指纹数据（写时复制：修改时替换为新的列表，已有的列表不会被修改）
      */
-    private List<FpData> list;
+    private volatile List<FpData> list;
 
     /**
      * 获取指纹字段列表
@@ -107,7 +107,7 @@ public class FpConfig {
     }
 
     /**
-     * 获取指纹数据列表
+     * 获取指纹数据列表（不要修改返回的列表）
      *
      * @return 失败返回空列表
      */
@@ -138,7 +138,9 @@ public class FpConfig {
      */
     public void addListItem(FpData data) {
         if (data != null && !data.getRules().isEmpty()) {
-            list.add(data);
+            List<FpData> newList = new ArrayList<>(getList());
+            newList.add(data);
+            this.list = newList;
             writeToFile();
         }
     }
@@ -150,7 +152,9 @@ public class FpConfig {
      */
     public void removeListItem(int index) {
         if (index >= 0 && index < getListSize()) {
-            list.remove(index);
+            List<FpData> newList = new ArrayList<>(list);
+            newList.remove(index);
+            this.list = newList;
             writeToFile();
         }
     }
@@ -169,7 +173,9 @@ public class FpConfig {
             return;
         }
         if (data != null && !data.getRules().isEmpty()) {
-            list.set(index, data);
+            List<FpData> newList = new ArrayList<>(list);
+            newList.set(index, data);
+            this.list = newList;
             writeToFile();
         }
     }
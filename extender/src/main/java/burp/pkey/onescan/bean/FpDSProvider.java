@@ -1,6 +1,6 @@
 package burp.pkey.onescan.bean;
 
-import burp.pkey.common.utils.StringUtils;
+import burp.pkey.onescan.fp.FpRuleCompiler;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -8,6 +8,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 指纹数据源提供者
@@ -69,19 +70,30 @@ public class FpDSProvider {
     }
 
     /**
-     * 获取用于缓存的 key 值
+     * 获取用于缓存的 key 值（使用所有字段计算）
      *
-     * @return 无数据返回空字符串
+     * @return 数据不可缓存时返回null
      */
     public String getCacheKey() {
-        StringBuilder key = new StringBuilder();
-        if (hasRequest()) {
-            key.append(getRequest().calculateCacheKey());
+        return getCacheKey(null);
+    }
+
+    /**
+     * 获取用于缓存的 key 值
+     *
+     * @param requiredFields 指纹规则用到的字段（示例：response.body），只计算这些字段所在的数据
+     * @return 数据不可缓存时返回null
+     */
+    public String getCacheKey(Set<String> requiredFields) {
+        if (isEmpty()) {
+            return null;
         }
-        if (hasResponse()) {
-            key.append(getResponse().calculateCacheKey());
+        String reqKey = hasRequest() ? getRequest().calculateCacheKey(requiredFields) : "-";
+        String respKey = hasResponse() ? getResponse().calculateCacheKey(requiredFields) : "-";
+        if (reqKey == null || respKey == null) {
+            return null;
         }
-        return key.toString();
+        return reqKey + ":" + respKey;
     }
 
     /**
@@ -134,17 +146,10 @@ public class FpDSProvider {
      *
      * @param dataSource 数据源
      * @param field      字段名
+     * @return 字段数据不可用时返回null（参考 {@link burp.pkey.onescan.fp.FpFieldReader#read}）
      */
     public String getMatchData(String dataSource, String field) {
-        if (StringUtils.isEmpty(dataSource) || dataSource.startsWith("_")) {
-            return "";
-        }
-        if (StringUtils.isEmpty(field) || field.startsWith("_")) {
-            return "";
-        }
-        Object dataSourceObj = getValueByFieldName(this, dataSource);
-        Object matchData = getValueByFieldName(dataSourceObj, field);
-        return String.valueOf(matchData);
+        return FpRuleCompiler.resolveReader(dataSource, field).read(this);
     }
 
     /**
@@ -193,29 +198,4 @@ public class FpDSProvider {
         }
         return result;
     }
-
-    /**
-     * 通过字段名，获取成员变量的值
-     *
-     * @param obj       对应的实例
-     * @param fieldName 字段名
-     * @return 失败返回空字符串
-     */
-    protected static Object getValueByFieldName(Object obj, String fieldName) {
-        if (obj == null) {
-            return "";
-        }
-        List<Field> fields = getClassFields(obj.getClass());
-        Field field = fields.stream().filter(f -> f.getName().equals(fieldName))
-                .findFirst().orElse(null);
-        if (field == null) {
-            return "";
-        }
-        field.setAccessible(true);
-        try {
-            return field.get(obj);
-        } catch (IllegalAccessException e) {
-            return "";
-        }
-    }
 }
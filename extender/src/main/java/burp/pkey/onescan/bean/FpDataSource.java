@@ -1,6 +1,11 @@
 package burp.pkey.onescan.bean;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -11,23 +16,65 @@ import java.util.regex.Pattern;
  */
 public abstract class FpDataSource {
 
-    private final String data;
+    /**
+     * 字段值在首次获取时解析（同一数据重复解析的结果一致，所以多线程访问无需加锁）
+     */
+    private String data;
+    private final byte[] _data;
     private final Charset _charset;
 
     public FpDataSource(byte[] data, Charset charset) {
         if (data == null || data.length == 0) {
             throw new IllegalArgumentException("data is null or empty");
         }
-        this.data = new String(data, charset);
+        this._data = data;
         this._charset = charset;
     }
 
     public String getData() {
+        if (data == null) {
+            data = decodeText(_data, 0, getTextLength(), _charset);
+        }
         return data;
     }
 
+    /**
+     * 解码文本数据（数据被截断时，丢弃末尾不完整的多字节字符，不在字符中间截断）
+     *
+     * @param data    数据
+     * @param offset  起始位置
+     * @param length  解码的字节数
+     * @param charset 编码
+     * @return 解码后的文本
+     */
+    protected static String decodeText(byte[] data, int offset, int length, Charset charset) {
+        if (offset + length >= data.length) {
+            return new String(data, offset, length, charset);
+        }
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer out = CharBuffer.allocate((int) Math.ceil(length * (double) decoder.maxCharsPerByte()));
+        // 不是输入结尾时，末尾不完整的字节序列保留在输入中，不会被替换为 '\uFFFD'
+        decoder.decode(ByteBuffer.wrap(data, offset, length), out, false);
+        out.flip();
+        return out.toString();
+    }
+
+    /**
+     * 获取需要解码为文本的数据长度（用于限制超大数据的解码范围）
+     *
+     * @return 默认为完整数据长度
+     */
+    protected int getTextLength() {
+        return _data.length;
+    }
+
+    /**
+     * 获取原始数据（不要修改返回的数组）
+     */
     public byte[] getDataBytes() {
-        return data.getBytes(_charset);
+        return _data;
     }
 
     public Charset getCharset() {
@@ -37,9 +84,10 @@ public abstract class FpDataSource {
     /**
      * 计算缓存 key 值
      *
-     * @return 不能为空
+     * @param requiredFields 指纹规则用到的字段（示例：response.body），为null表示使用所有字段
+     * @return 数据不可缓存时返回null
      */
-    public abstract String calculateCacheKey();
+    public abstract String calculateCacheKey(Set<String> requiredFields);
 
     /**
      * 提取正则表达式数据结果
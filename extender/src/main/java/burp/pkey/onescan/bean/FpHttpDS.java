@@ -1,11 +1,13 @@
 package burp.pkey.onescan.bean;
 
 import burp.pkey.common.helper.IconHash;
+import burp.pkey.common.helper.XxHash64;
 import burp.pkey.common.utils.Utils;
 
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -27,62 +29,85 @@ public abstract class FpHttpDS extends FpDataSource {
     private static final Pattern REGEX_RESP_LINE = Pattern.compile("^HTTP/\\d+(?:\\.\\d+)?\\s+\\d+\\s*.*",
             Pattern.CASE_INSENSITIVE);
 
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] CRLF_CRLF = {'\r', '\n', '\r', '\n'};
+
+    /**
+     * 字段所在的数据区域（用于计算缓存 key 时，只计算规则用到的区域）
+     */
+    protected static final int REGION_FIRST_LINE = 1;
+    protected static final int REGION_HEADER = 2;
+    protected static final int REGION_BODY = 4;
+    protected static final int REGION_ALL = REGION_HEADER | REGION_BODY;
+
+    /**
+     * 二进制 Body 处理策略：不处理（按文本处理）、截断（文本字段只包含前 4KB 数据）、跳过（文本字段不包含 Body）
+     */
+    public static final int BINARY_BODY_NONE = 0;
+    public static final int BINARY_BODY_TRUNCATE = 1;
+    public static final int BINARY_BODY_SKIP = 2;
+
+    /**
+     * 二进制 Body 截断后的长度
+     */
+    private static final int BINARY_TRUNCATE_LENGTH = 4096;
+
+    /**
+     * 没有 Content-Type 时，检测 Body 前面多少字节判断是否为二进制数据
+     */
+    private static final int BINARY_SNIFF_LENGTH = 512;
+
+    /**
+     * 二进制数据的 Content-Type 前缀
+     */
+    private static final String[] BINARY_CONTENT_TYPES = {"image/", "audio/", "video/", "font/",
+            "application/octet-stream", "application/zip", "application/gzip", "application/x-gzip",
+            "application/x-tar", "application/x-7z-compressed", "application/x-rar-compressed",
+            "application/java-archive", "application/pdf", "application/wasm", "application/x-shockwave-flash",
+            "application/msword", "application/vnd.ms-", "application/vnd.openxmlformats-"};
+
+    /**
+     * Body 数据限制（整体替换，保证同一个数据源使用相同的限制）
+     */
+    private static volatile BodyLimits sBodyLimits = new BodyLimits(0, 0, BINARY_BODY_NONE);
+
     private final String firstLine;
-    private final String header;
-    private final String body;
-    private final String bodyMd5;
-    private final String bodyHash;
-    private final String bodyHex;
+    private String header;
+    private String body;
+    private String bodyMd5;
+    private String bodyHash;
+    private String bodyHex;
 
+    private final int _firstLineEnd;
+    private final int _headerEnd;
     private final int _bodyOffset;
     private final boolean _hasBody;
+    private final BodyLimits _limits;
 
     public FpHttpDS(byte[] data, Charset charset) {
         super(data, charset);
-        String asciiData = new String(data, StandardCharsets.US_ASCII);
         // 解析首行结束位置
-        int firstLineEnd = asciiData.indexOf("\r\n");
+        int firstLineEnd = indexOf(data, CRLF, 0);
         if (firstLineEnd <= 0) {
             throw new IllegalArgumentException("Invalid HTTP Data");
         }
-        byte[] firstLineBytes = Arrays.copyOfRange(data, 0, firstLineEnd);
-        String firstLine = new String(firstLineBytes, charset);
+        String firstLine = new String(data, 0, firstLineEnd, charset);
         if (!checkFirstLine(firstLine)) {
             throw new IllegalArgumentException("Invalid HTTP Data");
         }
         this.firstLine = firstLine;
+        this._firstLineEnd = firstLineEnd;
         // 解析 Header 结束位置
-        int headerEnd = asciiData.indexOf("\r\n\r\n");
+        int headerEnd = indexOf(data, CRLF_CRLF, firstLineEnd);
         if (headerEnd <= 0) {
             throw new IllegalArgumentException("Invalid HTTP Data");
         }
-        byte[] headerBytes = Arrays.copyOfRange(data, 0, headerEnd);
-        this.header = new String(headerBytes, charset);
-        // 解析 Body 数据
-        int offset = headerEnd + 4;
-        this._bodyOffset = offset;
-        // 检测 Body 是否没有数据
-        if (data.length - offset <= 0) {
-            this._hasBody = false;
-            this.body = "";
-            this.bodyMd5 = "";
-            this.bodyHash = "";
-            this.bodyHex = "";
-            return;
-        }
-        this._hasBody = true;
-        // 获取 Body 字节数据
-        byte[] bodyBytes = Arrays.copyOfRange(data, offset, data.length);
-        this.body = new String(bodyBytes, charset);
-        // 计算 Body MD5 值
-        this.bodyMd5 = Utils.md5(bodyBytes);
-        // 计算 Body Hash 值
-        this.bodyHash = IconHash.hash(bodyBytes);
-        // 计算 Body 十六进制（为性能考虑，只取前 100 个字节数据）
-        int hexEnd = Math.min(bodyBytes.length, 100);
-        byte[] hexBytes = Arrays.copyOfRange(bodyBytes, 0, hexEnd);
-        // 将结果转换为大写
-        this.bodyHex = Utils.bytesToHex(hexBytes).toUpperCase();
+        this._headerEnd = headerEnd;
+        // Body 数据起始位置
+        this._bodyOffset = headerEnd + 4;
+        this._hasBody = data.length - this._bodyOffset > 0;
+        this._limits = sBodyLimits;
+        // 其它字段在首次获取时才解析（例如：bodyHash 只在指纹规则用到时才计算）
     }
 
     public String getFirstLine() {
@@ -90,25 +115,274 @@ public abstract class FpHttpDS extends FpDataSource {
     }
 
     public String getHeader() {
+        if (header == null) {
+            header = new String(getDataBytes(), 0, _headerEnd, getCharset());
+        }
         return header;
     }
 
     public String getBody() {
+        if (body == null) {
+            body = hasBody() ? decodeText(getDataBytes(), _bodyOffset, getBodyTextLength(), getCharset()) : "";
+        }
         return body;
     }
 
+    /**
+     * 获取 Body 的 MD5 值
+     *
+     * @return 没有 Body 返回空字符串；Body 超出计算 Hash 的大小限制时返回null（该字段的指纹规则都不匹配）
+     */
     public String getBodyMd5() {
+        if (bodyMd5 == null && !isBodyHashSkipped()) {
+            bodyMd5 = hasBody() ? Utils.md5(getBodyBytes()) : "";
+        }
         return bodyMd5;
     }
 
+    /**
+     * 获取 Body 的 Hash 值
+     *
+     * @return 没有 Body 返回空字符串；Body 超出计算 Hash 的大小限制时返回null（该字段的指纹规则都不匹配）
+     */
     public String getBodyHash() {
+        if (bodyHash == null && !isBodyHashSkipped()) {
+            bodyHash = hasBody() ? IconHash.hash(getBodyBytes()) : "";
+        }
         return bodyHash;
     }
 
     public String getBodyHex() {
+        if (bodyHex == null) {
+            if (hasBody()) {
+                // 为性能考虑，只取前 100 个字节数据
+                int hexEnd = _bodyOffset + Math.min(getBodyLength(), 100);
+                byte[] hexBytes = Arrays.copyOfRange(getDataBytes(), _bodyOffset, hexEnd);
+                // 将结果转换为大写
+                bodyHex = Utils.bytesToHex(hexBytes).toUpperCase();
+            } else {
+                bodyHex = "";
+            }
+        }
         return bodyHex;
     }
 
+    /**
+     * 获取 Body 字节数据
+     *
+     * @return 没有 Body 返回空数组
+     */
+    public byte[] getBodyBytes() {
+        byte[] data = getDataBytes();
+        return Arrays.copyOfRange(data, Math.min(_bodyOffset, data.length), data.length);
+    }
+
+    public int getBodyLength() {
+        return Math.max(getDataBytes().length - _bodyOffset, 0);
+    }
+
+    /**
+     * 设置 Body 数据限制（只作用于之后创建的数据源）
+     *
+     * @param textLimit    文本字段（data、body、title 等）最多解码的 Body 字节数（小于等于0表示不限制）
+     * @param hashLimit    Body 超过该字节数时，不计算 Hash 字段（小于等于0表示不限制）
+     * @param binaryPolicy 二进制 Body 处理策略（示例：{@link #BINARY_BODY_TRUNCATE}）
+     */
+    public static void setBodyLimits(int textLimit, int hashLimit, int binaryPolicy) {
+        sBodyLimits = new BodyLimits(textLimit, hashLimit, binaryPolicy);
+    }
+
+    @Override
+    protected int getTextLength() {
+        if (!hasBody()) {
+            return super.getTextLength();
+        }
+        return _bodyOffset + getBodyTextLength();
+    }
+
+    /**
+     * 获取需要解码为文本的 Body 长度（Hash 字段不受影响，仍然使用完整的 Body 数据）
+     */
+    private int getBodyTextLength() {
+        int length = getBodyLength();
+        if (length == 0) {
+            return 0;
+        }
+        if (_limits.binaryPolicy != BINARY_BODY_NONE && isBinaryBody()) {
+            if (_limits.binaryPolicy == BINARY_BODY_SKIP) {
+                return 0;
+            }
+            length = Math.min(length, BINARY_TRUNCATE_LENGTH);
+        }
+        if (_limits.textLimit > 0) {
+            length = Math.min(length, _limits.textLimit);
+        }
+        return length;
+    }
+
+    /**
+     * Body 是否超出计算 Hash 字段（bodyMd5、bodyHash）的大小限制
+     */
+    public boolean isBodyHashSkipped() {
+        return _limits.hashLimit > 0 && getBodyLength() > _limits.hashLimit;
+    }
+
+    /**
+     * 检测 Body 是否为二进制数据（优先根据 Content-Type 判断，没有 Content-Type 时检测是否包含空字节）
+     */
+    private boolean isBinaryBody() {
+        String contentType = findContentType();
+        if (contentType != null) {
+            if (contentType.startsWith("image/svg")) {
+                return false;
+            }
+            for (String type : BINARY_CONTENT_TYPES) {
+                if (contentType.startsWith(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        byte[] data = getDataBytes();
+        int end = _bodyOffset + Math.min(getBodyLength(), BINARY_SNIFF_LENGTH);
+        for (int i = _bodyOffset; i < end; i++) {
+            if (data[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从原始数据中查找 Content-Type 头的值
+     *
+     * @return 转换为小写，不包含参数（示例：text/html）；不存在返回null
+     */
+    private String findContentType() {
+        byte[] data = getDataBytes();
+        int start = _firstLineEnd + 2;
+        while (start < _headerEnd) {
+            int end = indexOf(data, CRLF, start);
+            if (end < 0 || end > _headerEnd) {
+                end = _headerEnd;
+            }
+            if (startsWithIgnoreCase(data, start, end, "Content-Type:")) {
+                String value = new String(data, start + 13, end - start - 13, getCharset());
+                int paramIndex = value.indexOf(';');
+                if (paramIndex >= 0) {
+                    value = value.substring(0, paramIndex);
+                }
+                return value.trim().toLowerCase(Locale.ROOT);
+            }
+            start = end + 2;
+        }
+        return null;
+    }
+
+    /**
+     * 数据源名（与 {@link FpDSProvider} 的字段名一致）
+     */
+    protected abstract String getDataSourceName();
+
+    /**
+     * 获取字段所在的数据区域
+     *
+     * @param field 字段名
+     * @return 区域标志（示例：{@link #REGION_HEADER}）；未知字段返回0
+     */
+    protected int getFieldRegion(String field) {
+        switch (field) {
+            case "data":
+                return REGION_ALL;
+            case "firstLine":
+                return REGION_FIRST_LINE;
+            case "header":
+                return REGION_HEADER;
+            case "body":
+            case "bodyMd5":
+            case "bodyHash":
+            case "bodyHex":
+                return REGION_BODY;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 计算缓存 key 时，是否忽略该请求头（例如：Date 等每次请求都会变化的请求头）
+     *
+     * @param data  数据
+     * @param start 行起始位置
+     * @param end   行结束位置（不包含 \r\n）
+     * @return true=忽略；false=不忽略
+     */
+    protected boolean isCacheIgnoredHeader(byte[] data, int start, int end) {
+        return false;
+    }
+
+    @Override
+    public String calculateCacheKey(Set<String> requiredFields) {
+        int regions = 0;
+        if (requiredFields == null) {
+            regions = REGION_ALL;
+        } else {
+            String prefix = getDataSourceName() + ".";
+            for (String field : requiredFields) {
+                if (field.startsWith(prefix)) {
+                    regions |= getFieldRegion(field.substring(prefix.length()));
+                }
+            }
+        }
+        // 直接使用原始字节数据计算，不需要解码
+        byte[] data = getDataBytes();
+        long hash = XxHash64.hash(data, 0, 0, regions);
+        if ((regions & REGION_HEADER) != 0) {
+            int start = 0;
+            while (start < _headerEnd) {
+                int end = indexOf(data, CRLF, start);
+                if (end < 0 || end > _headerEnd) {
+                    end = _headerEnd;
+                }
+                if (!isCacheIgnoredHeader(data, start, end)) {
+                    hash = XxHash64.combine(hash, XxHash64.hash(data, start, end - start, 0));
+                }
+                start = end + 2;
+            }
+        } else if ((regions & REGION_FIRST_LINE) != 0) {
+            hash = XxHash64.combine(hash, XxHash64.hash(data, 0, _firstLineEnd, 0));
+        }
+        if ((regions & REGION_BODY) != 0) {
+            hash = XxHash64.combine(hash, XxHash64.hash(data, _bodyOffset, getBodyLength(), 0));
+        }
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * 请求头中是否包含指定的字节序列
+     *
+     * @param target 字节序列
+     * @return true=包含；false=不包含
+     */
+    protected boolean headerContains(byte[] target) {
+        return indexOf(getDataBytes(), target, 0, _headerEnd) >= 0;
+    }
+
+    /**
+     * 检测行数据是否以指定字符串开头（忽略大小写，只支持 ASCII 字符）
+     */
+    protected static boolean startsWithIgnoreCase(byte[] data, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            int c = data[start + i] & 0xFF;
+            if (Character.toLowerCase(c) != Character.toLowerCase(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public int getBodyOffset() {
         return _bodyOffset;
     }
@@ -127,4 +401,55 @@ public abstract class FpHttpDS extends FpDataSource {
         boolean checkRespLine = REGEX_RESP_LINE.matcher(firstLine).find();
         return checkReqLine || checkRespLine;
     }
+
+    /**
+     * 查找字节序列的位置
+     *
+     * @param data      数据
+     * @param target    要查找的字节序列
+     * @param fromIndex 开始查找的位置
+     * @return 失败返回-1
+     */
+    private static int indexOf(byte[] data, byte[] target, int fromIndex) {
+        return indexOf(data, target, fromIndex, data.length);
+    }
+
+    /**
+     * 在指定范围内查找字节序列的位置
+     *
+     * @param data      数据
+     * @param target    要查找的字节序列
+     * @param fromIndex 开始查找的位置
+     * @param toIndex   结束查找的位置（不包含，字节序列必须完整位于该位置之前）
+     * @return 失败返回-1
+     */
+    private static int indexOf(byte[] data, byte[] target, int fromIndex, int toIndex) {
+        int end = Math.min(toIndex, data.length) - target.length;
+        for (int i = Math.max(fromIndex, 0); i <= end; i++) {
+            int j = 0;
+            while (j < target.length && data[i + j] == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Body 数据限制
+     */
+    private static class BodyLimits {
+
+        private final int textLimit;
+        private final int hashLimit;
+        private final int binaryPolicy;
+
+        private BodyLimits(int textLimit, int hashLimit, int binaryPolicy) {
+            this.textLimit = textLimit;
+            this.hashLimit = hashLimit;
+            this.binaryPolicy = binaryPolicy;
+        }
+    }
 }
@@ -1,7 +1,5 @@
 package burp.pkey.onescan.bean;
 
-import burp.pkey.common.utils.Utils;
-
 import java.nio.charset.Charset;
 import java.util.regex.Pattern;
 
@@ -24,26 +22,40 @@ public class FpHttpReqDS extends FpHttpDS {
     private static final Pattern REGEX_REQ_URL = Pattern.compile("[A-Z]+\\s+(.*?)\\s+HTTP/",
             Pattern.CASE_INSENSITIVE);
 
-    private final String method;
-    private final String url;
+    private String method;
+    private String url;
 
     public FpHttpReqDS(byte[] data, Charset charset) {
         super(data, charset);
-        this.method = fetchRegexResult(REGEX_REQ_METHOD, getFirstLine());
-        this.url = fetchRegexResult(REGEX_REQ_URL, getFirstLine());
     }
 
     @Override
-    public String calculateCacheKey() {
-        byte[] dataBytes = getDataBytes();
-        return Utils.md5(dataBytes);
+    protected String getDataSourceName() {
+        return "request";
+    }
+
+    @Override
+    protected int getFieldRegion(String field) {
+        switch (field) {
+            case "method":
+            case "url":
+                return REGION_FIRST_LINE;
+            default:
+                return super.getFieldRegion(field);
+        }
     }
 
     public String getMethod() {
+        if (method == null) {
+            method = fetchRegexResult(REGEX_REQ_METHOD, getFirstLine());
+        }
         return method;
     }
 
     public String getUrl() {
+        if (url == null) {
+            url = fetchRegexResult(REGEX_REQ_URL, getFirstLine());
+        }
         return url;
     }
 }
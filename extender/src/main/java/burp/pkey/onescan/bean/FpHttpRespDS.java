@@ -1,10 +1,10 @@
 package burp.pkey.onescan.bean;
 
 import burp.pkey.common.utils.HtmlUtils;
-import burp.pkey.common.utils.Utils;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -28,45 +28,77 @@ public class FpHttpRespDS extends FpHttpDS {
             Pattern.CASE_INSENSITIVE);
 
     /**
-     * HTTP 响应日期格式正则表达式
+     * 计算缓存 key 时忽略的响应头（每次请求都可能变化的日期相关响应头）
      */
-    private static final Pattern REGEX_RESP_DATE = Pattern.compile("(Mon|Tue|Wed|Thu|Fri|Sat|Sun),\\s+" +
-            "(0[1-9]|[12]\\d|3[01])\\s+(Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)\\s+" +
-            "\\d{4}\\s+([01]\\d|2[0-3]):[0-5]\\d:[0-5]\\d\\s+GMT", Pattern.CASE_INSENSITIVE);
+    private static final String[] CACHE_IGNORED_HEADERS = {"Date:", "Expires:", "Last-Modified:"};
 
-    private final String status;
-    private final String server;
-    private final String title;
+    private static final byte[] SET_COOKIE = "Set-Cookie".getBytes(StandardCharsets.US_ASCII);
+
+    private String status;
+    private String server;
+    private String title;
 
     public FpHttpRespDS(byte[] data, Charset charset) {
         super(data, charset);
-        this.status = fetchRegexResult(REGEX_RESP_STATUS, getFirstLine());
-        this.server = fetchRegexResult(REGEX_RESP_SERVER, getHeader());
-        this.title = HtmlUtils.findTitleByHtmlBody(data, charset.name());
     }
 
     @Override
-    public String calculateCacheKey() {
+    public String calculateCacheKey(Set<String> requiredFields) {
         // 响应头包含 Set-Cookie，不计算 Hash 值（不缓存）
-        if (getHeader().contains("Set-Cookie")) {
+        if (headerContains(SET_COOKIE)) {
             return null;
         }
-        // 只处理响应头的日期相关字符串
-        String newHeader = REGEX_RESP_DATE.matcher(getHeader()).replaceAll("");
-        // 计算拼接后的 Md5 值
-        String mergeValue = newHeader + getBodyMd5();
-        return Utils.md5(mergeValue.getBytes(StandardCharsets.UTF_8));
+        return super.calculateCacheKey(requiredFields);
+    }
+
+    @Override
+    protected String getDataSourceName() {
+        return "response";
+    }
+
+    @Override
+    protected int getFieldRegion(String field) {
+        switch (field) {
+            case "status":
+                return REGION_FIRST_LINE;
+            case "server":
+                return REGION_HEADER;
+            case "title":
+                // 标题从完整的响应数据中提取
+                return REGION_ALL;
+            default:
+                return super.getFieldRegion(field);
+        }
+    }
+
+    @Override
+    protected boolean isCacheIgnoredHeader(byte[] data, int start, int end) {
+        for (String header : CACHE_IGNORED_HEADERS) {
+            if (startsWithIgnoreCase(data, start, end, header)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public String getStatus() {
+        if (status == null) {
+            status = fetchRegexResult(REGEX_RESP_STATUS, getFirstLine());
+        }
         return status;
     }
 
     public String getServer() {
+        if (server == null) {
+            server = fetchRegexResult(REGEX_RESP_SERVER, getHeader());
+        }
         return server;
     }
 
     public String getTitle() {
+        if (title == null) {
+            title = HtmlUtils.findTitleByHtmlBody(getData());
+        }
         return title;
     }
 }
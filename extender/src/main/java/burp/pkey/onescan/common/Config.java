@@ -32,10 +32,20 @@ public class Config {
     public static final String KEY_PAYLOAD_PROCESS_LIST = "payload-process-list";
     public static final String KEY_QPS_LIMIT = "qps-limit";
     public static final String KEY_REQUEST_DELAY = "request-delay";
+    public static final String KEY_HOST_QPS_LIMIT = "host-qps-limit";
+    public static final String KEY_QPS_BURST = "qps-burst";
     public static final String KEY_SCAN_LEVEL_DIRECT = "scan-level-direct";
     public static final String KEY_SCAN_LEVEL = "scan-level";
     public static final String KEY_RETRY_COUNT = "retry-count";
     public static final String KEY_RETRY_INTERVAL = "retry-interval";
+    public static final String KEY_RETRY_BACKOFF = "retry-backoff";
+    public static final String KEY_RETRY_JITTER = "retry-jitter";
+    public static final String KEY_VIRTUAL_THREAD = "virtual-thread";
+    public static final String KEY_VIRTUAL_THREAD_CONCURRENCY = "virtual-thread-concurrency";
+    public static final String KEY_TASK_QUEUE_CAPACITY = "task-queue-capacity";
+    public static final String KEY_TASK_QUEUE_POLICY = "task-queue-policy";
+    public static final String KEY_TRAFFIC_CLASS_WEIGHT = "traffic-class-weight";
+    public static final String KEY_TRAFFIC_CLASS_SHARE = "traffic-class-share";
     public static final String KEY_MAX_DISPLAY_LENGTH = "max-display-length";
     public static String KEY_COLLECT_PATH = "collect-path";
     public static final String KEY_EXCLUDE_SUFFIX = "exclude-suffix";
@@ -46,6 +56,15 @@ public class Config {
     public static final String KEY_REDIRECT_COOKIES_FOLLOW = "redirect-cookies-follow";
     public static final String KEY_REDIRECT_TARGET_HOST_LIMIT = "redirect-target-host-limit";
     public static final String KEY_INTERCEPT_TIMEOUT_HOST = "intercept-timeout-host";
+    public static final String KEY_CIRCUIT_FAILURE_THRESHOLD = "circuit-failure-threshold";
+    public static final String KEY_CIRCUIT_COOL_DOWN = "circuit-cool-down";
+    public static final String KEY_CIRCUIT_PROBE_COUNT = "circuit-probe-count";
+    public static final String KEY_FP_CACHE_MAX_SIZE = "fp-cache-max-size";
+    public static final String KEY_FP_CACHE_MAX_MEMORY = "fp-cache-max-memory";
+    public static final String KEY_FP_CACHE_TTL = "fp-cache-ttl";
+    public static final String KEY_FP_BODY_TEXT_LIMIT = "fp-body-text-limit";
+    public static final String KEY_FP_BODY_HASH_LIMIT = "fp-body-hash-limit";
+    public static final String KEY_FP_BINARY_BODY_POLICY = "fp-binary-body-policy";
     // 首页开关配置项
     public static final String KEY_ENABLE_LISTEN_PROXY = "enable-listen-proxy";
     public static final String KEY_ENABLE_REMOVE_HEADER = "enable-remove-header";
@@ -57,6 +76,23 @@ public class Config {
     // 配置常量值
     public static final String DIRECT_LEFT = "left";
     public static final String DIRECT_RIGHT = "right";
+    public static final String TASK_QUEUE_POLICY_BLOCK = "block";
+    public static final String TASK_QUEUE_POLICY_SPILL = "spill";
+    public static final String TASK_QUEUE_POLICY_DROP = "drop";
+    public static final String RETRY_BACKOFF_FIXED = "fixed";
+    public static final String RETRY_BACKOFF_EXPONENTIAL = "exponential";
+
+    /**
+     * 流量类别（下标与 {@link #TRAFFIC_CLASS_NAMES} 对应）
+     */
+    public static final int TRAFFIC_CLASS_ORIGINAL = 0;
+    public static final int TRAFFIC_CLASS_REDIRECT = 1;
+    public static final int TRAFFIC_CLASS_SCAN = 2;
+    public static final int TRAFFIC_CLASS_BYPASS = 3;
+    public static final int TRAFFIC_CLASS_PROCESS = 4;
+    public static final String[] TRAFFIC_CLASS_NAMES = {"original", "redirect", "scan", "bypass", "process"};
+    private static final int[] DEFAULT_TRAFFIC_CLASS_WEIGHT = {8, 4, 2, 1, 2};
+    private static final int[] DEFAULT_TRAFFIC_CLASS_SHARE = {100, 100, 100, 50, 100};
 
     private static String sWorkDir;
     private static String sConfigPath;
@@ -73,10 +109,20 @@ public class Config {
         initDefaultConfig(Config.KEY_VERSION, Constants.PLUGIN_VERSION);
         initDefaultConfig(Config.KEY_QPS_LIMIT, "1024");
         initDefaultConfig(Config.KEY_REQUEST_DELAY, "0");
+        initDefaultConfig(Config.KEY_HOST_QPS_LIMIT, "0");
+        initDefaultConfig(Config.KEY_QPS_BURST, "0");
         initDefaultConfig(Config.KEY_SCAN_LEVEL_DIRECT, "left");
         initDefaultConfig(Config.KEY_SCAN_LEVEL, "99");
         initDefaultConfig(Config.KEY_RETRY_COUNT, "3");
         initDefaultConfig(Config.KEY_RETRY_INTERVAL, "3000");
+        initDefaultConfig(Config.KEY_RETRY_BACKOFF, Config.RETRY_BACKOFF_FIXED);
+        initDefaultConfig(Config.KEY_RETRY_JITTER, "false");
+        initDefaultConfig(Config.KEY_VIRTUAL_THREAD, "false");
+        initDefaultConfig(Config.KEY_VIRTUAL_THREAD_CONCURRENCY, "200");
+        initDefaultConfig(Config.KEY_TASK_QUEUE_CAPACITY, "100000");
+        initDefaultConfig(Config.KEY_TASK_QUEUE_POLICY, Config.TASK_QUEUE_POLICY_BLOCK);
+        initDefaultConfig(Config.KEY_TRAFFIC_CLASS_WEIGHT, joinTrafficClassValues(DEFAULT_TRAFFIC_CLASS_WEIGHT));
+        initDefaultConfig(Config.KEY_TRAFFIC_CLASS_SHARE, joinTrafficClassValues(DEFAULT_TRAFFIC_CLASS_SHARE));
         initDefaultConfig(Config.KEY_MAX_DISPLAY_LENGTH, "0");
         initDefaultConfig(Config.KEY_COLLECT_PATH, getWorkDir() + "collect");
         initDefaultConfig(KEY_EXCLUDE_SUFFIX, "3g2|3gp|7z|aac|abw|aif|aifc|aiff|arc|au|avi|azw|bin|bmp|bz|" +
@@ -89,7 +135,16 @@ public class Config {
         initDefaultConfig(Config.KEY_FOLLOW_REDIRECT, "true");
         initDefaultConfig(Config.KEY_REDIRECT_COOKIES_FOLLOW, "true");
         initDefaultConfig(Config.KEY_REDIRECT_TARGET_HOST_LIMIT, "true");
-        initDefaultConfig(Config.KEY_INTERCEPT_TIMEOUT_HOST, "false");
+        initDefaultConfig(Config.KEY_INTERCEPT_TIMEOUT_HOST, "true");
+        initDefaultConfig(Config.KEY_CIRCUIT_FAILURE_THRESHOLD, "5");
+        initDefaultConfig(Config.KEY_CIRCUIT_COOL_DOWN, "30000");
+        initDefaultConfig(Config.KEY_CIRCUIT_PROBE_COUNT, "1");
+        initDefaultConfig(Config.KEY_FP_CACHE_MAX_SIZE, String.valueOf(FpManager.DEFAULT_CACHE_MAX_SIZE));
+        initDefaultConfig(Config.KEY_FP_CACHE_MAX_MEMORY, String.valueOf(FpManager.DEFAULT_CACHE_MAX_MEMORY));
+        initDefaultConfig(Config.KEY_FP_CACHE_TTL, String.valueOf(FpManager.DEFAULT_CACHE_TTL));
+        initDefaultConfig(Config.KEY_FP_BODY_TEXT_LIMIT, String.valueOf(FpManager.DEFAULT_BODY_TEXT_LIMIT));
+        initDefaultConfig(Config.KEY_FP_BODY_HASH_LIMIT, String.valueOf(FpManager.DEFAULT_BODY_HASH_LIMIT));
+        initDefaultConfig(Config.KEY_FP_BINARY_BODY_POLICY, String.valueOf(FpManager.DEFAULT_BINARY_BODY_POLICY));
         // 默认开关配置
         initDefaultConfig(Config.KEY_ENABLE_LISTEN_PROXY, "false");
         initDefaultConfig(Config.KEY_ENABLE_REMOVE_HEADER, "false");
@@ -116,6 +171,10 @@ public class Config {
             FileUtils.writeFile(path, content);
         }
         FpManager.init(path);
+        FpManager.setCacheLimits(getInt(KEY_FP_CACHE_MAX_SIZE), getInt(KEY_FP_CACHE_MAX_MEMORY),
+                getInt(KEY_FP_CACHE_TTL));
+        FpManager.setBodyLimits(getInt(KEY_FP_BODY_TEXT_LIMIT), getInt(KEY_FP_BODY_HASH_LIMIT),
+                getInt(KEY_FP_BINARY_BODY_POLICY));
     }
 
     private static void onVersionUpgrade() {
@@ -377,6 +436,46 @@ public class Config {
         return sConfigManager.getList(key);
     }
 
+    /**
+     * 获取流量类别的配置值（权重、并发占比；缺失或无效的值使用默认值）
+     *
+     * @param key 配置 Key（示例：{@link #KEY_TRAFFIC_CLASS_WEIGHT}）
+     * @return 每个流量类别对应的值
+     */
+    public static int[] getTrafficClassValues(String key) {
+        int[] result = KEY_TRAFFIC_CLASS_SHARE.equals(key) ?
+                DEFAULT_TRAFFIC_CLASS_SHARE.clone() : DEFAULT_TRAFFIC_CLASS_WEIGHT.clone();
+        String value = get(key);
+        if (StringUtils.isEmpty(value)) {
+            return result;
+        }
+        String[] split = value.split(",");
+        for (int i = 0; i < split.length && i < result.length; i++) {
+            int item = StringUtils.parseInt(split[i].trim(), -1);
+            if (item >= 1 && item <= 100) {
+                result[i] = item;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将流量类别的配置值拼接为配置文本
+     *
+     * @param values 每个流量类别对应的值
+     * @return 示例：8,4,2,1,2
+     */
+    public static String joinTrafficClassValues(int[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(",");
+            }
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+
     public static boolean hasKey(String key) {
         checkInit();
         return sConfigManager.hasKey(key);
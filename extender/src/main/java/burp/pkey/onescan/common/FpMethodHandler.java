@@ -1,5 +1,6 @@
 package burp.pkey.onescan.common;
 
+import burp.pkey.common.helper.PatternCache;
 import burp.pkey.common.log.Logger;
 import burp.pkey.common.utils.StringUtils;
 
@@ -27,6 +28,30 @@ public class FpMethodHandler {
             "iNotRegex",
     };
 
+    /**
+     * 是否为正则匹配方法
+     *
+     * @param method 匹配方法
+     * @return true=是；false=否
+     */
+    public static boolean isRegexMethod(String method) {
+        return "regex".equals(method) || "notRegex".equals(method) ||
+                "iRegex".equals(method) || "iNotRegex".equals(method);
+    }
+
+    /**
+     * 获取正则匹配方法对应的正则匹配标志
+     *
+     * @param method 匹配方法
+     * @return 忽略大小写的方法返回 {@link Pattern#CASE_INSENSITIVE}，否则返回0
+     */
+    public static int getRegexFlags(String method) {
+        if ("iRegex".equals(method) || "iNotRegex".equals(method)) {
+            return Pattern.CASE_INSENSITIVE;
+        }
+        return 0;
+    }
+
     /**
      * 检测相等
      *
@@ -133,7 +158,7 @@ public class FpMethodHandler {
      */
     public static boolean regex(String data, String content) {
         try {
-            Pattern pattern = Pattern.compile(content);
+            Pattern pattern = PatternCache.compile(content);
             return pattern.matcher(data).find();
         } catch (Exception var3) {
             Logger.error("Regex compile error: %s", var3.getMessage());
@@ -161,7 +186,7 @@ public class FpMethodHandler {
      */
     public static boolean iRegex(String data, String content) {
         try {
-            Pattern pattern = Pattern.compile(content, Pattern.CASE_INSENSITIVE);
+            Pattern pattern = PatternCache.compile(content, Pattern.CASE_INSENSITIVE);
             return pattern.matcher(data).find();
         } catch (Exception var3) {
             Logger.error("Regex compile error: %s", var3.getMessage());
@@ -0,0 +1,302 @@
+package burp.pkey.onescan.common;
+
+import burp.pkey.common.log.Logger;
+import burp.pkey.onescan.ui.widget.payloadlist.PayloadItem;
+import burp.pkey.onescan.ui.widget.payloadlist.PayloadRule;
+import burp.pkey.onescan.ui.widget.payloadlist.ProcessingItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+
+/**
+ * 请求包处理流水线
+ * <p>
+ * 将启用的“请求包处理”规则编译为不可变的流水线（规则配置变更事件触发时重新编译）：需要合并的规则按顺序组成一个阶段，
+ * 不需要合并的规则每条单独组成一个阶段。每个阶段在解析后的请求（请求头、请求体）上依次执行规则，
+ * 只在对整个请求包操作、以及全部规则执行完成时拼接请求包。每条规则记录执行次数、耗时、中断次数。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class ProcessingPipeline {
+
+    private static final String HEADER_END = "\r\n\r\n";
+
+    private final Stage mMergeStage;
+    private final List<Stage> mWithoutMergeStages;
+    private final List<Step> mSteps;
+
+    private ProcessingPipeline(Stage mergeStage, List<Stage> withoutMergeStages, List<Step> steps) {
+        this.mMergeStage = mergeStage;
+        this.mWithoutMergeStages = Collections.unmodifiableList(withoutMergeStages);
+        this.mSteps = Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * 编译流水线
+     *
+     * @param source 配置的“请求包处理”规则列表
+     * @return 流水线实例
+     */
+    public static ProcessingPipeline compile(List<ProcessingItem> source) {
+        List<Step> mergeSteps = new ArrayList<>();
+        List<Stage> withoutMergeStages = new ArrayList<>();
+        List<Step> allSteps = new ArrayList<>();
+        if (source != null) {
+            for (ProcessingItem item : source) {
+                if (!item.isEnabled()) {
+                    continue;
+                }
+                List<Step> steps = new ArrayList<>();
+                List<PayloadItem> items = item.getItems();
+                if (items != null) {
+                    for (int i = 0; i < items.size(); i++) {
+                        PayloadItem payloadItem = items.get(i);
+                        if (payloadItem.getRule() != null) {
+                            steps.add(new Step(item.getName(), i, payloadItem));
+                        }
+                    }
+                }
+                allSteps.addAll(steps);
+                if (item.isMerge()) {
+                    mergeSteps.addAll(steps);
+                } else {
+                    withoutMergeStages.add(new Stage(item.getName(), steps));
+                }
+            }
+        }
+        Stage mergeStage = mergeSteps.isEmpty() ? null : new Stage(null, mergeSteps);
+        return new ProcessingPipeline(mergeStage, withoutMergeStages, allSteps);
+    }
+
+    /**
+     * 需要合并的规则组成的阶段
+     *
+     * @return 不存在需要合并的规则时返回null
+     */
+    public Stage getMergeStage() {
+        return mMergeStage;
+    }
+
+    /**
+     * 不需要合并的规则组成的阶段列表（每条规则一个阶段）
+     */
+    public List<Stage> getWithoutMergeStages() {
+        return mWithoutMergeStages;
+    }
+
+    /**
+     * 获取每条规则的执行统计
+     */
+    public List<StepStats> getStats() {
+        List<StepStats> result = new ArrayList<>(mSteps.size());
+        for (Step step : mSteps) {
+            result.add(new StepStats(step));
+        }
+        return result;
+    }
+
+    /**
+     * 流水线阶段
+     */
+    public static class Stage {
+
+        private final String mName;
+        private final Step[] mSteps;
+
+        private Stage(String name, List<Step> steps) {
+            this.mName = name;
+            this.mSteps = steps.toArray(new Step[0]);
+        }
+
+        /**
+         * 阶段名（不需要合并的规则名；需要合并的阶段为null）
+         */
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * 处理请求包
+         *
+         * @param request 请求包（每个字符对应一个字节）
+         * @return 处理后的请求包；规则执行异常（或者条件不匹配）时返回null
+         */
+        public String process(String request) {
+            RequestParts parts = new RequestParts(request);
+            for (Step step : mSteps) {
+                long start = System.nanoTime();
+                try {
+                    step.apply(parts);
+                } catch (Exception e) {
+                    step.mFailures.increment();
+                    Logger.debug("handlePayloadProcess exception: " + e.getMessage());
+                    return null;
+                } finally {
+                    step.mCount.increment();
+                    step.mNanos.add(System.nanoTime() - start);
+                }
+            }
+            return parts.toRequest();
+        }
+    }
+
+    /**
+     * 流水线中的一条规则
+     */
+    private static class Step {
+
+        private final String mItemName;
+        private final int mIndex;
+        private final int mScope;
+        private final PayloadRule mRule;
+        private final LongAdder mCount = new LongAdder();
+        private final LongAdder mNanos = new LongAdder();
+        private final LongAdder mFailures = new LongAdder();
+
+        private Step(String itemName, int index, PayloadItem item) {
+            this.mItemName = itemName;
+            this.mIndex = index;
+            this.mScope = item.getScope();
+            this.mRule = item.getRule();
+        }
+
+        private void apply(RequestParts parts) {
+            switch (mScope) {
+                case PayloadRule.SCOPE_URL:
+                    parts.setUrl(mRule.handleProcess(parts.getUrl()));
+                    break;
+                case PayloadRule.SCOPE_HEADER:
+                    parts.setHeader(mRule.handleProcess(parts.header));
+                    break;
+                case PayloadRule.SCOPE_BODY:
+                    parts.body = mRule.handleProcess(parts.body);
+                    break;
+                case PayloadRule.SCOPE_REQUEST:
+                    parts.parse(mRule.handleProcess(parts.toRequest()));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 解析后的请求包（请求头、请求体，请求行的 URL 位置）
+     */
+    private static class RequestParts {
+
+        private String header;
+        private String body;
+        private int urlStart;
+        private int urlEnd;
+
+        private RequestParts(String request) {
+            parse(request);
+        }
+
+        private void parse(String request) {
+            int index = request.indexOf(HEADER_END);
+            if (index < 0) {
+                setHeader(request);
+                body = "";
+            } else {
+                setHeader(request.substring(0, index));
+                body = request.substring(index + HEADER_END.length());
+            }
+        }
+
+        private void setHeader(String header) {
+            this.header = header;
+            // 定位请求行中的 URL 位置
+            int lineEnd = header.indexOf("\r\n");
+            String reqLine = lineEnd < 0 ? header : header.substring(0, lineEnd);
+            Matcher matcher = Constants.REGEX_REQ_LINE_URL.matcher(reqLine);
+            if (matcher.find()) {
+                urlStart = matcher.start(1);
+                urlEnd = matcher.end(1);
+            } else {
+                urlStart = -1;
+                urlEnd = -1;
+            }
+        }
+
+        private String getUrl() {
+            return urlStart < 0 ? "" : header.substring(urlStart, urlEnd);
+        }
+
+        private void setUrl(String url) {
+            // 请求行中没有 URL 时，不做处理
+            if (urlStart < 0) {
+                return;
+            }
+            header = header.substring(0, urlStart) + url + header.substring(urlEnd);
+            urlEnd = urlStart + url.length();
+        }
+
+        private String toRequest() {
+            return header + HEADER_END + body;
+        }
+    }
+
+    /**
+     * 规则执行统计
+     */
+    public static class StepStats {
+
+        private final String mItemName;
+        private final int mIndex;
+        private final String mRuleName;
+        private final long mCount;
+        private final long mNanos;
+        private final long mFailures;
+
+        private StepStats(Step step) {
+            this.mItemName = step.mItemName;
+            this.mIndex = step.mIndex;
+            this.mRuleName = step.mRule.ruleName();
+            this.mCount = step.mCount.sum();
+            this.mNanos = step.mNanos.sum();
+            this.mFailures = step.mFailures.sum();
+        }
+
+        /**
+         * 所属的“请求包处理”规则名
+         */
+        public String getItemName() {
+            return mItemName;
+        }
+
+        /**
+         * 在所属规则中的下标（从 0 开始）
+         */
+        public int getIndex() {
+            return mIndex;
+        }
+
+        public String getRuleName() {
+            return mRuleName;
+        }
+
+        /**
+         * 执行次数
+         */
+        public long getCount() {
+            return mCount;
+        }
+
+        /**
+         * 总耗时（纳秒）
+         */
+        public long getNanos() {
+            return mNanos;
+        }
+
+        /**
+         * 中断次数（规则执行异常、条件不匹配）
+         */
+        public long getFailures() {
+            return mFailures;
+        }
+    }
+}
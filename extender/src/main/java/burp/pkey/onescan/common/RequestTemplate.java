@@ -0,0 +1,376 @@
+package burp.pkey.onescan.common;
+
+import burp.pkey.common.utils.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 请求数据包模板
+ * <p>
+ * 同一个原始数据包生成的请求（例如：扫描的几万条路径），请求头的替换、移除结果都是相同的。
+ * 模板在创建时完成请求头处理（包括 Content-Length 更新），并编码为字节数组；
+ * 生成请求时只需要拼接请求行，直接写入字节数组，不再重复解析、处理请求头。
+ * 包含动态变量时，创建模板时扫描一次变量位置，生成请求时将填充结果直接写入字节数组。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class RequestTemplate {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final byte[] SCAN_REQ_LINE_PREFIX = bytes("GET ");
+    private static final byte[] SCAN_REQ_LINE_SUFFIX = bytes(" HTTP/1.1\r\n");
+
+    /**
+     * 生成请求时使用的缓冲区（每个线程复用）
+     */
+    private static final ThreadLocal<Buffer> sBuffer = ThreadLocal.withInitial(Buffer::new);
+
+    /**
+     * 请求行（扫描请求的请求行在生成请求时拼接，值为null）
+     */
+    private final byte[] mReqLine;
+
+    /**
+     * 请求头（不包含请求行，包含结尾的空行）和请求体
+     */
+    private final byte[] mHeaderAndBody;
+
+    /**
+     * 请求行的动态变量模板（不包含动态变量时为null）
+     */
+    private final VariableTemplate mReqLineVars;
+
+    /**
+     * 请求头、请求体的动态变量模板（不包含动态变量时为null）
+     */
+    private final VariableTemplate mHeaderAndBodyVars;
+
+    /**
+     * 是否存在请求体（存在请求体时，填充动态变量后需要更新 Content-Length）
+     */
+    private final boolean mHasBody;
+
+    private RequestTemplate(byte[] reqLine, byte[] headerAndBody, boolean hasBody) {
+        this.mReqLine = reqLine;
+        this.mHeaderAndBody = headerAndBody;
+        this.mHasBody = hasBody;
+        this.mReqLineVars = compileVariables(reqLine);
+        this.mHeaderAndBodyVars = compileVariables(headerAndBody);
+    }
+
+    /**
+     * 扫描数据中的动态变量
+     *
+     * @return 不包含动态变量时返回null
+     */
+    private static VariableTemplate compileVariables(byte[] data) {
+        if (data == null || indexOf(data, bytes("{{"), 0, data.length) < 0) {
+            return null;
+        }
+        VariableTemplate template = VariableTemplate.compile(new String(data, StandardCharsets.ISO_8859_1));
+        return template.hasVariable() ? template : null;
+    }
+
+    /**
+     * 创建请求模板
+     *
+     * @param headers       原始数据包的请求头（第一行是请求行）
+     * @param body          原始数据包的请求体（扫描请求忽略请求体）
+     * @param configHeader  配置的请求头（替换同名请求头，没有同名请求头时追加到末尾）
+     * @param removeHeaders 要移除的请求头KEY列表
+     * @param scanRequest   是否为扫描的请求（使用 GET 请求，请求路径在生成请求时指定）
+     * @return 模板实例
+     */
+    public static RequestTemplate compile(List<String> headers, byte[] body, List<String> configHeader,
+                                          List<String> removeHeaders, boolean scanRequest) {
+        List<String> config = new ArrayList<>(configHeader);
+        List<String> lines = new ArrayList<>();
+        // 请求头的参数处理（顺带处理移除的请求头），从 1 开始表示跳过首行（请求行）
+        for (int i = 1; i < headers.size(); i++) {
+            String item = headers.get(i);
+            String key = getHeaderKey(item);
+            // 是否需要移除当前请求头字段（优先级最高）
+            if (removeHeaders.contains(key)) {
+                continue;
+            }
+            // 如果是扫描的请求（只有 GET 请求），将 Content-Length 移除
+            if (scanRequest && CONTENT_LENGTH.equalsIgnoreCase(key)) {
+                continue;
+            }
+            // 配置中存在匹配项，替换为配置中的数据（已经添加的数据从列表中移除）
+            String matchItem = findConfigHeader(config, key);
+            if (matchItem != null) {
+                lines.add(matchItem);
+                config.remove(matchItem);
+            } else {
+                lines.add(item);
+            }
+        }
+        // 将配置里剩下的值全部填充到请求头中
+        for (String item : config) {
+            if (!removeHeaders.contains(getHeaderKey(item))) {
+                lines.add(item);
+            }
+        }
+        if (scanRequest || body == null) {
+            body = new byte[0];
+        }
+        // 存在请求体时，更新 Content-Length
+        if (body.length > 0) {
+            setContentLength(lines, body.length);
+        }
+        // 编码请求头、请求体
+        Buffer buffer = new Buffer();
+        for (String line : lines) {
+            buffer.write(bytes(line));
+            buffer.write(CRLF);
+        }
+        buffer.write(CRLF);
+        buffer.write(body);
+        byte[] headerAndBody = buffer.toByteArray();
+        // 请求行
+        byte[] reqLine = null;
+        if (!scanRequest) {
+            reqLine = bytes(normalizeReqLine(headers.get(0)) + "\r\n");
+        }
+        return new RequestTemplate(reqLine, headerAndBody, body.length > 0);
+    }
+
+    private static String getHeaderKey(String item) {
+        return item.split(": ")[0];
+    }
+
+    private static String findConfigHeader(List<String> config, String key) {
+        for (String item : config) {
+            if (StringUtils.isNotEmpty(item) && item.contains(": ") && getHeaderKey(item).equals(key)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static void setContentLength(List<String> lines, int length) {
+        String value = CONTENT_LENGTH + ": " + length;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).regionMatches(true, 0, CONTENT_LENGTH + ":", 0, CONTENT_LENGTH.length() + 1)) {
+                lines.set(i, value);
+                return;
+            }
+        }
+        lines.add(value);
+    }
+
+    /**
+     * 将请求行的协议版本统一为 HTTP/1.1（可能有些畸形数据包不存在协议版本）
+     */
+    private static String normalizeReqLine(String reqLine) {
+        int start = reqLine.lastIndexOf(" HTTP/");
+        if (start >= 0) {
+            return reqLine.substring(0, start) + " HTTP/1.1";
+        }
+        return reqLine;
+    }
+
+    /**
+     * 模板中是否包含动态变量（包含时，生成的请求需要填充动态变量，并更新 Content-Length）
+     */
+    public boolean hasVariable() {
+        return mReqLineVars != null || mHeaderAndBodyVars != null;
+    }
+
+    /**
+     * 生成请求数据包
+     *
+     * @param pathWithQuery 请求路径，或者请求路径+Query（只有扫描的请求使用）
+     * @return 请求数据包
+     */
+    public byte[] build(String pathWithQuery) {
+        Buffer buffer = sBuffer.get();
+        buffer.reset();
+        if (mReqLine != null) {
+            buffer.write(mReqLine);
+        } else {
+            buffer.write(SCAN_REQ_LINE_PREFIX);
+            buffer.write(pathWithQuery);
+            buffer.write(SCAN_REQ_LINE_SUFFIX);
+        }
+        buffer.write(mHeaderAndBody);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 生成请求数据包，并填充动态变量
+     *
+     * @param pathWithQuery 请求路径，或者请求路径+Query（只有扫描的请求使用，可能包含动态变量）
+     * @param resolver      变量取值接口
+     * @return 请求数据包
+     * @throws IllegalArgumentException 变量取值失败时抛出（由 {@link VariableTemplate.Resolver} 抛出）
+     */
+    public byte[] build(String pathWithQuery, VariableTemplate.Resolver resolver) throws IllegalArgumentException {
+        Buffer buffer = sBuffer.get();
+        buffer.reset();
+        if (mReqLine == null) {
+            buffer.write(SCAN_REQ_LINE_PREFIX);
+            // 请求路径每次都不相同，只在包含动态变量时扫描
+            if (pathWithQuery.contains("{{")) {
+                VariableTemplate.compile(pathWithQuery).fill(resolver, buffer::write);
+            } else {
+                buffer.write(pathWithQuery);
+            }
+            buffer.write(SCAN_REQ_LINE_SUFFIX);
+        } else if (mReqLineVars != null) {
+            mReqLineVars.fill(resolver, buffer::write);
+        } else {
+            buffer.write(mReqLine);
+        }
+        if (mHeaderAndBodyVars == null) {
+            buffer.write(mHeaderAndBody);
+            return buffer.toByteArray();
+        }
+        mHeaderAndBodyVars.fill(resolver, buffer::write);
+        byte[] result = buffer.toByteArray();
+        // 请求体中的动态变量填充后，长度可能变化
+        return mHasBody ? updateContentLength(result) : result;
+    }
+
+    /**
+     * 填充请求数据包中的动态变量（直接写入字节数组，不拼接完整的字符串；不更新 Content-Length）
+     *
+     * @param template 请求数据包的动态变量模板
+     * @param resolver 变量取值接口
+     * @return 请求数据包
+     * @throws IllegalArgumentException 变量取值失败时抛出（由 {@link VariableTemplate.Resolver} 抛出）
+     */
+    public static byte[] fill(VariableTemplate template, VariableTemplate.Resolver resolver)
+            throws IllegalArgumentException {
+        Buffer buffer = sBuffer.get();
+        buffer.reset();
+        template.fill(resolver, buffer::write);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 更新 Content-Length 参数值（直接在字节数组上处理，不解码整个数据包）
+     *
+     * @param rawBytes 请求数据包
+     * @return 更新后的数据包；数据包中不存在请求头结尾的空行时返回null
+     */
+    public static byte[] updateContentLength(byte[] rawBytes) {
+        int headerEnd = indexOf(rawBytes, HEADER_END, 0, rawBytes.length);
+        if (headerEnd == -1) {
+            return null;
+        }
+        int bodyOffset = headerEnd + HEADER_END.length;
+        int bodySize = rawBytes.length - bodyOffset;
+        if (bodySize == 0) {
+            return rawBytes;
+        }
+        byte[] value = bytes(CONTENT_LENGTH + ": " + bodySize);
+        // 查找 Content-Length 请求头（跳过请求行）
+        byte[] key = bytes(CONTENT_LENGTH + ":");
+        int lineStart = indexOf(rawBytes, CRLF, 0, headerEnd);
+        while (lineStart >= 0 && lineStart < headerEnd) {
+            lineStart += CRLF.length;
+            int lineEnd = indexOf(rawBytes, CRLF, lineStart, headerEnd);
+            if (lineEnd == -1) {
+                lineEnd = headerEnd;
+            }
+            if (regionMatchesIgnoreCase(rawBytes, lineStart, key)) {
+                return splice(rawBytes, lineStart, lineEnd, value, false);
+            }
+            lineStart = lineEnd;
+        }
+        // 不存在时，追加到请求头末尾
+        return splice(rawBytes, headerEnd, headerEnd, value, true);
+    }
+
+    /**
+     * 将数据包的 [start, end) 区间替换为指定内容
+     */
+    private static byte[] splice(byte[] src, int start, int end, byte[] value, boolean newLine) {
+        int prefix = newLine ? CRLF.length : 0;
+        byte[] result = new byte[src.length - (end - start) + prefix + value.length];
+        System.arraycopy(src, 0, result, 0, start);
+        if (newLine) {
+            System.arraycopy(CRLF, 0, result, start, prefix);
+        }
+        System.arraycopy(value, 0, result, start + prefix, value.length);
+        System.arraycopy(src, end, result, start + prefix + value.length, src.length - end);
+        return result;
+    }
+
+    private static boolean regionMatchesIgnoreCase(byte[] src, int offset, byte[] target) {
+        if (offset + target.length > src.length) {
+            return false;
+        }
+        for (int i = 0; i < target.length; i++) {
+            if (Character.toLowerCase(src[offset + i]) != Character.toLowerCase(target[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] src, byte[] target, int from, int to) {
+        int last = to - target.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (src[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 可扩容的字节缓冲区
+     */
+    private static class Buffer {
+
+        private byte[] data = new byte[4096];
+        private int size;
+
+        private void reset() {
+            size = 0;
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length << 1, size + length));
+            }
+        }
+
+        private void write(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        /**
+         * 写入字符串（与 Burp 的 stringToBytes 一致，每个字符只保留低 8 位）
+         */
+        private void write(String text) {
+            int length = text.length();
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                data[size++] = (byte) text.charAt(i);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package burp.pkey.onescan.common;
+
+import burp.pkey.common.utils.StringUtils;
+import burp.pkey.common.utils.UrlUtils;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 扫描路径游标（按需将一级目录与字典拼接为扫描路径，不预先生成全部扫描路径）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class ScanPathCursor implements Iterator<String> {
+
+    /**
+     * 拼接模式：目录 + 字典
+     */
+    private static final int MODE_PATH_LEVEL = 0;
+
+    /**
+     * 拼接模式：基础路径 + Bypass 字典 + 最后一级目录
+     */
+    private static final int MODE_BYPASS_FIRST = 1;
+
+    /**
+     * 拼接模式：基础路径 + 最后一级目录 + Bypass 字典
+     */
+    private static final int MODE_BYPASS_END = 2;
+
+    private final int mMode;
+    private final String mPath;
+    private final String mLastDir;
+    private final String mReqPath;
+    private final String mReqHost;
+    private final List<String> mPayloads;
+    private int mIndex;
+    private String mNext;
+
+    private ScanPathCursor(int mode, String path, String lastDir, String reqPath, String reqHost,
+                           List<String> payloads) {
+        this.mMode = mode;
+        this.mPath = path;
+        this.mLastDir = lastDir;
+        this.mReqPath = reqPath;
+        this.mReqHost = reqHost;
+        this.mPayloads = payloads;
+    }
+
+    /**
+     * 创建目录扫描游标
+     *
+     * @param path     目录（结尾的 '/' 符号会被去除）
+     * @param payloads 字典列表
+     * @param reqPath  请求数据包中的请求路径
+     * @param reqHost  请求路径中的请求主机地址
+     * @return 游标实例
+     */
+    public static ScanPathCursor ofPathLevel(String path, List<String> payloads, String reqPath, String reqHost) {
+        // 去除结尾的 '/' 符号
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return new ScanPathCursor(MODE_PATH_LEVEL, path, null, reqPath, reqHost, payloads);
+    }
+
+    /**
+     * 创建 Bypass 前缀扫描游标
+     *
+     * @param strings  分割后的路径（[0]为基础路径，[1]为最后一级目录；为空时与原逻辑一致拼接 "null"）
+     * @param payloads Bypass 字典列表
+     * @return 游标实例
+     */
+    public static ScanPathCursor ofBypassFirst(String[] strings, List<String> payloads) {
+        String path = strings != null ? strings[0] : null;
+        String lastDir = strings != null ? strings[1] : null;
+        return new ScanPathCursor(MODE_BYPASS_FIRST, path, lastDir, null, null, payloads);
+    }
+
+    /**
+     * 创建 Bypass 后缀扫描游标
+     *
+     * @param strings  分割后的路径（[0]为基础路径，[1]为最后一级目录）
+     * @param payloads Bypass 字典列表
+     * @return 游标实例
+     */
+    public static ScanPathCursor ofBypassEnd(String[] strings, List<String> payloads) {
+        String path = strings != null ? strings[0] : null;
+        String lastDir = strings != null ? strings[1] : null;
+        return new ScanPathCursor(MODE_BYPASS_END, path, lastDir, null, null, payloads);
+    }
+
+    /**
+     * 拼接 Bypass 前缀路径
+     *
+     * @param path    基础路径
+     * @param bypass  Bypass 字典项
+     * @param lastDir 最后一级目录
+     * @return 拼接后的路径
+     */
+    public static String joinBypassFirst(String path, String bypass, String lastDir) {
+        String newPath = path;
+        if (newPath != null && !bypass.startsWith("/") && !newPath.endsWith("/")) {
+            newPath = "/";
+        }
+        return newPath + bypass + lastDir;
+    }
+
+    /**
+     * 拼接 Bypass 后缀路径
+     *
+     * @param path    基础路径
+     * @param lastDir 最后一级目录
+     * @param bypass  Bypass 字典项
+     * @return 拼接后的路径（基础路径为空时返回null）
+     */
+    public static String joinBypassEnd(String path, String lastDir, String bypass) {
+        if (path == null) {
+            return null;
+        }
+        return path + lastDir + bypass;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (mNext == null && mIndex < mPayloads.size()) {
+            mNext = expand(mPayloads.get(mIndex++));
+        }
+        return mNext != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String result = mNext;
+        mNext = null;
+        return result;
+    }
+
+    /**
+     * 剩余未拼接的字典数量（包含已拼接但未取出的路径）
+     */
+    public int remaining() {
+        return mPayloads.size() - mIndex + (mNext != null ? 1 : 0);
+    }
+
+    /**
+     * 拼接扫描路径
+     *
+     * @param item 字典项
+     * @return 不需要扫描时返回null
+     */
+    private String expand(String item) {
+        if (item == null) {
+            return null;
+        }
+        switch (mMode) {
+            case MODE_BYPASS_FIRST:
+                return joinBypassFirst(mPath, item, mLastDir);
+            case MODE_BYPASS_END:
+                return joinBypassEnd(mPath, mLastDir, item);
+            default:
+                return expandPathLevel(item);
+        }
+    }
+
+    private String expandPathLevel(String item) {
+        // 对完整 Host 地址的字典取消递归扫描（直接替换请求路径扫描）
+        if (StringUtils.isNotEmpty(mPath) && UrlUtils.isHTTP(item)) {
+            return null;
+        }
+        String urlPath = mPath + item;
+        // 如果配置的字典不含 '/' 前缀，在根目录下扫描时，自动添加 '/' 符号
+        if (StringUtils.isEmpty(mPath) && !item.startsWith("/") && !UrlUtils.isHTTP(item)) {
+            urlPath = "/" + item;
+        }
+        // 检测一下是否携带完整的 Host 地址（兼容一下携带了完整的 Host 地址的情况）
+        // 但有个前提：如果字典存在完整的 Host 地址，直接不做处理
+        if (UrlUtils.isHTTP(mReqPath) && !UrlUtils.isHTTP(item)) {
+            urlPath = mReqHost + urlPath;
+        }
+        return urlPath;
+    }
+}
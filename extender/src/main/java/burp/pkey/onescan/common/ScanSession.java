@@ -0,0 +1,219 @@
+package burp.pkey.onescan.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 扫描会话
+ * <p>
+ * 同一个来源（代理的请求包、发送到插件的请求包、导入的 URL 批次、请求主机）生成的扫描任务属于同一个会话，
+ * 可以单独暂停、恢复、取消：暂停时任务轮到执行时挂起在会话中（不占用工作线程），恢复后重新提交；
+ * 取消时排队中的任务被丢弃，正在执行的任务在当前请求完成后结束，不再生成新的任务。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class ScanSession {
+
+    /**
+     * 会话类型：代理的请求包
+     */
+    public static final String TYPE_PROXY = "proxy";
+
+    /**
+     * 会话类型：发送到插件扫描的请求包
+     */
+    public static final String TYPE_SEND = "send";
+
+    /**
+     * 会话类型：导入的 URL 批次
+     */
+    public static final String TYPE_IMPORT = "import";
+
+    /**
+     * 会话类型：请求主机
+     */
+    public static final String TYPE_HOST = "host";
+
+    /**
+     * 会话状态：运行中
+     */
+    public static final int STATE_RUNNING = 0;
+
+    /**
+     * 会话状态：已暂停
+     */
+    public static final int STATE_PAUSED = 1;
+
+    /**
+     * 会话状态：已取消
+     */
+    public static final int STATE_CANCELLED = 2;
+
+    private final long mId;
+    private final String mType;
+    private final String mName;
+    private final long mCreateTime;
+    private final AtomicInteger mPendingCount;
+    private final AtomicInteger mCompletedCount = new AtomicInteger();
+    private final ArrayDeque<Runnable> mParkedTasks = new ArrayDeque<>();
+    private volatile int mState = STATE_RUNNING;
+
+    /**
+     * 构造方法
+     *
+     * @param id      会话 ID
+     * @param type    会话类型（示例：{@link #TYPE_PROXY}）
+     * @param name    会话名
+     * @param pending 初始的未完成计数（创建者生成任务期间持有一个计数，避免会话在生成任务前被清理）
+     */
+    ScanSession(long id, String type, String name, int pending) {
+        this.mId = id;
+        this.mType = type;
+        this.mName = name;
+        this.mCreateTime = System.currentTimeMillis();
+        this.mPendingCount = new AtomicInteger(pending);
+    }
+
+    public long getId() {
+        return mId;
+    }
+
+    public String getType() {
+        return mType;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public long getCreateTime() {
+        return mCreateTime;
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    public boolean isCancelled() {
+        return mState == STATE_CANCELLED;
+    }
+
+    public boolean isPaused() {
+        return mState == STATE_PAUSED;
+    }
+
+    /**
+     * 未完成的任务数量（排队中、执行中、等待重试、挂起的任务）
+     */
+    public int getPendingCount() {
+        return mPendingCount.get();
+    }
+
+    /**
+     * 已完成的任务数量
+     */
+    public int getCompletedCount() {
+        return mCompletedCount.get();
+    }
+
+    /**
+     * 挂起的任务数量
+     */
+    public synchronized int getParkedCount() {
+        return mParkedTasks.size();
+    }
+
+    /**
+     * 添加一个未完成的任务
+     */
+    void acquire() {
+        mPendingCount.incrementAndGet();
+    }
+
+    /**
+     * 任务结束
+     *
+     * @param completed 任务是否已执行（false 表示任务被丢弃）
+     * @return true=会话中已没有未完成的任务
+     */
+    boolean release(boolean completed) {
+        if (completed) {
+            mCompletedCount.incrementAndGet();
+        }
+        return mPendingCount.decrementAndGet() <= 0;
+    }
+
+    /**
+     * 会话已暂停时，挂起任务
+     *
+     * @param task 任务实例
+     * @return true=已挂起；false=会话未暂停
+     */
+    public synchronized boolean park(Runnable task) {
+        if (mState != STATE_PAUSED) {
+            return false;
+        }
+        mParkedTasks.add(task);
+        return true;
+    }
+
+    /**
+     * 暂停会话
+     *
+     * @return true=成功；false=会话不在运行中
+     */
+    synchronized boolean pause() {
+        if (mState != STATE_RUNNING) {
+            return false;
+        }
+        mState = STATE_PAUSED;
+        return true;
+    }
+
+    /**
+     * 恢复会话
+     *
+     * @return 挂起的任务列表（需要重新提交）
+     */
+    synchronized List<Runnable> resume() {
+        if (mState != STATE_PAUSED) {
+            return new ArrayList<>();
+        }
+        mState = STATE_RUNNING;
+        return drainParkedTasks();
+    }
+
+    /**
+     * 取消会话
+     *
+     * @return 挂起的任务列表（需要按停止的任务处理）
+     */
+    synchronized List<Runnable> cancel() {
+        mState = STATE_CANCELLED;
+        return drainParkedTasks();
+    }
+
+    private List<Runnable> drainParkedTasks() {
+        List<Runnable> result = new ArrayList<>(mParkedTasks);
+        mParkedTasks.clear();
+        return result;
+    }
+
+    /**
+     * 属于扫描会话的任务
+     */
+    public interface Member {
+
+        /**
+         * 任务所属的来源会话
+         */
+        ScanSession getSession();
+
+        /**
+         * 任务所属的主机会话
+         */
+        ScanSession getHostSession();
+    }
+}
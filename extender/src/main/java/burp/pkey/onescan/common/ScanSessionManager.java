@@ -0,0 +1,196 @@
+package burp.pkey.onescan.common;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 扫描会话管理
+ * <p>
+ * 来源会话在没有未完成的任务时自动移除；主机会话在没有未完成的任务、并且未暂停时移除，
+ * 取消后由新的主机会话替代（之后的任务不受影响）。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class ScanSessionManager {
+
+    private final AtomicLong mIdGenerator = new AtomicLong();
+    private final Map<Long, ScanSession> mSessions = new ConcurrentHashMap<>();
+    private final Map<String, ScanSession> mHostSessions = new ConcurrentHashMap<>();
+
+    /**
+     * 创建来源会话（创建者生成任务完成后，需要调用 {@link #release(ScanSession, boolean)} 释放）
+     *
+     * @param type 会话类型（示例：{@link ScanSession#TYPE_PROXY}）
+     * @param name 会话名
+     * @return 会话实例
+     */
+    public ScanSession newSession(String type, String name) {
+        ScanSession session = new ScanSession(mIdGenerator.incrementAndGet(), type, name, 1);
+        mSessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * 获取主机会话，并添加一个未完成的任务（不存在时创建）
+     * <p>
+     * 与移除空闲的主机会话互斥，不会取到已经移除的主机会话
+     *
+     * @param host 请求主机（格式：http://x.x.x.x、http://x.x.x.x:8080）
+     * @return 会话实例
+     */
+    public ScanSession acquireHostSession(String host) {
+        return mHostSessions.compute(host, (key, session) -> {
+            if (session == null) {
+                session = new ScanSession(mIdGenerator.incrementAndGet(), ScanSession.TYPE_HOST, key, 0);
+                mSessions.put(session.getId(), session);
+            }
+            session.acquire();
+            return session;
+        });
+    }
+
+    /**
+     * 获取会话
+     *
+     * @param id 会话 ID
+     * @return 会话不存在（已结束）时返回null
+     */
+    public ScanSession get(long id) {
+        return mSessions.get(id);
+    }
+
+    /**
+     * 添加一个未完成的任务
+     *
+     * @param session 会话实例
+     */
+    public void acquire(ScanSession session) {
+        session.acquire();
+    }
+
+    /**
+     * 任务结束（会话没有未完成的任务时移除，未取消的主机会话需要未暂停）
+     *
+     * @param session   会话实例
+     * @param completed 任务是否已执行（false 表示任务被丢弃）
+     */
+    public void release(ScanSession session, boolean completed) {
+        if (!session.release(completed)) {
+            return;
+        }
+        if (!ScanSession.TYPE_HOST.equals(session.getType()) || session.isCancelled()) {
+            mSessions.remove(session.getId(), session);
+        } else {
+            removeIdleHostSession(session);
+        }
+    }
+
+    /**
+     * 移除空闲的主机会话（没有未完成的任务，并且未暂停；暂停的主机会话保留，之后的任务继续挂起）
+     *
+     * @param session 主机会话实例
+     */
+    private void removeIdleHostSession(ScanSession session) {
+        mHostSessions.computeIfPresent(session.getName(), (key, current) -> {
+            if (current != session || current.getPendingCount() > 0 || current.isPaused()) {
+                return current;
+            }
+            mSessions.remove(current.getId(), current);
+            return null;
+        });
+    }
+
+    /**
+     * 暂停会话
+     *
+     * @param id 会话 ID
+     * @return true=成功；false=会话不存在，或者不在运行中
+     */
+    public boolean pause(long id) {
+        ScanSession session = get(id);
+        return session != null && session.pause();
+    }
+
+    /**
+     * 恢复会话
+     *
+     * @param id 会话 ID
+     * @return 挂起的任务列表（需要重新提交）
+     */
+    public List<Runnable> resume(long id) {
+        ScanSession session = get(id);
+        if (session == null) {
+            return new ArrayList<>();
+        }
+        List<Runnable> result = session.resume();
+        if (ScanSession.TYPE_HOST.equals(session.getType())) {
+            removeIdleHostSession(session);
+        }
+        return result;
+    }
+
+    /**
+     * 取消会话（主机会话取消后，由新的主机会话替代）
+     *
+     * @param id 会话 ID
+     * @return 挂起的任务列表（需要按停止的任务处理）
+     */
+    public List<Runnable> cancel(long id) {
+        ScanSession session = get(id);
+        if (session == null) {
+            return new ArrayList<>();
+        }
+        return cancel(session);
+    }
+
+    private List<Runnable> cancel(ScanSession session) {
+        List<Runnable> result = session.cancel();
+        if (ScanSession.TYPE_HOST.equals(session.getType())) {
+            mHostSessions.remove(session.getName(), session);
+            if (session.getPendingCount() <= 0) {
+                mSessions.remove(session.getId(), session);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 取消所有会话
+     *
+     * @return 挂起的任务列表（需要按停止的任务处理）
+     */
+    public List<Runnable> cancelAll() {
+        List<Runnable> result = new ArrayList<>();
+        for (ScanSession session : mSessions.values()) {
+            result.addAll(cancel(session));
+        }
+        return result;
+    }
+
+    /**
+     * 获取会话列表（按创建顺序排序，不包含没有任务的主机会话）
+     */
+    public List<ScanSession> getSessions() {
+        List<ScanSession> result = new ArrayList<>();
+        for (ScanSession session : mSessions.values()) {
+            boolean idleHost = ScanSession.TYPE_HOST.equals(session.getType()) &&
+                    session.getPendingCount() <= 0 && !session.isPaused();
+            if (!idleHost) {
+                result.add(session);
+            }
+        }
+        result.sort(Comparator.comparingLong(ScanSession::getId));
+        return result;
+    }
+
+    /**
+     * 会话数量
+     */
+    public int getSessionCount() {
+        return mSessions.size();
+    }
+}
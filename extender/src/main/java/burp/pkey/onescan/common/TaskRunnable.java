@@ -6,7 +6,7 @@ package burp.pkey.onescan.common;
  * <p>
  * Created by vaycore on 2025-01-07.
  */
-public abstract class TaskRunnable implements Runnable {
+public abstract class TaskRunnable implements Runnable, ScanSession.Member {
 
     /**
      * 扫描任务请求的 ID
@@ -18,9 +18,21 @@ public abstract class TaskRunnable implements Runnable {
      */
     private final String mFrom;
 
-    public TaskRunnable(String reqId, String from) {
+    /**
+     * 扫描任务所属的来源会话
+     */
+    private final ScanSession mSession;
+
+    /**
+     * 扫描任务所属的主机会话
+     */
+    private final ScanSession mHostSession;
+
+    public TaskRunnable(String reqId, String from, ScanSession session, ScanSession hostSession) {
         this.mReqId = reqId;
         this.mFrom = from;
+        this.mSession = session;
+        this.mHostSession = hostSession;
     }
 
     public String getReqId() {
@@ -30,4 +42,14 @@ public abstract class TaskRunnable implements Runnable {
     public String getFrom() {
         return mFrom;
     }
+
+    @Override
+    public ScanSession getSession() {
+        return mSession;
+    }
+
+    @Override
+    public ScanSession getHostSession() {
+        return mHostSession;
+    }
 }
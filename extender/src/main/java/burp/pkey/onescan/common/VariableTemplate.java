@@ -0,0 +1,182 @@
+package burp.pkey.onescan.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 动态变量模板
+ * <p>
+ * 创建时扫描一遍数据，记录所有 {{xxx}} 动态变量的位置；填充时每个变量只取值一次，一次拼接完成，
+ * 不再对每个变量分别执行 contains、replace。不包含动态变量时，直接返回原数据。
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class VariableTemplate {
+
+    private static final String PREFIX = "{{";
+    private static final String SUFFIX = "}}";
+
+    private final String mSource;
+
+    /**
+     * 变量之间的文本（长度 = 变量数量 + 1）
+     */
+    private final String[] mLiterals;
+
+    /**
+     * 每个位置对应的变量（{@link #mNames} 的下标）
+     */
+    private final int[] mVarIndex;
+
+    /**
+     * 变量名列表（去重）
+     */
+    private final String[] mNames;
+
+    private VariableTemplate(String source, String[] literals, int[] varIndex, String[] names) {
+        this.mSource = source;
+        this.mLiterals = literals;
+        this.mVarIndex = varIndex;
+        this.mNames = names;
+    }
+
+    /**
+     * 扫描数据中的动态变量，创建模板
+     *
+     * @param source 数据
+     * @return 模板实例
+     */
+    public static VariableTemplate compile(String source) {
+        if (source == null || !source.contains(PREFIX)) {
+            return new VariableTemplate(source, null, null, new String[0]);
+        }
+        List<String> literals = new ArrayList<>();
+        List<Integer> varIndex = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int pos = 0;
+        int literalStart = 0;
+        while (true) {
+            int open = source.indexOf(PREFIX, pos);
+            if (open < 0) {
+                break;
+            }
+            int end = source.indexOf(SUFFIX, open + PREFIX.length());
+            if (end < 0) {
+                break;
+            }
+            // 取距离 '}}' 最近的 '{{'（例如：'{{{{domain}}}}' 中的变量为 domain）
+            int start = source.lastIndexOf(PREFIX, end - PREFIX.length());
+            String name = source.substring(start + PREFIX.length(), end);
+            literals.add(source.substring(literalStart, start));
+            int index = names.indexOf(name);
+            if (index < 0) {
+                index = names.size();
+                names.add(name);
+            }
+            varIndex.add(index);
+            pos = end + SUFFIX.length();
+            literalStart = pos;
+        }
+        if (varIndex.isEmpty()) {
+            return new VariableTemplate(source, null, null, new String[0]);
+        }
+        literals.add(source.substring(literalStart));
+        int[] indexArray = new int[varIndex.size()];
+        for (int i = 0; i < indexArray.length; i++) {
+            indexArray[i] = varIndex.get(i);
+        }
+        return new VariableTemplate(source, literals.toArray(new String[0]), indexArray,
+                names.toArray(new String[0]));
+    }
+
+    /**
+     * 是否包含动态变量
+     */
+    public boolean hasVariable() {
+        return mNames.length > 0;
+    }
+
+    /**
+     * 填充动态变量
+     *
+     * @param resolver 变量取值接口
+     * @return 填充后的数据
+     * @throws IllegalArgumentException 变量取值失败时抛出（由 {@link Resolver} 抛出）
+     */
+    public String fill(Resolver resolver) throws IllegalArgumentException {
+        if (!hasVariable()) {
+            return mSource;
+        }
+        String[] values = resolveValues(resolver);
+        int length = mSource.length();
+        for (String value : values) {
+            length += value.length();
+        }
+        StringBuilder sb = new StringBuilder(length);
+        fill(values, sb::append);
+        return sb.toString();
+    }
+
+    /**
+     * 填充动态变量，将结果依次写入输出接口（不拼接完整的字符串，可以直接写入字节缓冲区）
+     *
+     * @param resolver 变量取值接口
+     * @param output   输出接口
+     * @throws IllegalArgumentException 变量取值失败时抛出（由 {@link Resolver} 抛出，此时未写入任何数据）
+     */
+    public void fill(Resolver resolver, Output output) throws IllegalArgumentException {
+        if (!hasVariable()) {
+            output.write(mSource);
+            return;
+        }
+        fill(resolveValues(resolver), output);
+    }
+
+    /**
+     * 每个变量只取值一次（不支持的变量保留原样）
+     */
+    private String[] resolveValues(Resolver resolver) {
+        String[] values = new String[mNames.length];
+        for (int i = 0; i < mNames.length; i++) {
+            String value = resolver.resolve(mNames[i]);
+            values[i] = value != null ? value : PREFIX + mNames[i] + SUFFIX;
+        }
+        return values;
+    }
+
+    private void fill(String[] values, Output output) {
+        for (int i = 0; i < mVarIndex.length; i++) {
+            output.write(mLiterals[i]);
+            output.write(values[mVarIndex[i]]);
+        }
+        output.write(mLiterals[mLiterals.length - 1]);
+    }
+
+    /**
+     * 变量取值接口
+     */
+    public interface Resolver {
+
+        /**
+         * 获取变量值
+         *
+         * @param name 变量名（不包含 '{{'、'}}'）
+         * @return 不支持的变量返回null（保留原样）
+         * @throws IllegalArgumentException 变量值为空时抛出（丢弃当前请求）
+         */
+        String resolve(String name) throws IllegalArgumentException;
+    }
+
+    /**
+     * 填充结果的输出接口
+     */
+    public interface Output {
+
+        /**
+         * 写入数据
+         *
+         * @param text 数据（模板中的文本，或者变量值）
+         */
+        void write(String text);
+    }
+}
@@ -0,0 +1,25 @@
+package burp.pkey.onescan.fp;
+
+import burp.pkey.onescan.bean.FpDSProvider;
+
+/**
+ * 指纹规则字段读取器（编译规则时解析数据源和字段名，匹配时直接调用 getter 方法）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public interface FpFieldReader {
+
+    /**
+     * 无效的数据源或字段，统一返回空字符串
+     */
+    FpFieldReader EMPTY = (provider) -> "";
+
+    /**
+     * 读取字段数据
+     *
+     * @param provider 指纹数据源
+     * @return 数据源不存在时返回空字符串，字段值为null时返回 "null"；
+     * 字段数据不可用时返回null（例如：Body 超出计算 Hash 的大小限制，该字段的规则都不匹配）
+     */
+    String read(FpDSProvider provider);
+}
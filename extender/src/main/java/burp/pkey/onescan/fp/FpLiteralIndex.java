@@ -0,0 +1,108 @@
+package burp.pkey.onescan.fp;
+
+import burp.pkey.common.helper.AhoCorasick;
+import burp.pkey.onescan.bean.FpDSProvider;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 指纹规则字面量索引（为每个数据源字段构建一个 Aho-Corasick 自动机，每个字段只扫描一次）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class FpLiteralIndex {
+
+    public static final FpLiteralIndex EMPTY = new Builder().build();
+
+    private final FpFieldReader[] readers;
+    private final AhoCorasick[] automatons;
+
+    private FpLiteralIndex(FpFieldReader[] readers, AhoCorasick[] automatons) {
+        this.readers = readers;
+        this.automatons = automatons;
+    }
+
+    /**
+     * 索引是否为空
+     */
+    public boolean isEmpty() {
+        return readers.length == 0;
+    }
+
+    /**
+     * 扫描数据源的所有索引字段
+     *
+     * @param provider 指纹数据源
+     * @return 每个字段命中的字面量集合（下标与 {@link Builder#addLiteral} 返回的字段下标一致）
+     */
+    public BitSet[] scan(FpDSProvider provider) {
+        BitSet[] result = new BitSet[readers.length];
+        for (int i = 0; i < readers.length; i++) {
+            BitSet hits = new BitSet(automatons[i].getPatternCount());
+            automatons[i].search(readers[i].read(provider), hits);
+            result[i] = hits;
+        }
+        return result;
+    }
+
+    /**
+     * 字面量索引构建器
+     */
+    public static class Builder {
+
+        private final Map<String, Integer> mFieldIndexes = new HashMap<>();
+        private final List<FpFieldReader> mReaders = new ArrayList<>();
+        private final List<Map<String, Integer>> mLiterals = new ArrayList<>();
+
+        /**
+         * 添加字面量
+         *
+         * @param key     字段 key（数据源 + 字段名）
+         * @param reader  字段读取器
+         * @param literal 字面量（不能为空字符串）
+         * @return 字段下标（高 32 位）与字面量下标（低 32 位）
+         */
+        public long addLiteral(String key, FpFieldReader reader, String literal) {
+            Integer fieldIndex = mFieldIndexes.get(key);
+            if (fieldIndex == null) {
+                fieldIndex = mReaders.size();
+                mFieldIndexes.put(key, fieldIndex);
+                mReaders.add(reader);
+                mLiterals.add(new LinkedHashMap<>());
+            }
+            Map<String, Integer> literals = mLiterals.get(fieldIndex);
+            // 索引统一忽略大小写，区分大小写的规则在命中后仍会完整检测一遍
+            String foldLiteral = fold(literal);
+            Integer literalIndex = literals.get(foldLiteral);
+            if (literalIndex == null) {
+                literalIndex = literals.size();
+                literals.put(foldLiteral, literalIndex);
+            }
+            return ((long) fieldIndex << 32) | literalIndex;
+        }
+
+        private static String fold(String literal) {
+            StringBuilder sb = new StringBuilder(literal.length());
+            for (int i = 0; i < literal.length(); i++) {
+                sb.append(Character.toLowerCase(Character.toUpperCase(literal.charAt(i))));
+            }
+            return sb.toString();
+        }
+
+        public FpLiteralIndex build() {
+            int size = mReaders.size();
+            FpFieldReader[] readers = mReaders.toArray(new FpFieldReader[0]);
+            AhoCorasick[] automatons = new AhoCorasick[size];
+            for (int i = 0; i < size; i++) {
+                List<String> patterns = new ArrayList<>(mLiterals.get(i).keySet());
+                automatons[i] = new AhoCorasick(patterns, true);
+            }
+            return new FpLiteralIndex(readers, automatons);
+        }
+    }
+}
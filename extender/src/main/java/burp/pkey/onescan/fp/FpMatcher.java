@@ -0,0 +1,149 @@
+package burp.pkey.onescan.fp;
+
+import burp.pkey.onescan.bean.FpDSProvider;
+import burp.pkey.onescan.common.FpMethodHandler;
+
+import java.util.regex.Pattern;
+
+/**
+ * 编译后的指纹规则匹配器
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public abstract class FpMatcher {
+
+    /**
+     * 匹配指纹数据源（字段数据不可用时，包括取反在内的规则都不匹配）
+     *
+     * @param provider 指纹数据源
+     * @return true=匹配；false=不匹配
+     */
+    public abstract boolean match(FpDSProvider provider);
+
+    /**
+     * 固定结果（规则无效时使用）
+     */
+    public static final class Constant extends FpMatcher {
+
+        public static final Constant TRUE = new Constant(true);
+        public static final Constant FALSE = new Constant(false);
+
+        private final boolean value;
+
+        private Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean match(FpDSProvider provider) {
+            return value;
+        }
+    }
+
+    /**
+     * and 运算，只要有一处为 false，表示不匹配
+     */
+    public static final class And extends FpMatcher {
+
+        private final FpMatcher[] matchers;
+
+        public And(FpMatcher[] matchers) {
+            this.matchers = matchers;
+        }
+
+        @Override
+        public boolean match(FpDSProvider provider) {
+            for (FpMatcher matcher : matchers) {
+                if (!matcher.match(provider)) {
+                    return false;
+                }
+            }
+            return matchers.length > 0;
+        }
+    }
+
+    /**
+     * 相等（equals、iEquals，取反为 notEquals、iNotEquals）
+     */
+    public static final class Equals extends FpMatcher {
+
+        private final FpFieldReader reader;
+        private final String content;
+        private final boolean ignoreCase;
+        private final boolean negate;
+
+        public Equals(FpFieldReader reader, String content, boolean ignoreCase, boolean negate) {
+            this.reader = reader;
+            this.content = content;
+            this.ignoreCase = ignoreCase;
+            this.negate = negate;
+        }
+
+        @Override
+        public boolean match(FpDSProvider provider) {
+            String data = reader.read(provider);
+            if (data == null) {
+                return false;
+            }
+            if (ignoreCase) {
+                return negate != FpMethodHandler.iEquals(data, content);
+            }
+            return negate != FpMethodHandler.equals(data, content);
+        }
+    }
+
+    /**
+     * 包含（contains、iContains，取反为 notContains、iNotContains）
+     */
+    public static final class Contains extends FpMatcher {
+
+        private final FpFieldReader reader;
+        private final String content;
+        private final boolean ignoreCase;
+        private final boolean negate;
+
+        public Contains(FpFieldReader reader, String content, boolean ignoreCase, boolean negate) {
+            this.reader = reader;
+            this.content = content;
+            this.ignoreCase = ignoreCase;
+            this.negate = negate;
+        }
+
+        @Override
+        public boolean match(FpDSProvider provider) {
+            String data = reader.read(provider);
+            if (data == null) {
+                return false;
+            }
+            if (ignoreCase) {
+                return negate != FpMethodHandler.iContains(data, content);
+            }
+            return negate != FpMethodHandler.contains(data, content);
+        }
+    }
+
+    /**
+     * 正则匹配（regex、iRegex，取反为 notRegex、iNotRegex），使用预编译的正则表达式实例
+     */
+    public static final class Regex extends FpMatcher {
+
+        private final FpFieldReader reader;
+        private final Pattern pattern;
+        private final boolean negate;
+
+        public Regex(FpFieldReader reader, Pattern pattern, boolean negate) {
+            this.reader = reader;
+            this.pattern = pattern;
+            this.negate = negate;
+        }
+
+        @Override
+        public boolean match(FpDSProvider provider) {
+            String data = reader.read(provider);
+            if (data == null) {
+                return false;
+            }
+            return negate != pattern.matcher(data).find();
+        }
+    }
+}
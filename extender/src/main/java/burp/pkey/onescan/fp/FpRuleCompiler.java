@@ -0,0 +1,303 @@
+package burp.pkey.onescan.fp;
+
+import burp.pkey.common.helper.PatternCache;
+import burp.pkey.common.log.Logger;
+import burp.pkey.common.utils.StringUtils;
+import burp.pkey.onescan.bean.*;
+import burp.pkey.onescan.common.FpMethodHandler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 指纹规则编译器（将指纹规则编译为匹配器树）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class FpRuleCompiler {
+
+    private FpRuleCompiler() {
+        throw new IllegalAccessError("FpRuleCompiler class not support create instance.");
+    }
+
+    /**
+     * 编译指纹数据列表
+     *
+     * @param list    指纹数据列表（编译后不能再修改该列表）
+     * @param version 规则集版本
+     * @return 编译后的指纹规则集
+     */
+    public static FpRuleSet compile(List<FpData> list, long version) {
+        if (list == null) {
+            list = new ArrayList<>();
+        }
+        FpLiteralIndex.Builder indexBuilder = new FpLiteralIndex.Builder();
+        Set<String> requiredFields = new LinkedHashSet<>();
+        List<FpRuleSet.Entry> entries = new ArrayList<>(list.size());
+        for (FpData data : list) {
+            if (data == null || data.getRules() == null) {
+                continue;
+            }
+            entries.add(new FpRuleSet.Entry(data, compileGroups(data, indexBuilder, requiredFields)));
+        }
+        return new FpRuleSet(version, list, entries, indexBuilder.build(), requiredFields);
+    }
+
+    /**
+     * 编译指纹数据的规则组（外层为 or 运算，里面为 and 运算）
+     *
+     * @param data           指纹数据
+     * @param indexBuilder   字面量索引构建器
+     * @param requiredFields 收集规则用到的数据源字段
+     * @return 规则组列表
+     */
+    private static List<FpRuleSet.Group> compileGroups(FpData data, FpLiteralIndex.Builder indexBuilder,
+                                                       Set<String> requiredFields) {
+        ArrayList<ArrayList<FpRule>> rules = data.getRules();
+        List<FpRuleSet.Group> groups = new ArrayList<>(rules.size());
+        for (ArrayList<FpRule> ruleItems : rules) {
+            if (ruleItems == null || ruleItems.isEmpty()) {
+                continue;
+            }
+            FpMatcher[] matchers = new FpMatcher[ruleItems.size()];
+            List<Long> literals = new ArrayList<>();
+            for (int i = 0; i < ruleItems.size(); i++) {
+                FpRule rule = ruleItems.get(i);
+                matchers[i] = compile(rule);
+                if (rule == null) {
+                    continue;
+                }
+                String key = rule.getDataSource() + "." + rule.getField();
+                FpFieldReader reader = resolveReader(rule.getDataSource(), rule.getField());
+                if (reader != FpFieldReader.EMPTY) {
+                    requiredFields.add(key);
+                }
+                if (isIndexable(rule)) {
+                    literals.add(indexBuilder.addLiteral(key, reader, rule.getContent()));
+                }
+            }
+            long[] literalArray = literals.stream().mapToLong(Long::longValue).toArray();
+            groups.add(new FpRuleSet.Group(new FpMatcher.And(matchers), literalArray));
+        }
+        return groups;
+    }
+
+    /**
+     * 规则是否可加入字面量索引（只有 contains、iContains 规则，并且匹配内容不为空）
+     */
+    private static boolean isIndexable(FpRule rule) {
+        if (rule == null || StringUtils.isEmpty(rule.getContent())) {
+            return false;
+        }
+        String method = rule.getMethod();
+        if (!"contains".equals(method) && !"iContains".equals(method)) {
+            return false;
+        }
+        // 代理对字符的大小写规则与单个字符不一致，不加入索引
+        String content = rule.getContent();
+        for (int i = 0; i < content.length(); i++) {
+            if (Character.isSurrogate(content.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 编译单条指纹规则
+     *
+     * @param rule 指纹规则
+     * @return 规则无效时返回 {@link FpMatcher.Constant#FALSE}
+     */
+    public static FpMatcher compile(FpRule rule) {
+        if (rule == null || rule.getMethod() == null) {
+            return FpMatcher.Constant.FALSE;
+        }
+        if (rule.getContent() == null) {
+            return compileNullContent(rule.getMethod());
+        }
+        FpFieldReader reader = resolveReader(rule.getDataSource(), rule.getField());
+        String content = rule.getContent();
+        switch (rule.getMethod()) {
+            case "equals":
+                return new FpMatcher.Equals(reader, content, false, false);
+            case "notEquals":
+                return new FpMatcher.Equals(reader, content, false, true);
+            case "iEquals":
+                return new FpMatcher.Equals(reader, content, true, false);
+            case "iNotEquals":
+                return new FpMatcher.Equals(reader, content, true, true);
+            case "contains":
+                return new FpMatcher.Contains(reader, content, false, false);
+            case "notContains":
+                return new FpMatcher.Contains(reader, content, false, true);
+            case "iContains":
+                return new FpMatcher.Contains(reader, content, true, false);
+            case "iNotContains":
+                return new FpMatcher.Contains(reader, content, true, true);
+            case "regex":
+                return compileRegex(reader, content, 0, false);
+            case "notRegex":
+                return compileRegex(reader, content, 0, true);
+            case "iRegex":
+                return compileRegex(reader, content, Pattern.CASE_INSENSITIVE, false);
+            case "iNotRegex":
+                return compileRegex(reader, content, Pattern.CASE_INSENSITIVE, true);
+            default:
+                return FpMatcher.Constant.FALSE;
+        }
+    }
+
+    /**
+     * 编译匹配内容为null的规则（字段数据不会为null，结果与字段数据无关，保持与 {@link FpMethodHandler} 一致：
+     * equals、regex 不匹配，取反后匹配；contains 抛出异常，取反前后都不匹配；iContains 视为包含空字符串）
+     */
+    private static FpMatcher compileNullContent(String method) {
+        switch (method) {
+            case "notEquals":
+            case "iNotEquals":
+            case "iContains":
+            case "notRegex":
+            case "iNotRegex":
+                return FpMatcher.Constant.TRUE;
+            default:
+                return FpMatcher.Constant.FALSE;
+        }
+    }
+
+    /**
+     * 编译正则匹配规则（正则表达式无效时，只在编译时打印一次日志）
+     */
+    private static FpMatcher compileRegex(FpFieldReader reader, String regex, int flags, boolean negate) {
+        try {
+            return new FpMatcher.Regex(reader, PatternCache.compile(regex, flags), negate);
+        } catch (PatternSyntaxException e) {
+            Logger.error("Regex compile error: %s", e.getMessage());
+            // 与原来一致：正则表达式无效时 regex 不匹配，取反后匹配
+            return negate ? FpMatcher.Constant.TRUE : FpMatcher.Constant.FALSE;
+        }
+    }
+
+    /**
+     * 根据数据源和字段名，解析字段读取器
+     *
+     * @param dataSource 数据源（示例：request、response）
+     * @param field      字段名（示例：body、header）
+     * @return 无效的数据源或字段返回 {@link FpFieldReader#EMPTY}
+     */
+    public static FpFieldReader resolveReader(String dataSource, String field) {
+        if (StringUtils.isEmpty(dataSource) || StringUtils.isEmpty(field)) {
+            return FpFieldReader.EMPTY;
+        }
+        switch (dataSource) {
+            case "request":
+                return resolveRequestReader(field);
+            case "response":
+                return resolveResponseReader(field);
+            default:
+                return FpFieldReader.EMPTY;
+        }
+    }
+
+    private static FpFieldReader resolveRequestReader(String field) {
+        switch (field) {
+            case "method":
+                return ofRequest(FpHttpReqDS::getMethod, false);
+            case "url":
+                return ofRequest(FpHttpReqDS::getUrl, false);
+            default:
+                Function<FpHttpDS, String> getter = httpGetter(field);
+                return getter == null ? FpFieldReader.EMPTY : ofRequest(getter::apply, isBodyHashField(field));
+        }
+    }
+
+    private static FpFieldReader resolveResponseReader(String field) {
+        switch (field) {
+            case "status":
+                return ofResponse(FpHttpRespDS::getStatus, false);
+            case "server":
+                return ofResponse(FpHttpRespDS::getServer, false);
+            case "title":
+                return ofResponse(FpHttpRespDS::getTitle, false);
+            default:
+                Function<FpHttpDS, String> getter = httpGetter(field);
+                return getter == null ? FpFieldReader.EMPTY : ofResponse(getter::apply, isBodyHashField(field));
+        }
+    }
+
+    /**
+     * 请求、响应数据源共有字段的 getter 方法
+     *
+     * @return 字段不存在返回null
+     */
+    private static Function<FpHttpDS, String> httpGetter(String field) {
+        switch (field) {
+            case "data":
+                return FpHttpDS::getData;
+            case "firstLine":
+                return FpHttpDS::getFirstLine;
+            case "header":
+                return FpHttpDS::getHeader;
+            case "body":
+                return FpHttpDS::getBody;
+            case "bodyMd5":
+                return FpHttpDS::getBodyMd5;
+            case "bodyHash":
+                return FpHttpDS::getBodyHash;
+            case "bodyHex":
+                return FpHttpDS::getBodyHex;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Body 的 Hash 字段（超出计算 Hash 的大小限制时，字段值为null）
+     */
+    private static boolean isBodyHashField(String field) {
+        return "bodyMd5".equals(field) || "bodyHash".equals(field);
+    }
+
+    /**
+     * 请求数据源的字段读取器
+     *
+     * @param getter   字段 getter 方法
+     * @param keepNull 字段值为null时，是否返回null（表示字段数据不可用）
+     */
+    private static FpFieldReader ofRequest(Function<FpHttpReqDS, String> getter, boolean keepNull) {
+        return (provider) -> {
+            if (!provider.hasRequest()) {
+                return "";
+            }
+            return readValue(getter.apply(provider.getRequest()), keepNull);
+        };
+    }
+
+    /**
+     * 响应数据源的字段读取器
+     *
+     * @param getter   字段 getter 方法
+     * @param keepNull 字段值为null时，是否返回null（表示字段数据不可用）
+     */
+    private static FpFieldReader ofResponse(Function<FpHttpRespDS, String> getter, boolean keepNull) {
+        return (provider) -> {
+            if (!provider.hasResponse()) {
+                return "";
+            }
+            return readValue(getter.apply(provider.getResponse()), keepNull);
+        };
+    }
+
+    private static String readValue(String value, boolean keepNull) {
+        if (value == null && keepNull) {
+            return null;
+        }
+        // 与原来通过反射读取字段一致，字段值为null时读取为 "null"
+        return String.valueOf(value);
+    }
+}
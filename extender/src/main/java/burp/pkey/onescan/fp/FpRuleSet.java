@@ -0,0 +1,156 @@
+package burp.pkey.onescan.fp;
+
+import burp.pkey.onescan.bean.FpDSProvider;
+import burp.pkey.onescan.bean.FpData;
+
+import java.util.*;
+
+/**
+ * 编译后的指纹规则集（不可变，规则变更时整体替换）
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class FpRuleSet {
+
+    public static final FpRuleSet EMPTY = new FpRuleSet(0, new ArrayList<>(), new ArrayList<>(),
+            FpLiteralIndex.EMPTY, new HashSet<>());
+
+    private final long version;
+    private final List<FpData> list;
+    private final Entry[] entries;
+    private final FpLiteralIndex literalIndex;
+    private final Set<String> requiredFields;
+
+    /**
+     * 构造方法
+     *
+     * @param version        规则集版本（每次编译递增）
+     * @param list           编译时的指纹数据列表（不会被修改的列表）
+     * @param entries        编译后的指纹规则
+     * @param literalIndex   字面量索引
+     * @param requiredFields 规则集用到的数据源字段
+     */
+    public FpRuleSet(long version, List<FpData> list, List<Entry> entries, FpLiteralIndex literalIndex,
+                     Set<String> requiredFields) {
+        this.version = version;
+        this.list = Collections.unmodifiableList(list);
+        this.entries = entries.toArray(new Entry[0]);
+        this.literalIndex = literalIndex;
+        this.requiredFields = Collections.unmodifiableSet(new LinkedHashSet<>(requiredFields));
+    }
+
+    /**
+     * 规则集版本（每次编译递增，用于判断规则集是否已被替换）
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取编译时的指纹数据列表（只读）
+     */
+    public List<FpData> getList() {
+        return list;
+    }
+
+    /**
+     * 指纹数量
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * 获取规则集用到的数据源字段
+     *
+     * @return 字段列表（示例：response.body、response.title）
+     */
+    public Set<String> getRequiredFields() {
+        return requiredFields;
+    }
+
+    /**
+     * 规则集是否为空
+     */
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    /**
+     * 匹配指纹数据源（先通过字面量索引扫描一次数据源，只检测字面量全部命中的规则组）
+     *
+     * @param provider 指纹数据源
+     * @return 匹配的指纹数据列表（按指纹数据的顺序排列）
+     */
+    public List<FpData> match(FpDSProvider provider) {
+        BitSet[] hits = literalIndex.scan(provider);
+        List<FpData> result = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.match(provider, hits)) {
+                result.add(entry.data);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 指纹数据与编译后的规则组（外层为 or 运算）
+     */
+    public static class Entry {
+
+        private final FpData data;
+        private final Group[] groups;
+
+        public Entry(FpData data, List<Group> groups) {
+            this.data = data;
+            this.groups = groups.toArray(new Group[0]);
+        }
+
+        public FpData getData() {
+            return data;
+        }
+
+        private boolean match(FpDSProvider provider, BitSet[] hits) {
+            for (Group group : groups) {
+                if (group.isCandidate(hits) && group.matcher.match(provider)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 规则组（里面为 and 运算）及该组必须命中的字面量
+     */
+    public static class Group {
+
+        private final FpMatcher matcher;
+        private final long[] literals;
+
+        /**
+         * 构造方法
+         *
+         * @param matcher  规则组匹配器
+         * @param literals 必须命中的字面量（{@link FpLiteralIndex.Builder#addLiteral} 的返回值）
+         */
+        public Group(FpMatcher matcher, long[] literals) {
+            this.matcher = matcher;
+            this.literals = literals;
+        }
+
+        /**
+         * 字面量是否全部命中（未命中时，规则组一定不匹配）
+         */
+        private boolean isCandidate(BitSet[] hits) {
+            for (long literal : literals) {
+                int fieldIndex = (int) (literal >>> 32);
+                int literalIndex = (int) literal;
+                if (!hits[fieldIndex].get(literalIndex)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
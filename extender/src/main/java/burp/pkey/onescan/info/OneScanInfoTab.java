@@ -72,7 +72,7 @@ public class OneScanInfoTab implements IMessageEditorTab {
         }
         // 如果未启用，检测请求包是否存在指纹识别数据
         if (!hasEnabled) {
-            List<FpData> results = FpManager.check(content, mController.getResponse());
+            List<FpData> results = FpManager.checkShared(content, mController.getResponse());
             hasEnabled = results != null && !results.isEmpty();
         }
         // 如果未启用，检测请求包中是否包含 JSON 数据格式
@@ -119,7 +119,7 @@ public class OneScanInfoTab implements IMessageEditorTab {
         // 解析请求包数据
         IRequestInfo info = mHelpers.analyzeRequest(content);
         // 识别请求包的指纹
-        List<FpData> results = FpManager.check(content, mController.getResponse());
+        List<FpData> results = FpManager.checkShared(content, mController.getResponse());
         if (results != null && !results.isEmpty()) {
             mTabPanel.addTab("Fingerprint", new FpTestResultPanel(results));
         }
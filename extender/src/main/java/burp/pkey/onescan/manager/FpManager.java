@@ -1,5 +1,7 @@
 package burp.pkey.onescan.manager;
 
+import burp.pkey.common.helper.LruCache;
+import burp.pkey.common.helper.PatternCache;
 import burp.pkey.common.utils.FileUtils;
 import burp.pkey.common.utils.GsonUtils;
 import burp.pkey.common.utils.StringUtils;
@@ -7,12 +9,17 @@ import burp.pkey.common.utils.Utils;
 import burp.pkey.onescan.bean.*;
 import burp.pkey.onescan.common.FpMethodHandler;
 import burp.pkey.onescan.common.OnFpColumnModifyListener;
+import burp.pkey.onescan.fp.FpRuleCompiler;
+import burp.pkey.onescan.fp.FpRuleSet;
 
+import javax.swing.*;
 import java.awt.*;
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -46,11 +53,36 @@ public class FpManager {
             "#B4B4B4", // gray
     };
 
-    private static final ConcurrentHashMap<String, List<FpData>> sFpCache = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, List<FpData>> sFpHistory = new ConcurrentHashMap<>();
+    /**
+     * 指纹识别缓存默认限制：最大数量、最大占用内存（MB）、过期时间（秒，0 表示不过期）
+     */
+    public static final int DEFAULT_CACHE_MAX_SIZE = 20000;
+    public static final int DEFAULT_CACHE_MAX_MEMORY = 32;
+    public static final int DEFAULT_CACHE_TTL = 0;
+
+    /**
+     * 响应体默认限制：文本字段最多解码的 Body 大小（KB）、计算 Hash 字段的最大 Body 大小（KB）、二进制 Body 处理策略
+     */
+    public static final int DEFAULT_BODY_TEXT_LIMIT = 1024;
+    public static final int DEFAULT_BODY_HASH_LIMIT = 10240;
+    public static final int DEFAULT_BINARY_BODY_POLICY = FpHttpDS.BINARY_BODY_TRUNCATE;
+
+    private static final LruCache<String, List<FpData>> sFpCache = new LruCache<>(DEFAULT_CACHE_MAX_SIZE,
+            DEFAULT_CACHE_MAX_MEMORY * 1024L * 1024L, DEFAULT_CACHE_TTL * 1000L, FpManager::estimateCacheBytes);
+    private static final LruCache<String, List<FpData>> sFpHistory = new LruCache<>(DEFAULT_CACHE_MAX_SIZE,
+            DEFAULT_CACHE_MAX_MEMORY * 1024L * 1024L, 0, FpManager::estimateCacheBytes);
+    /**
+     * 共享的指纹识别任务（以数据包内容作为 key，同一个数据包只识别一次）
+     */
+    private static final LruCache<String, CheckTask> sCheckTasks = new LruCache<>(2048, 0, 0, (k, v) -> 0);
     private static final List<OnFpColumnModifyListener> sFpColumnModifyListeners = new ArrayList<>();
     private static String sFilePath;
     private static FpConfig sConfig;
+    /**
+     * 编译后的规则集快照（只读，指纹数据变更时整体替换）
+     */
+    private static volatile FpRuleSet sRuleSet = FpRuleSet.EMPTY;
+    private static final Object sEditLock = new Object();
 
     private FpManager() {
         throw new IllegalAccessError("manager class not support create instance.");
@@ -69,10 +101,25 @@ public class FpManager {
         if (StringUtils.isEmpty(json)) {
             throw new IllegalArgumentException("fingerprint config is empty.");
         }
-        sConfig = GsonUtils.toObject(json, FpConfig.class);
-        if (sConfig == null) {
+        FpConfig config = GsonUtils.toObject(json, FpConfig.class);
+        if (config == null) {
             throw new IllegalArgumentException("fingerprint config parsing failed.");
         }
+        synchronized (sEditLock) {
+            sConfig = config;
+            compileRules();
+        }
+    }
+
+    /**
+     * 编译指纹规则（指纹数据变更后，在 sEditLock 锁内调用，整体替换编译后的规则集）
+     * <p>
+     * 指纹配置的列表是写时复制的，所以规则集直接引用该列表作为快照，不需要复制
+     */
+    private static void compileRules() {
+        sRuleSet = FpRuleCompiler.compile(sConfig.getList(), sRuleSet.getVersion() + 1);
+        // 缓存 key 只根据规则用到的字段计算，规则变更后需要清除缓存
+        clearCache();
     }
 
     /**
@@ -120,46 +167,39 @@ public class FpManager {
         if (provider == null || provider.isEmpty()) {
             return new ArrayList<>();
         }
-        String hashKey = "";
-        // 判断是否启用缓存
+        FpRuleSet ruleSet = sRuleSet;
+        // 判断是否启用缓存（只使用当前规则集用到的字段计算缓存 key）
+        String hashKey = useCache ? provider.getCacheKey(ruleSet.getRequiredFields()) : null;
+        return check(provider, ruleSet, hashKey, useCache);
+    }
+
+    /**
+     * 使用指定的规则集识别指纹
+     *
+     * @param provider 指纹数据源
+     * @param ruleSet  规则集
+     * @param hashKey  缓存 key（使用规则集用到的字段计算）
+     * @param useCache 是否使用缓存
+     * @return 失败返回空列表
+     */
+    private static List<FpData> check(FpDSProvider provider, FpRuleSet ruleSet, String hashKey, boolean useCache) {
+        if (provider.isEmpty()) {
+            return new ArrayList<>();
+        }
         if (useCache) {
-            hashKey = provider.getCacheKey();
             List<FpData> cacheResults = findCacheByKey(hashKey);
             if (cacheResults != null && !cacheResults.isEmpty()) {
                 return cacheResults;
             }
         }
         // 没有指纹数据，不继续往下执行
-        if (getCount() == 0) {
+        if (ruleSet.isEmpty()) {
             return new ArrayList<>();
         }
-        // 匹配指纹数据
-        List<FpData> result = getList().parallelStream().filter((item) -> {
-            // 可能在扫描过程中存在添加/修改/删除等操作，所以不能使用 item.getRules() 获取的实例进行遍历
-            ArrayList<ArrayList<FpRule>> rules = new ArrayList<>(item.getRules());
-            List<ArrayList<FpRule>> checkResults = rules.parallelStream().filter((ruleItems) -> {
-                if (ruleItems == null || ruleItems.isEmpty()) {
-                    return false;
-                }
-                for (FpRule ruleItem : ruleItems) {
-                    // 拿规则数据，获取数据源的数据
-                    String dataSource = ruleItem.getDataSource();
-                    String field = ruleItem.getField();
-                    String method = ruleItem.getMethod();
-                    String matchData = provider.getMatchData(dataSource, field);
-                    boolean state = invokeFpMethod(method, matchData, ruleItem.getContent());
-                    // 里面为 and 运算，只要有一处为 false，表示规则不匹配
-                    if (!state) {
-                        return false;
-                    }
-                }
-                return true;
-            }).collect(Collectors.toList());
-            // 外层为 or 运算，只要结果不为空，表示规则匹配
-            return !checkResults.isEmpty();
-        }).collect(Collectors.toList());
-        // 如果启用缓存
-        if (useCache) {
+        // 匹配指纹数据（使用编译后的规则集，扫描过程中的添加/修改/删除等操作不影响当前匹配）
+        List<FpData> result = ruleSet.match(provider);
+        // 如果启用缓存（匹配过程中规则集已被替换时，不缓存旧规则集的结果）
+        if (useCache && ruleSet.getVersion() == sRuleSet.getVersion()) {
             // 将指纹识别结果存放在缓存
             addResultToCache(hashKey, result);
             // 将指纹识别结果添加到历史记录
@@ -169,6 +209,62 @@ public class FpManager {
         return result;
     }
 
+    /**
+     * 异步指纹识别（同一个数据包的识别任务共享同一个结果）
+     *
+     * @param reqBytes  HTTP 请求数据包
+     * @param respBytes HTTP 响应数据包
+     * @param executor  执行识别任务的线程池（线程池拒绝执行时，在当前线程执行）
+     * @return 指纹识别结果
+     */
+    public static CompletableFuture<List<FpData>> checkAsync(byte[] reqBytes, byte[] respBytes, Executor executor) {
+        CheckTask task = obtainCheckTask(reqBytes, respBytes);
+        if (!task.isStarted()) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+        }
+        return task.future;
+    }
+
+    /**
+     * 指纹识别（同一个数据包的识别任务共享同一个结果；任务未开始执行时，直接在当前线程执行）
+     * <p>
+     * 在 UI 线程调用时，不等待其它线程中正在执行的任务，直接在当前线程识别。
+     *
+     * @param reqBytes  HTTP 请求数据包
+     * @param respBytes HTTP 响应数据包
+     * @return 失败返回空列表
+     */
+    public static List<FpData> checkShared(byte[] reqBytes, byte[] respBytes) {
+        CheckTask task = obtainCheckTask(reqBytes, respBytes);
+        task.run();
+        if (task.future.isDone() || !SwingUtilities.isEventDispatchThread()) {
+            return task.future.join();
+        }
+        return check(reqBytes, respBytes);
+    }
+
+    /**
+     * 获取数据包对应的指纹识别任务，不存在时创建
+     * <p>
+     * 任务 key 与指纹识别缓存的 key 一致，只使用当前规则集用到的字段计算（例如：Date 等请求头的差异不影响共享）。
+     */
+    private static CheckTask obtainCheckTask(byte[] reqBytes, byte[] respBytes) {
+        checkInit();
+        FpDSProvider provider = new FpDSProvider(reqBytes, respBytes);
+        FpRuleSet ruleSet = sRuleSet;
+        String hashKey = provider.getCacheKey(ruleSet.getRequiredFields());
+        CheckTask task = new CheckTask(provider, ruleSet, hashKey);
+        if (StringUtils.isEmpty(hashKey)) {
+            return task;
+        }
+        CheckTask exists = sCheckTasks.putIfAbsent(ruleSet.getVersion() + "/" + hashKey, task);
+        return exists != null ? exists : task;
+    }
+
     /**
      * 获取当前指纹数据的本地文件路径
      */
@@ -178,11 +274,29 @@ public class FpManager {
     }
 
     /**
-     * 获取指纹数据列表
+     * 获取指纹数据列表（当前规则集的只读快照）
      */
     public static List<FpData> getList() {
         checkInit();
-        return new ArrayList<>(sConfig.getList());
+        return sRuleSet.getList();
+    }
+
+    /**
+     * 获取当前规则集的版本（指纹数据每次变更后递增）
+     */
+    public static long getVersion() {
+        checkInit();
+        return sRuleSet.getVersion();
+    }
+
+    /**
+     * 获取当前指纹规则用到的数据源字段（未用到的字段不会被解析）
+     *
+     * @return 字段列表（示例：response.body、response.title）
+     */
+    public static Set<String> getRequiredFields() {
+        checkInit();
+        return sRuleSet.getRequiredFields();
     }
 
     /**
@@ -190,17 +304,22 @@ public class FpManager {
      */
     public static int getCount() {
         checkInit();
-        return sConfig.getListSize();
+        return sRuleSet.getList().size();
     }
 
     /**
      * 添加指纹数据
      *
      * @param data 指纹数据实例
+     * @throws IllegalArgumentException 规则中存在无效的正则表达式
      */
     public static void addItem(FpData data) {
         checkInit();
-        sConfig.addListItem(data);
+        checkRules(data);
+        synchronized (sEditLock) {
+            sConfig.addListItem(data);
+            compileRules();
+        }
     }
 
     /**
@@ -210,7 +329,10 @@ public class FpManager {
      */
     public static void removeItem(int index) {
         checkInit();
-        sConfig.removeListItem(index);
+        synchronized (sEditLock) {
+            sConfig.removeListItem(index);
+            compileRules();
+        }
     }
 
     /**
@@ -218,10 +340,52 @@ public class FpManager {
      *
      * @param index 下标
      * @param data  指纹数据实例
+     * @throws IllegalArgumentException 规则中存在无效的正则表达式
      */
     public static void setItem(int index, FpData data) {
         checkInit();
-        sConfig.setListItem(index, data);
+        checkRules(data);
+        synchronized (sEditLock) {
+            sConfig.setListItem(index, data);
+            compileRules();
+        }
+    }
+
+    /**
+     * 检测指纹规则是否有效（正则表达式在保存时检测，避免匹配时重复报错）
+     *
+     * @param data 指纹数据实例
+     * @throws IllegalArgumentException 规则中存在无效的正则表达式
+     */
+    private static void checkRules(FpData data) {
+        if (data == null || data.getRules() == null) {
+            throw new IllegalArgumentException("fingerprint data is null.");
+        }
+        for (ArrayList<FpRule> ruleItems : data.getRules()) {
+            if (ruleItems == null) {
+                continue;
+            }
+            for (FpRule rule : ruleItems) {
+                String errMsg = checkRule(rule);
+                if (errMsg != null) {
+                    throw new IllegalArgumentException(errMsg);
+                }
+            }
+        }
+    }
+
+    /**
+     * 检测指纹规则是否有效
+     *
+     * @param rule 指纹规则实例
+     * @return 有效返回null；无效返回错误信息
+     */
+    public static String checkRule(FpRule rule) {
+        if (rule == null || !FpMethodHandler.isRegexMethod(rule.getMethod())) {
+            return null;
+        }
+        int flags = FpMethodHandler.getRegexFlags(rule.getMethod());
+        return PatternCache.checkRegex(rule.getContent(), flags);
     }
 
     /**
@@ -296,18 +460,21 @@ public class FpManager {
             return;
         }
         // 同步删除指纹数据中的参数和值
-        List<FpData> list = getList();
-        for (FpData data : list) {
-            // 遍历参数列表，过滤需要移除的参数
-            List<FpData.Param> removeParams = data.getParams()
-                    .stream()
-                    .filter(param -> column.getId().equals(param.getK()))
-                    .collect(Collectors.toList());
-            // 批量移除
-            data.getParams().removeAll(removeParams);
-        }
-        // 保存指纹数据
-        sConfig.setList(list);
+        synchronized (sEditLock) {
+            List<FpData> list = sConfig.getList();
+            for (FpData data : list) {
+                // 遍历参数列表，过滤需要移除的参数
+                List<FpData.Param> removeParams = data.getParams()
+                        .stream()
+                        .filter(param -> column.getId().equals(param.getK()))
+                        .collect(Collectors.toList());
+                // 批量移除
+                data.getParams().removeAll(removeParams);
+            }
+            // 保存指纹数据
+            sConfig.setList(list);
+            compileRules();
+        }
         invokeFpColumnModifyListeners();
     }
 
@@ -380,23 +547,6 @@ public class FpManager {
         return column;
     }
 
-    /**
-     * 调用指纹数据匹配方法
-     *
-     * @param methodName 方法名
-     * @param data       数据源
-     * @param content    要匹配的内容
-     * @return true=匹配；false=不匹配
-     */
-    private static boolean invokeFpMethod(String methodName, String data, String content) {
-        try {
-            Method method = FpMethodHandler.class.getDeclaredMethod(methodName, String.class, String.class);
-            return (Boolean) method.invoke(null, data, content);
-        } catch (Exception var4) {
-            return false;
-        }
-    }
-
     /**
      * 清除指纹识别缓存
      */
@@ -404,6 +554,7 @@ public class FpManager {
         if (!sFpCache.isEmpty()) {
             sFpCache.clear();
         }
+        sCheckTasks.clear();
     }
 
     /**
@@ -413,6 +564,71 @@ public class FpManager {
         return sFpCache.size();
     }
 
+    /**
+     * 获取指纹识别缓存命中次数
+     */
+    public static long getCacheHitCount() {
+        return sFpCache.getHitCount();
+    }
+
+    /**
+     * 获取指纹识别缓存未命中次数
+     */
+    public static long getCacheMissCount() {
+        return sFpCache.getMissCount();
+    }
+
+    /**
+     * 获取指纹识别缓存淘汰次数（包含历史记录）
+     */
+    public static long getCacheEvictionCount() {
+        return sFpCache.getEvictionCount() + sFpHistory.getEvictionCount();
+    }
+
+    /**
+     * 获取指纹识别缓存占用的内存（估算值，包含历史记录）
+     *
+     * @return 字节数
+     */
+    public static long getCacheBytes() {
+        return sFpCache.getTotalBytes() + sFpHistory.getTotalBytes();
+    }
+
+    /**
+     * 设置指纹识别缓存限制（缓存和历史记录分别限制）
+     *
+     * @param maxSize   最大数量（小于等于0表示不限制）
+     * @param maxMemory 最大占用内存，单位 MB（小于等于0表示不限制）
+     * @param ttl       缓存过期时间，单位秒（小于等于0表示不过期，不作用于历史记录）
+     */
+    public static void setCacheLimits(int maxSize, int maxMemory, int ttl) {
+        long maxBytes = maxMemory * 1024L * 1024L;
+        sFpCache.setLimits(maxSize, maxBytes, ttl * 1000L);
+        sFpHistory.setLimits(maxSize, maxBytes, 0);
+    }
+
+    /**
+     * 设置指纹识别的 Body 数据限制（限制变更后识别结果可能不同，需要清除缓存）
+     *
+     * @param textLimit    文本字段最多解码的 Body 大小，单位 KB（小于等于0表示不限制）
+     * @param hashLimit    Body 超过该大小时不计算 Hash 字段，单位 KB（小于等于0表示不限制）
+     * @param binaryPolicy 二进制 Body 处理策略（示例：{@link FpHttpDS#BINARY_BODY_TRUNCATE}）
+     */
+    public static void setBodyLimits(int textLimit, int hashLimit, int binaryPolicy) {
+        FpHttpDS.setBodyLimits(textLimit * 1024, hashLimit * 1024, binaryPolicy);
+        clearCache();
+    }
+
+    /**
+     * 估算缓存占用的字节数（指纹数据实例与指纹配置共享，只计算引用）
+     */
+    private static long estimateCacheBytes(String key, List<FpData> value) {
+        long keyBytes = 40 + key.length() * 2L;
+        long valueBytes = 40 + (value == null ? 0 : value.size() * 8L);
+        // 加上缓存节点的开销
+        return keyBytes + valueBytes + 64;
+    }
+
     /**
      * 根据 key 查找指纹识别缓存
      *
@@ -421,7 +637,7 @@ public class FpManager {
      */
     public static List<FpData> findCacheByKey(String key) {
         checkInit();
-        if (StringUtils.isEmpty(key) || !sFpCache.containsKey(key)) {
+        if (StringUtils.isEmpty(key)) {
             return null;
         }
         return sFpCache.get(key);
@@ -438,9 +654,7 @@ public class FpManager {
         if (StringUtils.isEmpty(key) || results == null || results.isEmpty()) {
             return;
         }
-        if (!sFpCache.containsKey(key)) {
-            sFpCache.put(key, new ArrayList<>(results));
-        }
+        sFpCache.putIfAbsent(key, new ArrayList<>(results));
     }
 
     /**
@@ -451,7 +665,7 @@ public class FpManager {
      */
     public static List<FpData> findHistoryByHost(String host) {
         checkInit();
-        if (StringUtils.isEmpty(host) || !sFpHistory.containsKey(host)) {
+        if (StringUtils.isEmpty(host)) {
             return null;
         }
         return sFpHistory.get(host);
@@ -468,17 +682,19 @@ public class FpManager {
         if (StringUtils.isEmpty(host) || results == null || results.isEmpty()) {
             return;
         }
-        if (!sFpHistory.containsKey(host)) {
-            sFpHistory.put(host, new ArrayList<>(results));
+        List<FpData> dataList = sFpHistory.putIfAbsent(host, new ArrayList<>(results));
+        if (dataList == null) {
             return;
         }
-        List<FpData> dataList = sFpHistory.get(host);
-        for (FpData item : results) {
-            if (dataList.contains(item)) {
-                continue;
+        synchronized (dataList) {
+            for (FpData item : results) {
+                if (dataList.contains(item)) {
+                    continue;
+                }
+                dataList.add(item);
             }
-            dataList.add(item);
         }
+        sFpHistory.reweigh(host);
     }
 
     /**
@@ -651,4 +867,40 @@ public class FpManager {
         return minIndex;
     }
 
+    /**
+     * 指纹识别任务（只执行一次，结果通过 future 共享）
+     */
+    private static class CheckTask implements Runnable {
+
+        private FpDSProvider provider;
+        private final FpRuleSet ruleSet;
+        private final String hashKey;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<List<FpData>> future = new CompletableFuture<>();
+
+        private CheckTask(FpDSProvider provider, FpRuleSet ruleSet, String hashKey) {
+            this.provider = provider;
+            this.ruleSet = ruleSet;
+            this.hashKey = hashKey;
+        }
+
+        private boolean isStarted() {
+            return started.get();
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                future.complete(check(provider, ruleSet, hashKey, true));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                // 识别完成后不再持有数据包
+                provider = null;
+            }
+        }
+    }
 }
@@ -1,12 +1,15 @@
 package burp.pkey.onescan.ui.tab;
 
+import burp.pkey.common.helper.CircuitBreaker;
 import burp.pkey.onescan.common.L;
 import burp.pkey.onescan.common.OnTabEventListener;
+import burp.pkey.onescan.common.ProcessingPipeline;
 import burp.pkey.onescan.ui.base.BaseConfigTab;
 import burp.pkey.onescan.ui.tab.config.*;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import java.util.List;
 
 /**
  * 配置面板
@@ -16,6 +19,7 @@ import javax.swing.border.EmptyBorder;
 public class ConfigPanel extends JTabbedPane implements OnTabEventListener {
 
     private OnTabEventListener mOnTabEventListener;
+    private PayloadTab mPayloadTab;
     private HostTab mHostTab;
 
     public ConfigPanel() {
@@ -27,7 +31,8 @@ public class ConfigPanel extends JTabbedPane implements OnTabEventListener {
     }
 
     private void initView() {
-        addConfigTab(new PayloadTab());
+        mPayloadTab = new PayloadTab();
+        addConfigTab(mPayloadTab);
         addConfigTab(new RequestTab());
         mHostTab = new HostTab();
         addConfigTab(mHostTab);
@@ -44,6 +49,28 @@ public class ConfigPanel extends JTabbedPane implements OnTabEventListener {
         }
     }
 
+    /**
+     * 刷新 HostTab 页面的主机熔断状态
+     *
+     * @param list 非关闭状态的主机列表
+     */
+    public void refreshHostHealth(List<CircuitBreaker.Status> list) {
+        if (mHostTab != null) {
+            mHostTab.refreshHostHealth(list);
+        }
+    }
+
+    /**
+     * 刷新 PayloadTab 页面的“请求包处理”规则执行统计
+     *
+     * @param list 规则执行统计列表
+     */
+    public void refreshProcessingStats(List<ProcessingPipeline.StepStats> list) {
+        if (mPayloadTab != null) {
+            mPayloadTab.refreshProcessingStats(list);
+        }
+    }
+
     /**
      * 添加配置页面Tab
      *
@@ -14,10 +14,12 @@ import burp.pkey.onescan.common.Config;
 import burp.pkey.onescan.common.DialogCallbackAdapter;
 import burp.pkey.onescan.common.L;
 import burp.pkey.onescan.common.OnFpColumnModifyListener;
+import burp.pkey.onescan.common.ScanSession;
 import burp.pkey.onescan.manager.FpManager;
 import burp.pkey.onescan.ui.base.BaseTab;
 import burp.pkey.onescan.ui.widget.DividerLine;
 import burp.pkey.onescan.ui.widget.ImportUrlWindow;
+import burp.pkey.onescan.ui.widget.ScanSessionWindow;
 import burp.pkey.onescan.ui.widget.TaskTable;
 
 import javax.swing.*;
@@ -34,10 +36,12 @@ import java.util.List;
  * <p>
  * Created by vaycore on 2022-08-07.
  */
-public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrlListener, OnFpColumnModifyListener, ActionListener {
+public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrlListener, OnFpColumnModifyListener,
+        ScanSessionWindow.OnScanSessionActionListener, ActionListener {
 
     public static final String EVENT_IMPORT_URL = "event-import-url";
     public static final String EVENT_STOP_TASK = "event-stop-task";
+    public static final String EVENT_SCAN_SESSION = "event-scan-session";
 
     private TaskTable mTaskTable;
     private JCheckBox mListenProxyMessage;
@@ -50,9 +54,12 @@ public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrl
     private JCheckBox mPayloadMultiBypass;
     private JCheckBox mPayloadSingleBypass;
     private ImportUrlWindow mImportUrlWindow;
+    private ScanSessionWindow mScanSessionWindow;
     private JLabel mTaskStatus;
     private JLabel mLFTaskStatus;
     private JLabel mFpCacheStatus;
+    private JLabel mRepeatFilterStatus;
+    private JLabel mIngestStatus;
     private JLabel mTaskHistoryStatus;
 
     @Override
@@ -161,6 +168,12 @@ public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrl
         stopBtn.setActionCommand("stop-task");
         stopBtn.addActionListener(this);
         panel.add(stopBtn);
+        // 扫描会话按钮
+        JButton sessionBtn = new JButton(L.get("scan_session"));
+        sessionBtn.setToolTipText(L.get("scan_session_title"));
+        sessionBtn.setActionCommand("scan-session");
+        sessionBtn.addActionListener(this);
+        panel.add(sessionBtn);
         // 清空历史记录按钮
         JButton clearBtn = new JButton(L.get("clear_record"));
         clearBtn.setToolTipText(L.get("clear_history"));
@@ -196,11 +209,15 @@ public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrl
         mLFTaskStatus = addStatusInfoPanel(panel);
         mTaskHistoryStatus = addStatusInfoPanel(panel);
         mFpCacheStatus = addStatusInfoPanel(panel);
+        mRepeatFilterStatus = addStatusInfoPanel(panel);
+        mIngestStatus = addStatusInfoPanel(panel);
         // 刷新默认显示的信息
-        refreshTaskStatus(0, 0);
-        refreshLFTaskStatus(0, 0);
+        refreshTaskStatus(0, 0, 0, 0, 0);
+        refreshLFTaskStatus(0, 0, 0);
         refreshTaskHistoryStatus();
         refreshFpCacheStatus();
+        refreshRepeatFilterStatus(0, 0, 0);
+        refreshIngestStatus(0, 0, 0, 0);
     }
 
     /**
@@ -269,6 +286,9 @@ public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrl
             case "stop-task":
                 stopTask();
                 break;
+            case "scan-session":
+                showScanSessionWindow();
+                break;
             case "clear-history":
                 clearHistory();
                 break;
@@ -298,6 +318,49 @@ public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrl
         }
     }
 
+    /**
+     * 显示扫描会话窗口
+     */
+    private void showScanSessionWindow() {
+        if (mScanSessionWindow == null) {
+            mScanSessionWindow = new ScanSessionWindow();
+            mScanSessionWindow.setOnScanSessionActionListener(this);
+        }
+        mScanSessionWindow.showWindow();
+    }
+
+    /**
+     * 扫描会话窗口是否显示中
+     */
+    public boolean isScanSessionWindowShowing() {
+        return mScanSessionWindow != null && mScanSessionWindow.isShowing();
+    }
+
+    /**
+     * 刷新扫描会话窗口的会话列表
+     *
+     * @param list 会话列表
+     */
+    public void refreshScanSessions(List<ScanSession> list) {
+        if (isScanSessionWindowShowing()) {
+            mScanSessionWindow.refresh(list);
+        }
+    }
+
+    /**
+     * 关闭扫描会话窗口
+     */
+    public void closeScanSessionWindow() {
+        if (mScanSessionWindow != null) {
+            mScanSessionWindow.closeWindow();
+        }
+    }
+
+    @Override
+    public void onScanSessionAction(String action, List<Long> ids) {
+        sendTabEvent(EVENT_SCAN_SESSION, action, ids);
+    }
+
     @Override
     public void onImportUrl(List<String> data) {
         if (data == null || data.isEmpty()) {
@@ -397,15 +460,19 @@ public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrl
     /**
      * 刷新任务状态
      *
-     * @param over   任务完成数量
-     * @param commit 任务提交数量
+     * @param over    任务完成数量
+     * @param commit  任务提交数量
+     * @param queued  等待执行的任务数量
+     * @param dropped 任务队列溢出丢弃的任务数量
+     * @param lost    未生成请求任务的扫描路径数量（提交扫描任务生成器失败时丢失）
      */
-    public void refreshTaskStatus(int over, int commit) {
+    public void refreshTaskStatus(int over, int commit, int queued, long dropped, long lost) {
         if (mTaskTable == null) {
             return;
         }
-        String message = L.get("status_bar_task", over, commit);
+        String message = L.get("status_bar_task", over, commit, queued, dropped);
         mTaskStatus.setText(message);
+        mTaskStatus.setToolTipText(L.get("status_bar_task_tips", dropped, lost));
     }
 
     /**
@@ -413,12 +480,13 @@ public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrl
      *
      * @param over   任务完成数量
      * @param commit 任务提交数量
+     * @param queued 等待执行的任务数量
      */
-    public void refreshLFTaskStatus(int over, int commit) {
+    public void refreshLFTaskStatus(int over, int commit, int queued) {
         if (mLFTaskStatus == null) {
             return;
         }
-        String message = L.get("status_bar_low_frequency_task", over, commit);
+        String message = L.get("status_bar_low_frequency_task", over, commit, queued);
         mLFTaskStatus.setText(message);
     }
 
@@ -441,8 +509,45 @@ public class DataBoardTab extends BaseTab implements ImportUrlWindow.OnImportUrl
         if (mFpCacheStatus == null) {
             return;
         }
-        String message = L.get("status_bar_fingerprint_cache", FpManager.getCacheCount());
+        String message = L.get("status_bar_fingerprint_cache", FpManager.getCacheCount(),
+                FpManager.getCacheHitCount(), FpManager.getCacheMissCount(), FpManager.getCacheEvictionCount());
         mFpCacheStatus.setText(message);
+        String tips = L.get("status_bar_fingerprint_cache_tips", FpManager.getCacheBytes() / 1024);
+        mFpCacheStatus.setToolTipText(tips);
+    }
+
+    /**
+     * 刷新去重过滤集合状态
+     *
+     * @param count        已记录的请求数量
+     * @param bytes        占用的内存（字节）
+     * @param historyCount 扫描历史索引中的记录数量
+     */
+    public void refreshRepeatFilterStatus(int count, long bytes, long historyCount) {
+        if (mRepeatFilterStatus == null) {
+            return;
+        }
+        mRepeatFilterStatus.setText(L.get("status_bar_repeat_filter", count));
+        mRepeatFilterStatus.setToolTipText(L.get("status_bar_repeat_filter_tips", bytes / 1024,
+                historyCount));
+    }
+
+    /**
+     * 刷新代理数据包接收状态
+     *
+     * @param pending  等待处理的数据包数量
+     * @param avgLag   平均处理延时（毫秒）
+     * @param maxLag   最大处理延时（毫秒）
+     * @param rejected 队列已满时被拒绝的数据包数量
+     */
+    public void refreshIngestStatus(int pending, long avgLag, long maxLag, long rejected) {
+        if (mIngestStatus == null) {
+            return;
+        }
+        String message = L.get("status_bar_ingest", pending, avgLag, rejected);
+        mIngestStatus.setText(message);
+        String tips = L.get("status_bar_ingest_tips", maxLag, rejected);
+        mIngestStatus.setToolTipText(tips);
     }
 
     /**
@@ -12,6 +12,7 @@ import burp.pkey.onescan.manager.FpManager;
 import burp.pkey.onescan.ui.base.BaseTab;
 import burp.pkey.onescan.ui.widget.FpColumnManagerWindow;
 import burp.pkey.onescan.ui.widget.FpDetailPanel;
+import burp.pkey.onescan.ui.widget.FpSettingPanel;
 import burp.pkey.onescan.ui.widget.FpTable;
 import burp.pkey.onescan.ui.widget.FpTestWindow;
 
@@ -243,7 +244,12 @@ public class FingerprintTab extends BaseTab implements ActionListener, KeyListen
         }
         FpData editData = new FpDetailPanel(data).showDialog();
         if (editData != null) {
-            FpManager.setItem(globalIndex, editData);
+            try {
+                FpManager.setItem(globalIndex, editData);
+            } catch (IllegalArgumentException e) {
+                UIHelper.showTipsDialog(L.get("fingerprint_rules.invalid_rule_hint", e.getMessage()));
+                return;
+            }
             // 编辑后直接刷新数据
             loadAndDistributeFingerprints();
             refreshCount();
@@ -285,6 +291,7 @@ public class FingerprintTab extends BaseTab implements ActionListener, KeyListen
         addButton(panel, L.get("fingerprint_test"), "test");
         addButton(panel, L.get("fingerprint_clear_cache"), "clear-cache");
         addButton(panel, L.get("fingerprint_column_manager"), "column-manager");
+        addButton(panel, L.get("fingerprint_setting"), "setting");
         return panel;
     }
 
@@ -376,6 +383,9 @@ public class FingerprintTab extends BaseTab implements ActionListener, KeyListen
             case "column-manager":
                 doColumnManager();
                 break;
+            case "setting":
+                doSetting();
+                break;
         }
     }
 
@@ -389,7 +399,12 @@ public class FingerprintTab extends BaseTab implements ActionListener, KeyListen
     private void doAddItem() {
         FpData addData = (new FpDetailPanel()).showDialog();
         if (addData != null) {
-            mFpTable.addFpData(addData);
+            try {
+                mFpTable.addFpData(addData);
+            } catch (IllegalArgumentException e) {
+                UIHelper.showTipsDialog(L.get("fingerprint_rules.invalid_rule_hint", e.getMessage()));
+                return;
+            }
             refreshCount();
         }
     }
@@ -424,6 +439,13 @@ public class FingerprintTab extends BaseTab implements ActionListener, KeyListen
         }
     }
 
+    private void doSetting() {
+        boolean state = new FpSettingPanel().showDialog(this);
+        if (state) {
+            UIHelper.showTipsDialog(L.get("save_success"));
+        }
+    }
+
     private void doColumnManager() {
         if (mFpColumnManagerWindow == null) {
             mFpColumnManagerWindow = new FpColumnManagerWindow();
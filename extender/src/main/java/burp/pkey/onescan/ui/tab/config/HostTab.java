@@ -1,10 +1,18 @@
 package burp.pkey.onescan.ui.tab.config;
 
+import burp.pkey.common.helper.CircuitBreaker;
+import burp.pkey.common.helper.UIHelper;
+import burp.pkey.common.layout.HLayout;
+import burp.pkey.common.utils.StringUtils;
 import burp.pkey.onescan.common.Config;
 import burp.pkey.onescan.common.L;
+import burp.pkey.onescan.common.NumberFilter;
 import burp.pkey.onescan.manager.WordlistManager;
 import burp.pkey.onescan.ui.base.BaseConfigTab;
 
+import javax.swing.*;
+import java.util.List;
+
 /**
  * Host设置
  * <p>
@@ -12,11 +20,32 @@ import burp.pkey.onescan.ui.base.BaseConfigTab;
  */
 public class HostTab extends BaseConfigTab {
 
+    /**
+     * 主机熔断配置变更事件
+     */
+    public static final String EVENT_CIRCUIT_BREAKER = "event-circuit-breaker";
+
+    /**
+     * 重置主机熔断状态事件
+     */
+    public static final String EVENT_RESET_CIRCUIT_BREAKER = "event-reset-circuit-breaker";
+
+    private JTextArea mHostHealthText;
+
     @Override
     protected void initView() {
-        // 拦截超时主机
+        // 拦截超时主机（主机熔断）
         addEnabledConfigPanel(L.get("intercept_timeout_host"), L.get("intercept_timeout_host_sub_title"),
                 Config.KEY_INTERCEPT_TIMEOUT_HOST);
+        // 主机熔断配置
+        addTextConfigPanel(L.get("circuit_failure_threshold"), L.get("circuit_failure_threshold_sub_title"),
+                20, Config.KEY_CIRCUIT_FAILURE_THRESHOLD).addKeyListener(new NumberFilter(3));
+        addTextConfigPanel(L.get("circuit_cool_down"), L.get("circuit_cool_down_sub_title"),
+                20, Config.KEY_CIRCUIT_COOL_DOWN).addKeyListener(new NumberFilter(7));
+        addTextConfigPanel(L.get("circuit_probe_count"), L.get("circuit_probe_count_sub_title"),
+                20, Config.KEY_CIRCUIT_PROBE_COUNT).addKeyListener(new NumberFilter(2));
+        // 主机熔断状态
+        addHostHealthPanel();
         // Host 白名单
         addWordListPanel(L.get("host_allowlist"), L.get("host_allowlist_sub_title"),
                 WordlistManager.KEY_HOST_ALLOWLIST);
@@ -25,6 +54,72 @@ public class HostTab extends BaseConfigTab {
                 WordlistManager.KEY_HOST_BLOCKLIST);
     }
 
+    protected void addHostHealthPanel() {
+        mHostHealthText = new JTextArea(L.get("host_health_empty"), 6, 50);
+        mHostHealthText.setEditable(false);
+        JScrollPane scrollPane = new JScrollPane(mHostHealthText);
+        JPanel panel = new JPanel(new HLayout(3));
+        JButton button = new JButton(L.get("reset"));
+        button.addActionListener(e -> {
+            sendTabEvent(EVENT_RESET_CIRCUIT_BREAKER);
+            mHostHealthText.setText(L.get("host_health_empty"));
+        });
+        panel.add(button);
+        addConfigItem(L.get("host_health"), L.get("host_health_sub_title"), scrollPane, panel);
+    }
+
+    /**
+     * 刷新主机熔断状态
+     *
+     * @param list 非关闭状态的主机列表
+     */
+    public void refreshHostHealth(List<CircuitBreaker.Status> list) {
+        if (mHostHealthText == null) {
+            return;
+        }
+        String text;
+        if (list == null || list.isEmpty()) {
+            text = L.get("host_health_empty");
+        } else {
+            StringBuilder sb = new StringBuilder();
+            for (CircuitBreaker.Status status : list) {
+                if (sb.length() > 0) {
+                    sb.append("\n");
+                }
+                boolean open = status.getState() == CircuitBreaker.STATE_OPEN;
+                String state = L.get(open ? "host_health_state_open" : "host_health_state_half_open");
+                long remaining = (status.getRemainingMillis() + 999) / 1000;
+                sb.append(L.get("host_health_item", state, status.getHost(), status.getFailures(), remaining));
+            }
+            text = sb.toString();
+        }
+        // 内容未变化时不刷新，避免影响文本选择
+        if (!text.equals(mHostHealthText.getText())) {
+            mHostHealthText.setText(text);
+        }
+    }
+
+    @Override
+    protected boolean onTextConfigSave(String configKey, String text) {
+        int value = StringUtils.parseInt(text, -1);
+        String invalidKey = null;
+        if (Config.KEY_CIRCUIT_FAILURE_THRESHOLD.equals(configKey) && (value < 1 || value > 999)) {
+            invalidKey = "circuit_failure_threshold_value_invalid";
+        } else if (Config.KEY_CIRCUIT_COOL_DOWN.equals(configKey) && (value < 0 || value > 9999999)) {
+            invalidKey = "circuit_cool_down_value_invalid";
+        } else if (Config.KEY_CIRCUIT_PROBE_COUNT.equals(configKey) && (value < 1 || value > 99)) {
+            invalidKey = "circuit_probe_count_value_invalid";
+        }
+        if (invalidKey != null) {
+            UIHelper.showTipsDialog(L.get(invalidKey));
+            return false;
+        }
+        text = String.valueOf(value);
+        Config.put(configKey, text);
+        sendTabEvent(EVENT_CIRCUIT_BREAKER);
+        return true;
+    }
+
     @Override
     public String getTitleName() {
         return L.get("tab_name.host");
@@ -3,12 +3,15 @@ package burp.pkey.onescan.ui.tab.config;
 import burp.pkey.onescan.common.Config;
 import burp.pkey.onescan.common.L;
 import burp.pkey.onescan.common.OnDataChangeListener;
+import burp.pkey.onescan.common.ProcessingPipeline;
 import burp.pkey.onescan.manager.WordlistManager;
 import burp.pkey.onescan.ui.base.BaseConfigTab;
 import burp.pkey.onescan.ui.widget.payloadlist.ProcessingItem;
 import burp.pkey.onescan.ui.widget.payloadlist.SimpleProcessingList;
 
+import javax.swing.*;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Payload设置
@@ -17,7 +20,13 @@ import java.util.ArrayList;
  */
 public class PayloadTab extends BaseConfigTab implements OnDataChangeListener {
 
+    /**
+     * “请求包处理”规则变更事件
+     */
+    public static final String EVENT_PAYLOAD_PROCESSING = "event-payload-processing";
+
     private SimpleProcessingList mProcessList;
+    private JTextArea mProcessingStatsText;
 
     @Override
     protected void initView() {
@@ -29,6 +38,38 @@ public class PayloadTab extends BaseConfigTab implements OnDataChangeListener {
         mProcessList.setActionCommand("payload-process-list-view");
         mProcessList.setOnDataChangeListener(this);
         addConfigItem(L.get("payload_processing"), L.get("payload_processing_sub_title"), mProcessList);
+        // payload process 规则执行统计
+        mProcessingStatsText = new JTextArea(L.get("payload_processing_stats_empty"), 6, 50);
+        mProcessingStatsText.setEditable(false);
+        addConfigItem(L.get("payload_processing_stats"), L.get("payload_processing_stats_sub_title"),
+                new JScrollPane(mProcessingStatsText));
+    }
+
+    /**
+     * 刷新“请求包处理”规则执行统计
+     *
+     * @param list 规则执行统计列表
+     */
+    public void refreshProcessingStats(List<ProcessingPipeline.StepStats> list) {
+        if (mProcessingStatsText == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        if (list != null) {
+            for (ProcessingPipeline.StepStats stats : list) {
+                if (sb.length() > 0) {
+                    sb.append("\n");
+                }
+                long avgMicros = stats.getCount() == 0 ? 0 : stats.getNanos() / stats.getCount() / 1000;
+                sb.append(L.get("payload_processing_stats_item", stats.getItemName(), stats.getIndex() + 1,
+                        stats.getRuleName(), stats.getCount(), avgMicros, stats.getFailures()));
+            }
+        }
+        String text = sb.length() == 0 ? L.get("payload_processing_stats_empty") : sb.toString();
+        // 内容未变化时不刷新，避免影响文本选择
+        if (!text.equals(mProcessingStatsText.getText())) {
+            mProcessingStatsText.setText(text);
+        }
     }
 
     @Override
@@ -41,6 +82,7 @@ public class PayloadTab extends BaseConfigTab implements OnDataChangeListener {
         if ("payload-process-list-view".equals(action)) {
             ArrayList<ProcessingItem> list = mProcessList.getDataList();
             Config.put(Config.KEY_PAYLOAD_PROCESS_LIST, list);
+            sendTabEvent(EVENT_PAYLOAD_PROCESSING);
         }
     }
 }
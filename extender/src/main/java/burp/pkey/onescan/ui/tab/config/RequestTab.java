@@ -1,7 +1,9 @@
 package burp.pkey.onescan.ui.tab.config;
 
 import burp.pkey.common.helper.UIHelper;
+import burp.pkey.common.helper.VirtualThreadHelper;
 import burp.pkey.common.layout.HLayout;
+import burp.pkey.common.layout.VLayout;
 import burp.pkey.common.utils.StringUtils;
 import burp.pkey.onescan.common.Config;
 import burp.pkey.onescan.common.L;
@@ -29,6 +31,16 @@ public class RequestTab extends BaseConfigTab {
      */
     public static final String EVENT_REQUEST_DELAY = "event-request-delay";
 
+    /**
+     * 任务队列配置变更事件
+     */
+    public static final String EVENT_TASK_QUEUE = "event-task-queue";
+
+    /**
+     * 流量类别配置变更事件
+     */
+    public static final String EVENT_TRAFFIC_CLASS = "event-traffic-class";
+
     @Override
     protected void initView() {
         // QPS限制器配置
@@ -37,6 +49,12 @@ public class RequestTab extends BaseConfigTab {
         // 请求延时配置
         addTextConfigPanel(L.get("request_delay"), L.get("request_delay_sub_title"),
                 20, Config.KEY_REQUEST_DELAY).addKeyListener(new NumberFilter(5));
+        // 主机QPS限制配置
+        addTextConfigPanel(L.get("host_qps"), L.get("host_qps_sub_title"),
+                20, Config.KEY_HOST_QPS_LIMIT).addKeyListener(new NumberFilter(4));
+        // 突发请求数量配置
+        addTextConfigPanel(L.get("qps_burst"), L.get("qps_burst_sub_title"),
+                20, Config.KEY_QPS_BURST).addKeyListener(new NumberFilter(4));
         // 控制递归层数
         addScanLevelConfigPanel();
         // 请求重试配置
@@ -45,6 +63,23 @@ public class RequestTab extends BaseConfigTab {
         // 重试间隔时间配置
         addTextConfigPanel(L.get("request_retry_interval"), L.get("request_retry_interval_sub_title"),
                 20, Config.KEY_RETRY_INTERVAL).addKeyListener(new NumberFilter(5));
+        // 重试退避方式配置
+        addRetryBackoffConfigPanel();
+        addEnabledConfigPanel(L.get("request_retry_jitter"), L.get("request_retry_jitter_sub_title"),
+                Config.KEY_RETRY_JITTER);
+        // 虚拟线程配置（停止所有任务后生效）
+        String supported = L.get(VirtualThreadHelper.isSupported() ?
+                "virtual_thread_supported" : "virtual_thread_not_supported");
+        addEnabledConfigPanel(L.get("virtual_thread"), L.get("virtual_thread_sub_title", supported),
+                Config.KEY_VIRTUAL_THREAD);
+        addTextConfigPanel(L.get("virtual_thread_concurrency"), L.get("virtual_thread_concurrency_sub_title"),
+                20, Config.KEY_VIRTUAL_THREAD_CONCURRENCY).addKeyListener(new NumberFilter(4));
+        // 任务队列配置
+        addTextConfigPanel(L.get("task_queue_capacity"), L.get("task_queue_capacity_sub_title"),
+                20, Config.KEY_TASK_QUEUE_CAPACITY).addKeyListener(new NumberFilter(7));
+        addTaskQueuePolicyConfigPanel();
+        // 流量类别配置
+        addTrafficClassConfigPanel();
         // 过滤请求方法
         addTextConfigPanel(L.get("include_method"), L.get("include_method_sub_title"), 20, Config.KEY_INCLUDE_METHOD);
         // 根据后缀过滤请求包
@@ -91,6 +126,96 @@ public class RequestTab extends BaseConfigTab {
         addConfigItem(L.get("scan_level"), L.get("scan_level_sub_title"), radioPanel, textFieldPanel);
     }
 
+    protected void addRetryBackoffConfigPanel() {
+        String backoff = Config.get(Config.KEY_RETRY_BACKOFF);
+        String[] items = {Config.RETRY_BACKOFF_FIXED, Config.RETRY_BACKOFF_EXPONENTIAL};
+        // 单选按钮布局
+        JPanel radioPanel = new JPanel(new HLayout(10));
+        JRadioButton[] buttons = new JRadioButton[items.length];
+        for (int i = 0; i < items.length; i++) {
+            String item = items[i];
+            JRadioButton button = new JRadioButton(L.get("request_retry_backoff_" + item));
+            button.setSelected(item.equals(backoff));
+            // 选项变更，保存配置
+            button.addItemListener(e -> {
+                if (e.getStateChange() == ItemEvent.SELECTED) {
+                    Config.put(Config.KEY_RETRY_BACKOFF, item);
+                }
+            });
+            radioPanel.add(button);
+            buttons[i] = button;
+        }
+        UIHelper.createRadioGroup(buttons);
+        addConfigItem(L.get("request_retry_backoff"), L.get("request_retry_backoff_sub_title"), radioPanel);
+    }
+
+    protected void addTaskQueuePolicyConfigPanel() {
+        String policy = Config.get(Config.KEY_TASK_QUEUE_POLICY);
+        String[] policies = {Config.TASK_QUEUE_POLICY_BLOCK, Config.TASK_QUEUE_POLICY_SPILL,
+                Config.TASK_QUEUE_POLICY_DROP};
+        // 单选按钮布局
+        JPanel radioPanel = new JPanel(new HLayout(10));
+        JRadioButton[] buttons = new JRadioButton[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            String item = policies[i];
+            JRadioButton button = new JRadioButton(L.get("task_queue_policy_" + item));
+            button.setSelected(item.equals(policy));
+            // 选项变更，保存配置
+            button.addItemListener(e -> {
+                if (e.getStateChange() == ItemEvent.SELECTED) {
+                    Config.put(Config.KEY_TASK_QUEUE_POLICY, item);
+                    sendTabEvent(EVENT_TASK_QUEUE);
+                }
+            });
+            radioPanel.add(button);
+            buttons[i] = button;
+        }
+        UIHelper.createRadioGroup(buttons);
+        addConfigItem(L.get("task_queue_policy"), L.get("task_queue_policy_sub_title"), radioPanel);
+    }
+
+    protected void addTrafficClassConfigPanel() {
+        int[] weights = Config.getTrafficClassValues(Config.KEY_TRAFFIC_CLASS_WEIGHT);
+        int[] shares = Config.getTrafficClassValues(Config.KEY_TRAFFIC_CLASS_SHARE);
+        int count = Config.TRAFFIC_CLASS_NAMES.length;
+        JTextField[] weightFields = new JTextField[count];
+        JTextField[] shareFields = new JTextField[count];
+        JPanel panel = new JPanel(new VLayout(3));
+        for (int i = 0; i < count; i++) {
+            JPanel itemPanel = new JPanel(new HLayout(5));
+            itemPanel.add(new JLabel(L.get("traffic_class_" + Config.TRAFFIC_CLASS_NAMES[i])), "120px");
+            itemPanel.add(new JLabel(L.get("traffic_class_weight")));
+            weightFields[i] = new JTextField(String.valueOf(weights[i]), 5);
+            weightFields[i].addKeyListener(new NumberFilter(3));
+            itemPanel.add(weightFields[i]);
+            itemPanel.add(new JLabel(L.get("traffic_class_share")));
+            shareFields[i] = new JTextField(String.valueOf(shares[i]), 5);
+            shareFields[i].addKeyListener(new NumberFilter(3));
+            itemPanel.add(shareFields[i]);
+            panel.add(itemPanel);
+        }
+        JButton button = new JButton(L.get("save"));
+        button.addActionListener(e -> {
+            int[] newWeights = new int[count];
+            int[] newShares = new int[count];
+            for (int i = 0; i < count; i++) {
+                newWeights[i] = StringUtils.parseInt(weightFields[i].getText().trim(), -1);
+                newShares[i] = StringUtils.parseInt(shareFields[i].getText().trim(), -1);
+                if (newWeights[i] < 1 || newWeights[i] > 100 || newShares[i] < 1 || newShares[i] > 100) {
+                    UIHelper.showTipsDialog(L.get("traffic_class_value_invalid"));
+                    return;
+                }
+            }
+            Config.put(Config.KEY_TRAFFIC_CLASS_WEIGHT, Config.joinTrafficClassValues(newWeights));
+            Config.put(Config.KEY_TRAFFIC_CLASS_SHARE, Config.joinTrafficClassValues(newShares));
+            sendTabEvent(EVENT_TRAFFIC_CLASS);
+            UIHelper.showTipsDialog(L.get("save_success"));
+        });
+        JPanel buttonPanel = new JPanel(new HLayout(3));
+        buttonPanel.add(button);
+        addConfigItem(L.get("traffic_class"), L.get("traffic_class_sub_title"), panel, buttonPanel);
+    }
+
     @Override
     public String getTitleName() {
         return L.get("tab_name.request");
@@ -108,6 +233,17 @@ public class RequestTab extends BaseConfigTab {
             Config.put(configKey, text);
             sendTabEvent(EVENT_QPS_LIMIT, text);
             return true;
+        } else if (Config.KEY_HOST_QPS_LIMIT.equals(configKey) || Config.KEY_QPS_BURST.equals(configKey)) {
+            if (value < 0 || value > 9999) {
+                String key = Config.KEY_HOST_QPS_LIMIT.equals(configKey) ?
+                        "host_qps_limit_value_invalid" : "qps_burst_value_invalid";
+                UIHelper.showTipsDialog(L.get(key));
+                return false;
+            }
+            text = String.valueOf(value);
+            Config.put(configKey, text);
+            sendTabEvent(EVENT_QPS_LIMIT, text);
+            return true;
         } else if (Config.KEY_REQUEST_DELAY.equals(configKey)) {
             if (value < 0 || value > 99999) {
                 UIHelper.showTipsDialog(L.get("request_delay_value_invalid"));
@@ -135,6 +271,21 @@ public class RequestTab extends BaseConfigTab {
                 return false;
             }
             text = String.valueOf(value);
+        } else if (Config.KEY_TASK_QUEUE_CAPACITY.equals(configKey)) {
+            if (value < 0 || value > 9999999) {
+                UIHelper.showTipsDialog(L.get("task_queue_capacity_value_invalid"));
+                return false;
+            }
+            text = String.valueOf(value);
+            Config.put(configKey, text);
+            sendTabEvent(EVENT_TASK_QUEUE);
+            return true;
+        } else if (Config.KEY_VIRTUAL_THREAD_CONCURRENCY.equals(configKey)) {
+            if (value < 1 || value > 9999) {
+                UIHelper.showTipsDialog(L.get("virtual_thread_concurrency_value_invalid"));
+                return false;
+            }
+            text = String.valueOf(value);
         }
         return super.onTextConfigSave(configKey, text);
     }
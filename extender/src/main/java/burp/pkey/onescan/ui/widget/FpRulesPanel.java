@@ -7,6 +7,7 @@ import burp.pkey.common.layout.VLayout;
 import burp.pkey.common.utils.ClassUtils;
 import burp.pkey.onescan.bean.FpRule;
 import burp.pkey.onescan.common.L;
+import burp.pkey.onescan.manager.FpManager;
 
 import javax.swing.*;
 import java.awt.*;
@@ -192,6 +193,14 @@ public class FpRulesPanel extends JPanel {
             UIHelper.showTipsDialog(L.get("fingerprint_rules.empty_hint"), parentComponent);
             return showDialog(parentComponent);
         }
+        // 检测规则是否有效（例如：正则表达式语法错误）
+        for (FpRule rule : rules) {
+            String errMsg = FpManager.checkRule(rule);
+            if (errMsg != null) {
+                UIHelper.showTipsDialog(L.get("fingerprint_rules.invalid_rule_hint", errMsg), parentComponent);
+                return showDialog(parentComponent);
+            }
+        }
         return rules;
     }
 }
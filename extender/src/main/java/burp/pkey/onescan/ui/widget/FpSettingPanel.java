@@ -0,0 +1,118 @@
+package burp.pkey.onescan.ui.widget;
+
+import burp.pkey.common.helper.UIHelper;
+import burp.pkey.common.layout.HLayout;
+import burp.pkey.common.layout.VLayout;
+import burp.pkey.common.utils.StringUtils;
+import burp.pkey.onescan.common.Config;
+import burp.pkey.onescan.common.L;
+import burp.pkey.onescan.manager.FpManager;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * 指纹设置
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class FpSettingPanel extends JPanel {
+
+    private JTextField mCacheMaxSize;
+    private JTextField mCacheMaxMemory;
+    private JTextField mCacheTtl;
+    private JTextField mBodyTextLimit;
+    private JTextField mBodyHashLimit;
+    private JComboBox<String> mBinaryBodyPolicy;
+
+    public FpSettingPanel() {
+        initView();
+    }
+
+    private void initView() {
+        setLayout(new VLayout(5));
+        setPreferredSize(new Dimension(420, 210));
+        mCacheMaxSize = addTextItem(L.get("fingerprint_setting.cache_max_size"),
+                Config.get(Config.KEY_FP_CACHE_MAX_SIZE));
+        mCacheMaxMemory = addTextItem(L.get("fingerprint_setting.cache_max_memory"),
+                Config.get(Config.KEY_FP_CACHE_MAX_MEMORY));
+        mCacheTtl = addTextItem(L.get("fingerprint_setting.cache_ttl"),
+                Config.get(Config.KEY_FP_CACHE_TTL));
+        mBodyTextLimit = addTextItem(L.get("fingerprint_setting.body_text_limit"),
+                Config.get(Config.KEY_FP_BODY_TEXT_LIMIT));
+        mBodyHashLimit = addTextItem(L.get("fingerprint_setting.body_hash_limit"),
+                Config.get(Config.KEY_FP_BODY_HASH_LIMIT));
+        // 下标与二进制 Body 处理策略的值一致
+        mBinaryBodyPolicy = addComboItem(L.get("fingerprint_setting.binary_body_policy"), new String[]{
+                L.get("fingerprint_setting.binary_body_policy_none"),
+                L.get("fingerprint_setting.binary_body_policy_truncate"),
+                L.get("fingerprint_setting.binary_body_policy_skip"),
+        }, Config.getInt(Config.KEY_FP_BINARY_BODY_POLICY));
+    }
+
+    private JTextField addTextItem(String label, String value) {
+        JPanel panel = new JPanel(new HLayout(5, true));
+        panel.add(new JLabel(label), "200px");
+        JTextField textField = new JTextField(value);
+        panel.add(textField, "1w");
+        add(panel);
+        return textField;
+    }
+
+    private JComboBox<String> addComboItem(String label, String[] items, int selectedIndex) {
+        JPanel panel = new JPanel(new HLayout(5, true));
+        panel.add(new JLabel(label), "200px");
+        JComboBox<String> comboBox = new JComboBox<>(items);
+        if (selectedIndex >= 0 && selectedIndex < items.length) {
+            comboBox.setSelectedIndex(selectedIndex);
+        }
+        panel.add(comboBox, "1w");
+        add(panel);
+        return comboBox;
+    }
+
+    /**
+     * 解析输入的数值
+     *
+     * @return 无效返回-1
+     */
+    private int parseValue(JTextField textField, int maxValue) {
+        int value = StringUtils.parseInt(textField.getText().trim(), -1);
+        if (value < 0 || value > maxValue) {
+            return -1;
+        }
+        return value;
+    }
+
+    /**
+     * 显示设置对话框，点击确认时保存配置
+     *
+     * @param parentComponent 父组件
+     * @return true=已保存；false=已取消
+     */
+    public boolean showDialog(Component parentComponent) {
+        int state = UIHelper.showCustomDialog(L.get("fingerprint_setting.dialog_title"), this, parentComponent);
+        if (state != JOptionPane.OK_OPTION) {
+            return false;
+        }
+        int maxSize = parseValue(mCacheMaxSize, 9999999);
+        int maxMemory = parseValue(mCacheMaxMemory, 99999);
+        int ttl = parseValue(mCacheTtl, 9999999);
+        int textLimit = parseValue(mBodyTextLimit, 99999);
+        int hashLimit = parseValue(mBodyHashLimit, 99999);
+        int binaryPolicy = mBinaryBodyPolicy.getSelectedIndex();
+        if (maxSize < 0 || maxMemory < 0 || ttl < 0 || textLimit < 0 || hashLimit < 0) {
+            UIHelper.showTipsDialog(L.get("fingerprint_setting.value_invalid"), parentComponent);
+            return showDialog(parentComponent);
+        }
+        Config.put(Config.KEY_FP_CACHE_MAX_SIZE, String.valueOf(maxSize));
+        Config.put(Config.KEY_FP_CACHE_MAX_MEMORY, String.valueOf(maxMemory));
+        Config.put(Config.KEY_FP_CACHE_TTL, String.valueOf(ttl));
+        Config.put(Config.KEY_FP_BODY_TEXT_LIMIT, String.valueOf(textLimit));
+        Config.put(Config.KEY_FP_BODY_HASH_LIMIT, String.valueOf(hashLimit));
+        Config.put(Config.KEY_FP_BINARY_BODY_POLICY, String.valueOf(binaryPolicy));
+        FpManager.setCacheLimits(maxSize, maxMemory, ttl);
+        FpManager.setBodyLimits(textLimit, hashLimit, binaryPolicy);
+        return true;
+    }
+}
@@ -124,10 +124,11 @@ public class FpTable extends JTable {
      * 添加指纹数据
      *
      * @param data 指纹数据实例
+     * @throws IllegalArgumentException 规则中存在无效的正则表达式（不添加到表格）
      */
     public void addFpData(FpData data) {
-        mTableModel.add(data);
         FpManager.addItem(data);
+        mTableModel.add(data);
     }
 
     /**
@@ -150,8 +151,8 @@ public class FpTable extends JTable {
      */
     public void setFpData(int rowIndex, FpData data) {
         if (rowIndex >= 0 && rowIndex < mTableModel.getRowCount()) {
-            mTableModel.set(rowIndex, data);
             FpManager.setItem(rowIndex, data);
+            mTableModel.set(rowIndex, data);
         }
     }
 
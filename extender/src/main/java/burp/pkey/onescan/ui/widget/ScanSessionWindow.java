@@ -0,0 +1,249 @@
+package burp.pkey.onescan.ui.widget;
+
+import burp.pkey.common.helper.UIHelper;
+import burp.pkey.common.layout.HLayout;
+import burp.pkey.common.layout.VLayout;
+import burp.pkey.onescan.common.L;
+import burp.pkey.onescan.common.ScanSession;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 扫描会话窗口
+ * <p>
+ * Created by vaycore on 2026-10-18.
+ */
+public class ScanSessionWindow extends JPanel implements ActionListener {
+
+    /**
+     * 暂停会话
+     */
+    public static final String ACTION_PAUSE = "pause";
+
+    /**
+     * 恢复会话
+     */
+    public static final String ACTION_RESUME = "resume";
+
+    /**
+     * 取消会话
+     */
+    public static final String ACTION_CANCEL = "cancel";
+
+    private static final String[] COLUMN_NAMES = {"scan_session_id", "scan_session_type", "scan_session_name",
+            "scan_session_state", "scan_session_pending", "scan_session_completed"};
+
+    private SessionTableModel mTableModel;
+    private JTable mTable;
+    private JFrame mFrame;
+    private OnScanSessionActionListener mOnScanSessionActionListener;
+
+    public ScanSessionWindow() {
+        initView();
+    }
+
+    private void initView() {
+        setLayout(new VLayout());
+        setBorder(new EmptyBorder(10, 10, 10, 10));
+        // 会话列表
+        mTableModel = new SessionTableModel();
+        mTable = new JTable(mTableModel);
+        mTable.getTableHeader().setReorderingAllowed(false);
+        mTable.getColumnModel().getColumn(0).setPreferredWidth(50);
+        mTable.getColumnModel().getColumn(1).setPreferredWidth(60);
+        mTable.getColumnModel().getColumn(2).setPreferredWidth(360);
+        add(new JScrollPane(mTable), "1w");
+        // 底部按钮布局
+        JPanel bottomPanel = new JPanel(new HLayout(5, true));
+        bottomPanel.setBorder(new EmptyBorder(10, 0, 5, 0));
+        bottomPanel.add(new JPanel(), "1w");
+        bottomPanel.add(newButton(L.get("scan_session_pause"), ACTION_PAUSE));
+        bottomPanel.add(newButton(L.get("scan_session_resume"), ACTION_RESUME));
+        bottomPanel.add(newButton(L.get("scan_session_cancel"), ACTION_CANCEL));
+        add(bottomPanel);
+    }
+
+    private JButton newButton(String text, String action) {
+        JButton button = new JButton(text);
+        button.setActionCommand(action);
+        button.addActionListener(this);
+        return button;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        String action = e.getActionCommand();
+        List<Long> ids = getSelectedIds();
+        if (ids.isEmpty()) {
+            UIHelper.showTipsDialog(L.get("scan_session_not_selected_hint"), this);
+            return;
+        }
+        if (ACTION_CANCEL.equals(action)) {
+            int ret = UIHelper.showOkCancelDialog(L.get("scan_session_cancel_hint", ids.size()), this);
+            if (ret != JOptionPane.OK_OPTION) {
+                return;
+            }
+        }
+        invokeOnScanSessionActionListener(action, ids);
+    }
+
+    /**
+     * 获取选中的会话 ID 列表
+     */
+    private List<Long> getSelectedIds() {
+        List<Long> result = new ArrayList<>();
+        for (int row : mTable.getSelectedRows()) {
+            int index = mTable.convertRowIndexToModel(row);
+            result.add(mTableModel.getItem(index).getId());
+        }
+        return result;
+    }
+
+    /**
+     * 刷新会话列表（保留选中的会话）
+     *
+     * @param list 会话列表
+     */
+    public void refresh(List<ScanSession> list) {
+        Set<Long> selected = new HashSet<>(getSelectedIds());
+        mTableModel.setData(list);
+        for (int i = 0; i < list.size(); i++) {
+            if (selected.contains(list.get(i).getId())) {
+                int row = mTable.convertRowIndexToView(i);
+                mTable.addRowSelectionInterval(row, row);
+            }
+        }
+    }
+
+    /**
+     * 调用 OnScanSessionActionListener 监听器
+     */
+    private void invokeOnScanSessionActionListener(String action, List<Long> ids) {
+        if (mOnScanSessionActionListener != null) {
+            mOnScanSessionActionListener.onScanSessionAction(action, ids);
+        }
+    }
+
+    /**
+     * 显示窗口
+     */
+    public void showWindow() {
+        if (isShowing()) {
+            mFrame.toFront();
+            return;
+        }
+        mFrame = new JFrame(L.get("scan_session_title"));
+        // 窗口大小
+        mFrame.setSize(720, 480);
+        // 设置布局内容
+        mFrame.setContentPane(this);
+        // 其它设置
+        mFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        mFrame.setLocationRelativeTo(UIHelper.getMainFrame());
+        mFrame.setVisible(true);
+    }
+
+    /**
+     * 关闭窗口
+     */
+    public void closeWindow() {
+        if (mFrame != null && isShowing()) {
+            mFrame.dispose();
+        }
+    }
+
+    /**
+     * 设置监听器
+     *
+     * @param l 监听器实例
+     */
+    public void setOnScanSessionActionListener(OnScanSessionActionListener l) {
+        this.mOnScanSessionActionListener = l;
+    }
+
+    /**
+     * 会话列表数据模型
+     */
+    private static class SessionTableModel extends AbstractTableModel {
+
+        private List<ScanSession> mData = new ArrayList<>();
+
+        private void setData(List<ScanSession> data) {
+            mData = data == null ? new ArrayList<>() : data;
+            fireTableDataChanged();
+        }
+
+        private ScanSession getItem(int index) {
+            return mData.get(index);
+        }
+
+        @Override
+        public int getRowCount() {
+            return mData.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return L.get(COLUMN_NAMES[column]);
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ScanSession session = mData.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return session.getId();
+                case 1:
+                    return L.get("scan_session_type_" + session.getType());
+                case 2:
+                    return session.getName();
+                case 3:
+                    return getStateText(session.getState());
+                case 4:
+                    return session.getPendingCount();
+                case 5:
+                    return session.getCompletedCount();
+                default:
+                    return null;
+            }
+        }
+
+        private String getStateText(int state) {
+            switch (state) {
+                case ScanSession.STATE_PAUSED:
+                    return L.get("scan_session_state_paused");
+                case ScanSession.STATE_CANCELLED:
+                    return L.get("scan_session_state_cancelled");
+                default:
+                    return L.get("scan_session_state_running");
+            }
+        }
+    }
+
+    /**
+     * 扫描会话操作监听器
+     */
+    public interface OnScanSessionActionListener {
+
+        /**
+         * 会话操作事件
+         *
+         * @param action 操作类型（示例：{@link #ACTION_PAUSE}）
+         * @param ids    会话 ID 列表
+         */
+        void onScanSessionAction(String action, List<Long> ids);
+    }
+}
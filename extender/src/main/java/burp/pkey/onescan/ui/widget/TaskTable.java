@@ -10,6 +10,7 @@ import burp.pkey.common.log.Logger;
 import burp.pkey.common.utils.ClassUtils;
 import burp.pkey.common.utils.StringUtils;
 import burp.pkey.common.utils.Utils;
+import burp.pkey.onescan.bean.FpData;
 import burp.pkey.onescan.bean.TaskData;
 import burp.pkey.onescan.common.L;
 import burp.pkey.onescan.manager.FpManager;
@@ -319,6 +320,22 @@ public class TaskTable extends JTable implements ActionListener {
         mTaskTableModel.add(data);
     }
 
+    /**
+     * 设置任务数据的指纹识别结果（指纹识别完成后调用，在 UI 线程更新数据）
+     *
+     * @param data 数据
+     * @param list 指纹识别结果
+     */
+    public void setTaskFingerprint(TaskData data, List<FpData> list) {
+        if (data == null || list == null || list.isEmpty()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            data.setFingerprint(list);
+            mTaskTableModel.update(data);
+        });
+    }
+
     /**
      * 获取任务数据
      *
@@ -800,9 +817,11 @@ public class TaskTable extends JTable implements ActionListener {
             if (data == null || data.getReqResp() == null) {
                 return;
             }
-            int id = mCounter.getAndIncrement();
-            data.setId(id);
-            mItemLoader.pushItem(data);
+            // 分配 ID 和加入加载队列需要同步执行，保证列表中的数据按 ID 升序排列
+            synchronized (mCounter) {
+                data.setId(mCounter.getAndIncrement());
+                mItemLoader.pushItem(data);
+            }
         }
 
         public void addAll(List<TaskData> items) {
@@ -822,6 +841,38 @@ public class TaskTable extends JTable implements ActionListener {
             }
         }
 
+        /**
+         * 通知数据已更新（数据还未添加到列表时，不需要处理）
+         */
+        public synchronized void update(TaskData data) {
+            int index = indexOf(data);
+            if (index >= 0) {
+                fireTableRowsUpdated(index, index);
+            }
+        }
+
+        /**
+         * 查找数据所在的行（列表中的数据按 ID 升序排列，使用二分查找）
+         *
+         * @return 不存在时返回-1
+         */
+        private int indexOf(TaskData data) {
+            int low = 0;
+            int high = mData.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                TaskData item = mData.get(mid);
+                if (item.getId() < data.getId()) {
+                    low = mid + 1;
+                } else if (item.getId() > data.getId()) {
+                    high = mid - 1;
+                } else {
+                    return item == data ? mid : -1;
+                }
+            }
+            return -1;
+        }
+
         public synchronized void removeItems(List<TaskData> list) {
             if (list == null || list.isEmpty()) {
                 return;
@@ -1,5 +1,6 @@
 package burp.pkey.onescan.ui.widget.payloadlist.rule;
 
+import burp.pkey.common.helper.PatternCache;
 import burp.pkey.onescan.common.L;
 import burp.pkey.onescan.ui.widget.payloadlist.PayloadRule;
 
@@ -41,7 +42,7 @@ public class ConditionCheck extends PayloadRule {
     public String handleProcess(String content) throws IllegalStateException {
         String[] values = getParamValues();
         String regex = values[0];
-        Pattern p = Pattern.compile(regex);
+        Pattern p = PatternCache.compile(regex);
         Matcher matcher = p.matcher(content);
         boolean find = matcher.find();
         if (!find) {
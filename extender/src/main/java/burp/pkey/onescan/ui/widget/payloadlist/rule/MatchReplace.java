@@ -1,5 +1,6 @@
 package burp.pkey.onescan.ui.widget.payloadlist.rule;
 
+import burp.pkey.common.helper.PatternCache;
 import burp.pkey.onescan.common.L;
 import burp.pkey.onescan.ui.widget.payloadlist.PayloadRule;
 
@@ -56,6 +57,6 @@ public class MatchReplace extends PayloadRule {
         String[] values = getParamValues();
         String regex = values[0];
         String value = values[1];
-        return content.replaceAll(regex, value);
+        return PatternCache.compile(regex).matcher(content).replaceAll(value);
     }
 }
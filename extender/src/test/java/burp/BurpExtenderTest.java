@@ -0,0 +1,91 @@
+package burp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BurpExtender 初始化测试（不创建 UI，只执行 initData）
+ */
+public class BurpExtenderTest {
+
+    @TempDir
+    File mTempDir;
+
+    /**
+     * 按注册插件时的顺序执行 initData：任务调度器、数据包接收队列读取的配置必须已经初始化
+     */
+    @Test
+    public void testInitData() throws Exception {
+        File workDir = new File(mTempDir, ".config" + File.separator + "PKScan");
+        assertTrue(workDir.mkdirs());
+        String extensionFile = new File(mTempDir, "PKScan.jar").getPath();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        IBurpExtenderCallbacks callbacks = (IBurpExtenderCallbacks) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{IBurpExtenderCallbacks.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getExtensionFilename":
+                            return extensionFile;
+                        case "getStdout":
+                        case "getStderr":
+                            return output;
+                        case "toString":
+                            return "callbacks";
+                        default:
+                            return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                    }
+                });
+        BurpExtender extender = new BurpExtender();
+        Method initData = BurpExtender.class.getDeclaredMethod("initData", IBurpExtenderCallbacks.class);
+        initData.setAccessible(true);
+        try {
+            initData.invoke(extender, callbacks);
+            assertNotNull(getField(extender, "mTaskThreadPool"));
+            assertTrue(new File(workDir, "config.json").isFile());
+        } finally {
+            shutdownAll(extender);
+        }
+    }
+
+    private static Object getField(Object target, String name) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    /**
+     * 关闭初始化时创建的线程池、队列、定时器
+     */
+    private static void shutdownAll(Object target) throws ReflectiveOperationException {
+        for (Field field : target.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                continue;
+            }
+            field.setAccessible(true);
+            Object value = field.get(target);
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof ExecutorService) {
+                ((ExecutorService) value).shutdownNow();
+                continue;
+            }
+            try {
+                value.getClass().getMethod("shutdownNow").invoke(value);
+            } catch (NoSuchMethodException e) {
+                // 不需要关闭
+            }
+        }
+    }
+}
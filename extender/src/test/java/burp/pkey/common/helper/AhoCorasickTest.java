@@ -0,0 +1,76 @@
+package burp.pkey.common.helper;
+
+import burp.pkey.common.utils.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AhoCorasick 测试（与逐个模式 contains 的结果对比）
+ */
+public class AhoCorasickTest {
+
+    private static final String ALPHABET = "abcABC-/é";
+
+    @Test
+    public void testOverlappingPatterns() {
+        List<String> patterns = Arrays.asList("he", "she", "his", "hers");
+        AhoCorasick ac = new AhoCorasick(patterns, false);
+        BitSet hits = new BitSet();
+        ac.search("ushers", hits);
+        assertEquals(BitSet.valueOf(new long[]{0b1011}), hits);
+        assertEquals(4, ac.getPatternCount());
+    }
+
+    @Test
+    public void testEmptyPatternNeverMatches() {
+        AhoCorasick ac = new AhoCorasick(Arrays.asList("", "x"), true);
+        BitSet hits = new BitSet();
+        ac.search("abc", hits);
+        assertTrue(hits.isEmpty());
+        ac.search(null, hits);
+        assertTrue(hits.isEmpty());
+    }
+
+    @Test
+    public void testEqualsContains() {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            List<String> patterns = new ArrayList<>();
+            int count = 1 + random.nextInt(20);
+            for (int i = 0; i < count; i++) {
+                patterns.add(randomText(random, 1 + random.nextInt(4)));
+            }
+            AhoCorasick ac = new AhoCorasick(patterns, false);
+            AhoCorasick iac = new AhoCorasick(patterns, true);
+            for (int t = 0; t < 20; t++) {
+                String text = randomText(random, random.nextInt(64));
+                BitSet hits = new BitSet();
+                BitSet iHits = new BitSet();
+                ac.search(text, hits);
+                iac.search(text, iHits);
+                for (int i = 0; i < patterns.size(); i++) {
+                    String pattern = patterns.get(i);
+                    assertEquals(text.contains(pattern), hits.get(i), pattern + " in " + text);
+                    assertEquals(StringUtils.containsIgnoreCase(text, pattern), iHits.get(i),
+                            pattern + " in " + text + " (ignore case)");
+                }
+            }
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
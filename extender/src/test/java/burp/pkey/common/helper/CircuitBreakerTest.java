@@ -0,0 +1,125 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CircuitBreaker 测试
+ */
+public class CircuitBreakerTest {
+
+    private static final long COOL_DOWN = 50;
+
+    @Test
+    public void testOpenAfterThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 60 * 1000, 1);
+        breaker.onFailure("a");
+        breaker.onFailure("a");
+        assertTrue(breaker.allowRequest("a"));
+        assertFalse(breaker.isOpen("a"));
+        breaker.onFailure("a");
+        assertFalse(breaker.allowRequest("a"));
+        assertTrue(breaker.isOpen("a"));
+        // 每个主机独立统计
+        assertTrue(breaker.allowRequest("b"));
+        List<CircuitBreaker.Status> list = breaker.getStatusList();
+        assertEquals(1, list.size());
+        assertEquals("a", list.get(0).getHost());
+        assertEquals(CircuitBreaker.STATE_OPEN, list.get(0).getState());
+        assertEquals(3, list.get(0).getFailures());
+        assertTrue(list.get(0).getRemainingMillis() > 0);
+    }
+
+    @Test
+    public void testSuccessResetFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60 * 1000, 1);
+        breaker.onFailure("a");
+        breaker.onSuccess("a");
+        // 失败次数需要连续
+        breaker.onFailure("a");
+        assertTrue(breaker.allowRequest("a"));
+        assertEquals(0, breaker.getTrippedCount());
+        breaker.onFailure("a");
+        assertFalse(breaker.allowRequest("a"));
+        assertEquals(1, breaker.getTrippedCount());
+    }
+
+    @Test
+    public void testHalfOpenProbeSuccess() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, COOL_DOWN, 2);
+        breaker.onFailure("a");
+        assertFalse(breaker.allowRequest("a"));
+        Thread.sleep(COOL_DOWN * 2);
+        // 冷却时间结束，进入半开状态，只放行指定数量的探测请求
+        assertFalse(breaker.isOpen("a"));
+        assertTrue(breaker.allowRequest("a"));
+        assertTrue(breaker.allowRequest("a"));
+        assertFalse(breaker.allowRequest("a"));
+        assertEquals(CircuitBreaker.STATE_HALF_OPEN, breaker.getStatusList().get(0).getState());
+        // 探测请求成功，关闭熔断器
+        breaker.onSuccess("a");
+        assertEquals(0, breaker.getTrippedCount());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(breaker.allowRequest("a"));
+        }
+    }
+
+    @Test
+    public void testHalfOpenProbeFailure() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(3, COOL_DOWN, 1);
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure("a");
+        }
+        Thread.sleep(COOL_DOWN * 2);
+        assertTrue(breaker.allowRequest("a"));
+        // 半开状态下一次失败就重新打开（不需要达到阈值）
+        breaker.onFailure("a");
+        assertTrue(breaker.isOpen("a"));
+        assertFalse(breaker.allowRequest("a"));
+        assertEquals(CircuitBreaker.STATE_OPEN, breaker.getStatusList().get(0).getState());
+    }
+
+    @Test
+    public void testLostProbe() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, COOL_DOWN, 1);
+        breaker.onFailure("a");
+        Thread.sleep(COOL_DOWN * 2);
+        assertTrue(breaker.allowRequest("a"));
+        assertFalse(breaker.allowRequest("a"));
+        // 探测请求一直没有结果，超过冷却时间后允许重新探测
+        Thread.sleep(COOL_DOWN * 2);
+        assertTrue(breaker.allowRequest("a"));
+        assertFalse(breaker.allowRequest("a"));
+    }
+
+    @Test
+    public void testIllegalConfig() {
+        // 阈值、探测数量最低为 1
+        CircuitBreaker breaker = new CircuitBreaker(0, -1, 0);
+        breaker.onFailure("a");
+        assertEquals(1, breaker.getStatusList().get(0).getFailures());
+        // 冷却时间为 0，直接进入半开状态
+        assertFalse(breaker.isOpen("a"));
+        assertTrue(breaker.allowRequest("a"));
+        assertEquals(CircuitBreaker.STATE_HALF_OPEN, breaker.getStatusList().get(0).getState());
+    }
+
+    @Test
+    public void testReset() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, 1);
+        breaker.onFailure("a");
+        breaker.onFailure("b");
+        assertEquals(2, breaker.getTrippedCount());
+        breaker.reset();
+        assertEquals(0, breaker.getTrippedCount());
+        assertTrue(breaker.allowRequest("a"));
+        // 未记录过失败的主机，成功不创建状态
+        breaker.onSuccess("c");
+        assertTrue(breaker.getStatusList().isEmpty());
+    }
+}
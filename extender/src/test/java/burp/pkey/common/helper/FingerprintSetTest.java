@@ -0,0 +1,138 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FingerprintSet 测试（包括扩容期间的并发添加、删除）
+ */
+public class FingerprintSetTest {
+
+    private static final int THREAD_COUNT = 8;
+
+    @Test
+    public void testAddContainsRemove() {
+        FingerprintSet set = new FingerprintSet(16);
+        assertTrue(set.addIfAbsent("a"));
+        assertFalse(set.addIfAbsent("a"));
+        assertTrue(set.contains("a"));
+        assertFalse(set.contains("b"));
+        assertTrue(set.remove("a"));
+        assertFalse(set.remove("a"));
+        assertFalse(set.contains("a"));
+        assertTrue(set.addIfAbsent("a"));
+        assertEquals(1, set.size());
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains("a"));
+    }
+
+    @Test
+    public void testResize() {
+        FingerprintSet set = new FingerprintSet(16);
+        long initBytes = set.getMemoryBytes();
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(set.addIfAbsent("item-" + i));
+        }
+        assertEquals(100000, set.size());
+        assertTrue(set.getMemoryBytes() > initBytes);
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(set.contains("item-" + i));
+        }
+    }
+
+    @Test
+    public void testFingerprintAvoidsReservedValues() {
+        Set<Long> values = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            long fp = FingerprintSet.fingerprint("v" + i);
+            assertTrue(fp < 0 || fp > 2);
+            values.add(fp);
+        }
+        assertEquals(10000, values.size());
+    }
+
+    /**
+     * 多个线程同时添加相同的数据（小容量，添加期间不断扩容），每条数据只有一个线程添加成功
+     */
+    @Test
+    public void testConcurrentAddDuringResize() throws Exception {
+        FingerprintSet set = new FingerprintSet(16);
+        int count = 200000;
+        AtomicInteger added = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < count; i++) {
+                if (set.addIfAbsent("item-" + i)) {
+                    added.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(count, added.get());
+        assertEquals(count, set.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(set.contains("item-" + i));
+        }
+    }
+
+    /**
+     * 扩容期间并发添加、删除不同的数据，删除的数据不会在迁移后重新出现
+     */
+    @Test
+    public void testConcurrentAddRemoveDuringResize() throws Exception {
+        FingerprintSet set = new FingerprintSet(16);
+        int perThread = 20000;
+        AtomicInteger index = new AtomicInteger();
+        runConcurrently(() -> {
+            int id = index.getAndIncrement();
+            for (int i = 0; i < perThread; i++) {
+                String key = id + "-" + i;
+                assertTrue(set.addIfAbsent(key));
+                // 删除奇数下标的数据
+                if ((i & 1) == 1) {
+                    assertTrue(set.remove(key));
+                }
+            }
+        });
+        assertEquals(THREAD_COUNT * perThread / 2, set.size());
+        for (int id = 0; id < THREAD_COUNT; id++) {
+            for (int i = 0; i < perThread; i++) {
+                assertEquals((i & 1) == 0, set.contains(id + "-" + i), id + "-" + i);
+            }
+        }
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package burp.pkey.common.helper;
+
+import burp.pkey.common.log.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HostTaskScheduler 测试（主机并发数、AIMD 调整、队列溢出策略、流量类别）
+ */
+public class HostTaskSchedulerTest {
+
+    private final CountDownLatch mGate = new CountDownLatch(1);
+    private final List<String> mExecuted = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger mRunning = new AtomicInteger();
+    private final AtomicInteger mMaxRunning = new AtomicInteger();
+    private HostTaskScheduler mScheduler;
+
+    @BeforeAll
+    public static void init() {
+        // 任务异常时打印日志
+        Logger.init(false, null, null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mGate.countDown();
+        if (mScheduler != null) {
+            mScheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIllegalArgs() {
+        assertThrows(IllegalArgumentException.class, () -> new HostTaskScheduler(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new HostTaskScheduler(1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HostTaskScheduler(null, 1, 1, 1));
+        mScheduler = new HostTaskScheduler(2, 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> mScheduler.execute("a", null));
+        assertThrows(IllegalArgumentException.class, () -> mScheduler.setTrafficClasses(new int[]{1}, new int[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> mScheduler.setTrafficClasses(new int[0], new int[0]));
+    }
+
+    @Test
+    public void testHostConcurrency() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(8, 2, 4);
+        for (int i = 0; i < 10; i++) {
+            mScheduler.execute("a", new GateTask("a-" + i));
+        }
+        // 单个主机只能使用初始并发数
+        waitUntil(() -> mRunning.get() == 2);
+        Thread.sleep(50);
+        assertEquals(2, mRunning.get());
+        assertEquals(8, mScheduler.getQueueSize());
+        // 其它主机不受影响
+        for (int i = 0; i < 4; i++) {
+            mScheduler.execute("b", new GateTask("b-" + i));
+        }
+        waitUntil(() -> mRunning.get() == 4);
+        assertEquals(2, mScheduler.getHostCount());
+        mGate.countDown();
+        waitUntil(() -> mExecuted.size() == 14);
+        assertTrue(mMaxRunning.get() <= 4);
+        // 没有任务的主机被移除
+        waitUntil(() -> mScheduler.getHostCount() == 0);
+        assertEquals(0, mScheduler.getQueueSize());
+    }
+
+    @Test
+    public void testHostFifo() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(4, 1, 1);
+        mGate.countDown();
+        for (int i = 0; i < 100; i++) {
+            mScheduler.execute("a", new GateTask(String.valueOf(i)));
+        }
+        waitUntil(() -> mExecuted.size() == 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(String.valueOf(i), mExecuted.get(i));
+        }
+        assertEquals(1, mMaxRunning.get());
+    }
+
+    @Test
+    public void testTaskError() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mGate.countDown();
+        mScheduler.execute("a", () -> {
+            throw new IllegalStateException("test");
+        });
+        mScheduler.execute("a", new GateTask("a"));
+        // 任务异常不影响工作线程继续执行
+        waitUntil(() -> mExecuted.size() == 1);
+        waitUntil(() -> mScheduler.getHostCount() == 0);
+    }
+
+    @Test
+    public void testAdditiveIncrease() {
+        mScheduler = new HostTaskScheduler(16, 1, 4);
+        mScheduler.execute("a", new GateTask("a"));
+        assertEquals(1, mScheduler.getHostConcurrency("a"));
+        // 1 -> 2 -> 2.5 -> 2.9 -> 3.24 -> 3.55 -> 3.83 -> 4.09(4)
+        int[] expected = {2, 2, 2, 3, 3, 3, 4, 4, 4};
+        for (int limit : expected) {
+            mScheduler.feedback("a", 10, true);
+            assertEquals(limit, mScheduler.getHostConcurrency("a"));
+        }
+        // 不超过每个主机的最大并发数
+        for (int i = 0; i < 100; i++) {
+            mScheduler.feedback("a", 10, true);
+        }
+        assertEquals(4, mScheduler.getHostConcurrency("a"));
+        // 不存在的主机不处理
+        mScheduler.feedback("b", 10, false);
+        assertEquals(1, mScheduler.getHostConcurrency("b"));
+        assertEquals(1, mScheduler.getHostCount());
+    }
+
+    @Test
+    public void testMultiplicativeDecrease() {
+        mScheduler = new HostTaskScheduler(16, 8, 8);
+        mScheduler.execute("a", new GateTask("a"));
+        assertEquals(8, mScheduler.getHostConcurrency("a"));
+        mScheduler.feedback("a", 10, false);
+        assertEquals(4, mScheduler.getHostConcurrency("a"));
+        // 短时间内连续拥塞只减少一次
+        mScheduler.feedback("a", 10, false);
+        assertEquals(4, mScheduler.getHostConcurrency("a"));
+    }
+
+    @Test
+    public void testLatencyCongestion() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(16, 8, 8);
+        mScheduler.execute("a", new GateTask("a"));
+        // 基准延时 100ms，阈值为 max(100 * 2, 100 + 200)
+        mScheduler.feedback("a", 100, true);
+        mScheduler.feedback("a", 290, true);
+        assertEquals(8, mScheduler.getHostConcurrency("a"));
+        mScheduler.feedback("a", 1000, true);
+        assertEquals(4, mScheduler.getHostConcurrency("a"));
+        Thread.sleep(600);
+        mScheduler.feedback("a", 1000, true);
+        assertEquals(2, mScheduler.getHostConcurrency("a"));
+        Thread.sleep(600);
+        mScheduler.feedback("a", 10000, false);
+        mScheduler.feedback("a", 10000, false);
+        Thread.sleep(600);
+        mScheduler.feedback("a", 10000, false);
+        // 最低为 1
+        assertEquals(1, mScheduler.getHostConcurrency("a"));
+    }
+
+    @Test
+    public void testBlockPolicy() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setQueueLimits(2, HostTaskScheduler.POLICY_BLOCK);
+        mScheduler.execute("a", new GateTask("a-0"));
+        waitUntil(() -> mRunning.get() == 1);
+        mScheduler.execute("a", new GateTask("a-1"));
+        mScheduler.execute("b", new GateTask("b-0"));
+        // 队列已满，不阻塞的添加方式直接返回
+        assertFalse(mScheduler.tryExecute("b", new GateTask("b-1")));
+        AtomicBoolean added = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            mScheduler.execute("c", new GateTask("c-0"));
+            added.set(true);
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+        assertEquals(2, mScheduler.getQueueSize());
+        mGate.countDown();
+        producer.join(30 * 1000);
+        assertTrue(added.get());
+        waitUntil(() -> mExecuted.size() == 4);
+        assertEquals(0, mScheduler.getDropCount());
+        assertFalse(mExecuted.contains("b-1"));
+    }
+
+    @Test
+    public void testBlockPolicyInWorker() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setQueueLimits(1, HostTaskScheduler.POLICY_BLOCK);
+        mGate.countDown();
+        CountDownLatch done = new CountDownLatch(1);
+        // 工作线程中添加任务时，队列已满也直接入队（唯一的工作线程等待队列空闲会死锁）
+        mScheduler.execute("a", () -> {
+            for (int i = 0; i < 5; i++) {
+                mScheduler.execute("a", new GateTask("a-" + i));
+            }
+            done.countDown();
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        waitUntil(() -> mExecuted.size() == 5);
+    }
+
+    @Test
+    public void testBlockInterrupted() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setQueueLimits(1, HostTaskScheduler.POLICY_BLOCK);
+        mScheduler.execute("a", new GateTask("a-0"));
+        waitUntil(() -> mRunning.get() == 1);
+        mScheduler.execute("a", new GateTask("a-1"));
+        AtomicBoolean rejected = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                mScheduler.execute("a", new GateTask("a-2"));
+            } catch (RejectedExecutionException e) {
+                rejected.set(true);
+            }
+        });
+        producer.start();
+        producer.join(100);
+        producer.interrupt();
+        producer.join(30 * 1000);
+        assertTrue(rejected.get());
+    }
+
+    @Test
+    public void testDropPolicy() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setQueueLimits(3, HostTaskScheduler.POLICY_DROP);
+        List<Runnable> dropped = Collections.synchronizedList(new ArrayList<>());
+        mScheduler.setOnTaskDropListener(dropped::add);
+        mScheduler.execute("a", new GateTask("a-0"));
+        waitUntil(() -> mRunning.get() == 1);
+        GateTask a3 = new GateTask("a-3");
+        mScheduler.execute("a", new GateTask("a-1"));
+        mScheduler.execute("a", new GateTask("a-2"));
+        mScheduler.execute("a", a3);
+        // 其它主机的新任务，丢弃排队任务最多的主机的最后一个任务
+        mScheduler.execute("b", new GateTask("b-0"));
+        assertEquals(1, dropped.size());
+        assertSame(a3, dropped.get(0));
+        // 新任务所属的主机排队任务最多时，丢弃新任务
+        GateTask a4 = new GateTask("a-4");
+        mScheduler.execute("a", a4);
+        assertSame(a4, dropped.get(1));
+        // 排队任务数量相差不超过 1 时，丢弃新任务
+        GateTask b1 = new GateTask("b-1");
+        mScheduler.execute("b", b1);
+        assertSame(b1, dropped.get(2));
+        assertEquals(3, mScheduler.getDropCount());
+        assertEquals(3, mScheduler.getQueueSize());
+        mGate.countDown();
+        waitUntil(() -> mExecuted.size() == 4);
+        assertFalse(mExecuted.contains("a-3"));
+        assertFalse(mExecuted.contains("a-4"));
+        assertFalse(mExecuted.contains("b-1"));
+    }
+
+    @Test
+    public void testDropPolicyNonDroppable() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setQueueLimits(1, HostTaskScheduler.POLICY_DROP);
+        List<Runnable> dropped = Collections.synchronizedList(new ArrayList<>());
+        mScheduler.setOnTaskDropListener(dropped::add);
+        mScheduler.execute("a", new GateTask("a-0"));
+        waitUntil(() -> mRunning.get() == 1);
+        mScheduler.execute("a", new BatchTask("a-1"));
+        // 不可丢弃的任务超出容量也直接入队
+        mScheduler.execute("a", new BatchTask("a-2"));
+        assertEquals(2, mScheduler.getQueueSize());
+        // 只有不可丢弃的任务时，丢弃新任务
+        mScheduler.execute("b", new GateTask("b-0"));
+        assertEquals(1, dropped.size());
+        assertEquals(1, mScheduler.getDropCount());
+        mGate.countDown();
+        waitUntil(() -> mExecuted.size() == 3);
+        assertEquals("a-2", mExecuted.get(2));
+    }
+
+    @Test
+    public void testSpillWithoutCodec() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setQueueLimits(1, HostTaskScheduler.POLICY_SPILL);
+        mScheduler.execute("a", new GateTask("a-0"));
+        waitUntil(() -> mRunning.get() == 1);
+        assertTrue(mScheduler.tryExecute("a", new GateTask("a-1")));
+        // 没有编解码器时，按阻塞策略处理
+        assertFalse(mScheduler.tryExecute("a", new GateTask("a-2")));
+        assertEquals(1, mScheduler.getQueueSize());
+        assertEquals(0, mScheduler.getSpillSize());
+        assertEquals(0, mScheduler.getDropCount());
+        mGate.countDown();
+        waitUntil(() -> mExecuted.size() == 2);
+    }
+
+    @Test
+    public void testRaiseCapacity() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setQueueLimits(1, HostTaskScheduler.POLICY_BLOCK);
+        mScheduler.execute("a", new GateTask("a-0"));
+        waitUntil(() -> mRunning.get() == 1);
+        mScheduler.execute("a", new GateTask("a-1"));
+        Thread producer = new Thread(() -> mScheduler.execute("a", new GateTask("a-2")));
+        producer.start();
+        producer.join(100);
+        assertTrue(producer.isAlive());
+        // 修改容量后，等待的线程被唤醒
+        mScheduler.setQueueLimits(0, HostTaskScheduler.POLICY_BLOCK);
+        producer.join(30 * 1000);
+        assertFalse(producer.isAlive());
+        assertEquals(2, mScheduler.getQueueSize());
+    }
+
+    @Test
+    public void testRemoveIfAndShutdown() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.execute("a", new GateTask("a-0"));
+        waitUntil(() -> mRunning.get() == 1);
+        for (int i = 1; i < 5; i++) {
+            mScheduler.execute("a", new GateTask("a-" + i));
+            mScheduler.execute("b", new GateTask("b-" + i));
+        }
+        List<Runnable> removed = mScheduler.removeIf((task) -> ((GateTask) task).name.startsWith("b-"));
+        assertEquals(4, removed.size());
+        assertEquals(4, mScheduler.getQueueSize());
+        // 没有任务的主机被移除
+        assertEquals(1, mScheduler.getHostCount());
+        List<Runnable> rest = mScheduler.shutdownNow();
+        assertEquals(4, rest.size());
+        assertTrue(mScheduler.isShutdown());
+        assertEquals(0, mScheduler.getQueueSize());
+        assertThrows(RejectedExecutionException.class, () -> mScheduler.execute("a", new GateTask("a")));
+        assertThrows(RejectedExecutionException.class, () -> mScheduler.tryExecute("a", new GateTask("a")));
+    }
+
+    @Test
+    public void testWeightedClasses() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setTaskClassifier((task) -> ((GateTask) task).cls);
+        mScheduler.setTrafficClasses(new int[]{3, 1}, new int[]{100, 100});
+        mScheduler.execute("a", new GateTask("blocker", 0));
+        waitUntil(() -> mRunning.get() == 1);
+        for (int i = 0; i < 40; i++) {
+            mScheduler.execute("a", new GateTask("c0-" + i, 0));
+            mScheduler.execute("a", new GateTask("c1-" + i, 1));
+        }
+        assertArrayEquals(new int[]{40, 40}, mScheduler.getClassQueueSize());
+        mGate.countDown();
+        waitUntil(() -> mExecuted.size() == 81);
+        // 按权重轮流取任务：前 40 个任务中，类别 0 与类别 1 的数量比例为 3:1
+        int count = 0;
+        for (int i = 1; i <= 40; i++) {
+            if (mExecuted.get(i).startsWith("c0-")) {
+                count++;
+            }
+        }
+        assertEquals(30, count);
+        // 同一类别按提交顺序执行
+        int next = 0;
+        for (String name : mExecuted) {
+            if (name.startsWith("c1-")) {
+                assertEquals("c1-" + next++, name);
+            }
+        }
+    }
+
+    @Test
+    public void testClassShareLimit() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(4, 1, 1);
+        mScheduler.setTaskClassifier((task) -> ((GateTask) task).cls);
+        // 类别 1 最多占用 25% 的并发数（1 个）
+        mScheduler.setTrafficClasses(new int[]{1, 1}, new int[]{100, 25});
+        for (int i = 0; i < 4; i++) {
+            mScheduler.execute("h-" + i, new GateTask("c1-" + i, 1));
+        }
+        waitUntil(() -> mRunning.get() == 1);
+        Thread.sleep(50);
+        assertArrayEquals(new int[]{0, 1}, mScheduler.getClassInFlight());
+        assertArrayEquals(new int[]{0, 3}, mScheduler.getClassQueueSize());
+        // 其它类别可以使用剩余的并发数
+        mScheduler.execute("x", new GateTask("c0-0", 0));
+        mScheduler.execute("y", new GateTask("c0-1", 0));
+        waitUntil(() -> mRunning.get() == 3);
+        assertArrayEquals(new int[]{2, 1}, mScheduler.getClassInFlight());
+        mGate.countDown();
+        waitUntil(() -> mExecuted.size() == 6);
+        assertTrue(mMaxRunning.get() <= 4);
+        waitUntil(() -> mScheduler.getClassInFlight()[1] == 0);
+    }
+
+    @Test
+    public void testChangeClassCount() throws InterruptedException {
+        mScheduler = new HostTaskScheduler(1, 1, 1);
+        mScheduler.setTaskClassifier((task) -> ((GateTask) task).cls);
+        mScheduler.execute("a", new GateTask("blocker", 0));
+        waitUntil(() -> mRunning.get() == 1);
+        for (int i = 0; i < 3; i++) {
+            mScheduler.execute("a", new GateTask("c0-" + i, 0));
+            mScheduler.execute("a", new GateTask("c1-" + i, 1));
+            // 超出范围的类别按类别 0 处理
+            mScheduler.execute("a", new GateTask("c5-" + i, 5));
+        }
+        // 只有一个类别
+        assertArrayEquals(new int[]{9}, mScheduler.getClassQueueSize());
+        // 类别数量变化，排队中的任务重新分类
+        mScheduler.setTrafficClasses(new int[]{1, 1}, new int[]{100, 100});
+        assertArrayEquals(new int[]{6, 3}, mScheduler.getClassQueueSize());
+        assertEquals(9, mScheduler.getQueueSize());
+        mScheduler.setTrafficClasses(new int[]{1, 1, 1}, new int[]{100, 100, 100});
+        assertArrayEquals(new int[]{6, 3, 0}, mScheduler.getClassQueueSize());
+        mGate.countDown();
+        waitUntil(() -> mExecuted.size() == 10);
+        waitUntil(() -> Arrays.equals(new int[]{0, 0, 0}, mScheduler.getClassInFlight()));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30 * 1000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * 等待 {@link #mGate} 打开后完成的任务
+     */
+    private class GateTask implements Runnable {
+
+        private final String name;
+        private final int cls;
+
+        private GateTask(String name) {
+            this(name, 0);
+        }
+
+        private GateTask(String name, int cls) {
+            this.name = name;
+            this.cls = cls;
+        }
+
+        @Override
+        public void run() {
+            int running = mRunning.incrementAndGet();
+            mMaxRunning.accumulateAndGet(running, Math::max);
+            try {
+                mGate.await();
+                mExecuted.add(name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                mRunning.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 不可丢弃的任务
+     */
+    private class BatchTask extends GateTask implements HostTaskScheduler.NonDroppable {
+
+        private BatchTask(String name) {
+            super(name);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IngestQueue 测试（单个处理线程，第一条数据阻塞处理时，之后的数据留在队列中）
+ */
+public class IngestQueueTest {
+
+    private final CountDownLatch mStarted = new CountDownLatch(1);
+    private final CountDownLatch mGate = new CountDownLatch(1);
+    private final List<String> mHandled = Collections.synchronizedList(new ArrayList<>());
+
+    private IngestQueue<String> newQueue() {
+        return new IngestQueue<>("pkscan-test-ingest", 1, (item) -> {
+            mStarted.countDown();
+            try {
+                mGate.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            mHandled.add(item);
+        });
+    }
+
+    @Test
+    public void testIllegalArgs() {
+        assertThrows(IllegalArgumentException.class, () -> new IngestQueue<String>("test", 0, (item) -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> new IngestQueue<String>("test", 1, null));
+        IngestQueue<String> queue = newQueue();
+        try {
+            assertThrows(IllegalArgumentException.class, () -> queue.offer(null));
+        } finally {
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFifo() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        try {
+            mGate.countDown();
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(queue.offer("item-" + i));
+            }
+            awaitProcessed(queue, 1000);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals("item-" + i, mHandled.get(i));
+            }
+            assertEquals(0, queue.getPendingCount());
+            assertEquals(0, queue.getRejectedCount());
+            assertTrue(queue.getMaxLagMillis() >= queue.getLastLagMillis());
+        } finally {
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDropPolicy() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        queue.setLimits(2, HostTaskScheduler.POLICY_DROP);
+        try {
+            assertTrue(queue.offer("a"));
+            assertTrue(mStarted.await(30, TimeUnit.SECONDS));
+            assertTrue(queue.offer("b"));
+            assertTrue(queue.offer("c"));
+            // 队列已满，拒绝新数据
+            assertFalse(queue.offer("d"));
+            assertFalse(queue.offer("e"));
+            assertEquals(2, queue.getRejectedCount());
+            assertEquals(2, queue.getPendingCount());
+            mGate.countDown();
+            awaitProcessed(queue, 3);
+            assertEquals(3, mHandled.size());
+            assertEquals("c", mHandled.get(2));
+        } finally {
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBlockPolicy() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        queue.setLimits(2, HostTaskScheduler.POLICY_BLOCK);
+        try {
+            assertTrue(queue.offer("a"));
+            assertTrue(mStarted.await(30, TimeUnit.SECONDS));
+            assertTrue(queue.offer("b"));
+            assertTrue(queue.offer("c"));
+            AtomicBoolean result = new AtomicBoolean();
+            Thread producer = new Thread(() -> result.set(queue.offer("d")));
+            producer.start();
+            // 队列已满，生产者线程等待
+            producer.join(200);
+            assertTrue(producer.isAlive());
+            mGate.countDown();
+            producer.join(30 * 1000);
+            assertFalse(producer.isAlive());
+            assertTrue(result.get());
+            awaitProcessed(queue, 4);
+            assertEquals("d", mHandled.get(3));
+            assertEquals(0, queue.getRejectedCount());
+        } finally {
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBlockInterrupted() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        queue.setLimits(1, HostTaskScheduler.POLICY_BLOCK);
+        try {
+            assertTrue(queue.offer("a"));
+            assertTrue(mStarted.await(30, TimeUnit.SECONDS));
+            assertTrue(queue.offer("b"));
+            AtomicBoolean result = new AtomicBoolean(true);
+            Thread producer = new Thread(() -> result.set(queue.offer("c")));
+            producer.start();
+            producer.join(100);
+            // 等待被中断，数据被拒绝
+            producer.interrupt();
+            producer.join(30 * 1000);
+            assertFalse(result.get());
+            assertEquals(1, queue.getRejectedCount());
+        } finally {
+            mGate.countDown();
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRaiseCapacity() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        queue.setLimits(1, HostTaskScheduler.POLICY_BLOCK);
+        try {
+            assertTrue(queue.offer("a"));
+            assertTrue(mStarted.await(30, TimeUnit.SECONDS));
+            assertTrue(queue.offer("b"));
+            AtomicBoolean result = new AtomicBoolean();
+            Thread producer = new Thread(() -> result.set(queue.offer("c")));
+            producer.start();
+            producer.join(100);
+            assertTrue(producer.isAlive());
+            // 修改容量后，等待的线程被唤醒
+            queue.setLimits(0, HostTaskScheduler.POLICY_BLOCK);
+            producer.join(30 * 1000);
+            assertFalse(producer.isAlive());
+            assertTrue(result.get());
+            assertEquals(2, queue.getPendingCount());
+        } finally {
+            mGate.countDown();
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSpillPolicy() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        queue.setCodec(new StringCodec());
+        queue.setLimits(2, HostTaskScheduler.POLICY_SPILL);
+        try {
+            assertTrue(queue.offer("item-0"));
+            assertTrue(mStarted.await(30, TimeUnit.SECONDS));
+            for (int i = 1; i < 50; i++) {
+                assertTrue(queue.offer("item-" + i));
+            }
+            // 超出容量的数据溢出到磁盘，一起计入等待处理的数量
+            assertEquals(49, queue.getPendingCount());
+            mGate.countDown();
+            awaitProcessed(queue, 50);
+            // 磁盘中还有数据时，新数据也写入磁盘，保持先后顺序
+            for (int i = 0; i < 50; i++) {
+                assertEquals("item-" + i, mHandled.get(i));
+            }
+            assertEquals(0, queue.getRejectedCount());
+        } finally {
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSpillDecodeError() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        queue.setCodec(new StringCodec() {
+            @Override
+            public String decode(byte[] data) {
+                String item = super.decode(data);
+                return item.startsWith("bad") ? null : item;
+            }
+        });
+        queue.setLimits(1, HostTaskScheduler.POLICY_SPILL);
+        try {
+            assertTrue(queue.offer("a"));
+            assertTrue(mStarted.await(30, TimeUnit.SECONDS));
+            assertTrue(queue.offer("b"));
+            assertTrue(queue.offer("bad-1"));
+            assertTrue(queue.offer("c"));
+            mGate.countDown();
+            awaitProcessed(queue, 3);
+            // 解码失败的数据计入拒绝数量
+            assertEquals(1, queue.getRejectedCount());
+            assertEquals("c", mHandled.get(2));
+        } finally {
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClear() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        queue.setCodec(new StringCodec());
+        queue.setLimits(2, HostTaskScheduler.POLICY_SPILL);
+        try {
+            assertTrue(queue.offer("a"));
+            assertTrue(mStarted.await(30, TimeUnit.SECONDS));
+            for (int i = 0; i < 10; i++) {
+                assertTrue(queue.offer("old-" + i));
+            }
+            // 清空后，内存和磁盘中之前的数据都被丢弃
+            queue.clear();
+            assertTrue(queue.offer("new"));
+            mGate.countDown();
+            awaitProcessed(queue, 2);
+            awaitPending(queue);
+            assertEquals(2, mHandled.size());
+            assertEquals("a", mHandled.get(0));
+            assertEquals("new", mHandled.get(1));
+        } finally {
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        IngestQueue<String> queue = newQueue();
+        assertTrue(queue.offer("a"));
+        assertTrue(mStarted.await(30, TimeUnit.SECONDS));
+        assertTrue(queue.offer("b"));
+        assertTrue(queue.offer("c"));
+        assertEquals(2, queue.shutdownNow());
+        assertFalse(queue.offer("d"));
+        assertEquals(0, queue.getRejectedCount());
+    }
+
+    private static void awaitProcessed(IngestQueue<String> queue, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30 * 1000;
+        while (queue.getProcessedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, queue.getProcessedCount());
+    }
+
+    private static void awaitPending(IngestQueue<String> queue) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30 * 1000;
+        while (queue.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    private static class StringCodec implements IngestQueue.Codec<String> {
+
+        @Override
+        public byte[] encode(String item) {
+            return item.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] data) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+}
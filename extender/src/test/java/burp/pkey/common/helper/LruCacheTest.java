@@ -0,0 +1,79 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LruCache 测试
+ */
+public class LruCacheTest {
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        LruCache<String, String> cache = new LruCache<>(2, 0, 0, (k, v) -> 1);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // 访问 a 后，b 成为最久未使用的缓存
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("a"));
+        assertTrue(cache.containsKey("c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testMaxBytes() {
+        LruCache<String, String> cache = new LruCache<>(0, 10, 0, (k, v) -> v.length());
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        assertEquals(10, cache.getTotalBytes());
+        cache.put("c", "1");
+        assertFalse(cache.containsKey("a"));
+        assertEquals(6, cache.getTotalBytes());
+        // 覆盖时重新计算占用的字节数
+        cache.put("c", "123");
+        assertEquals(8, cache.getTotalBytes());
+    }
+
+    @Test
+    public void testReweigh() {
+        StringBuilder value = new StringBuilder("1");
+        LruCache<String, StringBuilder> cache = new LruCache<>(0, 10, 0, (k, v) -> v.length());
+        cache.put("a", new StringBuilder("12345"));
+        cache.put("b", value);
+        value.append("234567");
+        cache.reweigh("b");
+        assertFalse(cache.containsKey("a"));
+        assertEquals(7, cache.getTotalBytes());
+    }
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        LruCache<String, String> cache = new LruCache<>(0, 0, 20, (k, v) -> 1);
+        cache.put("a", "1");
+        assertEquals("1", cache.putIfAbsent("a", "2"));
+        Thread.sleep(50);
+        assertNull(cache.get("a"));
+        assertNull(cache.putIfAbsent("a", "2"));
+        assertEquals("2", cache.get("a"));
+    }
+
+    @Test
+    public void testCounters() {
+        LruCache<String, String> cache = new LruCache<>(0, 0, 0, (k, v) -> 1);
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("b");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.setLimits(0, 0, 0);
+        cache.clear();
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.getTotalBytes());
+    }
+}
@@ -0,0 +1,99 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PatternCache 测试
+ */
+public class PatternCacheTest {
+
+    @BeforeEach
+    public void setUp() {
+        PatternCache.clear();
+    }
+
+    @Test
+    public void testHit() {
+        long hit = PatternCache.getHitCount();
+        long miss = PatternCache.getMissCount();
+        Pattern p1 = PatternCache.compile("a+b");
+        Pattern p2 = PatternCache.compile("a+b");
+        assertSame(p1, p2);
+        assertEquals(miss + 1, PatternCache.getMissCount());
+        assertEquals(hit + 1, PatternCache.getHitCount());
+        assertEquals(1, PatternCache.size());
+    }
+
+    @Test
+    public void testFlags() {
+        Pattern p1 = PatternCache.compile("abc");
+        Pattern p2 = PatternCache.compile("abc", Pattern.CASE_INSENSITIVE);
+        // 匹配标志不同，是不同的缓存
+        assertNotSame(p1, p2);
+        assertEquals(Pattern.CASE_INSENSITIVE, p2.flags());
+        assertTrue(p2.matcher("ABC").matches());
+        assertEquals(2, PatternCache.size());
+    }
+
+    @Test
+    public void testInvalidRegex() {
+        PatternSyntaxException e1 = assertThrows(PatternSyntaxException.class, () -> PatternCache.compile("(a"));
+        long miss = PatternCache.getMissCount();
+        // 编译失败的错误信息也被缓存，再次编译时不重新编译
+        PatternSyntaxException e2 = assertThrows(PatternSyntaxException.class, () -> PatternCache.compile("(a"));
+        assertEquals(miss, PatternCache.getMissCount());
+        assertNotSame(e1, e2);
+        assertEquals(e1.getMessage(), e2.getMessage());
+        assertNotNull(PatternCache.checkRegex("(a", 0));
+        assertNull(PatternCache.checkRegex("a", 0));
+    }
+
+    @Test
+    public void testNullRegex() {
+        assertThrows(IllegalArgumentException.class, () -> PatternCache.compile(null));
+        assertNotNull(PatternCache.checkRegex(null, 0));
+        assertEquals(0, PatternCache.size());
+    }
+
+    @Test
+    public void testEviction() {
+        long eviction = PatternCache.getEvictionCount();
+        Pattern first = PatternCache.compile("r-0");
+        for (int i = 1; i <= 2048; i++) {
+            PatternCache.compile("r-" + i);
+        }
+        // 超出容量，淘汰最久未使用的实例
+        assertEquals(2048, PatternCache.size());
+        assertEquals(eviction + 1, PatternCache.getEvictionCount());
+        assertNotSame(first, PatternCache.compile("r-0"));
+    }
+
+    @Test
+    public void testAccessOrder() {
+        Pattern first = PatternCache.compile("r-0");
+        Pattern second = PatternCache.compile("r-1");
+        Pattern third = PatternCache.compile("r-2");
+        for (int i = 3; i < 2048; i++) {
+            PatternCache.compile("r-" + i);
+        }
+        // 访问后成为最近使用的实例，超出容量时淘汰的是 r-2
+        assertSame(first, PatternCache.compile("r-0"));
+        assertSame(second, PatternCache.compile("r-1"));
+        PatternCache.compile("r-2048");
+        assertSame(first, PatternCache.compile("r-0"));
+        assertSame(second, PatternCache.compile("r-1"));
+        assertNotSame(third, PatternCache.compile("r-2"));
+    }
+}
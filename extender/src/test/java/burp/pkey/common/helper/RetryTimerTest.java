@@ -0,0 +1,142 @@
+package burp.pkey.common.helper;
+
+import burp.pkey.common.log.Logger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RetryTimer 测试
+ */
+public class RetryTimerTest {
+
+    @BeforeAll
+    public static void init() {
+        // 任务异常时打印日志
+        Logger.init(false, null, null);
+    }
+
+    @Test
+    public void testComputeDelay() {
+        assertEquals(0, RetryTimer.computeDelay(0, 3, true, true));
+        assertEquals(0, RetryTimer.computeDelay(-100, 0, false, false));
+        assertEquals(100, RetryTimer.computeDelay(100, 5, false, false));
+        assertEquals(100, RetryTimer.computeDelay(100, 0, true, false));
+        assertEquals(800, RetryTimer.computeDelay(100, 3, true, false));
+        // 负数按第一次重试处理
+        assertEquals(100, RetryTimer.computeDelay(100, -1, true, false));
+        // 最大间隔限制（次数很大时不溢出）
+        assertEquals(RetryTimer.MAX_BACKOFF_MILLIS, RetryTimer.computeDelay(100, 20, true, false));
+        assertEquals(RetryTimer.MAX_BACKOFF_MILLIS, RetryTimer.computeDelay(100, Integer.MAX_VALUE, true, false));
+        // 基础间隔大于最大间隔时，保持基础间隔
+        long base = RetryTimer.MAX_BACKOFF_MILLIS * 2;
+        assertEquals(base, RetryTimer.computeDelay(base, 4, true, false));
+    }
+
+    @Test
+    public void testJitter() {
+        for (int i = 0; i < 1000; i++) {
+            long delay = RetryTimer.computeDelay(1000, 2, true, true);
+            assertTrue(delay >= 2000 && delay <= 4000, "delay: " + delay);
+        }
+        assertEquals(1, RetryTimer.computeDelay(1, 0, false, true));
+    }
+
+    @Test
+    public void testSchedule() throws InterruptedException {
+        RetryTimer<String> timer = new RetryTimer<>("pkscan-test-retry");
+        try {
+            CountDownLatch done = new CountDownLatch(3);
+            List<String> result = Collections.synchronizedList(new ArrayList<>());
+            long start = System.nanoTime();
+            assertTrue(timer.schedule("c", 120, (task) -> {
+                result.add(task);
+                done.countDown();
+            }));
+            assertTrue(timer.schedule("b", 60, (task) -> {
+                result.add(task);
+                done.countDown();
+            }));
+            assertTrue(timer.schedule("a", 0, (task) -> {
+                result.add(task);
+                done.countDown();
+            }));
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            // 按到期时间执行
+            assertEquals(3, result.size());
+            assertEquals("a", result.get(0));
+            assertEquals("b", result.get(1));
+            assertEquals("c", result.get(2));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(120));
+            assertEquals(0, timer.getPendingCount());
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTaskError() throws InterruptedException {
+        RetryTimer<String> timer = new RetryTimer<>("pkscan-test-retry");
+        try {
+            CountDownLatch done = new CountDownLatch(1);
+            timer.schedule("a", 0, (task) -> {
+                throw new IllegalStateException("test");
+            });
+            // 任务异常不影响之后的任务
+            timer.schedule("b", 10, (task) -> done.countDown());
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCancelIf() throws InterruptedException {
+        RetryTimer<String> timer = new RetryTimer<>("pkscan-test-retry");
+        try {
+            CountDownLatch done = new CountDownLatch(1);
+            List<String> result = Collections.synchronizedList(new ArrayList<>());
+            timer.schedule("a-1", 60 * 1000, result::add);
+            timer.schedule("a-2", 60 * 1000, result::add);
+            timer.schedule("b-1", 50, (task) -> {
+                result.add(task);
+                done.countDown();
+            });
+            assertEquals(3, timer.getPendingCount());
+            List<String> cancelled = timer.cancelIf((task) -> task.startsWith("a-"));
+            Collections.sort(cancelled);
+            assertEquals(2, cancelled.size());
+            assertEquals("a-1", cancelled.get(0));
+            assertEquals("a-2", cancelled.get(1));
+            assertEquals(1, timer.getPendingCount());
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList("b-1"), result);
+            // 已执行的任务不会被取消
+            assertTrue(timer.cancelAll().isEmpty());
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testShutdown() {
+        RetryTimer<String> timer = new RetryTimer<>("pkscan-test-retry");
+        List<String> result = Collections.synchronizedList(new ArrayList<>());
+        timer.schedule("a", 60 * 1000, result::add);
+        List<String> pending = timer.shutdownNow();
+        assertEquals(Collections.singletonList("a"), pending);
+        // 关闭后不再接受任务
+        assertFalse(timer.schedule("b", 0, result::add));
+        assertEquals(0, timer.getPendingCount());
+        assertTrue(result.isEmpty());
+    }
+}
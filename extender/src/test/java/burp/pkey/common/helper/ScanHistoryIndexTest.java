@@ -0,0 +1,136 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ScanHistoryIndex 测试
+ */
+public class ScanHistoryIndexTest {
+
+    @TempDir
+    File mTempDir;
+
+    @Test
+    public void testAppendAndLoad() throws IOException {
+        String path = new File(mTempDir, "history.idx").getPath();
+        ScanHistoryIndex index = new ScanHistoryIndex(path);
+        index.open();
+        for (int i = 0; i < 10000; i++) {
+            index.append(FingerprintSet.fingerprint("req-" + i));
+        }
+        assertEquals(10000, index.getRecordCount());
+        index.close();
+
+        index = new ScanHistoryIndex(path);
+        index.open();
+        assertEquals(10000, index.getRecordCount());
+        FingerprintSet set = new FingerprintSet();
+        assertEquals(10000, index.load(set));
+        assertTrue(set.contains("req-0"));
+        assertTrue(set.contains("req-9999"));
+        assertFalse(set.contains("req-10000"));
+        index.close();
+    }
+
+    @Test
+    public void testIgnoreIncompleteRecord() throws IOException {
+        File file = new File(mTempDir, "history.idx");
+        ScanHistoryIndex index = new ScanHistoryIndex(file.getPath());
+        index.open();
+        index.append(FingerprintSet.fingerprint("a"));
+        index.append(FingerprintSet.fingerprint("b"));
+        index.close();
+        // 模拟写入过程中进程退出（末尾只写入了部分记录）
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        index = new ScanHistoryIndex(file.getPath());
+        index.open();
+        assertEquals(1, index.getRecordCount());
+        FingerprintSet set = new FingerprintSet();
+        assertEquals(1, index.load(set));
+        assertTrue(set.contains("a"));
+        index.close();
+    }
+
+    @Test
+    public void testInvalidFileRecreated() throws IOException {
+        File file = new File(mTempDir, "history.idx");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
+        }
+        ScanHistoryIndex index = new ScanHistoryIndex(file.getPath());
+        index.open();
+        assertEquals(0, index.getRecordCount());
+        assertEquals(0, index.load(new FingerprintSet()));
+        index.close();
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        String path = new File(mTempDir, "history.idx").getPath();
+        ScanHistoryIndex index = new ScanHistoryIndex(path);
+        index.open();
+        index.append(FingerprintSet.fingerprint("a"));
+        index.flush();
+        index.append(FingerprintSet.fingerprint("b"));
+        index.clear();
+        assertEquals(0, index.getRecordCount());
+        index.append(FingerprintSet.fingerprint("c"));
+        index.close();
+
+        index = new ScanHistoryIndex(path);
+        index.open();
+        FingerprintSet set = new FingerprintSet();
+        assertEquals(1, index.load(set));
+        assertFalse(set.contains("a"));
+        assertFalse(set.contains("b"));
+        assertTrue(set.contains("c"));
+        index.close();
+    }
+
+    /**
+     * 加载期间清空：清空完成后，加载线程不再向指纹集合添加记录
+     */
+    @Test
+    public void testClearStopsLoader() throws Exception {
+        String path = new File(mTempDir, "history.idx").getPath();
+        ScanHistoryIndex index = new ScanHistoryIndex(path);
+        index.open();
+        for (int i = 0; i < 2000000; i++) {
+            index.append(FingerprintSet.fingerprint("req-" + i));
+        }
+        index.close();
+
+        ScanHistoryIndex reopened = new ScanHistoryIndex(path);
+        reopened.open();
+        FingerprintSet set = new FingerprintSet();
+        int[] loaded = new int[1];
+        Thread loader = new Thread(() -> {
+            try {
+                loaded[0] = reopened.load(set);
+            } catch (IOException e) {
+                loaded[0] = -1;
+            }
+        });
+        loader.start();
+        Thread.sleep(10);
+        reopened.clear();
+        set.clear();
+        loader.join(30000);
+        assertFalse(loader.isAlive());
+        assertTrue(loaded[0] >= 0);
+        assertEquals(0, set.size());
+        assertEquals(0, reopened.getRecordCount());
+        reopened.close();
+    }
+}
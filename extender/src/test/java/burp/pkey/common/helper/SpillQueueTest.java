@@ -0,0 +1,137 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SpillQueue 测试（包括任务调度器通过 {@link HostTaskScheduler.TaskCodec} 溢出到磁盘）
+ */
+public class SpillQueueTest {
+
+    @Test
+    public void testFifo() throws IOException {
+        SpillQueue queue = new SpillQueue("pkscan-test-");
+        try {
+            assertNull(queue.poll());
+            for (int i = 0; i < 100; i++) {
+                queue.push("host-" + i, new byte[]{(byte) i, 1, 2});
+                // 交替读取，读取位置与写入位置互不影响
+                if (i % 3 == 0) {
+                    queue.push("extra-" + i, new byte[0]);
+                }
+            }
+            for (int i = 0; i < 100; i++) {
+                SpillQueue.Item item = queue.poll();
+                assertEquals("host-" + i, item.getKey());
+                assertArrayEquals(new byte[]{(byte) i, 1, 2}, item.getData());
+                if (i % 3 == 0) {
+                    item = queue.poll();
+                    assertEquals("extra-" + i, item.getKey());
+                    assertEquals(0, item.getData().length);
+                }
+            }
+            assertEquals(0, queue.size());
+            assertNull(queue.poll());
+            // 队列清空后，可以继续使用
+            queue.push("a", new byte[]{1});
+            assertEquals("a", queue.poll().getKey());
+        } finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        SpillQueue queue = new SpillQueue("pkscan-test-");
+        queue.push("a", new byte[]{1});
+        queue.close();
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testSchedulerSpill() throws Exception {
+        HostTaskScheduler scheduler = new HostTaskScheduler(1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(50);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        IdTask.sStarted = started;
+        IdTask.sGate = gate;
+        IdTask.sDone = done;
+        IdTask.sExecuted = executed;
+        scheduler.setTaskCodec(new IdTaskCodec());
+        scheduler.setQueueLimits(4, HostTaskScheduler.POLICY_SPILL);
+        try {
+            for (int i = 0; i < 50; i++) {
+                scheduler.execute("host", new IdTask(i));
+            }
+            // 第一个任务阻塞执行中，其余任务在队列中（超出容量的部分溢出到磁盘）
+            assertTrue(started.await(30, TimeUnit.SECONDS));
+            assertTrue(scheduler.getSpillSize() > 0);
+            assertEquals(49, scheduler.getQueueSize());
+            gate.countDown();
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                expected.add(i);
+            }
+            // 同一主机只有一个并发，溢出的任务按提交顺序执行
+            assertEquals(expected, executed);
+            assertEquals(0, scheduler.getQueueSize());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static class IdTask implements Runnable {
+
+        private static volatile CountDownLatch sStarted;
+        private static volatile CountDownLatch sGate;
+        private static volatile CountDownLatch sDone;
+        private static volatile List<Integer> sExecuted;
+
+        private final int id;
+
+        private IdTask(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            sStarted.countDown();
+            try {
+                sGate.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            sExecuted.add(id);
+            sDone.countDown();
+        }
+    }
+
+    private static class IdTaskCodec implements HostTaskScheduler.TaskCodec {
+
+        @Override
+        public byte[] encode(Runnable task) {
+            return ByteBuffer.allocate(4).putInt(((IdTask) task).id).array();
+        }
+
+        @Override
+        public Runnable decode(byte[] data) {
+            return new IdTask(ByteBuffer.wrap(data).getInt());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TokenBucket、QpsLimiter 测试
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void testBurst() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+        assertFalse(bucket.isFull(System.nanoTime()));
+    }
+
+    @Test
+    public void testReserve() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long interval = TimeUnit.MILLISECONDS.toNanos(100);
+        long now = System.nanoTime();
+        assertEquals(now, bucket.reserve(now));
+        assertEquals(now + interval, bucket.reserve(now));
+        assertEquals(now + interval * 2, bucket.reserve(now));
+        // 预约的令牌使用前，令牌桶未满
+        assertFalse(bucket.isFull(now + interval * 2));
+        assertTrue(bucket.isFull(now + interval * 3));
+    }
+
+    @Test
+    public void testRefill() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        Thread.sleep(30);
+        assertTrue(bucket.isFull(System.nanoTime()));
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    public void testHostLimit() {
+        QpsLimiter limiter = new QpsLimiter(0, 0, 1, 0);
+        assertTrue(limiter.tryAcquire("a"));
+        assertFalse(limiter.tryAcquire("a"));
+        // 每个主机独立限制
+        assertTrue(limiter.tryAcquire("b"));
+        assertEquals(2, limiter.getHostBucketCount());
+    }
+}
@@ -0,0 +1,47 @@
+package burp.pkey.common.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * XxHash64 测试（参考实现的测试向量）
+ */
+public class XxHash64Test {
+
+    @Test
+    public void testReferenceVectors() {
+        assertEquals(0xef46db3751d8e999L, hash(""));
+        assertEquals(0xd24ec4f1a98c6e5bL, hash("a"));
+        assertEquals(0x44bc2cf5ad770999L, hash("abc"));
+        assertEquals(0xfbcea83c8a378bf1L, hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void testOffsetEqualsCopy() {
+        Random random = new Random(1);
+        byte[] data = new byte[256];
+        random.nextBytes(data);
+        for (int offset = 0; offset < 16; offset++) {
+            for (int length = 0; offset + length <= data.length; length += 7) {
+                byte[] copy = Arrays.copyOfRange(data, offset, offset + length);
+                assertEquals(XxHash64.hash(copy, 42), XxHash64.hash(data, offset, length, 42));
+            }
+        }
+    }
+
+    @Test
+    public void testSeed() {
+        byte[] data = "abc".getBytes(StandardCharsets.UTF_8);
+        assertNotEquals(XxHash64.hash(data, 0), XxHash64.hash(data, 1));
+    }
+
+    private static long hash(String text) {
+        return XxHash64.hash(text.getBytes(StandardCharsets.UTF_8), 0);
+    }
+}
@@ -0,0 +1,218 @@
+package burp.pkey.onescan.common;
+
+import burp.pkey.onescan.ui.widget.payloadlist.PayloadItem;
+import burp.pkey.onescan.ui.widget.payloadlist.PayloadRule;
+import burp.pkey.onescan.ui.widget.payloadlist.ProcessingItem;
+import burp.pkey.onescan.ui.widget.payloadlist.rule.AddPrefix;
+import burp.pkey.onescan.ui.widget.payloadlist.rule.AddSuffix;
+import burp.pkey.onescan.ui.widget.payloadlist.rule.ConditionCheck;
+import burp.pkey.onescan.ui.widget.payloadlist.rule.MatchReplace;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ProcessingPipeline 测试（与原有的 handlePayloadProcess 实现对比）
+ */
+public class ProcessingPipelineTest {
+
+    private static final String REQUEST = "POST /api/user?id=1 HTTP/1.1\r\nHost: example.com\r\n" +
+            "Cookie: a=1\r\n\r\nname=test&id=1";
+
+    @Test
+    public void testCompile() {
+        ProcessingItem merge1 = item("merge1", true, true, payload(PayloadRule.SCOPE_URL, prefix("/v1")));
+        ProcessingItem merge2 = item("merge2", true, true, payload(PayloadRule.SCOPE_BODY, suffix("&a=b")));
+        ProcessingItem disabled = item("disabled", false, false, payload(PayloadRule.SCOPE_BODY, suffix("x")));
+        ProcessingItem single = item("single", true, false, payload(PayloadRule.SCOPE_HEADER, suffix("\r\nX-A: 1")));
+        List<ProcessingItem> source = Arrays.asList(merge1, disabled, single, merge2);
+        ProcessingPipeline pipeline = ProcessingPipeline.compile(source);
+        assertEquals(1, pipeline.getWithoutMergeStages().size());
+        assertEquals("single", pipeline.getWithoutMergeStages().get(0).getName());
+        assertNull(pipeline.getMergeStage().getName());
+        assertEquals("POST /v1/api/user?id=1 HTTP/1.1\r\nHost: example.com\r\nCookie: a=1\r\n\r\nname=test&id=1&a=b",
+                pipeline.getMergeStage().process(REQUEST));
+        assertEquals(3, pipeline.getStats().size());
+
+        ProcessingPipeline empty = ProcessingPipeline.compile(Collections.singletonList(disabled));
+        assertNull(empty.getMergeStage());
+        assertTrue(empty.getWithoutMergeStages().isEmpty());
+        assertNull(ProcessingPipeline.compile(null).getMergeStage());
+    }
+
+    @Test
+    public void testSourceChanged() {
+        ProcessingItem item = item("merge", true, true, payload(PayloadRule.SCOPE_BODY, suffix("&a=b")));
+        List<ProcessingItem> source = new ArrayList<>(Collections.singletonList(item));
+        ProcessingPipeline pipeline = ProcessingPipeline.compile(source);
+        // 编译后修改规则配置，不影响已编译的流水线（配置变更时重新编译）
+        item.getItems().add(payload(PayloadRule.SCOPE_BODY, suffix("&c=d")));
+        item.setMerge(false);
+        source.add(item("single", true, false, payload(PayloadRule.SCOPE_URL, prefix("/v1"))));
+        assertEquals(REQUEST + "&a=b", pipeline.getMergeStage().process(REQUEST));
+        assertTrue(pipeline.getWithoutMergeStages().isEmpty());
+        ProcessingPipeline recompiled = ProcessingPipeline.compile(source);
+        assertNull(recompiled.getMergeStage());
+        assertEquals(2, recompiled.getWithoutMergeStages().size());
+        assertEquals(REQUEST + "&a=b&c=d", recompiled.getWithoutMergeStages().get(0).process(REQUEST));
+    }
+
+    @Test
+    public void testConditionFailure() {
+        ProcessingItem item = item("check", true, false,
+                payload(PayloadRule.SCOPE_BODY, suffix("&a=b")),
+                payload(PayloadRule.SCOPE_HEADER, condition("Content-Type: application/json")),
+                payload(PayloadRule.SCOPE_BODY, suffix("&c=d")));
+        ProcessingPipeline pipeline = ProcessingPipeline.compile(Collections.singletonList(item));
+        ProcessingPipeline.Stage stage = pipeline.getWithoutMergeStages().get(0);
+        assertNull(stage.process(REQUEST));
+        assertEquals(REQUEST.replace("Cookie", "Content-Type: application/json\r\nCookie") + "&a=b&c=d",
+                stage.process(REQUEST.replace("Cookie", "Content-Type: application/json\r\nCookie")));
+        List<ProcessingPipeline.StepStats> stats = pipeline.getStats();
+        assertEquals("check", stats.get(1).getItemName());
+        assertEquals(1, stats.get(1).getIndex());
+        assertEquals(2, stats.get(0).getCount());
+        assertEquals(2, stats.get(1).getCount());
+        assertEquals(1, stats.get(1).getFailures());
+        // 中断后不再执行后续规则
+        assertEquals(1, stats.get(2).getCount());
+        assertEquals(0, stats.get(2).getFailures());
+    }
+
+    @Test
+    public void testRandomEquivalence() {
+        Random random = new Random(20240521L);
+        for (int round = 0; round < 2000; round++) {
+            List<PayloadItem> payloads = new ArrayList<>();
+            int count = 1 + random.nextInt(5);
+            for (int i = 0; i < count; i++) {
+                payloads.add(randomPayload(random));
+            }
+            // 原有实现对整个请求包操作后，不再重新解析请求头、请求体，只对比放在最后的情况
+            if (random.nextBoolean()) {
+                payloads.add(payload(PayloadRule.SCOPE_REQUEST,
+                        random.nextBoolean() ? suffix("&end=1") : replace("HTTP/1\\.1", "HTTP/1.0")));
+            }
+            ProcessingItem item = item("random", true, random.nextBoolean(), payloads.toArray(new PayloadItem[0]));
+            ProcessingPipeline pipeline = ProcessingPipeline.compile(Collections.singletonList(item));
+            ProcessingPipeline.Stage stage = item.isMerge() ? pipeline.getMergeStage() :
+                    pipeline.getWithoutMergeStages().get(0);
+            String request = random.nextBoolean() ? REQUEST : REQUEST.substring(0, REQUEST.indexOf("\r\n\r\n") + 4);
+            assertEquals(baseline(request, payloads), stage.process(request));
+        }
+    }
+
+    private static PayloadItem randomPayload(Random random) {
+        switch (random.nextInt(8)) {
+            case 0:
+                return payload(PayloadRule.SCOPE_URL, prefix("/prefix"));
+            case 1:
+                return payload(PayloadRule.SCOPE_URL, suffix(";.js"));
+            case 2:
+                return payload(PayloadRule.SCOPE_URL, replace("id=\\d+", "id=2"));
+            case 3:
+                return payload(PayloadRule.SCOPE_HEADER, suffix("\r\nX-Forwarded-For: 127.0.0.1"));
+            case 4:
+                return payload(PayloadRule.SCOPE_HEADER, replace("Cookie: .*", "Cookie: b=2"));
+            case 5:
+                return payload(PayloadRule.SCOPE_BODY, prefix("a=b&"));
+            case 6:
+                return payload(PayloadRule.SCOPE_BODY, replace("test", "admin"));
+            default:
+                return payload(PayloadRule.SCOPE_BODY, condition(random.nextBoolean() ? "name=" : "not-exists"));
+        }
+    }
+
+    /**
+     * 原有的 handlePayloadProcess 实现（不包含动态变量填充、Content-Length 更新）
+     */
+    private static String baseline(String request, List<PayloadItem> list) {
+        int bodyOffset = request.indexOf("\r\n\r\n") + 4;
+        String header = request.substring(0, bodyOffset - 4);
+        String body = request.substring(bodyOffset);
+        String reqLine0 = header.substring(0, header.indexOf("\r\n"));
+        Matcher m = Constants.REGEX_REQ_LINE_URL.matcher(reqLine0);
+        String url = m.find() ? m.group(1) : "";
+        for (PayloadItem item : list) {
+            PayloadRule rule = item.getRule();
+            try {
+                switch (item.getScope()) {
+                    case PayloadRule.SCOPE_URL:
+                        String newUrl = rule.handleProcess(url);
+                        String reqLine = header.substring(0, header.indexOf("\r\n"));
+                        Matcher matcher = Constants.REGEX_REQ_LINE_URL.matcher(reqLine);
+                        if (matcher.find()) {
+                            header = header.substring(0, matcher.start(1)) + newUrl + header.substring(matcher.end(1));
+                            request = header + "\r\n\r\n" + body;
+                        }
+                        url = newUrl;
+                        break;
+                    case PayloadRule.SCOPE_HEADER:
+                        header = rule.handleProcess(header);
+                        request = header + "\r\n\r\n" + body;
+                        break;
+                    case PayloadRule.SCOPE_BODY:
+                        body = rule.handleProcess(body);
+                        request = header + "\r\n\r\n" + body;
+                        break;
+                    case PayloadRule.SCOPE_REQUEST:
+                        request = rule.handleProcess(request);
+                        break;
+                }
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return request;
+    }
+
+    private static ProcessingItem item(String name, boolean enabled, boolean merge, PayloadItem... payloads) {
+        ProcessingItem item = new ProcessingItem();
+        item.setName(name);
+        item.setEnabled(enabled);
+        item.setMerge(merge);
+        item.setItems(new ArrayList<>(Arrays.asList(payloads)));
+        return item;
+    }
+
+    private static PayloadItem payload(int scope, PayloadRule rule) {
+        PayloadItem item = new PayloadItem();
+        item.setScope(scope);
+        item.setRule(rule);
+        return item;
+    }
+
+    private static PayloadRule prefix(String value) {
+        PayloadRule rule = new AddPrefix();
+        rule.setParamValue(0, value);
+        return rule;
+    }
+
+    private static PayloadRule suffix(String value) {
+        PayloadRule rule = new AddSuffix();
+        rule.setParamValue(0, value);
+        return rule;
+    }
+
+    private static PayloadRule replace(String regex, String value) {
+        PayloadRule rule = new MatchReplace();
+        rule.setParamValue(0, regex);
+        rule.setParamValue(1, value);
+        return rule;
+    }
+
+    private static PayloadRule condition(String regex) {
+        PayloadRule rule = new ConditionCheck();
+        rule.setParamValue(0, regex);
+        return rule;
+    }
+}
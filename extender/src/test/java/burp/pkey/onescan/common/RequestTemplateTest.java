@@ -0,0 +1,329 @@
+package burp.pkey.onescan.common;
+
+import burp.pkey.common.utils.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RequestTemplate 测试（与原有的 handleHeader、setupVariable、updateContentLength 实现对比）
+ */
+public class RequestTemplateTest {
+
+    private static final String[] HEADER_KEYS = {"Host", "User-Agent", "Accept", "Cookie", "Referer",
+            "X-Forwarded-For", "Content-Type", "Authorization"};
+
+    private static final String[] VARIABLES = {"{{host}}", "{{domain}}", "{{timestamp}}", "{{unknown}}"};
+
+    @Test
+    public void testScanRequest() {
+        List<String> headers = Arrays.asList("POST /api/login?a=1 HTTP/2", "Host: example.com",
+                "Content-Length: 11", "Cookie: a=1", "Accept: */*");
+        List<String> config = Arrays.asList("Cookie: b=2", "X-Forwarded-For: 127.0.0.1", "Referer: x");
+        List<String> remove = Collections.singletonList("Referer");
+        byte[] body = bytes("hello=world");
+        RequestTemplate template = RequestTemplate.compile(headers, body, config, remove, true);
+        assertFalse(template.hasVariable());
+        for (String path : new String[]{"/", "/admin/", "/a?b=c"}) {
+            assertArrayEquals(baseline(headers, body, config, remove, true, path), template.build(path));
+        }
+    }
+
+    @Test
+    public void testNormalRequest() {
+        List<String> headers = Arrays.asList("POST /api/login HTTP/2", "Host: example.com",
+                "Content-Length: 3", "Cookie: a=1", "Accept: */*");
+        List<String> config = Arrays.asList("Cookie: b=2", "X-Forwarded-For: 127.0.0.1");
+        byte[] body = bytes("hello=world");
+        RequestTemplate template = RequestTemplate.compile(headers, body, config,
+                Collections.singletonList("Accept"), false);
+        assertArrayEquals(baseline(headers, body, config, Collections.singletonList("Accept"), false, null),
+                template.build(null));
+        // 不存在 Content-Length 时追加
+        headers = Arrays.asList("PUT /a HTTP/1.0", "Host: example.com");
+        template = RequestTemplate.compile(headers, body, config, Collections.emptyList(), false);
+        assertArrayEquals(baseline(headers, body, config, Collections.emptyList(), false, null),
+                template.build(null));
+        // 畸形数据包（不存在协议版本），不存在请求体
+        headers = Arrays.asList("GET /a", "Host: example.com");
+        template = RequestTemplate.compile(headers, new byte[0], config, Collections.emptyList(), false);
+        assertArrayEquals(baseline(headers, new byte[0], config, Collections.emptyList(), false, null),
+                template.build(null));
+    }
+
+    @Test
+    public void testHasVariable() {
+        List<String> headers = Arrays.asList("GET /a HTTP/1.1", "Host: example.com");
+        assertTrue(RequestTemplate.compile(headers, null, Collections.singletonList("X-Host: {{host}}"),
+                Collections.emptyList(), true).hasVariable());
+        assertTrue(RequestTemplate.compile(Arrays.asList("GET /{{domain}} HTTP/1.1", "Host: a"), null,
+                Collections.emptyList(), Collections.emptyList(), false).hasVariable());
+        assertFalse(RequestTemplate.compile(headers, null, Collections.emptyList(),
+                Collections.emptyList(), false).hasVariable());
+    }
+
+    @Test
+    public void testRandomEquivalence() {
+        Random random = new Random(20240521L);
+        for (int round = 0; round < 2000; round++) {
+            List<String> headers = new ArrayList<>();
+            headers.add(random.nextBoolean() ? "POST /p/" + round + " HTTP/1.1" : "GET /p?x=" + round + " HTTP/2");
+            int count = random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                headers.add(randomHeader(random));
+            }
+            if (random.nextBoolean()) {
+                headers.add(1 + random.nextInt(headers.size()), "Content-Length: " + random.nextInt(100));
+            }
+            List<String> config = new ArrayList<>();
+            count = random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                config.add(randomHeader(random));
+            }
+            List<String> remove = new ArrayList<>();
+            count = random.nextInt(3);
+            for (int i = 0; i < count; i++) {
+                remove.add(HEADER_KEYS[random.nextInt(HEADER_KEYS.length)]);
+            }
+            byte[] body = new byte[random.nextInt(3) == 0 ? 0 : random.nextInt(64)];
+            for (int i = 0; i < body.length; i++) {
+                body[i] = (byte) ('a' + random.nextInt(26));
+            }
+            boolean scan = random.nextBoolean();
+            String path = "/dir" + round + "/";
+            RequestTemplate template = RequestTemplate.compile(headers, body, config, remove, scan);
+            assertArrayEquals(baseline(headers, body, config, remove, scan, path), template.build(path),
+                    "headers=" + headers + ", config=" + config + ", remove=" + remove + ", scan=" + scan);
+        }
+    }
+
+    @Test
+    public void testBuildWithVariables() {
+        Map<String, String> values = variableValues();
+        List<String> headers = Arrays.asList("POST /api/{{domain}} HTTP/1.1", "Host: {{host}}",
+                "Content-Length: 3", "Cookie: a=1");
+        List<String> config = Collections.singletonList("X-Time: {{timestamp}}");
+        byte[] body = bytes("host={{host}}&x={{unknown}}");
+        RequestTemplate template = RequestTemplate.compile(headers, body, config, Collections.emptyList(), false);
+        assertTrue(template.hasVariable());
+        // 请求体中的变量填充后长度变化，更新 Content-Length
+        assertArrayEquals(baselineFill(baselineRaw(headers, body, config, Collections.emptyList(), false, null),
+                values), template.build(null, values::get));
+        // 扫描的请求路径中包含变量
+        template = RequestTemplate.compile(headers, body, Collections.emptyList(), Collections.emptyList(), true);
+        String path = "/{{domain}}/backup.zip";
+        assertArrayEquals(baselineFill(baselineRaw(headers, body, Collections.emptyList(), Collections.emptyList(),
+                true, path), values), template.build(path, values::get));
+        // 不包含变量时，与不填充变量的结果一致
+        headers = Arrays.asList("GET /a HTTP/1.1", "Host: example.com");
+        template = RequestTemplate.compile(headers, bytes("a=1"), Collections.emptyList(), Collections.emptyList(),
+                false);
+        assertFalse(template.hasVariable());
+        assertArrayEquals(template.build(null), template.build(null, name -> {
+            throw new AssertionError("resolve " + name);
+        }));
+    }
+
+    @Test
+    public void testBuildResolveError() {
+        List<String> headers = Arrays.asList("GET / HTTP/1.1", "Host: {{host}}");
+        RequestTemplate template = RequestTemplate.compile(headers, null, Collections.emptyList(),
+                Collections.emptyList(), false);
+        assertThrows(IllegalArgumentException.class, () -> template.build(null, name -> {
+            throw new IllegalArgumentException(name + " fill failed, value is empty.");
+        }));
+        // 变量取值失败不影响同一线程之后生成的请求
+        assertArrayEquals(bytes("GET / HTTP/1.1\r\nHost: www.example.com\r\n\r\n"),
+                template.build(null, variableValues()::get));
+    }
+
+    @Test
+    public void testRandomVariableEquivalence() {
+        Random random = new Random(20240522L);
+        Map<String, String> values = variableValues();
+        for (int round = 0; round < 2000; round++) {
+            List<String> headers = new ArrayList<>();
+            headers.add("POST /p/" + randomVariable(random) + " HTTP/1.1");
+            int count = random.nextInt(5);
+            for (int i = 0; i < count; i++) {
+                headers.add(randomHeader(random) + randomVariable(random));
+            }
+            if (random.nextBoolean()) {
+                headers.add(1 + random.nextInt(headers.size()), "Content-Length: " + random.nextInt(100));
+            }
+            List<String> config = new ArrayList<>();
+            count = random.nextInt(3);
+            for (int i = 0; i < count; i++) {
+                config.add(randomHeader(random) + randomVariable(random));
+            }
+            String bodyText = random.nextInt(3) == 0 ? "" : "a=" + randomVariable(random) + "&b=" + round;
+            byte[] body = bytes(bodyText);
+            boolean scan = random.nextBoolean();
+            String path = "/dir" + round + "/" + randomVariable(random);
+            RequestTemplate template = RequestTemplate.compile(headers, body, config, Collections.emptyList(), scan);
+            byte[] expected = baselineFill(baselineRaw(headers, body, config, Collections.emptyList(), scan, path),
+                    values);
+            assertArrayEquals(expected, template.build(path, values::get),
+                    "headers=" + headers + ", config=" + config + ", body=" + bodyText + ", scan=" + scan);
+        }
+    }
+
+    @Test
+    public void testFill() {
+        Map<String, String> values = variableValues();
+        String request = "POST /{{domain}} HTTP/1.1\r\nHost: {{host}}\r\nContent-Length: 1\r\n\r\nt={{timestamp}}";
+        // 只填充变量，不更新 Content-Length
+        assertArrayEquals(bytes(request.replace("{{domain}}", "example.com").replace("{{host}}", "www.example.com")
+                        .replace("{{timestamp}}", "1700000000")),
+                RequestTemplate.fill(VariableTemplate.compile(request), values::get));
+        assertArrayEquals(bytes("GET / HTTP/1.1\r\n\r\n"),
+                RequestTemplate.fill(VariableTemplate.compile("GET / HTTP/1.1\r\n\r\n"), values::get));
+    }
+
+    @Test
+    public void testUpdateContentLength() {
+        String[] requests = {
+                "POST / HTTP/1.1\r\nHost: a\r\nContent-Length: 1\r\n\r\nabcdef",
+                "POST / HTTP/1.1\r\nContent-Length: 100\r\nHost: a\r\n\r\nabc",
+                "POST / HTTP/1.1\r\nHost: a\r\n\r\nabc\r\n\r\ndef",
+                "POST / HTTP/1.1\r\n\r\nx",
+                "GET / HTTP/1.1\r\nHost: a\r\n\r\n",
+        };
+        for (String request : requests) {
+            byte[] raw = bytes(request);
+            assertArrayEquals(baselineUpdateContentLength(raw), RequestTemplate.updateContentLength(raw), request);
+        }
+        byte[] raw = bytes("GET / HTTP/1.1\r\nHost: a\r\n\r\n");
+        assertSame(raw, RequestTemplate.updateContentLength(raw));
+        assertNull(RequestTemplate.updateContentLength(bytes("GET / HTTP/1.1\r\nHost: a\r\n")));
+    }
+
+    private static Map<String, String> variableValues() {
+        Map<String, String> values = new HashMap<>();
+        values.put("host", "www.example.com");
+        values.put("domain", "example.com");
+        values.put("timestamp", "1700000000");
+        return values;
+    }
+
+    private static String randomVariable(Random random) {
+        return random.nextBoolean() ? "" : VARIABLES[random.nextInt(VARIABLES.length)];
+    }
+
+    private static String randomHeader(Random random) {
+        String key = HEADER_KEYS[random.nextInt(HEADER_KEYS.length)];
+        return key + ": v" + random.nextInt(1000);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 原有的 handleHeader 实现（不包含动态变量填充）
+     */
+    private static byte[] baseline(List<String> headers, byte[] body, List<String> configHeader,
+                                   List<String> removeHeaders, boolean scan, String pathWithQuery) {
+        return baselineUpdateContentLength(bytes(baselineRaw(headers, body, configHeader, removeHeaders, scan,
+                pathWithQuery)));
+    }
+
+    /**
+     * 原有的 setupVariable 实现（逐个变量执行 replace 后，再更新 Content-Length）
+     */
+    private static byte[] baselineFill(String requestRaw, Map<String, String> values) {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            requestRaw = requestRaw.replace("{{" + entry.getKey() + "}}", entry.getValue());
+        }
+        return baselineUpdateContentLength(bytes(requestRaw));
+    }
+
+    /**
+     * 原有的 handleHeader 实现拼接的请求数据包（未更新 Content-Length）
+     */
+    private static String baselineRaw(List<String> headers, byte[] body, List<String> configHeader,
+                                      List<String> removeHeaders, boolean scan, String pathWithQuery) {
+        List<String> config = new ArrayList<>(configHeader);
+        StringBuilder requestRaw = new StringBuilder();
+        if (scan) {
+            requestRaw.append("GET ").append(pathWithQuery).append(" HTTP/1.1").append("\r\n");
+        } else {
+            String reqLine = headers.get(0);
+            if (reqLine.contains(" HTTP/")) {
+                int start = reqLine.lastIndexOf(" HTTP/");
+                reqLine = reqLine.substring(0, start) + " HTTP/1.1";
+            }
+            requestRaw.append(reqLine).append("\r\n");
+        }
+        for (int i = 1; i < headers.size(); i++) {
+            String item = headers.get(i);
+            String key = item.split(": ")[0];
+            if (removeHeaders.contains(key)) {
+                continue;
+            }
+            if (scan && "Content-Length".equalsIgnoreCase(key)) {
+                continue;
+            }
+            String matchItem = config.stream().filter(configHeaderItem -> {
+                if (StringUtils.isNotEmpty(configHeaderItem) && configHeaderItem.contains(": ")) {
+                    return configHeaderItem.split(": ")[0].equals(key);
+                }
+                return false;
+            }).findFirst().orElse(null);
+            if (matchItem != null) {
+                requestRaw.append(matchItem).append("\r\n");
+                config.remove(matchItem);
+            } else {
+                requestRaw.append(item).append("\r\n");
+            }
+        }
+        for (String item : config) {
+            if (!removeHeaders.contains(item.split(": ")[0])) {
+                requestRaw.append(item).append("\r\n");
+            }
+        }
+        requestRaw.append("\r\n");
+        if (!scan && body != null && body.length > 0) {
+            requestRaw.append(new String(body, StandardCharsets.ISO_8859_1));
+        }
+        return requestRaw.toString();
+    }
+
+    /**
+     * 原有的 updateContentLength 实现
+     */
+    private static byte[] baselineUpdateContentLength(byte[] rawBytes) {
+        String temp = new String(rawBytes, StandardCharsets.US_ASCII);
+        int bodyOffset = temp.indexOf("\r\n\r\n");
+        if (bodyOffset == -1) {
+            return null;
+        }
+        bodyOffset += 4;
+        int bodySize = rawBytes.length - bodyOffset;
+        if (bodySize == 0) {
+            return rawBytes;
+        }
+        String header = new String(rawBytes, 0, bodyOffset - 4);
+        if (!header.contains("Content-Length")) {
+            header += "\r\nContent-Length: " + bodySize;
+        } else {
+            header = header.replaceAll("Content-Length:.*", "Content-Length: " + bodySize);
+        }
+        String body = new String(rawBytes, bodyOffset, bodySize);
+        return (header + "\r\n\r\n" + body).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,166 @@
+package burp.pkey.onescan.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ScanSessionManager、ScanSession 测试
+ */
+public class ScanSessionManagerTest {
+
+    @Test
+    public void testSourceSession() {
+        ScanSessionManager manager = new ScanSessionManager();
+        ScanSession session = manager.newSession(ScanSession.TYPE_PROXY, "proxy");
+        // 创建者持有一个计数，生成任务期间不会被移除
+        assertEquals(1, session.getPendingCount());
+        manager.acquire(session);
+        manager.acquire(session);
+        manager.release(session, true);
+        manager.release(session, false);
+        assertSame(session, manager.get(session.getId()));
+        assertEquals(1, session.getCompletedCount());
+        // 创建者释放后，没有未完成的任务，会话移除
+        manager.release(session, false);
+        assertNull(manager.get(session.getId()));
+        assertEquals(0, manager.getSessionCount());
+    }
+
+    @Test
+    public void testHostSession() {
+        ScanSessionManager manager = new ScanSessionManager();
+        ScanSession s1 = manager.acquireHostSession("http://a");
+        ScanSession s2 = manager.acquireHostSession("http://a");
+        assertSame(s1, s2);
+        assertEquals(2, s1.getPendingCount());
+        assertEquals(ScanSession.TYPE_HOST, s1.getType());
+        assertNotSame(s1, manager.acquireHostSession("http://b"));
+        manager.release(s1, true);
+        manager.release(s1, true);
+        // 空闲的主机会话被移除，之后的任务使用新的会话
+        assertNull(manager.get(s1.getId()));
+        ScanSession s3 = manager.acquireHostSession("http://a");
+        assertNotSame(s1, s3);
+        assertEquals(2, manager.getSessionCount());
+    }
+
+    @Test
+    public void testPauseResume() {
+        ScanSessionManager manager = new ScanSessionManager();
+        ScanSession session = manager.newSession(ScanSession.TYPE_IMPORT, "urls");
+        Runnable task = () -> {
+        };
+        // 未暂停时不挂起
+        assertFalse(session.park(task));
+        assertTrue(manager.pause(session.getId()));
+        assertFalse(manager.pause(session.getId()));
+        assertEquals(ScanSession.STATE_PAUSED, session.getState());
+        assertTrue(session.park(task));
+        assertTrue(session.park(task));
+        assertEquals(2, session.getParkedCount());
+        List<Runnable> tasks = manager.resume(session.getId());
+        assertEquals(2, tasks.size());
+        assertSame(task, tasks.get(0));
+        assertEquals(0, session.getParkedCount());
+        assertEquals(ScanSession.STATE_RUNNING, session.getState());
+        // 未暂停的会话恢复时，没有任务
+        assertTrue(manager.resume(session.getId()).isEmpty());
+        // 不存在的会话
+        assertFalse(manager.pause(-1));
+        assertTrue(manager.resume(-1).isEmpty());
+        assertTrue(manager.cancel(-1).isEmpty());
+    }
+
+    @Test
+    public void testPausedHostSession() {
+        ScanSessionManager manager = new ScanSessionManager();
+        ScanSession session = manager.acquireHostSession("http://a");
+        assertTrue(manager.pause(session.getId()));
+        manager.release(session, true);
+        // 暂停的主机会话没有任务时保留，之后的任务继续挂起
+        assertSame(session, manager.get(session.getId()));
+        assertSame(session, manager.acquireHostSession("http://a"));
+        assertEquals(1, manager.getSessions().size());
+        manager.release(session, false);
+        // 恢复后，空闲的主机会话被移除
+        assertTrue(manager.resume(session.getId()).isEmpty());
+        assertNull(manager.get(session.getId()));
+        assertTrue(manager.getSessions().isEmpty());
+    }
+
+    @Test
+    public void testCancel() {
+        ScanSessionManager manager = new ScanSessionManager();
+        ScanSession session = manager.newSession(ScanSession.TYPE_SEND, "send");
+        manager.acquire(session);
+        assertTrue(manager.pause(session.getId()));
+        Runnable task = () -> {
+        };
+        session.park(task);
+        List<Runnable> tasks = manager.cancel(session.getId());
+        assertEquals(1, tasks.size());
+        assertTrue(session.isCancelled());
+        // 取消后不能暂停、挂起
+        assertFalse(manager.pause(session.getId()));
+        assertFalse(session.park(task));
+        manager.release(session, false);
+        manager.release(session, false);
+        assertNull(manager.get(session.getId()));
+    }
+
+    @Test
+    public void testCancelHostSession() {
+        ScanSessionManager manager = new ScanSessionManager();
+        ScanSession session = manager.acquireHostSession("http://a");
+        manager.cancel(session.getId());
+        // 取消的主机会话由新的会话替代，之后的任务不受影响
+        ScanSession next = manager.acquireHostSession("http://a");
+        assertNotSame(session, next);
+        assertFalse(next.isCancelled());
+        // 正在执行的任务结束后，取消的会话被移除
+        assertSame(session, manager.get(session.getId()));
+        manager.release(session, true);
+        assertNull(manager.get(session.getId()));
+        assertSame(next, manager.get(next.getId()));
+    }
+
+    @Test
+    public void testCancelAll() {
+        ScanSessionManager manager = new ScanSessionManager();
+        ScanSession s1 = manager.newSession(ScanSession.TYPE_PROXY, "proxy");
+        ScanSession s2 = manager.acquireHostSession("http://a");
+        manager.pause(s1.getId());
+        s1.park(() -> {
+        });
+        assertEquals(1, manager.cancelAll().size());
+        assertTrue(s1.isCancelled());
+        assertTrue(s2.isCancelled());
+        // 没有未完成任务的取消的主机会话直接移除
+        ScanSession idle = manager.acquireHostSession("http://b");
+        manager.release(idle, true);
+        manager.release(s2, false);
+        manager.release(s1, false);
+        assertEquals(0, manager.getSessionCount());
+    }
+
+    @Test
+    public void testSessionOrder() {
+        ScanSessionManager manager = new ScanSessionManager();
+        ScanSession s1 = manager.newSession(ScanSession.TYPE_PROXY, "p1");
+        ScanSession s2 = manager.acquireHostSession("http://a");
+        ScanSession s3 = manager.newSession(ScanSession.TYPE_SEND, "s1");
+        List<ScanSession> list = manager.getSessions();
+        assertEquals(3, list.size());
+        assertSame(s1, list.get(0));
+        assertSame(s2, list.get(1));
+        assertSame(s3, list.get(2));
+    }
+}
@@ -0,0 +1,118 @@
+package burp.pkey.onescan.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * VariableTemplate 测试（与原有的逐个变量 replace 实现对比）
+ */
+public class VariableTemplateTest {
+
+    private static final String[] NAMES = {"host", "domain", "subdomain", "timestamp", "random.ip"};
+
+    @Test
+    public void testNoVariable() {
+        String source = "GET / HTTP/1.1\r\nHost: a{b}c}}\r\n\r\n";
+        VariableTemplate template = VariableTemplate.compile(source);
+        assertFalse(template.hasVariable());
+        assertSame(source, template.fill(name -> {
+            throw new AssertionError("resolve " + name);
+        }));
+        assertFalse(VariableTemplate.compile("{{unclosed").hasVariable());
+    }
+
+    @Test
+    public void testFill() {
+        VariableTemplate template = VariableTemplate.compile("{{{{domain}}}}/{{host}}/{{unknown}}/{{host}}");
+        assertTrue(template.hasVariable());
+        List<String> resolved = new ArrayList<>();
+        String result = template.fill(name -> {
+            resolved.add(name);
+            return "domain".equals(name) ? "a.com" : "host".equals(name) ? "www.a.com" : null;
+        });
+        // 不支持的变量保留原样，每个变量只取值一次
+        assertEquals("{{a.com}}/www.a.com/{{unknown}}/www.a.com", result);
+        assertEquals(3, resolved.size());
+    }
+
+    @Test
+    public void testFillOutput() {
+        VariableTemplate template = VariableTemplate.compile("{{host}}/a/{{unknown}}{{host}}");
+        List<String> parts = new ArrayList<>();
+        template.fill(name -> "host".equals(name) ? "www.a.com" : null, parts::add);
+        // 依次写入文本和变量值（包括空文本）
+        assertEquals("www.a.com/a/{{unknown}}www.a.com", String.join("", parts));
+        assertEquals(template.fill(name -> "host".equals(name) ? "www.a.com" : null), String.join("", parts));
+        assertEquals(7, parts.size());
+        // 不包含变量时，直接写入原数据
+        parts.clear();
+        VariableTemplate.compile("GET / HTTP/1.1").fill(name -> {
+            throw new AssertionError("resolve " + name);
+        }, parts::add);
+        assertEquals(Collections.singletonList("GET / HTTP/1.1"), parts);
+    }
+
+    @Test
+    public void testResolveError() {
+        VariableTemplate template = VariableTemplate.compile("Host: {{host}}");
+        assertThrows(IllegalArgumentException.class, () -> template.fill(name -> {
+            throw new IllegalArgumentException(name + " fill failed, value is empty.");
+        }));
+        // 取值失败时，未写入任何数据
+        List<String> parts = new ArrayList<>();
+        assertThrows(IllegalArgumentException.class, () -> template.fill(name -> {
+            throw new IllegalArgumentException(name + " fill failed, value is empty.");
+        }, parts::add));
+        assertTrue(parts.isEmpty());
+    }
+
+    @Test
+    public void testRandomEquivalence() {
+        Random random = new Random(20240521L);
+        Map<String, String> values = new HashMap<>();
+        values.put("host", "www.example.com");
+        values.put("domain", "example.com");
+        values.put("subdomain", "www");
+        values.put("timestamp", "1700000000");
+        for (int round = 0; round < 5000; round++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(8);
+            for (int i = 0; i < count; i++) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        sb.append("{{").append(NAMES[random.nextInt(NAMES.length)]).append("}}");
+                        break;
+                    case 1:
+                        sb.append(random.nextBoolean() ? "{" : "}");
+                        break;
+                    default:
+                        sb.append("/path").append(random.nextInt(100));
+                        break;
+                }
+            }
+            String source = sb.toString();
+            String expected = source;
+            // 原有实现：逐个变量执行 replace
+            for (String name : NAMES) {
+                String value = values.get(name);
+                if (value != null) {
+                    expected = expected.replace("{{" + name + "}}", value);
+                }
+            }
+            String actual = VariableTemplate.compile(source).fill(values::get);
+            assertEquals(expected, actual, source);
+        }
+    }
+}